@@ -0,0 +1,230 @@
+/*
+    A lab for comparing combinatorial test suite generators
+    Copyright (C) 2017-2021 Sylvain Hallé, Edmond La Chance,
+    Vincent Porta-Scarta
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package combigraph.lab;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.Vector;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the time and the peak heap it takes to capture the standard
+ * output of a tool, on a synthetic stream of a given size. The capture
+ * into a {@link ChunkedByteBuffer} is compared with the former capture
+ * of {@link TimeoutCommandRunner}, which boxed every byte into a
+ * {@link Vector}. Each operation captures the whole stream and turns it
+ * into an array of bytes, as the lab does with the output of a tool.
+ * <p>
+ * The peak heap of each capture is reported by the secondary result
+ * {@code peakHeapMb}, which JMH sums over the measurement iterations.
+ * Bytes allocated per capture can be obtained by running the benchmark
+ * with {@code -prof gc}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx3g"})
+public class CaptureBenchmark
+{
+	/**
+	 * The size of the reads the synthetic stream answers, which is that of
+	 * a pipe on Linux
+	 */
+	protected static final transient int READ_SIZE = 65536;
+
+	/**
+	 * The size of the stream, in megabytes
+	 */
+	@Param({"100"})
+	public int sizeMb;
+
+	/**
+	 * Resets the peak usage of the heap before each capture
+	 */
+	@Setup(Level.Iteration)
+	public void setup()
+	{
+		System.gc();
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans())
+		{
+			if (pool.getType() == MemoryType.HEAP)
+			{
+				pool.resetPeakUsage();
+			}
+		}
+	}
+
+	/**
+	 * Captures the stream in a chunked buffer
+	 * @param heap Receives the peak heap during the capture
+	 * @return The captured bytes
+	 * @throws IOException Never; the stream is in memory
+	 */
+	@Benchmark
+	public byte[] chunked(HeapCounters heap) throws IOException
+	{
+		ChunkedByteBuffer contents = new ChunkedByteBuffer();
+		contents.readFrom(new SyntheticStream(sizeMb * 1024L * 1024L));
+		byte[] out = contents.toByteArray();
+		heap.record();
+		return out;
+	}
+
+	/**
+	 * Captures the stream the way the former stream gobbler did
+	 * @param heap Receives the peak heap during the capture
+	 * @return The captured bytes
+	 * @throws IOException Never; the stream is in memory
+	 */
+	@Benchmark
+	public byte[] boxed(HeapCounters heap) throws IOException
+	{
+		InputStream is = new SyntheticStream(sizeMb * 1024L * 1024L);
+		Vector<Byte> contents = new Vector<Byte>();
+		byte[] buffer = new byte[8192];
+		int len = -1;
+		while ((len = is.read(buffer)) > 0)
+		{
+			synchronized (this)
+			{
+				for (int i = 0; i < len; i++)
+				{
+					contents.add(buffer[i]);
+				}
+			}
+		}
+		byte[] out;
+		synchronized (this)
+		{
+			out = new byte[contents.size()];
+			int i = 0;
+			for (byte b : contents)
+			{
+				out[i++] = b;
+			}
+		}
+		heap.record();
+		return out;
+	}
+
+	/**
+	 * Secondary results of the benchmark
+	 */
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	@State(Scope.Thread)
+	public static class HeapCounters
+	{
+		/**
+		 * The sum of the peak usage of each heap pool since the beginning of
+		 * the iteration, in megabytes
+		 */
+		public long peakHeapMb;
+
+		/**
+		 * Records the peak usage of the heap
+		 */
+		protected void record()
+		{
+			long peak = 0;
+			for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans())
+			{
+				if (pool.getType() == MemoryType.HEAP)
+				{
+					peak += pool.getPeakUsage().getUsed();
+				}
+			}
+			peakHeapMb = peak / (1024 * 1024);
+		}
+	}
+
+	/**
+	 * An input stream of a given number of bytes, answering reads of at
+	 * most {@link #READ_SIZE} bytes like a pipe would
+	 */
+	protected static class SyntheticStream extends InputStream
+	{
+		/**
+		 * The bytes copied into the reader's buffer
+		 */
+		protected final byte[] m_source;
+
+		/**
+		 * The number of bytes left in the stream
+		 */
+		protected long m_remaining;
+
+		/**
+		 * Creates a new synthetic stream
+		 * @param size The number of bytes in the stream
+		 */
+		public SyntheticStream(long size)
+		{
+			super();
+			m_remaining = size;
+			m_source = new byte[READ_SIZE];
+			for (int i = 0; i < READ_SIZE; i++)
+			{
+				m_source[i] = (byte) ('0' + i % 10);
+			}
+		}
+
+		@Override
+		public int read()
+		{
+			if (m_remaining == 0)
+			{
+				return -1;
+			}
+			m_remaining--;
+			return '0';
+		}
+
+		@Override
+		public int read(byte[] b, int off, int len)
+		{
+			if (m_remaining == 0)
+			{
+				return -1;
+			}
+			int to_copy = (int) Math.min(Math.min(len, READ_SIZE), m_remaining);
+			System.arraycopy(m_source, 0, b, off, to_copy);
+			m_remaining -= to_copy;
+			return to_copy;
+		}
+	}
+}
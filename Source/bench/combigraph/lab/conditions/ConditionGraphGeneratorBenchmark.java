@@ -0,0 +1,163 @@
+/*
+    A lab for comparing combinatorial test suite generators
+    Copyright (C) 2017-2021 Sylvain Hallé, Edmond La Chance,
+    Vincent Porta-Scarta
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package combigraph.lab.conditions;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.text.ParseException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import ca.uqac.lif.labpal.Random;
+import combigraph.lab.graphs.CsrGraph;
+import combigraph.lab.problems.ForbiddenTuples;
+import combigraph.lab.problems.IncreasingValues;
+import combigraph.lab.problems.TWayProblem;
+
+/**
+ * Measures the time {@link ConditionGraphGenerator} takes to produce the
+ * graph of a problem, either as the DOT text given to the external
+ * colouring tools or as the in-memory graph of the in-JVM tools. The
+ * problems are generated with a fixed seed, with the same parameters as
+ * in the lab.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConditionGraphGeneratorBenchmark
+{
+	/**
+	 * The name of the problem
+	 */
+	@Param({ForbiddenTuples.NAME, IncreasingValues.NAME})
+	public String problem;
+
+	/**
+	 * The interaction strength
+	 */
+	@Param({"2", "3"})
+	public int t;
+
+	/**
+	 * The size of the domain of each parameter
+	 */
+	@Param({"3"})
+	public int v;
+
+	/**
+	 * The number of parameters
+	 */
+	@Param({"10"})
+	public int n;
+
+	/**
+	 * The specification of the problem
+	 */
+	protected QictSpecification m_spec;
+
+	@Setup
+	public void setup() throws ParseException
+	{
+		Random random = new Random();
+		random.setSeed(0);
+		TWayProblem p;
+		if (problem.compareTo(ForbiddenTuples.NAME) == 0)
+		{
+			p = new ForbiddenTuples(random, t, v, n, 0.5f, 0.5f);
+		}
+		else
+		{
+			p = new IncreasingValues(random, t, v, n);
+		}
+		m_spec = p.getQictSpecification();
+	}
+
+	/**
+	 * Writes the graph in the DOT format
+	 * @param bh Receives the output
+	 * @throws ParseException Never; the specification is generated
+	 */
+	@Benchmark
+	public void generate(Blackhole bh) throws ParseException
+	{
+		PrintStream ps = new PrintStream(new BlackholeStream(bh));
+		new ConditionGraphGenerator(m_spec, t).generate(ps);
+		ps.flush();
+	}
+
+	/**
+	 * Builds the graph in memory
+	 * @return The graph
+	 * @throws ParseException Never; the specification is generated
+	 */
+	@Benchmark
+	public CsrGraph buildGraph() throws ParseException
+	{
+		return new ConditionGraphGenerator(m_spec, t).buildGraph();
+	}
+
+	/**
+	 * An output stream that hands what it receives to a blackhole
+	 */
+	protected static class BlackholeStream extends OutputStream
+	{
+		/**
+		 * The blackhole
+		 */
+		protected final Blackhole m_blackhole;
+
+		/**
+		 * Creates a new stream
+		 * @param bh The blackhole
+		 */
+		public BlackholeStream(Blackhole bh)
+		{
+			super();
+			m_blackhole = bh;
+		}
+
+		@Override
+		public void write(int b)
+		{
+			m_blackhole.consume(b);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len)
+		{
+			m_blackhole.consume(b);
+			m_blackhole.consume(len);
+		}
+	}
+}
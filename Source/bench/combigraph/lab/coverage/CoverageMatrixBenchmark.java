@@ -0,0 +1,139 @@
+/*
+    A lab for comparing combinatorial test suite generators
+    Copyright (C) 2017-2021 Sylvain Hallé, Edmond La Chance,
+    Vincent Porta-Scarta
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package combigraph.lab.coverage;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures the number of rows per second a {@link CoverageMatrix} can
+ * process, for random rows over <i>n</i> parameters of domain size
+ * <i>v</i>. Each benchmark operation processes a single row, so that the
+ * throughput reported by JMH is in rows per second.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CoverageMatrixBenchmark
+{
+	/**
+	 * The number of distinct random rows cycled through by the benchmark
+	 */
+	protected static final transient int NUM_ROWS = 4096;
+
+	/**
+	 * The interaction strength
+	 */
+	@Param({"2", "3", "4", "5", "6"})
+	public int t;
+
+	/**
+	 * The number of parameters
+	 */
+	@Param({"15"})
+	public int n;
+
+	/**
+	 * The size of the domain of each parameter
+	 */
+	@Param({"3"})
+	public int v;
+
+	/**
+	 * The matrix rows are added to
+	 */
+	protected CoverageMatrix m_matrix;
+
+	/**
+	 * The rows, generated with a fixed seed
+	 */
+	protected int[][] m_rows;
+
+	/**
+	 * The index of the next row to process
+	 */
+	protected int m_next;
+
+	@Setup
+	public void setup()
+	{
+		int[] domain_sizes = new int[n];
+		for (int i = 0; i < n; i++)
+		{
+			domain_sizes[i] = v;
+		}
+		m_matrix = new CoverageMatrix(t, domain_sizes);
+		Random random = new Random(0);
+		m_rows = new int[NUM_ROWS][n];
+		for (int[] row : m_rows)
+		{
+			for (int i = 0; i < n; i++)
+			{
+				row[i] = random.nextInt(v);
+			}
+		}
+		m_next = 0;
+	}
+
+	/**
+	 * Adds one row to the matrix
+	 * @return The number of tuples newly covered by the row
+	 */
+	@Benchmark
+	public int addRow()
+	{
+		return m_matrix.addRow(nextRow());
+	}
+
+	/**
+	 * Counts the tuples one row would newly cover, without adding it
+	 * @return The number of tuples
+	 */
+	@Benchmark
+	public int countNewTuples()
+	{
+		return m_matrix.countNewTuples(nextRow());
+	}
+
+	/**
+	 * Gets the next row to process, cycling through the generated rows
+	 * @return The row
+	 */
+	protected int[] nextRow()
+	{
+		int[] row = m_rows[m_next];
+		m_next = (m_next + 1) % NUM_ROWS;
+		return row;
+	}
+}
@@ -0,0 +1,247 @@
+/*
+    A lab for comparing combinatorial test suite generators
+    Copyright (C) 2017-2021 Sylvain Hallé, Edmond La Chance,
+    Vincent Porta-Scarta
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package combigraph.lab.problems;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.text.ParseException;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+
+import ca.uqac.lif.labpal.Random;
+import combigraph.lab.ProcessLauncher;
+import combigraph.lab.ProcessResult;
+import combigraph.lab.conditions.ConditionGraphGenerator;
+import combigraph.lab.conditions.ConditionHypergraphGenerator;
+import combigraph.lab.conditions.QictSpecification;
+
+/**
+ * Compares the graph and hypergraph generators of the lab with the PHP
+ * scripts they were ported from, on the same instances. For each
+ * instance, the condition file read by the scripts is written to a
+ * temporary file; the script is run on it through a
+ * {@link ProcessLauncher}, and its output is compared byte for byte with
+ * that of {@link ConditionGraphGenerator} or, for the EDN hypergraph, of
+ * {@link ConditionHypergraphGenerator}. The duration of both is printed;
+ * that of the script includes the start of the PHP interpreter, as it did
+ * when the lab called the script.
+ * <p>
+ * The existing tests of a {@link TestSuiteCompletion} are passed to the
+ * script as "once" conditions; the hypergraph is therefore compared
+ * without leaving out the edges of the tuples they cover, which the
+ * script never did.
+ * <p>
+ * Usage: <tt>ScriptComparison [folder of the scripts]</tt>. The process
+ * ends with a non-zero code if an output differs.
+ */
+public class ScriptComparison
+{
+	/**
+	 * The number of times the Java generator is run on each instance; the
+	 * first run warms up the JVM and is not counted
+	 */
+	protected static final transient int JAVA_RUNS = 6;
+
+	/**
+	 * The launcher running the scripts
+	 */
+	protected final ProcessLauncher m_launcher = new ProcessLauncher(1);
+
+	/**
+	 * The folder containing the scripts
+	 */
+	protected final File m_scripts;
+
+	/**
+	 * The number of instances whose outputs differ
+	 */
+	protected int m_differences = 0;
+
+	/**
+	 * Creates a new comparison
+	 * @param scripts The folder containing the scripts
+	 */
+	public ScriptComparison(File scripts)
+	{
+		super();
+		m_scripts = scripts;
+	}
+
+	public static void main(String[] args) throws IOException, ParseException, InterruptedException, ExecutionException
+	{
+		File scripts = new File(args.length > 0 ? args[0] : "Source/src/combigraph/lab/scripts");
+		ScriptComparison comparison = new ScriptComparison(scripts);
+		System.out.println("Instance\tPHP (ms)\tJava (ms)\tSame output");
+		for (int t = 2; t <= 3; t++)
+		{
+			for (int n : new int[] {6, 10})
+			{
+				comparison.compareGraph("Forbidden tuples t=" + t + " n=" + n, new ForbiddenTuples(newRandom(), t, 3, n, 0.5f, 0.5f));
+				comparison.compareGraph("Increasing values t=" + t + " n=" + n, new IncreasingValues(newRandom(), t, 3, n));
+			}
+			// The hypergraph script evaluates every condition on every
+			// valuation, which takes hours beyond a few thousand of them
+			for (int n : new int[] {6, 8})
+			{
+				comparison.compareHypergraph("Forbidden tuples (EDN) t=" + t + " n=" + n, new ForbiddenTuples(newRandom(), t, 3, n, 0.5f, 0.5f));
+				comparison.compareHypergraph("Increasing values (EDN) t=" + t + " n=" + n, new IncreasingValues(newRandom(), t, 3, n));
+				comparison.compareHypergraph("Test suite completion (EDN) t=" + t + " n=" + n, new TestSuiteCompletion(newRandom(), t, 3, n, 5));
+			}
+		}
+		comparison.m_launcher.shutdown();
+		if (comparison.m_differences > 0)
+		{
+			System.out.println(comparison.m_differences + " instance(s) with different outputs");
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * Compares the graph of an instance produced by the script and by the
+	 * Java generator
+	 * @param name The name of the instance, as printed
+	 * @param problem The instance
+	 * @throws IOException If the condition file cannot be written
+	 * @throws ParseException If the conditions of the instance cannot be
+	 * parsed
+	 * @throws InterruptedException If the thread is interrupted while the
+	 * script runs
+	 * @throws ExecutionException If the script cannot be run
+	 */
+	public void compareGraph(String name, ConstrainedProblem problem) throws IOException, ParseException, InterruptedException, ExecutionException
+	{
+		File conditions = writeConditions(problem);
+		String[] command = {"php", new File(m_scripts, "variables-to-graph.php").getAbsolutePath(), Integer.toString(problem.getT()), conditions.getAbsolutePath()};
+		compare(name, problem, command, conditions, false);
+	}
+
+	/**
+	 * Compares the EDN hypergraph of an instance produced by the script and
+	 * by the Java generator
+	 * @param name The name of the instance, as printed
+	 * @param problem The instance
+	 * @throws IOException If the condition file cannot be written
+	 * @throws ParseException If the conditions of the instance cannot be
+	 * parsed
+	 * @throws InterruptedException If the thread is interrupted while the
+	 * script or the generator runs
+	 * @throws ExecutionException If the script cannot be run
+	 */
+	public void compareHypergraph(String name, ConstrainedProblem problem) throws IOException, ParseException, InterruptedException, ExecutionException
+	{
+		File conditions = writeConditions(problem);
+		String[] command = {"php", new File(m_scripts, "variables-to-hypergraph.php").getAbsolutePath(), "-t", Integer.toString(problem.getT()), "--edn", conditions.getAbsolutePath()};
+		compare(name, problem, command, conditions, true);
+	}
+
+	/**
+	 * Runs a script on a condition file and compares its output with that
+	 * of the corresponding Java generator
+	 * @param name The name of the instance, as printed
+	 * @param problem The instance
+	 * @param command The command running the script
+	 * @param conditions The condition file, deleted once the script is done
+	 * @param hypergraph Set to <tt>true</tt> to compare with the hypergraph
+	 * generator
+	 * @throws ParseException If the conditions of the instance cannot be
+	 * parsed
+	 * @throws InterruptedException If the thread is interrupted while the
+	 * script or the generator runs
+	 * @throws ExecutionException If the script cannot be run
+	 */
+	protected void compare(String name, ConstrainedProblem problem, String[] command, File conditions, boolean hypergraph) throws ParseException, InterruptedException, ExecutionException
+	{
+		long start = System.nanoTime();
+		ProcessResult result = m_launcher.submit(command).get();
+		long php_duration = System.nanoTime() - start;
+		conditions.delete();
+		QictSpecification spec = problem.getQictSpecification();
+		byte[] java_output = null;
+		long java_duration = 0;
+		for (int i = 0; i < JAVA_RUNS; i++)
+		{
+			ByteArrayOutputStream baos = new ByteArrayOutputStream();
+			PrintStream ps = new PrintStream(baos);
+			start = System.nanoTime();
+			if (hypergraph)
+			{
+				new ConditionHypergraphGenerator(spec, problem.getT()).generate(ps);
+			}
+			else
+			{
+				new ConditionGraphGenerator(spec, problem.getT()).generate(ps);
+			}
+			ps.flush();
+			if (i > 0)
+			{
+				java_duration += System.nanoTime() - start;
+			}
+			java_output = baos.toByteArray();
+		}
+		print(name, php_duration, java_duration / (JAVA_RUNS - 1), Arrays.equals(result.getBytes(), java_output));
+	}
+
+	/**
+	 * Writes the domains and conditions of an instance to a temporary file,
+	 * as the lab did for the scripts
+	 * @param problem The instance
+	 * @return The file
+	 * @throws IOException If the file cannot be written
+	 */
+	protected static File writeConditions(ConstrainedProblem problem) throws IOException
+	{
+		File temp = File.createTempFile("comparison", ".ncond");
+		PrintStream ps = new PrintStream(temp);
+		problem.printQictDomains(ps);
+		problem.generateQictConstraintString(ps);
+		ps.close();
+		return temp;
+	}
+
+	/**
+	 * Prints the outcome of a comparison
+	 * @param name The name of the instance
+	 * @param php_duration The duration of the script, in nanoseconds
+	 * @param java_duration The duration of the Java generator, in
+	 * nanoseconds
+	 * @param same Whether both outputs are identical
+	 */
+	protected void print(String name, long php_duration, long java_duration, boolean same)
+	{
+		if (!same)
+		{
+			m_differences++;
+		}
+		System.out.println(name + "\t" + php_duration / 1000000 + "\t" + String.format("%.2f", java_duration / 1e6) + "\t" + (same ? "yes" : "NO"));
+	}
+
+	/**
+	 * Creates a random generator with a fixed seed, so that the instances
+	 * are the same from one comparison to the next
+	 * @return The generator
+	 */
+	protected static Random newRandom()
+	{
+		Random random = new Random();
+		random.setSeed(0);
+		return random;
+	}
+}
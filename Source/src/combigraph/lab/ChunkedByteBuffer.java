@@ -0,0 +1,185 @@
+/*
+    A lab for comparing combinatorial test suite generators
+    Copyright (C) 2017-2021 Sylvain Hallé, Edmond La Chance,
+    Vincent Porta-Scarta
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package combigraph.lab;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Growable store of bytes made of fixed-size primitive chunks. Contrary to
+ * a single array, the buffer never copies what it already contains when it
+ * grows; contrary to a collection of {@link Byte}, it does not box its
+ * contents. Only one thread is expected to write into the buffer, while
+ * any other thread may read from it.
+ */
+public class ChunkedByteBuffer
+{
+	/**
+	 * The default size of each chunk, in bytes
+	 */
+	public static final transient int DEFAULT_CHUNK_SIZE = 65536;
+
+	/**
+	 * The chunks of the buffer. All chunks except the last are full.
+	 */
+	protected final List<byte[]> m_chunks;
+
+	/**
+	 * The size of each chunk
+	 */
+	protected final int m_chunkSize;
+
+	/**
+	 * The number of bytes used in the last chunk
+	 */
+	protected int m_lastLength;
+
+	/**
+	 * The total number of bytes in the buffer
+	 */
+	protected long m_size;
+
+	/**
+	 * Creates a new empty buffer with the default chunk size
+	 */
+	public ChunkedByteBuffer()
+	{
+		this(DEFAULT_CHUNK_SIZE);
+	}
+
+	/**
+	 * Creates a new empty buffer
+	 * @param chunk_size The size of each chunk, in bytes
+	 */
+	public ChunkedByteBuffer(int chunk_size)
+	{
+		super();
+		m_chunkSize = chunk_size;
+		m_chunks = new ArrayList<byte[]>();
+		m_lastLength = chunk_size;
+		m_size = 0;
+	}
+
+	/**
+	 * Appends bytes to the end of the buffer
+	 * @param b The array containing the bytes
+	 * @param offset The position of the first byte to append in the array
+	 * @param len The number of bytes to append
+	 */
+	public synchronized void write(byte[] b, int offset, int len)
+	{
+		while (len > 0)
+		{
+			if (m_lastLength == m_chunkSize)
+			{
+				m_chunks.add(new byte[m_chunkSize]);
+				m_lastLength = 0;
+			}
+			byte[] last = m_chunks.get(m_chunks.size() - 1);
+			int to_copy = Math.min(len, m_chunkSize - m_lastLength);
+			System.arraycopy(b, offset, last, m_lastLength, to_copy);
+			m_lastLength += to_copy;
+			m_size += to_copy;
+			offset += to_copy;
+			len -= to_copy;
+		}
+	}
+
+	/**
+	 * Reads an input stream until its end, and appends everything that is
+	 * read to the buffer. Bytes are read directly into the chunks, so that
+	 * no intermediate copy is made.
+	 * @param is The input stream to read from
+	 * @return The number of bytes read
+	 * @throws IOException If reading from the stream fails
+	 */
+	public long readFrom(InputStream is) throws IOException
+	{
+		long total = 0;
+		while (true)
+		{
+			byte[] last;
+			int offset;
+			synchronized (this)
+			{
+				if (m_lastLength == m_chunkSize)
+				{
+					m_chunks.add(new byte[m_chunkSize]);
+					m_lastLength = 0;
+				}
+				last = m_chunks.get(m_chunks.size() - 1);
+				offset = m_lastLength;
+			}
+			int len = is.read(last, offset, m_chunkSize - offset);
+			if (len < 0)
+			{
+				return total;
+			}
+			synchronized (this)
+			{
+				m_lastLength += len;
+				m_size += len;
+			}
+			total += len;
+		}
+	}
+
+	/**
+	 * Gets the number of bytes in the buffer
+	 * @return The number of bytes
+	 */
+	public synchronized long size()
+	{
+		return m_size;
+	}
+
+	/**
+	 * Returns the contents of the buffer as a single array of bytes
+	 * @return The contents
+	 */
+	public synchronized byte[] toByteArray()
+	{
+		if (m_size > Integer.MAX_VALUE)
+		{
+			throw new IllegalStateException("Buffer too large to fit in an array");
+		}
+		byte[] out = new byte[(int) m_size];
+		int pos = 0;
+		int last_index = m_chunks.size() - 1;
+		for (int i = 0; i <= last_index; i++)
+		{
+			int len = i == last_index ? m_lastLength : m_chunkSize;
+			System.arraycopy(m_chunks.get(i), 0, out, pos, len);
+			pos += len;
+		}
+		return out;
+	}
+
+	/**
+	 * Empties the buffer and releases its chunks
+	 */
+	public synchronized void clear()
+	{
+		m_chunks.clear();
+		m_lastLength = m_chunkSize;
+		m_size = 0;
+	}
+}
@@ -0,0 +1,284 @@
+/*
+    A lab for comparing combinatorial test suite generators
+    Copyright (C) 2017-2021 Sylvain Hallé, Edmond La Chance,
+    Vincent Porta-Scarta
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package combigraph.lab;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Scanner;
+
+import combigraph.lab.graphs.TupleNumbering;
+
+/**
+ * Predicts the duration of an experiment from the durations of the
+ * experiments already run. The logarithm of the duration is fitted by
+ * least squares as a linear function of the logarithm of the number of
+ * tuples to cover, <i>C(n,t)&middot;v<sup>t</sup></i>, and of <i>t</i>.
+ * <p>
+ * A model is fitted for each combination of tool and problem, for each
+ * tool, and for all the durations together. A prediction comes from the
+ * most specific of these models that has enough durations; the last one
+ * lets tools that have not run yet be predicted from the others, and from
+ * reference data such as the published timings of GBGA.
+ */
+public class CostModel
+{
+	/**
+	 * The minimum number of durations a model is fitted from
+	 */
+	public static final transient int MIN_OBSERVATIONS = 3;
+
+	/**
+	 * The weight of the penalty on the coefficients of the variables, which
+	 * keeps the fit stable when the durations cover few values of <i>t</i>
+	 * or few sizes
+	 */
+	protected static final transient double RIDGE = 0.01;
+
+	/**
+	 * The key of the model fitted from all the durations
+	 */
+	protected static final transient String ALL = "";
+
+	/**
+	 * The durations of each model, as triplets made of the logarithm of the
+	 * number of tuples, <i>t</i> and the logarithm of the duration
+	 */
+	protected final Map<String,List<double[]>> m_observations = new HashMap<String,List<double[]>>();
+
+	/**
+	 * The coefficients of each model fitted since its last duration was
+	 * added
+	 */
+	protected final Map<String,double[]> m_coefficients = new HashMap<String,double[]>();
+
+	/**
+	 * Adds the duration of a run
+	 * @param tool_name The name of the tool
+	 * @param problem_name The name of the problem
+	 * @param t The interaction strength
+	 * @param v The size of the domains
+	 * @param n The number of parameters
+	 * @param duration The duration, in milliseconds. The duration of a run
+	 * that has timed out can be added as well, as it is a lower bound of
+	 * the actual duration.
+	 */
+	public synchronized void add(String tool_name, String problem_name, int t, int v, int n, double duration)
+	{
+		double[] observation = new double[] {logTuples(t, v, n), t, Math.log(Math.max(1, duration))};
+		add(getKey(tool_name, problem_name), observation);
+		add(tool_name, observation);
+		add(ALL, observation);
+	}
+
+	/**
+	 * Predicts the duration of a run
+	 * @param tool_name The name of the tool
+	 * @param problem_name The name of the problem
+	 * @param t The interaction strength
+	 * @param v The size of the domains
+	 * @param n The number of parameters
+	 * @param same_tool Set to <tt>true</tt> to predict only from the
+	 * durations of the same tool
+	 * @return The duration, in milliseconds, or -1 if no model has enough
+	 * durations
+	 */
+	public synchronized double predict(String tool_name, String problem_name, int t, int v, int n, boolean same_tool)
+	{
+		double[] coefficients = getCoefficients(getKey(tool_name, problem_name));
+		if (coefficients == null)
+		{
+			coefficients = getCoefficients(tool_name);
+		}
+		if (coefficients == null && !same_tool)
+		{
+			coefficients = getCoefficients(ALL);
+		}
+		if (coefficients == null)
+		{
+			return -1;
+		}
+		return Math.exp(coefficients[0] + coefficients[1] * logTuples(t, v, n) + coefficients[2] * t);
+	}
+
+	/**
+	 * Adds reference durations, read from lines made of <i>t</i>,
+	 * <i>n</i>, <i>v</i>, the size of the test suite and the duration in
+	 * seconds, separated by whitespace. Empty lines and lines starting with
+	 * <tt>#</tt> are ignored.
+	 * @param tool_name The name of the tool the durations come from
+	 * @param problem_name The name of the problem
+	 * @param scanner The scanner to read the lines from
+	 */
+	public void addReference(String tool_name, String problem_name, Scanner scanner)
+	{
+		while (scanner.hasNextLine())
+		{
+			String line = scanner.nextLine().trim();
+			if (line.isEmpty() || line.startsWith("#"))
+			{
+				continue;
+			}
+			String[] parts = line.split("\\s+");
+			int t = Integer.parseInt(parts[0]);
+			int n = Integer.parseInt(parts[1]);
+			int v = Integer.parseInt(parts[2]);
+			double seconds = Double.parseDouble(parts[4]);
+			add(tool_name, problem_name, t, v, n, seconds * 1000);
+		}
+	}
+
+	/**
+	 * Gets the number of durations of a tool
+	 * @param tool_name The name of the tool
+	 * @return The number of durations
+	 */
+	public synchronized int getCount(String tool_name)
+	{
+		List<double[]> observations = m_observations.get(tool_name);
+		return observations == null ? 0 : observations.size();
+	}
+
+	/**
+	 * Adds a duration to a model
+	 * @param key The key of the model
+	 * @param observation The duration
+	 */
+	protected void add(String key, double[] observation)
+	{
+		List<double[]> observations = m_observations.get(key);
+		if (observations == null)
+		{
+			observations = new ArrayList<double[]>();
+			m_observations.put(key, observations);
+		}
+		observations.add(observation);
+		m_coefficients.remove(key);
+	}
+
+	/**
+	 * Gets the coefficients of a model, fitting it if needed
+	 * @param key The key of the model
+	 * @return The intercept and the coefficients of the logarithm of the
+	 * number of tuples and of <i>t</i>, or null if the model does not have
+	 * enough durations
+	 */
+	protected double[] getCoefficients(String key)
+	{
+		List<double[]> observations = m_observations.get(key);
+		if (observations == null || observations.size() < MIN_OBSERVATIONS)
+		{
+			return null;
+		}
+		double[] coefficients = m_coefficients.get(key);
+		if (coefficients == null)
+		{
+			coefficients = fit(observations);
+			m_coefficients.put(key, coefficients);
+		}
+		return coefficients;
+	}
+
+	/**
+	 * Fits a model to durations by solving its normal equations
+	 * @param observations The durations
+	 * @return The coefficients of the model
+	 */
+	protected static double[] fit(List<double[]> observations)
+	{
+		// Augmented matrix of the normal equations
+		double[][] a = new double[3][4];
+		double[] x = new double[3];
+		for (double[] o : observations)
+		{
+			x[0] = 1;
+			x[1] = o[0];
+			x[2] = o[1];
+			for (int i = 0; i < 3; i++)
+			{
+				for (int j = 0; j < 3; j++)
+				{
+					a[i][j] += x[i] * x[j];
+				}
+				a[i][3] += x[i] * o[2];
+			}
+		}
+		// The intercept is not penalized
+		a[1][1] += RIDGE * observations.size();
+		a[2][2] += RIDGE * observations.size();
+		// Gaussian elimination with partial pivoting
+		for (int col = 0; col < 3; col++)
+		{
+			int pivot = col;
+			for (int row = col + 1; row < 3; row++)
+			{
+				if (Math.abs(a[row][col]) > Math.abs(a[pivot][col]))
+				{
+					pivot = row;
+				}
+			}
+			double[] swap = a[col];
+			a[col] = a[pivot];
+			a[pivot] = swap;
+			for (int row = col + 1; row < 3; row++)
+			{
+				double factor = a[row][col] / a[col][col];
+				for (int k = col; k < 4; k++)
+				{
+					a[row][k] -= factor * a[col][k];
+				}
+			}
+		}
+		double[] coefficients = new double[3];
+		for (int row = 2; row >= 0; row--)
+		{
+			double sum = a[row][3];
+			for (int k = row + 1; k < 3; k++)
+			{
+				sum -= a[row][k] * coefficients[k];
+			}
+			coefficients[row] = sum / a[row][row];
+		}
+		return coefficients;
+	}
+
+	/**
+	 * Computes the logarithm of the number of tuples of a problem
+	 * @param t The interaction strength
+	 * @param v The size of the domains
+	 * @param n The number of parameters
+	 * @return The logarithm
+	 */
+	protected static double logTuples(int t, int v, int n)
+	{
+		return Math.log(Math.max(1, TupleNumbering.binomial(n, t))) + t * Math.log(Math.max(1, v));
+	}
+
+	/**
+	 * Gets the key of the model of a tool on a problem
+	 * @param tool_name The name of the tool
+	 * @param problem_name The name of the problem
+	 * @return The key
+	 */
+	protected static String getKey(String tool_name, String problem_name)
+	{
+		return tool_name + "|" + problem_name;
+	}
+}
@@ -0,0 +1,646 @@
+/*
+    A lab for comparing combinatorial test suite generators
+    Copyright (C) 2017-2021 Sylvain Hallé, Edmond La Chance,
+    Vincent Porta-Scarta
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package combigraph.lab;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import ca.uqac.lif.labpal.ExperimentException;
+import ca.uqac.lif.labpal.FileHelper;
+import combigraph.lab.experiments.TestGenerationExperiment;
+
+/**
+ * Runs the experiments of the lab concurrently, within a budget of cores
+ * and a maximum number of simultaneous runs for each tool.
+ * <p>
+ * The scheduler plugs into the lab's own run loop: experiments are added
+ * to it as they are created, but are only run once the lab asks for them.
+ * When the loop reaches an experiment,
+ * {@link TestGenerationExperiment#execute() execute()} moves it to the
+ * front of the queue if it has not started yet, and waits for its run to
+ * end; the results of the run are written to the experiment as usual.
+ * Meanwhile, the experiments that the lab has queued, as told by the
+ * scheduler's {@link LabQueue} each time the loop executes an experiment,
+ * are run ahead of the loop, in the order they were added. Experiments
+ * that the lab has not queued are never run ahead. An experiment that is executed again after its run has been
+ * collected is run anew.
+ * <p>
+ * When the scheduler is given a {@link CostModel}, the queued experiments
+ * that the loop has not reached yet are run longest first, according to the
+ * durations predicted by the model, so that the short runs fill the cores
+ * left at the end instead of waiting for a long run started last. The
+ * model is seeded with the results already present in the lab, and
+ * refined as the runs end.
+ * <p>
+ * Each run takes a number of cores that depends on its tool (one by
+ * default, more for the in-JVM tools that use several threads). When cores
+ * are reserved, one core is left to the lab itself, and each run is given
+ * its own cores; on systems with <tt>taskset</tt>, the external commands of
+ * the run are pinned to them, so that concurrent runs do not disturb each
+ * other's timings.
+ */
+public class ExperimentScheduler
+{
+	/**
+	 * The command used to pin external commands to cores
+	 */
+	public static final transient String TASKSET = "taskset";
+
+	/**
+	 * The cores reserved for the run executed by the current thread, if
+	 * any
+	 */
+	protected static final transient ThreadLocal<int[]> s_cores = new ThreadLocal<int[]>();
+
+	/**
+	 * Whether <tt>taskset</tt> exists on this system, or null if this has
+	 * not been checked yet
+	 */
+	protected static Boolean s_hasTaskset = null;
+
+	/**
+	 * The number of cores available to the runs
+	 */
+	protected final int m_cores;
+
+	/**
+	 * Whether each run is given its own cores
+	 */
+	protected final boolean m_reserveCores;
+
+	/**
+	 * Whether each core is taken by a run
+	 */
+	protected final boolean[] m_taken;
+
+	/**
+	 * The number of cores not taken by a run
+	 */
+	protected int m_freeCores;
+
+	/**
+	 * The maximum number of simultaneous runs of each tool
+	 */
+	protected final Map<String,Integer> m_toolLimits = new HashMap<String,Integer>();
+
+	/**
+	 * The number of cores taken by a run of each tool
+	 */
+	protected final Map<String,Integer> m_toolCores = new HashMap<String,Integer>();
+
+	/**
+	 * The number of runs of each tool in progress
+	 */
+	protected final Map<String,Integer> m_toolRuns = new HashMap<String,Integer>();
+
+	/**
+	 * The experiments waiting to be run, in order
+	 */
+	protected final LinkedList<TestGenerationExperiment> m_pending = new LinkedList<TestGenerationExperiment>();
+
+	/**
+	 * The run of each experiment added to the scheduler
+	 */
+	protected final Map<TestGenerationExperiment,Run> m_runs = new IdentityHashMap<TestGenerationExperiment,Run>();
+
+	/**
+	 * The threads executing the runs, created when the scheduler starts
+	 */
+	protected ExecutorService m_pool = null;
+
+	/**
+	 * The model ordering the pending experiments, or null to run them in
+	 * the order they were added
+	 */
+	protected CostModel m_costModel = null;
+
+	/**
+	 * The experiments queued in the lab, or null to run only the
+	 * experiments the lab's run loop has reached
+	 */
+	protected LabQueue m_queue = null;
+
+	/**
+	 * Creates a new scheduler
+	 * @param cores The number of cores that the runs can take together
+	 * @param reserve_cores Set to <tt>true</tt> to leave a core to the lab
+	 * and give each run its own cores
+	 */
+	public ExperimentScheduler(int cores, boolean reserve_cores)
+	{
+		super();
+		m_reserveCores = reserve_cores;
+		m_cores = Math.max(1, reserve_cores ? cores - 1 : cores);
+		m_taken = new boolean[m_cores + (reserve_cores ? 1 : 0)];
+		m_freeCores = m_cores;
+		if (reserve_cores)
+		{
+			// Core 0 is left to the lab
+			m_taken[0] = true;
+		}
+	}
+
+	/**
+	 * Sets the maximum number of simultaneous runs of a tool
+	 * @param tool_name The name of the tool
+	 * @param limit The number of runs
+	 * @return This scheduler
+	 */
+	public synchronized ExperimentScheduler setToolLimit(String tool_name, int limit)
+	{
+		m_toolLimits.put(tool_name, Math.max(1, limit));
+		return this;
+	}
+
+	/**
+	 * Sets the number of cores taken by a run of a tool
+	 * @param tool_name The name of the tool
+	 * @param cores The number of cores. Runs never take more than the
+	 * cores of the scheduler.
+	 * @return This scheduler
+	 */
+	public synchronized ExperimentScheduler setToolCores(String tool_name, int cores)
+	{
+		m_toolCores.put(tool_name, Math.max(1, cores));
+		return this;
+	}
+
+	/**
+	 * Sets the model used to run the experiments longest first
+	 * @param model The model, or null to run the experiments in the order
+	 * they were added
+	 * @return This scheduler
+	 */
+	public synchronized ExperimentScheduler setCostModel(CostModel model)
+	{
+		m_costModel = model;
+		return this;
+	}
+
+	/**
+	 * Sets the view of the experiments queued in the lab, which the
+	 * scheduler may run ahead of the lab's run loop
+	 * @param queue The queue, or null to run only the experiments that the
+	 * loop has reached
+	 * @return This scheduler
+	 */
+	public synchronized ExperimentScheduler setQueue(LabQueue queue)
+	{
+		m_queue = queue;
+		return this;
+	}
+
+	/**
+	 * Adds an experiment to the scheduler. The experiment is not run until
+	 * the lab queues or executes it.
+	 * @param e The experiment
+	 */
+	public synchronized void add(TestGenerationExperiment e)
+	{
+		if (!m_runs.containsKey(e))
+		{
+			m_runs.put(e, new Run(e));
+			m_pending.add(e);
+		}
+	}
+
+	/**
+	 * Executes an experiment through the scheduler, and waits for the end
+	 * of its run. Experiments that were not added to the scheduler are run
+	 * directly by the calling thread.
+	 * @param e The experiment
+	 * @throws ExperimentException If the run of the experiment failed
+	 * @throws InterruptedException If the calling thread is interrupted
+	 * while waiting; the run itself continues
+	 */
+	public void execute(TestGenerationExperiment e) throws ExperimentException, InterruptedException
+	{
+		Run run;
+		refreshQueued();
+		synchronized (this)
+		{
+			run = m_runs.get(e);
+			if (run != null)
+			{
+				if (m_pool == null)
+				{
+					m_pool = Executors.newCachedThreadPool(new ProcessLauncher.DaemonThreadFactory("scheduler"));
+					if (m_costModel != null)
+					{
+						// Learn from the results restored in the lab
+						for (TestGenerationExperiment done : m_runs.keySet())
+						{
+							done.addTo(m_costModel);
+						}
+					}
+				}
+				if (run.m_collected)
+				{
+					// The experiment is executed again: run it anew
+					run.reset();
+					m_pending.addFirst(e);
+				}
+				else if (m_pending.remove(e))
+				{
+					m_pending.addFirst(e);
+				}
+				run.m_urgent = true;
+				sortPending();
+				dispatch();
+				while (!run.m_done)
+				{
+					wait();
+				}
+				run.m_collected = true;
+			}
+		}
+		if (run == null)
+		{
+			e.executeDirectly();
+			return;
+		}
+		run.rethrow();
+	}
+
+	/**
+	 * Gets the cores reserved for the run executed by the calling thread
+	 * @return The cores, or null if no core is reserved for this thread
+	 */
+	public static int[] getCurrentCores()
+	{
+		return s_cores.get();
+	}
+
+	/**
+	 * Pins a command to the cores reserved for the run executed by the
+	 * calling thread
+	 * @param command The command
+	 * @return The command, prefixed with a call to <tt>taskset</tt> if cores
+	 * are reserved for the thread and <tt>taskset</tt> exists, or the
+	 * command unchanged otherwise
+	 */
+	public static String[] pin(String[] command)
+	{
+		int[] cores = s_cores.get();
+		if (cores == null || !hasTaskset())
+		{
+			return command;
+		}
+		StringBuilder list = new StringBuilder();
+		for (int i = 0; i < cores.length; i++)
+		{
+			if (i > 0)
+			{
+				list.append(",");
+			}
+			list.append(cores[i]);
+		}
+		String[] out = new String[command.length + 3];
+		out[0] = TASKSET;
+		out[1] = "-c";
+		out[2] = list.toString();
+		System.arraycopy(command, 0, out, 3, command.length);
+		return out;
+	}
+
+	/**
+	 * Determines if <tt>taskset</tt> exists on this system
+	 * @return <tt>true</tt> if it exists
+	 */
+	protected static synchronized boolean hasTaskset()
+	{
+		if (s_hasTaskset == null)
+		{
+			s_hasTaskset = FileHelper.commandExists(TASKSET);
+		}
+		return s_hasTaskset;
+	}
+
+	/**
+	 * Updates which pending experiments are queued in the lab. This is only
+	 * called by the lab's own thread, from
+	 * {@link #execute(TestGenerationExperiment) execute()}: the lab holds
+	 * its lock while it executes an experiment, so a run asking it would
+	 * wait for the very run the lab waits for. The lab is also asked
+	 * without holding the lock of the scheduler.
+	 */
+	protected void refreshQueued()
+	{
+		LabQueue queue;
+		List<Run> runs = new ArrayList<Run>();
+		synchronized (this)
+		{
+			queue = m_queue;
+			if (queue == null)
+			{
+				return;
+			}
+			for (TestGenerationExperiment e : m_pending)
+			{
+				runs.add(m_runs.get(e));
+			}
+		}
+		boolean[] queued = new boolean[runs.size()];
+		for (int i = 0; i < queued.length; i++)
+		{
+			queued[i] = queue.isQueued(runs.get(i).m_experiment);
+		}
+		synchronized (this)
+		{
+			for (int i = 0; i < queued.length; i++)
+			{
+				runs.get(i).m_queued = queued[i];
+			}
+		}
+	}
+
+	/**
+	 * Starts the pending experiments that fit in the free cores and the
+	 * limits of their tools, among those that the lab has reached or
+	 * queued. An experiment whose tool is at its limit does not prevent the
+	 * experiments after it from starting.
+	 */
+	protected synchronized void dispatch()
+	{
+		if (m_pool == null)
+		{
+			// The lab has not executed any experiment yet
+			return;
+		}
+		Iterator<TestGenerationExperiment> it = m_pending.iterator();
+		while (it.hasNext() && m_freeCores > 0)
+		{
+			TestGenerationExperiment e = it.next();
+			Run run = m_runs.get(e);
+			if (!run.m_urgent && !run.m_queued)
+			{
+				continue;
+			}
+			String tool_name = e.readString(TestGenerationExperiment.TOOL_NAME);
+			int cores = getCores(tool_name);
+			int runs = getRuns(tool_name);
+			Integer limit = m_toolLimits.get(tool_name);
+			if (cores > m_freeCores || (limit != null && runs >= limit))
+			{
+				continue;
+			}
+			it.remove();
+			m_toolRuns.put(tool_name, runs + 1);
+			m_freeCores -= cores;
+			run.m_cores = m_reserveCores ? take(cores) : null;
+			run.m_coreCount = cores;
+			m_pool.execute(run);
+		}
+	}
+
+	/**
+	 * Sorts the pending experiments longest first, if the scheduler has a
+	 * cost model. The experiments reached by the lab's run loop stay ahead
+	 * of the others, and the experiments whose duration cannot be predicted
+	 * come first among the others.
+	 */
+	protected synchronized void sortPending()
+	{
+		if (m_costModel == null || m_pending.size() < 2)
+		{
+			return;
+		}
+		final Map<TestGenerationExperiment,Double> durations = new IdentityHashMap<TestGenerationExperiment,Double>();
+		for (TestGenerationExperiment e : m_pending)
+		{
+			double duration = m_runs.get(e).m_urgent ? Double.POSITIVE_INFINITY : e.predictDuration(false);
+			durations.put(e, duration < 0 ? Double.MAX_VALUE : duration);
+		}
+		// The sort is stable: urgent experiments keep their order
+		Collections.sort(m_pending, new Comparator<TestGenerationExperiment>()
+		{
+			@Override
+			public int compare(TestGenerationExperiment e1, TestGenerationExperiment e2)
+			{
+				return Double.compare(durations.get(e2), durations.get(e1));
+			}
+		});
+	}
+
+	/**
+	 * Gives back the cores and the tool slot of a run that has ended
+	 * @param run The run
+	 */
+	protected synchronized void release(Run run)
+	{
+		String tool_name = run.m_experiment.readString(TestGenerationExperiment.TOOL_NAME);
+		m_toolRuns.put(tool_name, getRuns(tool_name) - 1);
+		m_freeCores += run.m_coreCount;
+		if (run.m_cores != null)
+		{
+			for (int core : run.m_cores)
+			{
+				m_taken[core] = false;
+			}
+		}
+		run.m_done = true;
+		notifyAll();
+		// The model may have learned from the run
+		sortPending();
+		dispatch();
+	}
+
+	/**
+	 * Takes free cores
+	 * @param count The number of cores
+	 * @return The cores
+	 */
+	protected int[] take(int count)
+	{
+		int[] cores = new int[count];
+		int found = 0;
+		for (int core = 0; core < m_taken.length && found < count; core++)
+		{
+			if (!m_taken[core])
+			{
+				m_taken[core] = true;
+				cores[found++] = core;
+			}
+		}
+		return cores;
+	}
+
+	/**
+	 * Gets the number of cores taken by a run of a tool
+	 * @param tool_name The name of the tool
+	 * @return The number of cores
+	 */
+	protected int getCores(String tool_name)
+	{
+		Integer cores = m_toolCores.get(tool_name);
+		return cores == null ? 1 : Math.min(cores, m_cores);
+	}
+
+	/**
+	 * Gets the number of runs of a tool in progress
+	 * @param tool_name The name of the tool
+	 * @return The number of runs
+	 */
+	protected int getRuns(String tool_name)
+	{
+		Integer runs = m_toolRuns.get(tool_name);
+		return runs == null ? 0 : runs;
+	}
+
+	/**
+	 * The run of an experiment by the scheduler
+	 */
+	protected class Run implements Runnable
+	{
+		/**
+		 * The experiment
+		 */
+		protected final TestGenerationExperiment m_experiment;
+
+		/**
+		 * The cores reserved for the run, or null if cores are not reserved
+		 */
+		protected int[] m_cores = null;
+
+		/**
+		 * The number of cores taken by the run
+		 */
+		protected int m_coreCount = 0;
+
+		/**
+		 * Whether the lab's run loop waits for the run
+		 */
+		protected boolean m_urgent = false;
+
+		/**
+		 * Whether the experiment is queued in the lab, as of the last time
+		 * the lab executed an experiment
+		 */
+		protected boolean m_queued = false;
+
+		/**
+		 * Whether the run has ended
+		 */
+		protected volatile boolean m_done = false;
+
+		/**
+		 * Whether the end of the run has been reported to the lab's run loop
+		 */
+		protected boolean m_collected = false;
+
+		/**
+		 * The exception thrown by the run, if any
+		 */
+		protected Throwable m_failure = null;
+
+		public Run(TestGenerationExperiment e)
+		{
+			super();
+			m_experiment = e;
+		}
+
+		/**
+		 * Prepares the experiment to be run again
+		 */
+		protected void reset()
+		{
+			m_done = false;
+			m_urgent = false;
+			m_queued = false;
+			m_collected = false;
+			m_failure = null;
+		}
+
+		@Override
+		public void run()
+		{
+			s_cores.set(m_cores);
+			try
+			{
+				if (!m_experiment.prerequisitesFulfilled())
+				{
+					m_experiment.fulfillPrerequisites();
+				}
+				m_experiment.executeDirectly();
+			}
+			catch (Throwable t)
+			{
+				m_failure = t;
+			}
+			finally
+			{
+				s_cores.remove();
+				release(this);
+			}
+		}
+
+		/**
+		 * Throws again the exception thrown by the run, if any
+		 * @throws ExperimentException If the run failed
+		 * @throws InterruptedException If the run was interrupted
+		 */
+		protected void rethrow() throws ExperimentException, InterruptedException
+		{
+			if (m_failure == null)
+			{
+				return;
+			}
+			if (m_failure instanceof ExperimentException)
+			{
+				throw (ExperimentException) m_failure;
+			}
+			if (m_failure instanceof InterruptedException)
+			{
+				throw (InterruptedException) m_failure;
+			}
+			if (m_failure instanceof RuntimeException)
+			{
+				throw (RuntimeException) m_failure;
+			}
+			if (m_failure instanceof Error)
+			{
+				throw (Error) m_failure;
+			}
+			throw new ExperimentException(m_failure);
+		}
+	}
+
+	/**
+	 * The experiments that the lab has queued for execution
+	 */
+	public interface LabQueue
+	{
+		/**
+		 * Determines if an experiment is queued in the lab
+		 * @param e The experiment
+		 * @return <tt>true</tt> if the lab will execute the experiment,
+		 * <tt>false</tt> otherwise
+		 */
+		public boolean isQueued(TestGenerationExperiment e);
+	}
+}
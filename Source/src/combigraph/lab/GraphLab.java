@@ -21,6 +21,7 @@ package combigraph.lab;
 import ca.uqac.lif.json.JsonNumber;
 import ca.uqac.lif.labpal.FileHelper;
 import ca.uqac.lif.labpal.Group;
+import ca.uqac.lif.labpal.LabAssistant;
 import ca.uqac.lif.labpal.Laboratory;
 import ca.uqac.lif.labpal.LatexNamer;
 import ca.uqac.lif.labpal.Random;
@@ -32,12 +33,17 @@ import ca.uqac.lif.mtnp.plot.gnuplot.Scatterplot;
 import ca.uqac.lif.mtnp.table.ExpandAsColumns;
 import ca.uqac.lif.mtnp.table.TransformedTable;
 import combigraph.lab.experiments.AllPairsTestGenerationExperiment;
+import combigraph.lab.experiments.AnnealingTestGenerationExperiment;
 import combigraph.lab.experiments.ActsTestGenerationExperiment;
 import combigraph.lab.experiments.CasaTestGenerationExperiment;
 import combigraph.lab.experiments.ColoringTestGenerationExperiment;
+import combigraph.lab.experiments.DsaturTestGenerationExperiment;
 import combigraph.lab.experiments.GbgaTestGenerationExperiment;
+import combigraph.lab.experiments.GreedyHittingSetExperiment;
 import combigraph.lab.experiments.HypergraphTestGenerationExperiment;
+import combigraph.lab.experiments.IpogTestGenerationExperiment;
 import combigraph.lab.experiments.JennyTestGenerationExperiment;
+import combigraph.lab.experiments.MultiStartColouringExperiment;
 import combigraph.lab.experiments.TcasesTestGenerationExperiment;
 import combigraph.lab.experiments.TestGenerationExperiment;
 import combigraph.lab.experiments.TestingProblemExperiment;
@@ -48,6 +54,7 @@ import combigraph.lab.problems.TWayProblem;
 import combigraph.lab.problems.TestSuiteCompletion;
 
 import static combigraph.lab.experiments.TestGenerationExperiment.DURATION;
+import static combigraph.lab.experiments.TestGenerationExperiment.PEAK_MEMORY;
 import static combigraph.lab.experiments.TestGenerationExperiment.SIZE;
 import static combigraph.lab.experiments.TestGenerationExperiment.TOOL_NAME;
 import static combigraph.lab.problems.CombinatorialTestingProblem.TESTING_PROBLEM_NAME;
@@ -56,6 +63,7 @@ import static combigraph.lab.problems.TWayProblem.T;
 import static combigraph.lab.problems.TWayProblem.V;
 
 import java.io.File;
+import java.util.Scanner;
 
 public class GraphLab extends Laboratory
 {
@@ -64,6 +72,166 @@ public class GraphLab extends Laboratory
 	 */
 	public static boolean s_dryRun = false;
 
+	/**
+	 * If set to true, the Java-based tools (ACTS, Tcases, hitting-set) are
+	 * run inside the lab's JVM instead of in a new JVM for each experiment
+	 */
+	public static boolean s_inProcess = false;
+
+	/**
+	 * The number of times a Java-based tool is run on the same problem
+	 * before the run that is measured, when tools are run in-process
+	 */
+	public static int s_warmupRuns = 0;
+
+	/**
+	 * If set to true, each Java-based tool is run by a persistent worker
+	 * JVM, which stays warm across experiments and is restarted when a run
+	 * exceeds its timeout. This takes precedence over {@link #s_inProcess}.
+	 */
+	public static boolean s_useWorkers = false;
+
+	/**
+	 * The maximum total size of the input files kept in the input cache, in
+	 * bytes. Set to 0 to delete each input file when its experiment is
+	 * cleaned, instead of keeping it for later runs of the lab.
+	 */
+	public static long s_inputCacheSize = 1L << 30;
+
+	/**
+	 * If set to true, the CPU time, peak memory and context switches of
+	 * the external tools are measured. Each command is then wrapped in a
+	 * shell and sampled every few milliseconds; the peak memory tables stay
+	 * empty otherwise.
+	 */
+	public static boolean s_resourceAccounting = false;
+
+	/**
+	 * If set to true, the tools that can read their input from stdin (the
+	 * coloring and hypergraph tools) receive it through a pipe as it is
+	 * generated, instead of reading it from a file generated beforehand
+	 */
+	public static boolean s_streamInputs = false;
+
+	/**
+	 * If set to true, the in-JVM graph tools (DSatur and hitting set) read
+	 * the graph of each problem from an input file in a binary CSR format,
+	 * generated beforehand and kept in the input cache, instead of building
+	 * the graph when they run
+	 */
+	public static boolean s_binaryInputs = false;
+
+	/**
+	 * The number of randomized colourings run by the multi-start DSatur
+	 * tool on each problem
+	 */
+	public static int s_colouringStarts = 32;
+
+	/**
+	 * The number of threads running the colourings of the multi-start
+	 * DSatur tool
+	 */
+	public static int s_colouringThreads = Runtime.getRuntime().availableProcessors();
+
+	/**
+	 * The number of threads computing the gains of the candidate values
+	 * during the horizontal growth of the in-JVM IPOG tool
+	 */
+	public static int s_ipogThreads = Runtime.getRuntime().availableProcessors();
+
+	/**
+	 * The number of replicas, at different temperatures, of each annealing
+	 * run by the tempered annealing tool
+	 */
+	public static int s_annealingReplicas = Runtime.getRuntime().availableProcessors();
+
+	/**
+	 * The number of threads running the replicas of the tempered annealing
+	 * tool
+	 */
+	public static int s_annealingThreads = Runtime.getRuntime().availableProcessors();
+
+	/**
+	 * The maximum number of moves made by each replica of the tempered
+	 * annealing tool for each size it tries
+	 */
+	public static long s_annealingMoves = 1000000;
+
+	/**
+	 * If set to true, the test suite produced by each tool is checked for
+	 * full coverage and for the constraints of its problem, whenever the
+	 * suite can be read from the tool's output
+	 */
+	public static boolean s_verifyOutputs = true;
+
+	/**
+	 * The number of threads verifying each test suite
+	 */
+	public static int s_verifyThreads = Runtime.getRuntime().availableProcessors();
+
+	/**
+	 * The number of cores on which the experiments queued in the lab run
+	 * concurrently. Set to 0 to run the experiments one after another, as
+	 * the lab's run loop reaches them.
+	 */
+	public static int s_parallelCores = 0;
+
+	/**
+	 * If set to true, experiments run concurrently leave a core to the lab
+	 * and have their external commands pinned to cores of their own
+	 */
+	public static boolean s_reserveCores = false;
+
+	/**
+	 * The maximum number of simultaneous runs of CASA, when experiments
+	 * run concurrently
+	 */
+	public static int s_casaRuns = 1;
+
+	/**
+	 * The maximum number of simultaneous runs of Jenny, when experiments
+	 * run concurrently
+	 */
+	public static int s_jennyRuns = 16;
+
+	/**
+	 * The folder where each experiment creates the scratch folder of its
+	 * tool, or null to use <tt>/dev/shm</tt> where it exists and the
+	 * temporary folder of the system elsewhere
+	 */
+	public static String s_scratchFolder = null;
+
+	/**
+	 * The scheduler running the experiments concurrently, or null if they
+	 * run one after another
+	 */
+	public static ExperimentScheduler s_scheduler = null;
+
+	/**
+	 * If set to true, experiments run concurrently start with those that
+	 * are predicted to last longest, so that short runs fill the cores
+	 * left at the end
+	 */
+	public static boolean s_longestFirst = true;
+
+	/**
+	 * If set to true, experiments whose tool is predicted to run for more
+	 * than {@link #s_timeoutMargin} times their maximum duration fail with
+	 * a predicted timeout, without being run
+	 */
+	public static boolean s_skipPredictedTimeouts = false;
+
+	/**
+	 * The factor by which the predicted duration of an experiment must
+	 * exceed its maximum duration for the experiment to be skipped
+	 */
+	public static float s_timeoutMargin = 2;
+
+	/**
+	 * The model predicting the duration of the experiments
+	 */
+	public static CostModel s_costModel = null;
+
 	/**
 	 * Lower bound for parameter <i>t</i> in the experiments
 	 */
@@ -118,6 +286,45 @@ public class GraphLab extends Laboratory
 				with_increasing_values = false,
 				with_test_suite_completion = false;
 
+		// Setup the cost model, seeded with the published timings of GBGA
+		s_costModel = new CostModel();
+		Scanner scanner = new Scanner(GraphLab.class.getResourceAsStream("experiments/data/GBGA.csv"));
+		s_costModel.addReference(GbgaTestGenerationExperiment.NAME, TWayProblem.NAME, scanner);
+		scanner.close();
+
+		// Setup the scheduler, before the factory adds experiments to it
+		if (s_parallelCores > 0)
+		{
+			if (s_inProcess)
+			{
+				// In-process tools share System.out and the system properties
+				System.err.println("Warning: tools are not run in-process when experiments run concurrently");
+				s_inProcess = false;
+			}
+			s_scheduler = new ExperimentScheduler(s_parallelCores, s_reserveCores);
+			// Only the experiments queued in the lab are run ahead of its loop
+			s_scheduler.setQueue(new ExperimentScheduler.LabQueue()
+			{
+				@Override
+				public boolean isQueued(TestGenerationExperiment e)
+				{
+					LabAssistant assistant = getAssistant();
+					return assistant != null && assistant.isQueued(e.getId());
+				}
+			});
+			s_scheduler.setToolLimit(CasaTestGenerationExperiment.NAME, s_casaRuns);
+			s_scheduler.setToolLimit(JennyTestGenerationExperiment.NAME, s_jennyRuns);
+			// The in-JVM tools that use several threads take as many cores
+			s_scheduler.setToolCores(MultiStartColouringExperiment.NAME, s_colouringThreads);
+			s_scheduler.setToolCores(IpogTestGenerationExperiment.NAME, s_ipogThreads);
+			s_scheduler.setToolCores(VPTagTestGenerationExperiment.NAME, s_ipogThreads);
+			s_scheduler.setToolCores(AnnealingTestGenerationExperiment.NAME, Math.min(s_annealingReplicas, s_annealingThreads));
+			if (s_longestFirst)
+			{
+				s_scheduler.setCostModel(s_costModel);
+			}
+		}
+
 		// Setup the lab's factory
 		TestGenerationExperimentFactory factory = new TestGenerationExperimentFactory(this, getRandom());
 
@@ -145,7 +352,13 @@ public class GraphLab extends Laboratory
 				//VPTagTestGenerationExperiment.NAME,
 				//ColoringTestGenerationExperiment.NAME, 
 				GbgaTestGenerationExperiment.NAME,
-				HypergraphTestGenerationExperiment.NAME);
+				HypergraphTestGenerationExperiment.NAME
+				//DsaturTestGenerationExperiment.NAME,
+				//MultiStartColouringExperiment.NAME,
+				//GreedyHittingSetExperiment.NAME,
+				//IpogTestGenerationExperiment.NAME,
+				//AnnealingTestGenerationExperiment.NAME
+				);
 
 		// Classical t-way problems
 		if (with_t_way)
@@ -168,6 +381,11 @@ public class GraphLab extends Laboratory
 					TransformedTable tt_duration = new TransformedTable(new ExpandAsColumns(TOOL_NAME, DURATION), et_duration);
 					m_titleNamer.setTitle(tt_duration, out_r, "Classical t-way ", " for duration");
 					Scatterplot p_duration = new Scatterplot(tt_duration);
+					ExperimentTable et_memory = new ExperimentTable(TOOL_NAME, T, PEAK_MEMORY);
+					et_memory.setShowInList(false);
+					TransformedTable tt_memory = new TransformedTable(new ExpandAsColumns(TOOL_NAME, PEAK_MEMORY), et_memory);
+					m_titleNamer.setTitle(tt_memory, out_r, "Classical t-way ", " for peak memory");
+					Scatterplot p_memory = new Scatterplot(tt_memory);
 					for (Region in_r : out_r.all(T, TOOL_NAME))
 					{
 						TestGenerationExperiment exp = factory.get(in_r);
@@ -177,10 +395,11 @@ public class GraphLab extends Laboratory
 						}
 						et_size.add(exp);
 						et_duration.add(exp);
+						et_memory.add(exp);
 						g.add(exp);
 					}
-					add(tt_size, tt_duration);
-					add(p_size, p_duration);
+					add(tt_size, tt_duration, tt_memory);
+					add(p_size, p_duration, p_memory);
 				}
 			}
 		}
@@ -207,6 +426,11 @@ public class GraphLab extends Laboratory
 					TransformedTable tt_duration = new TransformedTable(new ExpandAsColumns(TOOL_NAME, DURATION), et_duration);
 					m_titleNamer.setTitle(tt_duration, out_r, "Increasing values ", " for duration");
 					Scatterplot p_duration = new Scatterplot(tt_duration);
+					ExperimentTable et_memory = new ExperimentTable(TOOL_NAME, N, PEAK_MEMORY);
+					et_memory.setShowInList(false);
+					TransformedTable tt_memory = new TransformedTable(new ExpandAsColumns(TOOL_NAME, PEAK_MEMORY), et_memory);
+					m_titleNamer.setTitle(tt_memory, out_r, "Increasing values ", " for peak memory");
+					Scatterplot p_memory = new Scatterplot(tt_memory);
 					for (Region in_r : out_r.all(N, TOOL_NAME))
 					{
 						TestGenerationExperiment exp = factory.get(in_r);
@@ -220,13 +444,15 @@ public class GraphLab extends Laboratory
 						}
 						et_size.add(exp);
 						et_duration.add(exp);
+						et_memory.add(exp);
 						g.add(exp);
 					}
 					if (added)
 					{
 						add(et_size, tt_size);
 						add(et_duration, tt_duration);
-						add(p_size, p_duration);
+						add(et_memory, tt_memory);
+						add(p_size, p_duration, p_memory);
 					}
 				}
 			}
@@ -266,6 +492,14 @@ public class GraphLab extends Laboratory
 					p_duration.setTitle(tt_duration.getTitle());
 					p_duration.setCaption(Axis.X, "Fraction of tuples");
 					p_duration.setCaption(Axis.Y, "Duration");
+					ExperimentTable et_memory = new ExperimentTable(TOOL_NAME, ForbiddenTuples.FRACTION_VALUES, PEAK_MEMORY);
+					et_memory.setShowInList(false);
+					TransformedTable tt_memory = new TransformedTable(new ExpandAsColumns(TOOL_NAME, PEAK_MEMORY), et_memory);
+					m_titleNamer.setTitle(tt_memory, out_r, "Forbidden tuples ", " for peak memory");
+					Scatterplot p_memory = new Scatterplot(tt_memory);
+					p_memory.setTitle(tt_memory.getTitle());
+					p_memory.setCaption(Axis.X, "Fraction of tuples");
+					p_memory.setCaption(Axis.Y, "Peak memory (kB)");
 					for (Region in_r : out_r.all(TOOL_NAME, ForbiddenTuples.FRACTION_VALUES, ForbiddenTuples.FRACTION_VARS))
 					{
 						float frac_vars = ((JsonNumber) in_r.get(ForbiddenTuples.FRACTION_VARS)).numberValue().floatValue();
@@ -283,12 +517,15 @@ public class GraphLab extends Laboratory
 						}
 						et_size.add(exp);
 						et_duration.add(exp);
+						et_memory.add(exp);
 						g.add(exp);
 					}
 					add(et_size, tt_size);
 					add(p_size);
 					add(et_duration, tt_duration);
 					add(p_duration);
+					add(et_memory, tt_memory);
+					add(p_memory);
 				}
 			}
 		}
@@ -326,6 +563,14 @@ public class GraphLab extends Laboratory
 					p_duration.setTitle(tt_duration.getTitle());
 					p_duration.setCaption(Axis.X, "Number of pre-existing tests");
 					p_duration.setCaption(Axis.Y, "Duration");
+					ExperimentTable et_memory = new ExperimentTable(TOOL_NAME, TestSuiteCompletion.NUM_TESTS, PEAK_MEMORY);
+					et_memory.setShowInList(false);
+					TransformedTable tt_memory = new TransformedTable(new ExpandAsColumns(TOOL_NAME, PEAK_MEMORY), et_memory);
+					m_titleNamer.setTitle(tt_memory, out_r, "Test suite completion ", " for peak memory");
+					Scatterplot p_memory = new Scatterplot(tt_memory);
+					p_memory.setTitle(tt_memory.getTitle());
+					p_memory.setCaption(Axis.X, "Number of pre-existing tests");
+					p_memory.setCaption(Axis.Y, "Peak memory (kB)");
 					for (Region in_r : out_r.all(TOOL_NAME, TestSuiteCompletion.NUM_TESTS))
 					{
 						TestGenerationExperiment exp = factory.get(in_r);
@@ -335,12 +580,15 @@ public class GraphLab extends Laboratory
 						}
 						et_size.add(exp);
 						et_duration.add(exp);
+						et_memory.add(exp);
 						g.add(exp);
 					}
 					add(et_size, tt_size);
 					add(p_size);
 					add(et_duration, tt_duration);
 					add(p_duration);
+					add(et_memory, tt_memory);
+					add(p_memory);
 				}
 			}
 		}
@@ -363,15 +611,9 @@ public class GraphLab extends Laboratory
 		{
 			out += "<li>Command <tt>CASA</tt> not found. Experiments involving running CASA will not work</li>";
 		}
-		if (!FileHelper.fileExists("variables-to-graph.php"))
-		{
-			String script = FileHelper.internalFileToString(this, "scripts/variables-to-graph.php");
-			FileHelper.writeFromString(new File("variables-to-graph.php"), script);
-		}
-		if (!FileHelper.fileExists("variables-to-hypergraph.php"))
+		if (!ResourceMonitor.isSupported())
 		{
-			String script = FileHelper.internalFileToString(this, "scripts/variables-to-hypergraph.php");
-			FileHelper.writeFromString(new File("variables-to-hypergraph.php"), script);
+			out += "<li>No <tt>/proc</tt> filesystem found. The CPU time and memory used by the tools will not be recorded</li>";
 		}
 		if (out != null && out.isEmpty())
 		{
@@ -0,0 +1,273 @@
+/*
+    A lab for comparing combinatorial test suite generators
+    Copyright (C) 2017-2021 Sylvain Hallé, Edmond La Chance,
+    Vincent Porta-Scarta
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package combigraph.lab;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Persistent store of the input files generated for the tools, shared by
+ * all the runs of the lab. Each file is named after a hash of a key that
+ * describes its contents, so that the same problem instance is generated
+ * only once. The total size of the store is bounded: when it is exceeded,
+ * the files used least recently are deleted.
+ * <p>
+ * A file is used when it is looked up with {@link #contains(String)}; its
+ * modification time is then updated, and serves as its last access time.
+ * An experiment {@link #pin(String) pins} its input while its tool runs, so
+ * that files committed by concurrent experiments never evict it. A file
+ * larger than the whole cache evicts nothing, and is deleted once it is no
+ * longer pinned.
+ */
+public class InputCache
+{
+	/**
+	 * The folder where the files are stored
+	 */
+	protected final File m_folder;
+
+	/**
+	 * The maximum total size of the files, in bytes
+	 */
+	protected final long m_maxSize;
+
+	/**
+	 * The number of experiments using each file
+	 */
+	protected final Map<String,Integer> m_pins = new HashMap<String,Integer>();
+
+	/**
+	 * Creates a new cache
+	 * @param folder The folder where the files are stored; it is created if
+	 * it does not exist
+	 * @param max_size The maximum total size of the files, in bytes. A size
+	 * of 0 disables the cache: files are still stored, but are meant to be
+	 * deleted once used.
+	 */
+	public InputCache(String folder, long max_size)
+	{
+		super();
+		// Tools may run in another working directory than the lab
+		m_folder = new File(folder).getAbsoluteFile();
+		m_maxSize = max_size;
+	}
+
+	/**
+	 * Determines if files are kept in the cache after being used
+	 * @return <tt>true</tt> if the cache is enabled, <tt>false</tt>
+	 * otherwise
+	 */
+	public boolean isEnabled()
+	{
+		return m_maxSize > 0;
+	}
+
+	/**
+	 * Gets the name of the file stored for a key
+	 * @param key The key describing the contents of the file
+	 * @param extension The extension of the file, including the dot
+	 * @return The name of the file, which may not exist
+	 */
+	public String getFilename(String key, String extension)
+	{
+		return new File(m_folder, hash(key) + extension).getPath();
+	}
+
+	/**
+	 * Determines if a file is in the cache, and marks it as used
+	 * @param filename The name of the file, as returned by
+	 * {@link #getFilename(String, String)}
+	 * @return <tt>true</tt> if the file is in the cache, <tt>false</tt>
+	 * otherwise
+	 */
+	public boolean contains(String filename)
+	{
+		File f = new File(filename);
+		if (!f.exists())
+		{
+			return false;
+		}
+		f.setLastModified(System.currentTimeMillis());
+		return true;
+	}
+
+	/**
+	 * Marks a file as used by an experiment, so that it is not evicted. The
+	 * file may not exist yet.
+	 * @param filename The name of the file, as returned by
+	 * {@link #getFilename(String, String)}
+	 */
+	public synchronized void pin(String filename)
+	{
+		Integer count = m_pins.get(filename);
+		m_pins.put(filename, count == null ? 1 : count + 1);
+	}
+
+	/**
+	 * Marks a file as no longer used by an experiment. A file larger than
+	 * the cache is deleted once no experiment uses it.
+	 * @param filename The name of the file
+	 */
+	public synchronized void unpin(String filename)
+	{
+		Integer count = m_pins.get(filename);
+		if (count == null)
+		{
+			return;
+		}
+		if (count > 1)
+		{
+			m_pins.put(filename, count - 1);
+			return;
+		}
+		m_pins.remove(filename);
+		File f = new File(filename);
+		if (isEnabled() && f.length() > m_maxSize)
+		{
+			f.delete();
+		}
+	}
+
+	/**
+	 * Creates an empty temporary file in the folder of the cache. Contents
+	 * written to this file are added to the cache by
+	 * {@link #commit(File, String)}.
+	 * @return The temporary file
+	 * @throws IOException If the file cannot be created
+	 */
+	public File createTempFile() throws IOException
+	{
+		m_folder.mkdirs();
+		return File.createTempFile("input-", ".tmp", m_folder);
+	}
+
+	/**
+	 * Adds a file to the cache, and evicts the files used least recently
+	 * if the cache exceeds its maximum size. The file is renamed
+	 * atomically, so that no other experiment can see it partially written.
+	 * @param temp The temporary file containing the contents
+	 * @param filename The name of the file in the cache
+	 * @throws IOException If the file cannot be renamed
+	 */
+	public void commit(File temp, String filename) throws IOException
+	{
+		File target = new File(filename);
+		try
+		{
+			Files.move(temp.toPath(), target.toPath(), StandardCopyOption.ATOMIC_MOVE);
+		}
+		catch (AtomicMoveNotSupportedException e)
+		{
+			Files.move(temp.toPath(), target.toPath(), StandardCopyOption.REPLACE_EXISTING);
+		}
+		if (isEnabled())
+		{
+			evict(target);
+		}
+	}
+
+	/**
+	 * Deletes the files used least recently and not pinned, until the total
+	 * size of the cache is within its bound
+	 * @param keep A file that must not be deleted
+	 */
+	protected synchronized void evict(File keep)
+	{
+		if (keep.length() > m_maxSize)
+		{
+			// Making room for this file would empty the cache, and still not
+			// be enough: it is deleted once used instead
+			return;
+		}
+		File[] files = m_folder.listFiles();
+		if (files == null)
+		{
+			return;
+		}
+		long total = 0;
+		for (File f : files)
+		{
+			total += f.length();
+		}
+		if (total <= m_maxSize)
+		{
+			return;
+		}
+		Arrays.sort(files, new Comparator<File>()
+		{
+			@Override
+			public int compare(File f1, File f2)
+			{
+				return Long.compare(f1.lastModified(), f2.lastModified());
+			}
+		});
+		for (File f : files)
+		{
+			if (total <= m_maxSize)
+			{
+				break;
+			}
+			if (f.equals(keep) || f.getName().endsWith(".tmp") || m_pins.containsKey(f.getPath()))
+			{
+				// Files being written or used by other experiments are not
+				// evicted
+				continue;
+			}
+			long length = f.length();
+			if (f.delete())
+			{
+				total -= length;
+			}
+		}
+	}
+
+	/**
+	 * Computes the SHA-256 hash of a key
+	 * @param key The key
+	 * @return The hash, as a string of hexadecimal digits
+	 */
+	protected static String hash(String key)
+	{
+		try
+		{
+			byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+			StringBuilder out = new StringBuilder(digest.length * 2);
+			for (byte b : digest)
+			{
+				out.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+			}
+			return out.toString();
+		}
+		catch (NoSuchAlgorithmException e)
+		{
+			// Every Java platform supports SHA-256
+			throw new IllegalStateException(e);
+		}
+	}
+}
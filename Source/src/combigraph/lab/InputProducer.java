@@ -0,0 +1,38 @@
+/*
+    A lab for comparing combinatorial test suite generators
+    Copyright (C) 2017-2021 Sylvain Hallé, Edmond La Chance,
+    Vincent Porta-Scarta
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package combigraph.lab;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Produces the input of a command, and writes it to the command's stdin
+ * while the command runs. This avoids building the whole input in memory,
+ * or writing it to a file that the command then reads back.
+ */
+public interface InputProducer
+{
+	/**
+	 * Writes the input of the command
+	 * @param os The stream connected to the command's stdin. It is closed by
+	 * the caller once this method returns.
+	 * @throws IOException If the input cannot be produced or written
+	 */
+	public void produce(OutputStream os) throws IOException;
+}
@@ -0,0 +1,100 @@
+/*
+    A lab for comparing combinatorial test suite generators
+    Copyright (C) 2017-2021 Sylvain Hallé, Edmond La Chance,
+    Vincent Porta-Scarta
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package combigraph.lab;
+
+import java.util.Arrays;
+
+/**
+ * Collects the non-negative integers written in decimal in an output,
+ * such as the vertices of a set printed by a hitting-set tool. Every
+ * other character is taken as a separator.
+ */
+public class IntegerCollector extends OutputConsumer
+{
+	/**
+	 * The integers read so far
+	 */
+	protected int[] m_values = new int[1024];
+
+	/**
+	 * The number of integers read so far
+	 */
+	protected int m_count = 0;
+
+	/**
+	 * The value of the integer being read
+	 */
+	protected long m_current = 0;
+
+	/**
+	 * Whether an integer is being read
+	 */
+	protected boolean m_inNumber = false;
+
+	@Override
+	protected void process(byte[] b, int offset, int len)
+	{
+		int end = offset + len;
+		for (int i = offset; i < end; i++)
+		{
+			int c = b[i] - '0';
+			if (c >= 0 && c <= 9)
+			{
+				m_current = m_current * 10 + c;
+				m_inNumber = true;
+			}
+			else if (m_inNumber)
+			{
+				add();
+			}
+		}
+	}
+
+	@Override
+	public void end()
+	{
+		if (m_inNumber)
+		{
+			add();
+		}
+	}
+
+	/**
+	 * Gets the integers read so far
+	 * @return The integers, in the order they appear in the output
+	 */
+	public int[] getValues()
+	{
+		return Arrays.copyOf(m_values, m_count);
+	}
+
+	/**
+	 * Adds the integer that has just been read
+	 */
+	protected void add()
+	{
+		if (m_count == m_values.length)
+		{
+			m_values = Arrays.copyOf(m_values, m_count * 2);
+		}
+		m_values[m_count++] = (int) m_current;
+		m_current = 0;
+		m_inNumber = false;
+	}
+}
@@ -0,0 +1,466 @@
+/*
+    A lab for comparing combinatorial test suite generators
+    Copyright (C) 2017-2021 Sylvain Hallé, Edmond La Chance,
+    Vincent Porta-Scarta
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package combigraph.lab;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.security.Permission;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.jar.JarFile;
+
+/**
+ * Runs Java-based tools (packaged as runnable JAR files) inside the lab's
+ * own JVM, instead of launching a new JVM with <tt>java -jar</tt> for every
+ * run.
+ * <p>
+ * Each JAR is loaded in its own class loader, whose parent is the platform
+ * class loader, so that the classes of a tool never clash with those of
+ * the lab or of another tool. This class loader is cached and reused from
+ * one run to the next, so that only the first run of a tool pays for class
+ * loading and JIT compilation.
+ * <p>
+ * Since a tool prints its results to {@link System#out} and reads its
+ * options from system properties, which are global to the JVM, only one
+ * tool can run in-process at any given time; concurrent calls to
+ * {@link #run(String, Map, String[], OutputConsumer, long, boolean) run()}
+ * are serialized. Calls to {@link System#exit(int)} made by a tool are
+ * trapped whenever the JVM allows a security manager to be installed.
+ * A tool that exceeds its timeout is abandoned, but cannot be forcibly
+ * stopped; its class loader is discarded, so that the next run of the tool
+ * starts afresh.
+ * <p>
+ * Each run executes in a thread group of its own, and only the threads of
+ * this group are captured: whatever other threads of the lab, or a tool
+ * abandoned by a previous run, print while the tool runs goes to the
+ * lab's own output. This mode is nevertheless meant for experiments run
+ * one after another, and is not used by the {@link ExperimentScheduler}.
+ */
+public class JarToolRunner
+{
+	/**
+	 * The class loaders of the JAR files that have already been run
+	 */
+	protected static final transient Map<String,URLClassLoader> s_loaders = new HashMap<String,URLClassLoader>();
+
+	/**
+	 * A lock ensuring that a single tool runs at a time
+	 */
+	protected static final transient Object s_lock = new Object();
+
+	/**
+	 * Whether calls to {@link System#exit(int)} are currently trapped
+	 */
+	protected static volatile boolean s_trapExit = false;
+
+	/**
+	 * Whether the security manager trapping calls to {@link System#exit(int)}
+	 * has been installed
+	 */
+	protected static boolean s_guardInstalled = false;
+
+	private JarToolRunner()
+	{
+		super();
+	}
+
+	/**
+	 * Runs a tool in the current JVM
+	 * @param jar_filename The name of the tool's JAR file
+	 * @param properties System properties to set during the run (the
+	 * equivalent of <tt>-D</tt> options), or null
+	 * @param args The command line arguments of the tool
+	 * @param consumer If not set to null, stdout is sent to this consumer
+	 * as it is produced, and is not kept in the result
+	 * @param timeout The maximum duration of the run in milliseconds, or a
+	 * negative value for no timeout
+	 * @param fresh Set to <tt>true</tt> to run the tool in a new class loader
+	 * (a "cold" run), <tt>false</tt> to reuse the cached one
+	 * @return The result of the run; its return code is the value passed to
+	 * {@link System#exit(int)}, if any, or 0 otherwise
+	 * @throws IOException If the JAR file cannot be loaded
+	 * @throws InterruptedException If the calling thread is interrupted
+	 * while the tool is running
+	 */
+	public static ProcessResult run(String jar_filename, Map<String,String> properties, String[] args, OutputConsumer consumer, long timeout, boolean fresh) throws IOException, InterruptedException
+	{
+		synchronized (s_lock)
+		{
+			Method main = getMainMethod(jar_filename, fresh);
+			final ChunkedByteBuffer stdout = new ChunkedByteBuffer();
+			final ChunkedByteBuffer stderr = new ChunkedByteBuffer();
+			PrintStream old_out = System.out;
+			PrintStream old_err = System.err;
+			ThreadGroup group = new ThreadGroup("in-process-tool");
+			ConsumerOutputStream out_stream = new ConsumerOutputStream(stdout, consumer, group, old_out);
+			ConsumerOutputStream err_stream = new ConsumerOutputStream(stderr, null, group, old_err);
+			PrintStream out = new PrintStream(out_stream, true);
+			PrintStream err = new PrintStream(err_stream, true);
+			Map<String,String> old_properties = setProperties(properties);
+			ToolThread t = new ToolThread(group, main, args);
+			System.setOut(out);
+			System.setErr(err);
+			installExitGuard();
+			s_trapExit = true;
+			try
+			{
+				t.start();
+				if (timeout < 0)
+				{
+					t.join();
+				}
+				else
+				{
+					t.join(timeout);
+				}
+			}
+			finally
+			{
+				s_trapExit = false;
+				out.flush();
+				err.flush();
+				System.setOut(old_out);
+				System.setErr(old_err);
+				setProperties(old_properties);
+				// Nothing printed from now on belongs to this run
+				out_stream.m_open = false;
+				err_stream.m_open = false;
+			}
+			int error_code = t.m_exitCode;
+			if (t.isAlive())
+			{
+				// Timeout: the abandoned tool keeps its class loader to itself
+				t.interrupt();
+				error_code = Integer.MIN_VALUE;
+				if (!fresh)
+				{
+					release(jar_filename);
+				}
+			}
+			else if (t.m_exception != null)
+			{
+				t.m_exception.printStackTrace(err);
+				error_code = -1;
+			}
+			if (consumer != null)
+			{
+				consumer.end();
+			}
+			if (fresh)
+			{
+				// The class loader of a cold run is not reused
+				close((URLClassLoader) main.getDeclaringClass().getClassLoader());
+			}
+			return new ProcessResult(error_code, stdout.toByteArray(), stderr.toByteArray());
+		}
+	}
+
+	/**
+	 * Releases the cached class loader of a tool
+	 * @param jar_filename The name of the tool's JAR file
+	 */
+	public static void release(String jar_filename)
+	{
+		synchronized (s_lock)
+		{
+			URLClassLoader loader = s_loaders.remove(jar_filename);
+			if (loader != null)
+			{
+				close(loader);
+			}
+		}
+	}
+
+	/**
+	 * Closes a class loader, releasing its JAR file
+	 * @param loader The class loader
+	 */
+	protected static void close(URLClassLoader loader)
+	{
+		try
+		{
+			loader.close();
+		}
+		catch (IOException e)
+		{
+			// Nothing to do
+		}
+	}
+
+	/**
+	 * Gets the main method of a tool's JAR file, as declared in its manifest
+	 * @param jar_filename The name of the JAR file
+	 * @param fresh Set to <tt>true</tt> to load the class in a new class
+	 * loader, <tt>false</tt> to reuse the cached one
+	 * @return The main method
+	 * @throws IOException If the JAR file cannot be read or has no main class
+	 */
+	protected static Method getMainMethod(String jar_filename, boolean fresh) throws IOException
+	{
+		File jar_file = new File(jar_filename);
+		String main_class;
+		JarFile jar = new JarFile(jar_file);
+		try
+		{
+			if (jar.getManifest() == null)
+			{
+				throw new IOException("No manifest in " + jar_filename);
+			}
+			main_class = jar.getManifest().getMainAttributes().getValue("Main-Class");
+		}
+		finally
+		{
+			jar.close();
+		}
+		if (main_class == null)
+		{
+			throw new IOException("No main class declared in " + jar_filename);
+		}
+		URLClassLoader loader = fresh ? null : s_loaders.get(jar_filename);
+		if (loader == null)
+		{
+			loader = new URLClassLoader(new URL[] {jar_file.toURI().toURL()}, ClassLoader.getSystemClassLoader().getParent());
+			if (!fresh)
+			{
+				s_loaders.put(jar_filename, loader);
+			}
+		}
+		try
+		{
+			return loader.loadClass(main_class.trim()).getMethod("main", String[].class);
+		}
+		catch (ClassNotFoundException e)
+		{
+			throw new IOException(e);
+		}
+		catch (NoSuchMethodException e)
+		{
+			throw new IOException(e);
+		}
+	}
+
+	/**
+	 * Sets system properties
+	 * @param properties The properties to set, or null; a property with a
+	 * null value is removed
+	 * @return The previous values of the properties
+	 */
+	protected static Map<String,String> setProperties(Map<String,String> properties)
+	{
+		Map<String,String> old = new HashMap<String,String>();
+		if (properties == null)
+		{
+			return old;
+		}
+		for (Map.Entry<String,String> e : properties.entrySet())
+		{
+			old.put(e.getKey(), System.getProperty(e.getKey()));
+			if (e.getValue() == null)
+			{
+				System.clearProperty(e.getKey());
+			}
+			else
+			{
+				System.setProperty(e.getKey(), e.getValue());
+			}
+		}
+		return old;
+	}
+
+	/**
+	 * Installs a security manager that traps the calls to
+	 * {@link System#exit(int)} made by a tool. Recent JVMs refuse security
+	 * managers unless started with <tt>-Djava.security.manager=allow</tt>;
+	 * in such a case, a tool calling <tt>System.exit()</tt> stops the lab.
+	 */
+	@SuppressWarnings("deprecation")
+	protected static void installExitGuard()
+	{
+		if (s_guardInstalled)
+		{
+			return;
+		}
+		s_guardInstalled = true;
+		try
+		{
+			System.setSecurityManager(new ExitGuard());
+		}
+		catch (UnsupportedOperationException e)
+		{
+			System.err.println("Warning: System.exit() cannot be trapped for in-process tools");
+		}
+		catch (SecurityException e)
+		{
+			System.err.println("Warning: System.exit() cannot be trapped for in-process tools");
+		}
+	}
+
+	/**
+	 * The thread running the main method of a tool
+	 */
+	protected static class ToolThread extends Thread
+	{
+		protected final Method m_main;
+
+		protected final String[] m_args;
+
+		protected volatile int m_exitCode = 0;
+
+		protected volatile Throwable m_exception = null;
+
+		public ToolThread(ThreadGroup group, Method main, String[] args)
+		{
+			super(group, "in-process-tool");
+			setDaemon(true);
+			setContextClassLoader(main.getDeclaringClass().getClassLoader());
+			m_main = main;
+			m_args = args;
+		}
+
+		@Override
+		public void run()
+		{
+			try
+			{
+				m_main.invoke(null, (Object) m_args);
+			}
+			catch (InvocationTargetException e)
+			{
+				Throwable cause = e.getCause();
+				if (cause instanceof ExitTrappedException)
+				{
+					m_exitCode = ((ExitTrappedException) cause).m_status;
+				}
+				else
+				{
+					m_exception = cause;
+				}
+			}
+			catch (IllegalAccessException e)
+			{
+				m_exception = e;
+			}
+		}
+	}
+
+	/**
+	 * Exception thrown in place of a call to {@link System#exit(int)}
+	 */
+	protected static class ExitTrappedException extends SecurityException
+	{
+		private static final long serialVersionUID = 1L;
+
+		protected final int m_status;
+
+		public ExitTrappedException(int status)
+		{
+			super("System.exit(" + status + ") trapped");
+			m_status = status;
+		}
+	}
+
+	/**
+	 * Security manager that allows everything, except calls to
+	 * {@link System#exit(int)} while a tool is running
+	 */
+	@SuppressWarnings("deprecation")
+	protected static class ExitGuard extends SecurityManager
+	{
+		@Override
+		public void checkPermission(Permission perm)
+		{
+			// Allow everything
+		}
+
+		@Override
+		public void checkPermission(Permission perm, Object context)
+		{
+			// Allow everything
+		}
+
+		@Override
+		public void checkExit(int status)
+		{
+			if (s_trapExit)
+			{
+				throw new ExitTrappedException(status);
+			}
+		}
+	}
+
+	/**
+	 * Output stream that stores what is written to it by the threads of a
+	 * tool in a buffer, or sends it to a consumer. What other threads write,
+	 * or what is written once the run has ended, goes to another stream.
+	 */
+	protected static class ConsumerOutputStream extends OutputStream
+	{
+		protected final ChunkedByteBuffer m_buffer;
+
+		protected final OutputConsumer m_consumer;
+
+		protected final ThreadGroup m_group;
+
+		protected final OutputStream m_others;
+
+		protected volatile boolean m_open = true;
+
+		public ConsumerOutputStream(ChunkedByteBuffer buffer, OutputConsumer consumer, ThreadGroup group, OutputStream others)
+		{
+			super();
+			m_buffer = buffer;
+			m_consumer = consumer;
+			m_group = group;
+			m_others = others;
+		}
+
+		@Override
+		public void write(int b) throws IOException
+		{
+			write(new byte[] {(byte) b}, 0, 1);
+		}
+
+		@Override
+		public void write(byte[] b, int off, int len) throws IOException
+		{
+			if (!m_open || !m_group.parentOf(Thread.currentThread().getThreadGroup()))
+			{
+				m_others.write(b, off, len);
+				return;
+			}
+			if (m_consumer == null)
+			{
+				m_buffer.write(b, off, len);
+			}
+			else
+			{
+				synchronized (this)
+				{
+					m_consumer.consume(b, off, len);
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,159 @@
+/*
+    A lab for comparing combinatorial test suite generators
+    Copyright (C) 2017-2021 Sylvain Hallé, Edmond La Chance,
+    Vincent Porta-Scarta
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package combigraph.lab;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Reads the test cases printed by Jenny. Each test case is a line that
+ * starts with a space, followed by one token per parameter made of the
+ * number of the parameter (starting at 1) and of a letter for its value
+ * (<tt>a</tt> to <tt>z</tt>, then <tt>A</tt> to <tt>Z</tt>). Other lines,
+ * such as the tuples Jenny reports it could not cover, are ignored.
+ */
+public class JennyRowCollector extends OutputConsumer
+{
+	/**
+	 * The number of parameters
+	 */
+	protected final int m_n;
+
+	/**
+	 * The test cases read so far
+	 */
+	protected final List<int[]> m_rows;
+
+	/**
+	 * The test case being read, or null if the current line is not a test
+	 * case
+	 */
+	protected int[] m_row = null;
+
+	/**
+	 * Whether the next character is the first of a line
+	 */
+	protected boolean m_lineStart = true;
+
+	/**
+	 * The number of the parameter being read, or -1 if none is being read
+	 */
+	protected int m_param = -1;
+
+	/**
+	 * Creates a new collector
+	 * @param n The number of parameters
+	 */
+	public JennyRowCollector(int n)
+	{
+		super();
+		m_n = n;
+		m_rows = new ArrayList<int[]>();
+	}
+
+	@Override
+	protected void process(byte[] b, int offset, int len)
+	{
+		int end = offset + len;
+		for (int i = offset; i < end; i++)
+		{
+			byte c = b[i];
+			if (c == '\n' || c == '\r')
+			{
+				endLine();
+				continue;
+			}
+			if (m_lineStart)
+			{
+				m_lineStart = false;
+				if (c == ' ')
+				{
+					m_row = new int[m_n];
+					Arrays.fill(m_row, -1);
+				}
+				continue;
+			}
+			if (m_row == null)
+			{
+				continue;
+			}
+			if (c >= '0' && c <= '9')
+			{
+				m_param = (m_param < 0 ? 0 : m_param * 10) + c - '0';
+			}
+			else if (m_param > 0 && m_param <= m_n && c >= 'a' && c <= 'z')
+			{
+				m_row[m_param - 1] = c - 'a';
+				m_param = -1;
+			}
+			else if (m_param > 0 && m_param <= m_n && c >= 'A' && c <= 'Z')
+			{
+				m_row[m_param - 1] = 26 + c - 'A';
+				m_param = -1;
+			}
+			else if (c != ' ')
+			{
+				// Not a test case
+				m_row = null;
+			}
+			else
+			{
+				m_param = -1;
+			}
+		}
+	}
+
+	@Override
+	public void end()
+	{
+		endLine();
+	}
+
+	/**
+	 * Gets the test cases read so far
+	 * @return The value of each parameter in each test case, or -1 for
+	 * parameters a test case does not mention
+	 */
+	public int[][] getRows()
+	{
+		return m_rows.toArray(new int[m_rows.size()][]);
+	}
+
+	/**
+	 * Ends the current line, and keeps it if it is a test case
+	 */
+	protected void endLine()
+	{
+		if (m_row != null)
+		{
+			for (int value : m_row)
+			{
+				if (value >= 0)
+				{
+					m_rows.add(m_row);
+					break;
+				}
+			}
+		}
+		m_row = null;
+		m_param = -1;
+		m_lineStart = true;
+	}
+}
@@ -0,0 +1,92 @@
+/*
+    A lab for comparing combinatorial test suite generators
+    Copyright (C) 2017-2021 Sylvain Hallé, Edmond La Chance,
+    Vincent Porta-Scarta
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package combigraph.lab;
+
+/**
+ * Counts the lines of an output. The count is the same as the number of
+ * elements returned by <tt>split("\r\n|\r|\n")</tt> on the whole output:
+ * empty lines are counted, except those at the very end.
+ */
+public class LineCounter extends OutputConsumer
+{
+	/**
+	 * The number of line breaks that precede the last non-break character
+	 * seen so far
+	 */
+	protected int m_breaks = 0;
+
+	/**
+	 * The number of line breaks seen since the last non-break character
+	 */
+	protected int m_pendingBreaks = 0;
+
+	/**
+	 * Whether a non-break character has been seen
+	 */
+	protected boolean m_hasContent = false;
+
+	/**
+	 * Whether the last character seen is a carriage return, in which case
+	 * a line feed that follows it is part of the same line break
+	 */
+	protected boolean m_lastWasCr = false;
+
+	@Override
+	protected void process(byte[] b, int offset, int len)
+	{
+		int end = offset + len;
+		for (int i = offset; i < end; i++)
+		{
+			byte c = b[i];
+			if (c == '\n')
+			{
+				if (!m_lastWasCr)
+				{
+					m_pendingBreaks++;
+				}
+				m_lastWasCr = false;
+			}
+			else if (c == '\r')
+			{
+				m_pendingBreaks++;
+				m_lastWasCr = true;
+			}
+			else
+			{
+				m_breaks += m_pendingBreaks;
+				m_pendingBreaks = 0;
+				m_hasContent = true;
+				m_lastWasCr = false;
+			}
+		}
+	}
+
+	/**
+	 * Gets the number of lines in the output received so far
+	 * @return The number of lines
+	 */
+	public int getLineCount()
+	{
+		if (m_hasContent)
+		{
+			return m_breaks + 1;
+		}
+		return m_byteCount == 0 ? 1 : 0;
+	}
+}
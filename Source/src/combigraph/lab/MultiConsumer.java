@@ -0,0 +1,68 @@
+/*
+    A lab for comparing combinatorial test suite generators
+    Copyright (C) 2017-2021 Sylvain Hallé, Edmond La Chance,
+    Vincent Porta-Scarta
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package combigraph.lab;
+
+/**
+ * Sends the same output to multiple consumers.
+ */
+public class MultiConsumer extends OutputConsumer
+{
+	/**
+	 * The consumers receiving the output
+	 */
+	protected final OutputConsumer[] m_consumers;
+
+	/**
+	 * Creates a new multi-consumer
+	 * @param consumers The consumers receiving the output
+	 */
+	public MultiConsumer(OutputConsumer ... consumers)
+	{
+		super();
+		m_consumers = consumers;
+	}
+
+	@Override
+	protected void process(byte[] b, int offset, int len)
+	{
+		for (OutputConsumer c : m_consumers)
+		{
+			c.consume(b, offset, len);
+		}
+	}
+
+	@Override
+	public void end()
+	{
+		for (OutputConsumer c : m_consumers)
+		{
+			c.end();
+		}
+	}
+
+	/**
+	 * Gets one of the consumers receiving the output
+	 * @param index The position of the consumer
+	 * @return The consumer
+	 */
+	public OutputConsumer get(int index)
+	{
+		return m_consumers[index];
+	}
+}
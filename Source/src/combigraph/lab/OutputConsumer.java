@@ -0,0 +1,69 @@
+/*
+    A lab for comparing combinatorial test suite generators
+    Copyright (C) 2017-2021 Sylvain Hallé, Edmond La Chance,
+    Vincent Porta-Scarta
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package combigraph.lab;
+
+/**
+ * Receives the output of a command chunk by chunk, as it is being
+ * produced. Consumers extract some information from this output (such as
+ * the size of a test suite) without ever holding it entirely in memory.
+ */
+public abstract class OutputConsumer
+{
+	/**
+	 * The number of bytes received so far
+	 */
+	protected long m_byteCount = 0;
+
+	/**
+	 * Receives a chunk of output
+	 * @param b The array containing the bytes
+	 * @param offset The position of the first byte of the chunk in the array
+	 * @param len The number of bytes in the chunk
+	 */
+	public final void consume(byte[] b, int offset, int len)
+	{
+		m_byteCount += len;
+		process(b, offset, len);
+	}
+
+	/**
+	 * Processes a chunk of output
+	 * @param b The array containing the bytes
+	 * @param offset The position of the first byte of the chunk in the array
+	 * @param len The number of bytes in the chunk
+	 */
+	protected abstract void process(byte[] b, int offset, int len);
+
+	/**
+	 * Signals that the end of the output has been reached
+	 */
+	public void end()
+	{
+		// Nothing to do by default
+	}
+
+	/**
+	 * Gets the number of bytes received so far
+	 * @return The number of bytes
+	 */
+	public long getByteCount()
+	{
+		return m_byteCount;
+	}
+}
@@ -0,0 +1,135 @@
+/*
+    A lab for comparing combinatorial test suite generators
+    Copyright (C) 2017-2021 Sylvain Hallé, Edmond La Chance,
+    Vincent Porta-Scarta
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package combigraph.lab;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Looks for the first match of a regular expression in an output. The
+ * output is matched one line at a time, so that only the current line is
+ * kept in memory; the pattern must therefore not span multiple lines.
+ */
+public class PatternFinder extends OutputConsumer
+{
+	/**
+	 * The maximum number of characters of a line that are kept. Longer lines
+	 * are truncated before being matched.
+	 */
+	public static final transient int MAX_LINE_LENGTH = 65536;
+
+	/**
+	 * The pattern to look for
+	 */
+	protected final Pattern m_pattern;
+
+	/**
+	 * The characters of the current line
+	 */
+	protected final StringBuilder m_line;
+
+	/**
+	 * The first match found, or null if none has been found so far
+	 */
+	protected String[] m_groups = null;
+
+	/**
+	 * Creates a new pattern finder
+	 * @param pattern The pattern to look for
+	 */
+	public PatternFinder(Pattern pattern)
+	{
+		super();
+		m_pattern = pattern;
+		m_line = new StringBuilder();
+	}
+
+	@Override
+	protected void process(byte[] b, int offset, int len)
+	{
+		if (m_groups != null)
+		{
+			// Only the first match is of interest
+			return;
+		}
+		int end = offset + len;
+		for (int i = offset; i < end && m_groups == null; i++)
+		{
+			char c = (char) (b[i] & 0xFF);
+			if (c == '\n' || c == '\r')
+			{
+				matchLine();
+			}
+			else if (m_line.length() < MAX_LINE_LENGTH)
+			{
+				m_line.append(c);
+			}
+		}
+	}
+
+	@Override
+	public void end()
+	{
+		if (m_groups == null)
+		{
+			matchLine();
+		}
+	}
+
+	/**
+	 * Matches the pattern on the current line, and empties it
+	 */
+	protected void matchLine()
+	{
+		Matcher mat = m_pattern.matcher(m_line);
+		if (mat.find())
+		{
+			m_groups = new String[mat.groupCount() + 1];
+			for (int i = 0; i < m_groups.length; i++)
+			{
+				m_groups[i] = mat.group(i);
+			}
+		}
+		m_line.setLength(0);
+	}
+
+	/**
+	 * Determines if the pattern has been found
+	 * @return <tt>true</tt> if it has been found, <tt>false</tt> otherwise
+	 */
+	public boolean found()
+	{
+		return m_groups != null;
+	}
+
+	/**
+	 * Gets a capturing group of the first match of the pattern
+	 * @param index The index of the group
+	 * @return The contents of the group, or null if the pattern has not
+	 * been found
+	 */
+	public String group(int index)
+	{
+		if (m_groups == null)
+		{
+			return null;
+		}
+		return m_groups[index];
+	}
+}
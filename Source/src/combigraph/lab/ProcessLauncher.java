@@ -0,0 +1,458 @@
+/*
+    A lab for comparing combinatorial test suite generators
+    Copyright (C) 2017-2021 Sylvain Hallé, Edmond La Chance,
+    Vincent Porta-Scarta
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package combigraph.lab;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.ProcessBuilder.Redirect;
+import java.nio.file.Files;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiConsumer;
+
+/**
+ * Launches external commands asynchronously on a bounded pool of threads.
+ * <p>
+ * Contrary to {@link TimeoutCommandRunner}, which uses four threads per
+ * command (the runner, the timeout watcher and two stream gobblers), a
+ * command submitted to the launcher occupies a single pooled thread:
+ * <ul>
+ * <li>stdout is read by the pooled thread itself;</li>
+ * <li>stderr is redirected by the operating system to a temporary file,
+ * which is read back once the process ends;</li>
+ * <li>timeouts of all the commands are enforced by a single shared timer
+ * thread.</li>
+ * </ul>
+ * The launcher can therefore keep many commands in flight with a number of
+ * threads that only depends on the size of its pool. The result of each
+ * command records when its process started and ended, so that its
+ * duration does not include the time it waited for a free thread.
+ */
+public class ProcessLauncher
+{
+	/**
+	 * The pool of threads running the commands
+	 */
+	protected final ExecutorService m_pool;
+
+	/**
+	 * The thread killing the commands that exceed their timeout
+	 */
+	protected final ScheduledExecutorService m_timer;
+
+	/**
+	 * The threads writing the stdin of commands whose input is produced
+	 * while they run
+	 */
+	protected final ExecutorService m_writers;
+
+	/**
+	 * Whether the resources used by each command are measured
+	 */
+	protected volatile boolean m_accounting = false;
+
+	/**
+	 * Creates a new launcher
+	 * @param max_processes The maximum number of commands that can run at
+	 * the same time. Commands submitted beyond this number are queued.
+	 */
+	public ProcessLauncher(int max_processes)
+	{
+		super();
+		m_pool = Executors.newFixedThreadPool(max_processes, new DaemonThreadFactory("launcher"));
+		m_timer = Executors.newSingleThreadScheduledExecutor(new DaemonThreadFactory("launcher-timer"));
+		m_writers = Executors.newCachedThreadPool(new DaemonThreadFactory("launcher-stdin"));
+	}
+
+	/**
+	 * Sets whether the resources used by each command (CPU time, peak
+	 * memory, context switches) are measured. This is only possible on
+	 * systems where {@link ResourceMonitor#isSupported()} holds; elsewhere,
+	 * this setting has no effect.
+	 * @param b Set to <tt>true</tt> to measure resources
+	 */
+	public void setResourceAccounting(boolean b)
+	{
+		m_accounting = b && ResourceMonitor.isSupported();
+	}
+
+	/**
+	 * Submits a command for execution
+	 * @param command The command to run
+	 * @param stdin If not set to null, this string will be sent to the stdin
+	 * of the command being run
+	 * @param timeout The maximum duration of the command in milliseconds, or
+	 * a negative value for no timeout
+	 * @return A future that is completed with the result of the command once
+	 * it has ended. Cancelling this future kills the command.
+	 */
+	public CompletableFuture<ProcessResult> submit(String[] command, String stdin, long timeout)
+	{
+		return submit(command, stdin, timeout, null);
+	}
+
+	/**
+	 * Submits a command for execution, and streams its stdout to a consumer
+	 * @param command The command to run
+	 * @param stdin If not set to null, this string will be sent to the stdin
+	 * of the command being run
+	 * @param timeout The maximum duration of the command in milliseconds, or
+	 * a negative value for no timeout
+	 * @param consumer If not set to null, stdout is sent to this consumer
+	 * as it is produced, and is not kept in the result of the command
+	 * @return A future that is completed with the result of the command once
+	 * it has ended. Cancelling this future kills the command.
+	 */
+	public CompletableFuture<ProcessResult> submit(String[] command, String stdin, long timeout, OutputConsumer consumer)
+	{
+		return submit(command, stdin, timeout, consumer, null);
+	}
+
+	/**
+	 * Submits a command for execution in a given working directory, and
+	 * streams its stdout to a consumer
+	 * @param command The command to run
+	 * @param stdin If not set to null, this string will be sent to the stdin
+	 * of the command being run
+	 * @param timeout The maximum duration of the command in milliseconds, or
+	 * a negative value for no timeout
+	 * @param consumer If not set to null, stdout is sent to this consumer
+	 * as it is produced, and is not kept in the result of the command
+	 * @param directory The working directory of the command, or null for
+	 * the working directory of the lab
+	 * @return A future that is completed with the result of the command once
+	 * it has ended. Cancelling this future kills the command.
+	 */
+	public CompletableFuture<ProcessResult> submit(String[] command, String stdin, long timeout, OutputConsumer consumer, File directory)
+	{
+		Job job = new Job(command, stdin, null, timeout, consumer, directory);
+		m_pool.execute(job);
+		return job.m_future;
+	}
+
+	/**
+	 * Submits a command for execution, whose stdin is written by a producer
+	 * while the command runs. The producer runs on its own thread, so that
+	 * a command filling its stdout before it has read all its input cannot
+	 * block.
+	 * @param command The command to run
+	 * @param producer The producer writing the stdin of the command
+	 * @param timeout The maximum duration of the command in milliseconds, or
+	 * a negative value for no timeout
+	 * @param consumer If not set to null, stdout is sent to this consumer
+	 * as it is produced, and is not kept in the result of the command
+	 * @return A future that is completed with the result of the command once
+	 * it has ended. Cancelling this future kills the command. If the
+	 * producer fails, the future is completed with its exception.
+	 */
+	public CompletableFuture<ProcessResult> submit(String[] command, InputProducer producer, long timeout, OutputConsumer consumer)
+	{
+		return submit(command, producer, timeout, consumer, null);
+	}
+
+	/**
+	 * Submits a command for execution in a given working directory, whose
+	 * stdin is written by a producer while the command runs
+	 * @param command The command to run
+	 * @param producer The producer writing the stdin of the command
+	 * @param timeout The maximum duration of the command in milliseconds, or
+	 * a negative value for no timeout
+	 * @param consumer If not set to null, stdout is sent to this consumer
+	 * as it is produced, and is not kept in the result of the command
+	 * @param directory The working directory of the command, or null for
+	 * the working directory of the lab
+	 * @return A future that is completed with the result of the command once
+	 * it has ended. Cancelling this future kills the command. If the
+	 * producer fails, the future is completed with its exception.
+	 */
+	public CompletableFuture<ProcessResult> submit(String[] command, InputProducer producer, long timeout, OutputConsumer consumer, File directory)
+	{
+		Job job = new Job(command, null, producer, timeout, consumer, directory);
+		m_pool.execute(job);
+		return job.m_future;
+	}
+
+	/**
+	 * Submits a command for execution, without timeout and with nothing
+	 * sent to its stdin
+	 * @param command The command to run
+	 * @return A future that is completed with the result of the command once
+	 * it has ended
+	 */
+	public CompletableFuture<ProcessResult> submit(String ... command)
+	{
+		return submit(command, null, -1);
+	}
+
+	/**
+	 * Stops accepting new commands. Commands already submitted keep running.
+	 */
+	public void shutdown()
+	{
+		m_pool.shutdown();
+		m_timer.shutdown();
+		m_writers.shutdown();
+	}
+
+	/**
+	 * The execution of a single command on a thread of the pool
+	 */
+	protected class Job implements Runnable
+	{
+		protected final String[] m_command;
+
+		protected final String m_stdin;
+
+		protected final InputProducer m_producer;
+
+		protected final long m_timeout;
+
+		protected final OutputConsumer m_consumer;
+
+		protected final File m_directory;
+
+		protected final CompletableFuture<ProcessResult> m_future;
+
+		protected volatile Process m_process;
+
+		protected volatile boolean m_timedOut = false;
+
+		public Job(String[] command, String stdin, InputProducer producer, long timeout, OutputConsumer consumer, File directory)
+		{
+			super();
+			m_command = command;
+			m_stdin = stdin;
+			m_producer = producer;
+			m_timeout = timeout;
+			m_consumer = consumer;
+			m_directory = directory;
+			m_future = new CompletableFuture<ProcessResult>();
+			m_future.whenComplete(new BiConsumer<ProcessResult,Throwable>()
+			{
+				@Override
+				public void accept(ProcessResult r, Throwable t)
+				{
+					// Happens when the caller cancels the future
+					Process p = m_process;
+					if (t != null && p != null)
+					{
+						p.destroyForcibly();
+					}
+				}
+			});
+		}
+
+		@Override
+		public void run()
+		{
+			if (m_future.isDone())
+			{
+				// Cancelled while waiting in the queue
+				return;
+			}
+			File err_file = null;
+			ScheduledFuture<?> killer = null;
+			ResourceMonitor monitor = null;
+			Future<Void> writer = null;
+			try
+			{
+				err_file = File.createTempFile("launcher-", ".err");
+				String[] command = m_command;
+				if (m_accounting)
+				{
+					monitor = new ResourceMonitor();
+					command = monitor.wrap(command);
+				}
+				ProcessBuilder builder = new ProcessBuilder(command);
+				builder.directory(m_directory);
+				builder.redirectError(Redirect.to(err_file));
+				long start_time = System.currentTimeMillis();
+				final Process process = builder.start();
+				m_process = process;
+				if (m_future.isDone())
+				{
+					process.destroyForcibly();
+				}
+				if (monitor != null)
+				{
+					monitor.start(m_timer);
+				}
+				if (m_timeout >= 0)
+				{
+					killer = m_timer.schedule(new Runnable()
+					{
+						@Override
+						public void run()
+						{
+							m_timedOut = true;
+							process.destroyForcibly();
+						}
+					}, m_timeout, TimeUnit.MILLISECONDS);
+				}
+				final OutputStream process_stdin = process.getOutputStream();
+				if (m_producer != null)
+				{
+					writer = m_writers.submit(new Callable<Void>()
+					{
+						@Override
+						public Void call() throws IOException
+						{
+							try
+							{
+								m_producer.produce(process_stdin);
+							}
+							finally
+							{
+								process_stdin.close();
+							}
+							return null;
+						}
+					});
+				}
+				else
+				{
+					if (m_stdin != null)
+					{
+						byte[] stdin_bytes = m_stdin.getBytes();
+						process_stdin.write(stdin_bytes, 0, stdin_bytes.length);
+						process_stdin.flush();
+					}
+					process_stdin.close();
+				}
+				byte[] stdout = new byte[0];
+				InputStream is = process.getInputStream();
+				if (m_consumer == null)
+				{
+					ChunkedByteBuffer contents = new ChunkedByteBuffer();
+					contents.readFrom(is);
+					stdout = contents.toByteArray();
+				}
+				else
+				{
+					byte[] buffer = new byte[ChunkedByteBuffer.DEFAULT_CHUNK_SIZE];
+					int len;
+					while ((len = is.read(buffer)) >= 0)
+					{
+						m_consumer.consume(buffer, 0, len);
+					}
+					m_consumer.end();
+				}
+				is.close();
+				ResourceUsage usage = null;
+				if (monitor != null)
+				{
+					// Stdout is closed: the command is ending, take a last sample
+					usage = monitor.stop();
+				}
+				int error_code = process.waitFor();
+				long end_time = System.currentTimeMillis();
+				if (killer != null)
+				{
+					killer.cancel(false);
+				}
+				if (m_timedOut)
+				{
+					error_code = Integer.MIN_VALUE;
+				}
+				if (writer != null && !m_timedOut)
+				{
+					try
+					{
+						writer.get();
+					}
+					catch (ExecutionException e)
+					{
+						// The input could not be produced entirely
+						Throwable cause = e.getCause();
+						throw cause instanceof IOException ? (IOException) cause : new IOException(cause);
+					}
+				}
+				byte[] stderr = Files.readAllBytes(err_file.toPath());
+				m_future.complete(new ProcessResult(error_code, stdout, stderr, usage, start_time, end_time));
+			}
+			catch (IOException e)
+			{
+				m_future.completeExceptionally(e);
+			}
+			catch (InterruptedException e)
+			{
+				m_future.completeExceptionally(e);
+			}
+			finally
+			{
+				if (killer != null)
+				{
+					killer.cancel(false);
+				}
+				if (monitor != null)
+				{
+					monitor.stop();
+				}
+				if (writer != null)
+				{
+					writer.cancel(true);
+				}
+				if (m_process != null && m_future.isCompletedExceptionally())
+				{
+					m_process.destroyForcibly();
+				}
+				if (err_file != null)
+				{
+					err_file.delete();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Creates named daemon threads, so that the launcher never prevents
+	 * the lab from exiting
+	 */
+	public static class DaemonThreadFactory implements ThreadFactory
+	{
+		protected final String m_prefix;
+
+		protected final AtomicInteger m_count = new AtomicInteger();
+
+		public DaemonThreadFactory(String prefix)
+		{
+			super();
+			m_prefix = prefix;
+		}
+
+		@Override
+		public Thread newThread(Runnable r)
+		{
+			Thread t = new Thread(r, m_prefix + "-" + m_count.incrementAndGet());
+			t.setDaemon(true);
+			return t;
+		}
+	}
+}
@@ -0,0 +1,196 @@
+/*
+    A lab for comparing combinatorial test suite generators
+    Copyright (C) 2017-2021 Sylvain Hallé, Edmond La Chance,
+    Vincent Porta-Scarta
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package combigraph.lab;
+
+/**
+ * The outcome of the execution of an external command by a
+ * {@link TimeoutCommandRunner}.
+ */
+public class ProcessResult
+{
+	/**
+	 * The return code of the command
+	 */
+	protected final int m_errorCode;
+
+	/**
+	 * The contents of stdout sent by the command
+	 */
+	protected final byte[] m_stdout;
+
+	/**
+	 * The contents of stderr sent by the command
+	 */
+	protected final byte[] m_stderr;
+
+	/**
+	 * The resources used by the command, if they have been measured
+	 */
+	protected final ResourceUsage m_usage;
+
+	/**
+	 * The time at which the command was started, in milliseconds since the
+	 * epoch, or 0 if it has not been recorded
+	 */
+	protected final long m_startTime;
+
+	/**
+	 * The time at which the command ended, in milliseconds since the epoch,
+	 * or 0 if it has not been recorded
+	 */
+	protected final long m_endTime;
+
+	/**
+	 * Creates a new process result
+	 * @param error_code The return code of the command
+	 * @param stdout The contents of stdout sent by the command
+	 * @param stderr The contents of stderr sent by the command
+	 */
+	public ProcessResult(int error_code, byte[] stdout, byte[] stderr)
+	{
+		this(error_code, stdout, stderr, null);
+	}
+
+	/**
+	 * Creates a new process result
+	 * @param error_code The return code of the command
+	 * @param stdout The contents of stdout sent by the command
+	 * @param stderr The contents of stderr sent by the command
+	 * @param usage The resources used by the command, or null if they have
+	 * not been measured
+	 */
+	public ProcessResult(int error_code, byte[] stdout, byte[] stderr, ResourceUsage usage)
+	{
+		this(error_code, stdout, stderr, usage, 0, 0);
+	}
+
+	/**
+	 * Creates a new process result
+	 * @param error_code The return code of the command
+	 * @param stdout The contents of stdout sent by the command
+	 * @param stderr The contents of stderr sent by the command
+	 * @param usage The resources used by the command, or null if they have
+	 * not been measured
+	 * @param start_time The time at which the command was started, in
+	 * milliseconds since the epoch
+	 * @param end_time The time at which the command ended, in milliseconds
+	 * since the epoch
+	 */
+	public ProcessResult(int error_code, byte[] stdout, byte[] stderr, ResourceUsage usage, long start_time, long end_time)
+	{
+		super();
+		m_errorCode = error_code;
+		m_stdout = stdout;
+		m_stderr = stderr;
+		m_usage = usage;
+		m_startTime = start_time;
+		m_endTime = end_time;
+	}
+
+	/**
+	 * Gets the return code of the command
+	 * @return The return code
+	 */
+	public int getErrorCode()
+	{
+		return m_errorCode;
+	}
+
+	/**
+	 * Determines if the command was killed for running longer than its
+	 * timeout
+	 * @return <tt>true</tt> if the command timed out, <tt>false</tt>
+	 * otherwise
+	 */
+	public boolean hasTimedOut()
+	{
+		return m_errorCode == Integer.MIN_VALUE;
+	}
+
+	/**
+	 * Gets the contents of stdout sent by the command as an array of bytes
+	 * @return The contents of stdout
+	 */
+	public byte[] getBytes()
+	{
+		return m_stdout;
+	}
+
+	/**
+	 * Gets the contents of stderr sent by the command as an array of bytes
+	 * @return The contents of stderr
+	 */
+	public byte[] getErrorBytes()
+	{
+		return m_stderr;
+	}
+
+	/**
+	 * Gets the resources used by the command
+	 * @return The resource usage, or null if it has not been measured
+	 */
+	public ResourceUsage getResourceUsage()
+	{
+		return m_usage;
+	}
+
+	/**
+	 * Gets the time at which the command was started. This excludes the
+	 * time the command waited for a free slot in its launcher.
+	 * @return The time in milliseconds since the epoch, or 0 if it has not
+	 * been recorded
+	 */
+	public long getStartTime()
+	{
+		return m_startTime;
+	}
+
+	/**
+	 * Gets the time at which the command ended
+	 * @return The time in milliseconds since the epoch, or 0 if it has not
+	 * been recorded
+	 */
+	public long getEndTime()
+	{
+		return m_endTime;
+	}
+
+	/**
+	 * Gets the duration of the command, from its start to its end
+	 * @return The duration in milliseconds, or -1 if it has not been
+	 * recorded
+	 */
+	public long getDuration()
+	{
+		if (m_startTime == 0)
+		{
+			return -1;
+		}
+		return m_endTime - m_startTime;
+	}
+
+	/**
+	 * Gets the contents of stdout sent by the command as a string
+	 * @return The contents of stdout
+	 */
+	public String getString()
+	{
+		return new String(m_stdout);
+	}
+}
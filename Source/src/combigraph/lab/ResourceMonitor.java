@@ -0,0 +1,244 @@
+/*
+    A lab for comparing combinatorial test suite generators
+    Copyright (C) 2017-2021 Sylvain Hallé, Edmond La Chance,
+    Vincent Porta-Scarta
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package combigraph.lab;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the resources consumed by an external command on Linux, by
+ * periodically sampling the <tt>/proc</tt> entry of its process.
+ * <p>
+ * The command is wrapped in a shell that writes its own PID to a
+ * temporary file and then replaces itself with the command (using
+ * <tt>exec</tt>). The PID read from this file is therefore that of the
+ * command itself, which also means that killing the wrapped process still
+ * kills the command.
+ * <p>
+ * Since a process disappears from <tt>/proc</tt> as soon as it ends, the
+ * values returned are those of the last sample taken; CPU times can hence
+ * be underestimated by at most one sampling interval. The peak memory is a
+ * high-water mark kept by the kernel, and is not affected by sampling.
+ */
+public class ResourceMonitor
+{
+	/**
+	 * The interval between two samples, in milliseconds
+	 */
+	public static final transient long SAMPLING_INTERVAL = 10;
+
+	/**
+	 * The number of clock ticks per second assumed when it cannot be
+	 * obtained from <tt>getconf</tt>
+	 */
+	protected static final transient int DEFAULT_CLOCK_TICKS = 100;
+
+	/**
+	 * The number of clock ticks per second used by the kernel to express
+	 * CPU times in <tt>/proc/[pid]/stat</tt>, or 0 if not read yet
+	 */
+	protected static int s_clockTicks = 0;
+
+	/**
+	 * The file where the wrapper writes the PID of the command
+	 */
+	protected final File m_pidFile;
+
+	/**
+	 * The PID of the command, or -1 if not known yet
+	 */
+	protected int m_pid = -1;
+
+	/**
+	 * The last values sampled: user ticks, system ticks, peak memory,
+	 * voluntary and involuntary context switches
+	 */
+	protected long[] m_sample = null;
+
+	/**
+	 * The task sampling the process
+	 */
+	protected ScheduledFuture<?> m_sampler = null;
+
+	/**
+	 * Determines if resource usage can be measured on this system
+	 * @return <tt>true</tt> if it can, <tt>false</tt> otherwise
+	 */
+	public static boolean isSupported()
+	{
+		return new File("/proc/self/stat").exists() && new File("/bin/sh").canExecute();
+	}
+
+	/**
+	 * Creates a new resource monitor
+	 * @throws IOException If the temporary PID file cannot be created
+	 */
+	public ResourceMonitor() throws IOException
+	{
+		super();
+		m_pidFile = File.createTempFile("monitor-", ".pid");
+	}
+
+	/**
+	 * Wraps a command so that its PID is made available to the monitor
+	 * @param command The command
+	 * @return The wrapped command
+	 */
+	public String[] wrap(String[] command)
+	{
+		String[] out = new String[command.length + 4];
+		out[0] = "/bin/sh";
+		out[1] = "-c";
+		out[2] = "echo $$ > \"$0\"; exec \"$@\"";
+		out[3] = m_pidFile.getAbsolutePath();
+		System.arraycopy(command, 0, out, 4, command.length);
+		return out;
+	}
+
+	/**
+	 * Starts sampling the process of the wrapped command
+	 * @param timer The executor on which the samples are taken
+	 */
+	public synchronized void start(ScheduledExecutorService timer)
+	{
+		m_sampler = timer.scheduleAtFixedRate(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				sample();
+			}
+		}, 0, SAMPLING_INTERVAL, TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Takes a last sample and stops sampling the process
+	 * @return The resources used by the process, or null if no sample could
+	 * be taken
+	 */
+	public synchronized ResourceUsage stop()
+	{
+		if (m_sampler != null)
+		{
+			m_sampler.cancel(false);
+			m_sampler = null;
+		}
+		sample();
+		m_pidFile.delete();
+		if (m_sample == null)
+		{
+			return null;
+		}
+		int ticks = getClockTicks();
+		return new ResourceUsage(m_sample[0] * 1000 / ticks, m_sample[1] * 1000 / ticks,
+				m_sample[2], m_sample[3], m_sample[4]);
+	}
+
+	/**
+	 * Gets the number of clock ticks per second of the kernel, as given by
+	 * <tt>getconf CLK_TCK</tt>
+	 * @return The number of ticks
+	 */
+	protected static synchronized int getClockTicks()
+	{
+		if (s_clockTicks > 0)
+		{
+			return s_clockTicks;
+		}
+		s_clockTicks = DEFAULT_CLOCK_TICKS;
+		byte[] out = TimeoutCommandRunner.runAndGet(new String[] {"getconf", "CLK_TCK"}, null);
+		try
+		{
+			int ticks = Integer.parseInt(new String(out).trim());
+			if (ticks > 0)
+			{
+				s_clockTicks = ticks;
+			}
+		}
+		catch (NumberFormatException e)
+		{
+			// getconf is not available: keep the default
+		}
+		return s_clockTicks;
+	}
+
+	/**
+	 * Reads the current resource usage of the process from <tt>/proc</tt>
+	 */
+	protected synchronized void sample()
+	{
+		try
+		{
+			if (m_pid < 0)
+			{
+				List<String> lines = Files.readAllLines(m_pidFile.toPath());
+				if (lines.isEmpty() || lines.get(0).trim().isEmpty())
+				{
+					// The wrapper has not written its PID yet
+					return;
+				}
+				m_pid = Integer.parseInt(lines.get(0).trim());
+			}
+			long[] sample = new long[5];
+			boolean has_memory = false;
+			// Fields after the command name, which is between parentheses
+			String stat = new String(Files.readAllBytes(new File("/proc/" + m_pid + "/stat").toPath()));
+			String[] fields = stat.substring(stat.lastIndexOf(')') + 2).split(" ");
+			sample[0] = Long.parseLong(fields[11]);
+			sample[1] = Long.parseLong(fields[12]);
+			for (String line : Files.readAllLines(new File("/proc/" + m_pid + "/status").toPath()))
+			{
+				if (line.startsWith("VmHWM:"))
+				{
+					sample[2] = Long.parseLong(line.substring(6).replace("kB", "").trim());
+					has_memory = true;
+				}
+				else if (line.startsWith("voluntary_ctxt_switches:"))
+				{
+					sample[3] = Long.parseLong(line.substring(24).trim());
+				}
+				else if (line.startsWith("nonvoluntary_ctxt_switches:"))
+				{
+					sample[4] = Long.parseLong(line.substring(27).trim());
+				}
+			}
+			if (!has_memory && m_sample != null)
+			{
+				// A process that has ended but has not been reaped yet has no
+				// memory information, but its final CPU times and switches:
+				// only its peak memory is taken from the previous sample
+				sample[2] = m_sample[2];
+			}
+			m_sample = sample;
+		}
+		catch (IOException e)
+		{
+			// The process has ended: keep the last sample
+		}
+		catch (RuntimeException e)
+		{
+			// Malformed entry: keep the last sample
+		}
+	}
+}
@@ -0,0 +1,121 @@
+/*
+    A lab for comparing combinatorial test suite generators
+    Copyright (C) 2017-2021 Sylvain Hallé, Edmond La Chance,
+    Vincent Porta-Scarta
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package combigraph.lab;
+
+/**
+ * The operating system resources consumed by the execution of an external
+ * command.
+ */
+public class ResourceUsage
+{
+	/**
+	 * The CPU time spent in user mode, in milliseconds
+	 */
+	protected final long m_userTime;
+
+	/**
+	 * The CPU time spent in kernel mode, in milliseconds
+	 */
+	protected final long m_systemTime;
+
+	/**
+	 * The peak resident set size, in kilobytes
+	 */
+	protected final long m_peakMemory;
+
+	/**
+	 * The number of voluntary context switches
+	 */
+	protected final long m_voluntarySwitches;
+
+	/**
+	 * The number of involuntary context switches
+	 */
+	protected final long m_involuntarySwitches;
+
+	/**
+	 * Creates a new resource usage
+	 * @param user_time The CPU time spent in user mode, in milliseconds
+	 * @param system_time The CPU time spent in kernel mode, in milliseconds
+	 * @param peak_memory The peak resident set size, in kilobytes
+	 * @param voluntary_switches The number of voluntary context switches
+	 * @param involuntary_switches The number of involuntary context switches
+	 */
+	public ResourceUsage(long user_time, long system_time, long peak_memory, long voluntary_switches, long involuntary_switches)
+	{
+		super();
+		m_userTime = user_time;
+		m_systemTime = system_time;
+		m_peakMemory = peak_memory;
+		m_voluntarySwitches = voluntary_switches;
+		m_involuntarySwitches = involuntary_switches;
+	}
+
+	/**
+	 * Gets the CPU time spent in user mode
+	 * @return The time, in milliseconds
+	 */
+	public long getUserTime()
+	{
+		return m_userTime;
+	}
+
+	/**
+	 * Gets the CPU time spent in kernel mode
+	 * @return The time, in milliseconds
+	 */
+	public long getSystemTime()
+	{
+		return m_systemTime;
+	}
+
+	/**
+	 * Gets the peak resident set size
+	 * @return The size, in kilobytes
+	 */
+	public long getPeakMemory()
+	{
+		return m_peakMemory;
+	}
+
+	/**
+	 * Gets the number of voluntary context switches
+	 * @return The number of switches
+	 */
+	public long getVoluntarySwitches()
+	{
+		return m_voluntarySwitches;
+	}
+
+	/**
+	 * Gets the number of involuntary context switches
+	 * @return The number of switches
+	 */
+	public long getInvoluntarySwitches()
+	{
+		return m_involuntarySwitches;
+	}
+
+	@Override
+	public String toString()
+	{
+		return "user=" + m_userTime + "ms,sys=" + m_systemTime + "ms,rss=" + m_peakMemory
+				+ "kB,vcs=" + m_voluntarySwitches + ",ics=" + m_involuntarySwitches;
+	}
+}
@@ -24,13 +24,18 @@ import ca.uqac.lif.labpal.Random;
 import ca.uqac.lif.labpal.Region;
 import combigraph.lab.experiments.ActsTestGenerationExperiment;
 import combigraph.lab.experiments.AllPairsTestGenerationExperiment;
+import combigraph.lab.experiments.AnnealingTestGenerationExperiment;
 import combigraph.lab.experiments.CasaTestGenerationExperiment;
 import combigraph.lab.experiments.ColoringTestGenerationExperiment;
+import combigraph.lab.experiments.DsaturTestGenerationExperiment;
 import combigraph.lab.experiments.GbgaTestGenerationExperiment;
+import combigraph.lab.experiments.GreedyHittingSetExperiment;
 import combigraph.lab.experiments.HypergraphTestGenerationExperiment;
+import combigraph.lab.experiments.IpogTestGenerationExperiment;
 import combigraph.lab.experiments.JennyForbiddenTuplesExperiment;
 import combigraph.lab.experiments.JennyTestCompletionExperiment;
 import combigraph.lab.experiments.JennyTestGenerationExperiment;
+import combigraph.lab.experiments.MultiStartColouringExperiment;
 import combigraph.lab.experiments.TcasesTestGenerationExperiment;
 import combigraph.lab.experiments.TestGenerationExperiment;
 import combigraph.lab.problems.CombinatorialTestingProblem;
@@ -61,6 +66,22 @@ public class TestGenerationExperimentFactory extends ExperimentFactory<GraphLab,
 
 	@Override
 	protected TestGenerationExperiment createExperiment(Region r)
+	{
+		TestGenerationExperiment e = newExperiment(r);
+		if (e != null && GraphLab.s_scheduler != null)
+		{
+			GraphLab.s_scheduler.add(e);
+		}
+		return e;
+	}
+
+	/**
+	 * Creates the experiment for a region of the parameter space
+	 * @param r The region
+	 * @return The experiment, or null if the tool does not support the
+	 * problem
+	 */
+	protected TestGenerationExperiment newExperiment(Region r)
 	{
 		String problem_s = r.getString(TESTING_PROBLEM_NAME);
 		CombinatorialTestingProblem problem = getProblem(problem_s, r);
@@ -115,6 +136,26 @@ public class TestGenerationExperimentFactory extends ExperimentFactory<GraphLab,
 		{
 			return new HypergraphTestGenerationExperiment(problem);
 		}
+		case DsaturTestGenerationExperiment.NAME:
+		{
+			return new DsaturTestGenerationExperiment(problem);
+		}
+		case MultiStartColouringExperiment.NAME:
+		{
+			return new MultiStartColouringExperiment(problem);
+		}
+		case GreedyHittingSetExperiment.NAME:
+		{
+			return new GreedyHittingSetExperiment(problem);
+		}
+		case IpogTestGenerationExperiment.NAME:
+		{
+			return new IpogTestGenerationExperiment(problem);
+		}
+		case AnnealingTestGenerationExperiment.NAME:
+		{
+			return new AnnealingTestGenerationExperiment(problem);
+		}
 		}
 		return null;
 	}
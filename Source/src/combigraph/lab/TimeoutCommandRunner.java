@@ -21,7 +21,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.util.List;
-import java.util.Vector;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Facilitates the execution of an external command and the collection of
@@ -36,6 +36,9 @@ public class TimeoutCommandRunner extends Thread
 	protected StreamGobbler m_stderrGobbler;
 	protected int m_errorCode = 0;
 	protected long m_timeout = -1;
+	protected Process m_process;
+	protected OutputConsumer m_consumer;
+	protected final CompletableFuture<ProcessResult> m_future = new CompletableFuture<ProcessResult>();
 	
 	/**
 	 * Creates a CommandRunner to run a command.
@@ -82,6 +85,16 @@ public class TimeoutCommandRunner extends Thread
 		m_timeout = timeout;
 	}
 	
+	/**
+	 * Sends the stdout of the command to a consumer as it is produced,
+	 * instead of keeping it in memory.
+	 * @param consumer The consumer
+	 */
+	public void setOutputConsumer(OutputConsumer consumer)
+	{
+		m_consumer = consumer;
+	}
+	
 	/**
 	 * Constantly reads an input stream and captures its content.
 	 * Inspired from <a href="http://stackoverflow.com/questions/14165517/processbuilder-forwarding-stdout-and-stderr-of-started-processes-without-blocki">Stack Overflow</a>
@@ -89,14 +102,16 @@ public class TimeoutCommandRunner extends Thread
 	protected class StreamGobbler extends Thread
 	{
 		InputStream m_is;
-		Vector<Byte> m_contents;
+		ChunkedByteBuffer m_contents;
+		OutputConsumer m_consumer;
 		String m_name;
-		private StreamGobbler(InputStream is, String name)
+		private StreamGobbler(InputStream is, String name, OutputConsumer consumer)
 		{
 			super();
-			m_contents = new Vector<Byte>();
+			m_contents = new ChunkedByteBuffer();
 			this.m_is = is;
 			m_name = name;
+			m_consumer = consumer;
 		}
 		
 		@Override
@@ -104,17 +119,19 @@ public class TimeoutCommandRunner extends Thread
 		{
 			try
 			{
-				byte[] buffer = new byte[8192];
-				int len = -1;
-				while (!m_stop && (len = m_is.read(buffer)) > 0)
+				if (m_consumer == null)
 				{
-					synchronized (this)
+					m_contents.readFrom(m_is);
+				}
+				else
+				{
+					byte[] buffer = new byte[ChunkedByteBuffer.DEFAULT_CHUNK_SIZE];
+					int len = -1;
+					while ((len = m_is.read(buffer)) >= 0)
 					{
-						for (int i = 0; i < len; i++)
-						{
-							m_contents.add(buffer[i]);
-						}
+						m_consumer.consume(buffer, 0, len);
 					}
+					m_consumer.end();
 				}
 				m_is.close();
 			}
@@ -128,16 +145,9 @@ public class TimeoutCommandRunner extends Thread
 		 * Returns the contents captured by the gobbler as an array of bytes
 		 * @return The contents
 		 */
-		public synchronized byte[] getBytes()
+		public byte[] getBytes()
 		{
-			int size = m_contents.size();
-			byte[] out = new byte[size];
-			int i = 0;
-			for (byte b : m_contents)
-			{
-				out[i++] = b;
-			}
-			return out;
+			return m_contents.toByteArray();
 		}
 	}
 	
@@ -146,20 +156,16 @@ public class TimeoutCommandRunner extends Thread
 		TimeoutCommandRunner runner = new TimeoutCommandRunner(command, inputs);
 		runner.start();
 		// Wait until the command is done
-		while (runner.isAlive())
+		try
 		{
-			// Wait 0.1 s and check again
-			try
-			{
-				Thread.sleep(100);
-			}
-			catch (InterruptedException e)
-			{
-				// This happens if the user cancels the command manually
-				runner.stopCommand();
-				runner.interrupt();
-				return new byte[0];
-			}
+			runner.join();
+		}
+		catch (InterruptedException e)
+		{
+			// This happens if the user cancels the command manually
+			runner.stopCommand();
+			runner.interrupt();
+			return new byte[0];
 		}
 		byte[] out = runner.getBytes();
 		return out;
@@ -172,17 +178,43 @@ public class TimeoutCommandRunner extends Thread
 		return runAndGet(s_command, inputs);
 	}
 	
+	/**
+	 * Starts the command in a separate thread and returns immediately.
+	 * @return A future that is completed with the result of the command
+	 * once the process has ended and both of its output streams have been
+	 * entirely read
+	 */
+	public CompletableFuture<ProcessResult> runAsync()
+	{
+		start();
+		return m_future;
+	}
+	
+	/**
+	 * Gets the future that is completed when the command ends, whether it
+	 * has been started with {@link #run()}, {@link #start()} or
+	 * {@link #runAsync()}.
+	 * @return The future
+	 */
+	public CompletableFuture<ProcessResult> getFuture()
+	{
+		return m_future;
+	}
+	
 	@Override
 	public void run()
 	{
 		ProcessBuilder builder = new ProcessBuilder(m_command);
-		Process process = null;
 		try
 		{
-			process = builder.start();
+			Process process = builder.start();
+			synchronized (this)
+			{
+				m_process = process;
+			}
 			ProcessWithTimeout process_t = new ProcessWithTimeout(process);
-			m_stderrGobbler = new StreamGobbler(process.getErrorStream(), "ERR");
-			m_stdoutGobbler = new StreamGobbler(process.getInputStream(), "IN");
+			m_stderrGobbler = new StreamGobbler(process.getErrorStream(), "ERR", null);
+			m_stdoutGobbler = new StreamGobbler(process.getInputStream(), "IN", m_consumer);
 			// Send data into stdin of process
 			if (m_stdin != null)
 			{
@@ -199,25 +231,26 @@ public class TimeoutCommandRunner extends Thread
 			m_errorCode = process_t.waitForProcess(m_timeout);
 			if (m_errorCode == Integer.MIN_VALUE)
 			{
+				// Indicates a timeout
 				process.destroyForcibly();
-				return;
 			}
-			do
+			else
 			{
-				// Wait for both gobblers to finish
-			} while (!m_stop && (m_stderrGobbler.isAlive() || m_stdoutGobbler.isAlive()));
-			
+				// Wait for both gobblers to reach the end of their stream
+				m_stderrGobbler.join();
+				m_stdoutGobbler.join();
+			}
 		}
 		catch (IOException e)
 		{
 			m_errorCode = -1;
 		}
-		if (m_errorCode == Integer.MIN_VALUE)
+		catch (InterruptedException e)
 		{
-			// Indicates a timeout
-			
+			stopCommand();
+			m_errorCode = -1;
 		}
-		//System.err.println(new String(error_gobbler.getBytes()));
+		m_future.complete(new ProcessResult(m_errorCode, getBytes(), getErrorBytes()));
 	}
 	
 	/**
@@ -226,9 +259,26 @@ public class TimeoutCommandRunner extends Thread
 	 */
 	synchronized public byte[] getBytes()
 	{
+		if (m_stdoutGobbler == null)
+		{
+			return new byte[0];
+		}
 		return m_stdoutGobbler.getBytes();
 	}
 	
+	/**
+	 * Gets the contents of stderr sent by the command as an array of bytes
+	 * @return The contents of stderr
+	 */
+	synchronized public byte[] getErrorBytes()
+	{
+		if (m_stderrGobbler == null)
+		{
+			return new byte[0];
+		}
+		return m_stderrGobbler.getBytes();
+	}
+	
 	/**
 	 * Gets the contents of stdout sent by the command as a string
 	 * @return The contents of stdout
@@ -263,6 +313,10 @@ public class TimeoutCommandRunner extends Thread
 	synchronized public void stopCommand()
 	{
 		m_stop = true;
+		if (m_process != null)
+		{
+			m_process.destroyForcibly();
+		}
 	}
 	
 	public class ProcessWithTimeout extends Thread
@@ -281,7 +335,14 @@ public class TimeoutCommandRunner extends Thread
 
 	        try
 	        {
-	            this.join(p_timeoutMilliseconds);
+	            if (p_timeoutMilliseconds < 0)
+	            {
+	                this.join();
+	            }
+	            else
+	            {
+	                this.join(p_timeoutMilliseconds);
+	            }
 	        }
 	        catch (InterruptedException e)
 	        {
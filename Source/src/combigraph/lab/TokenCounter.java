@@ -0,0 +1,86 @@
+/*
+    A lab for comparing combinatorial test suite generators
+    Copyright (C) 2017-2021 Sylvain Hallé, Edmond La Chance,
+    Vincent Porta-Scarta
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package combigraph.lab;
+
+/**
+ * Counts the occurrences of a single byte in an output, such as the
+ * separators between the tokens of a list.
+ */
+public class TokenCounter extends OutputConsumer
+{
+	/**
+	 * The byte to count
+	 */
+	protected final byte m_token;
+
+	/**
+	 * The number of occurrences of the byte
+	 */
+	protected long m_count = 0;
+
+	/**
+	 * The first byte of the output, or -1 if nothing has been received
+	 */
+	protected int m_firstByte = -1;
+
+	/**
+	 * Creates a new token counter
+	 * @param token The byte to count
+	 */
+	public TokenCounter(char token)
+	{
+		super();
+		m_token = (byte) token;
+	}
+
+	@Override
+	protected void process(byte[] b, int offset, int len)
+	{
+		if (len > 0 && m_firstByte < 0)
+		{
+			m_firstByte = b[offset] & 0xFF;
+		}
+		int end = offset + len;
+		for (int i = offset; i < end; i++)
+		{
+			if (b[i] == m_token)
+			{
+				m_count++;
+			}
+		}
+	}
+
+	/**
+	 * Gets the number of occurrences of the byte
+	 * @return The number of occurrences
+	 */
+	public long getCount()
+	{
+		return m_count;
+	}
+
+	/**
+	 * Gets the first byte of the output
+	 * @return The byte, or -1 if nothing has been received
+	 */
+	public int getFirstByte()
+	{
+		return m_firstByte;
+	}
+}
@@ -0,0 +1,181 @@
+/*
+    A lab for comparing combinatorial test suite generators
+    Copyright (C) 2017-2021 Sylvain Hallé, Edmond La Chance,
+    Vincent Porta-Scarta
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package combigraph.lab;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.FileDescriptor;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Long-lived process that runs a Java-based tool on request, so that the
+ * tool is loaded and JIT-compiled once for a whole series of experiments,
+ * while still running in a JVM separate from the lab's.
+ * <p>
+ * The worker is started by a {@link ToolWorkerClient} with the name of
+ * the tool's JAR file as its only argument. It then reads jobs from its
+ * stdin and writes their results to its stdout, until its stdin is closed.
+ * A job is made of:
+ * <ol>
+ * <li>the number of system properties, followed by the name of each
+ * property, whether it has a value, and its value if it has one;</li>
+ * <li>the number of command line arguments, followed by each argument.</li>
+ * </ol>
+ * The result of a job is made of the contents of the tool's stdout, sent
+ * while the tool runs, then the return code of the tool, the duration of
+ * the run in nanoseconds, and the contents of its stderr. Both outputs are
+ * sent as a sequence of chunks (an int length followed by the bytes)
+ * terminated by an empty chunk.
+ */
+public class ToolWorker
+{
+	/**
+	 * The size of the chunks in which outputs are sent back
+	 */
+	protected static final transient int CHUNK_SIZE = 65536;
+
+	private ToolWorker()
+	{
+		super();
+	}
+
+	public static void main(String[] args) throws IOException, InterruptedException
+	{
+		if (args.length < 1)
+		{
+			System.err.println("Usage: ToolWorker <jar>");
+			System.exit(1);
+		}
+		String jar_filename = args[0];
+		// Read and write the file descriptors directly: System.in and
+		// System.out are swapped by the tool runner during a job
+		DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(FileDescriptor.in)));
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(FileDescriptor.out)));
+		while (true)
+		{
+			Map<String,String> properties = new HashMap<String,String>();
+			String[] tool_args;
+			try
+			{
+				int num_properties = in.readInt();
+				for (int i = 0; i < num_properties; i++)
+				{
+					String key = in.readUTF();
+					properties.put(key, in.readBoolean() ? in.readUTF() : null);
+				}
+				tool_args = new String[in.readInt()];
+				for (int i = 0; i < tool_args.length; i++)
+				{
+					tool_args[i] = in.readUTF();
+				}
+			}
+			catch (EOFException e)
+			{
+				// The lab has closed the pipe
+				break;
+			}
+			long start = System.nanoTime();
+			ChunkWriter stdout = new ChunkWriter(out);
+			ProcessResult result = JarToolRunner.run(jar_filename, properties, tool_args, stdout, -1, false);
+			long duration = System.nanoTime() - start;
+			if (stdout.m_exception != null)
+			{
+				// The lab has stopped reading
+				break;
+			}
+			out.writeInt(0);
+			out.writeInt(result.getErrorCode());
+			out.writeLong(duration);
+			writeChunks(out, result.getErrorBytes());
+			out.flush();
+		}
+		System.exit(0);
+	}
+
+	/**
+	 * Writes an array of bytes as a sequence of chunks
+	 * @param out The stream to write to
+	 * @param b The bytes
+	 * @throws IOException If writing fails
+	 */
+	protected static void writeChunks(DataOutputStream out, byte[] b) throws IOException
+	{
+		for (int pos = 0; pos < b.length; pos += CHUNK_SIZE)
+		{
+			int len = Math.min(CHUNK_SIZE, b.length - pos);
+			out.writeInt(len);
+			out.write(b, pos, len);
+		}
+		out.writeInt(0);
+	}
+
+	/**
+	 * Consumer sending the stdout of the tool to the lab as chunks, as it is
+	 * produced. Chunks are buffered by the stream, so that the lab receives
+	 * the output in blocks rather than line by line.
+	 */
+	protected static class ChunkWriter extends OutputConsumer
+	{
+		/**
+		 * The stream to write to
+		 */
+		protected final DataOutputStream m_out;
+
+		/**
+		 * The exception thrown when writing to the stream, if any
+		 */
+		protected IOException m_exception = null;
+
+		public ChunkWriter(DataOutputStream out)
+		{
+			super();
+			m_out = out;
+		}
+
+		@Override
+		protected void process(byte[] b, int offset, int len)
+		{
+			if (m_exception != null)
+			{
+				return;
+			}
+			try
+			{
+				// An empty chunk would end the output
+				for (int pos = 0; pos < len; pos += CHUNK_SIZE)
+				{
+					int chunk_len = Math.min(CHUNK_SIZE, len - pos);
+					m_out.writeInt(chunk_len);
+					m_out.write(b, offset + pos, chunk_len);
+				}
+			}
+			catch (IOException e)
+			{
+				m_exception = e;
+			}
+		}
+	}
+}
@@ -0,0 +1,272 @@
+/*
+    A lab for comparing combinatorial test suite generators
+    Copyright (C) 2017-2021 Sylvain Hallé, Edmond La Chance,
+    Vincent Porta-Scarta
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package combigraph.lab;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.lang.ProcessBuilder.Redirect;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Submits jobs to a {@link ToolWorker} process, and restarts this process
+ * whenever a job exceeds its timeout. One worker is kept per JAR file; a
+ * worker runs a single job at a time.
+ */
+public class ToolWorkerClient
+{
+	/**
+	 * The clients of the workers already started, for each JAR file
+	 */
+	protected static final transient Map<String,ToolWorkerClient> s_clients = new HashMap<String,ToolWorkerClient>();
+
+	/**
+	 * The thread killing the workers whose job exceeds its timeout
+	 */
+	protected static final transient ScheduledExecutorService s_timer = Executors.newSingleThreadScheduledExecutor(new ProcessLauncher.DaemonThreadFactory("worker-timer"));
+
+	/**
+	 * The name of the tool's JAR file
+	 */
+	protected final String m_jarFilename;
+
+	/**
+	 * The worker process, or null if it is not running
+	 */
+	protected Process m_process;
+
+	/**
+	 * The stream sending jobs to the worker
+	 */
+	protected DataOutputStream m_out;
+
+	/**
+	 * The stream receiving results from the worker
+	 */
+	protected DataInputStream m_in;
+
+	/**
+	 * The duration of the last job, in milliseconds, as measured by the
+	 * worker itself
+	 */
+	protected long m_lastDuration = -1;
+
+	/**
+	 * Gets the client of the worker for a JAR file, creating it if needed
+	 * @param jar_filename The name of the JAR file
+	 * @return The client
+	 */
+	public static ToolWorkerClient get(String jar_filename)
+	{
+		synchronized (s_clients)
+		{
+			ToolWorkerClient client = s_clients.get(jar_filename);
+			if (client == null)
+			{
+				client = new ToolWorkerClient(jar_filename);
+				s_clients.put(jar_filename, client);
+			}
+			return client;
+		}
+	}
+
+	/**
+	 * Creates a new client. The worker is only started when the first job
+	 * is submitted.
+	 * @param jar_filename The name of the tool's JAR file
+	 */
+	protected ToolWorkerClient(String jar_filename)
+	{
+		super();
+		m_jarFilename = jar_filename;
+	}
+
+	/**
+	 * Runs the tool on the worker, and waits for the result
+	 * @param properties System properties to set during the run, or null
+	 * @param args The command line arguments of the tool
+	 * @param consumer If not set to null, stdout is sent to this consumer
+	 * as it is received, and is not kept in the result
+	 * @param timeout The maximum duration of the run in milliseconds, or a
+	 * negative value for no timeout. A worker whose job times out is killed,
+	 * and restarted on the next job.
+	 * @return The result of the run
+	 * @throws IOException If the worker cannot be started or stops
+	 * responding
+	 */
+	public synchronized ProcessResult run(Map<String,String> properties, String[] args, OutputConsumer consumer, long timeout) throws IOException
+	{
+		m_lastDuration = -1;
+		if (m_process == null || !m_process.isAlive())
+		{
+			// The worker may have been killed after its last result was read
+			stop();
+			start();
+		}
+		final Process process = m_process;
+		final AtomicBoolean timed_out = new AtomicBoolean(false);
+		ScheduledFuture<?> killer = null;
+		if (timeout >= 0)
+		{
+			killer = s_timer.schedule(new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					timed_out.set(true);
+					process.destroyForcibly();
+				}
+			}, timeout, TimeUnit.MILLISECONDS);
+		}
+		try
+		{
+			if (properties == null)
+			{
+				m_out.writeInt(0);
+			}
+			else
+			{
+				m_out.writeInt(properties.size());
+				for (Map.Entry<String,String> e : properties.entrySet())
+				{
+					m_out.writeUTF(e.getKey());
+					// A null value removes the property during the run
+					m_out.writeBoolean(e.getValue() != null);
+					if (e.getValue() != null)
+					{
+						m_out.writeUTF(e.getValue());
+					}
+				}
+			}
+			m_out.writeInt(args.length);
+			for (String arg : args)
+			{
+				m_out.writeUTF(arg);
+			}
+			m_out.flush();
+			// The output is received while the tool runs
+			byte[] stdout = readChunks(consumer);
+			int error_code = m_in.readInt();
+			long duration = m_in.readLong();
+			byte[] stderr = readChunks(null);
+			if (consumer != null)
+			{
+				consumer.end();
+			}
+			m_lastDuration = duration / 1000000;
+			return new ProcessResult(error_code, stdout, stderr);
+		}
+		catch (IOException e)
+		{
+			// The worker has died, or has been killed: restart it next time
+			stop();
+			if (timed_out.get())
+			{
+				return new ProcessResult(Integer.MIN_VALUE, new byte[0], new byte[0]);
+			}
+			throw e;
+		}
+		finally
+		{
+			if (killer != null && !killer.cancel(false))
+			{
+				// The killer has fired, possibly after the result was read
+				stop();
+			}
+		}
+	}
+
+	/**
+	 * Gets the duration of the last job, as measured by the worker itself.
+	 * This duration excludes the communication between the lab and the
+	 * worker.
+	 * @return The duration in milliseconds, or -1 if the last job failed
+	 */
+	public synchronized long getLastDuration()
+	{
+		return m_lastDuration;
+	}
+
+	/**
+	 * Stops the worker
+	 */
+	public synchronized void stop()
+	{
+		if (m_process != null)
+		{
+			m_process.destroyForcibly();
+			m_process = null;
+			m_in = null;
+			m_out = null;
+		}
+	}
+
+	/**
+	 * Starts the worker process, using the same JVM and class path as the
+	 * lab
+	 * @throws IOException If the process cannot be started
+	 */
+	protected void start() throws IOException
+	{
+		String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+		ProcessBuilder builder = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+				ToolWorker.class.getName(), m_jarFilename);
+		builder.redirectError(Redirect.INHERIT);
+		m_process = builder.start();
+		m_out = new DataOutputStream(new BufferedOutputStream(m_process.getOutputStream()));
+		m_in = new DataInputStream(new BufferedInputStream(m_process.getInputStream()));
+	}
+
+	/**
+	 * Reads a sequence of chunks sent by the worker
+	 * @param consumer If not set to null, the chunks are sent to this
+	 * consumer instead of being kept
+	 * @return The bytes read, or an empty array if they are sent to a
+	 * consumer
+	 * @throws IOException If reading fails
+	 */
+	protected byte[] readChunks(OutputConsumer consumer) throws IOException
+	{
+		ChunkedByteBuffer buffer = new ChunkedByteBuffer();
+		byte[] chunk = new byte[ToolWorker.CHUNK_SIZE];
+		int len;
+		while ((len = m_in.readInt()) > 0)
+		{
+			m_in.readFully(chunk, 0, len);
+			if (consumer == null)
+			{
+				buffer.write(chunk, 0, len);
+			}
+			else
+			{
+				consumer.consume(chunk, 0, len);
+			}
+		}
+		return buffer.toByteArray();
+	}
+}
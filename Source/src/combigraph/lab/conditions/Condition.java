@@ -0,0 +1,382 @@
+/*
+    A lab for comparing combinatorial test suite generators
+    Copyright (C) 2017-2021 Sylvain Hallé, Edmond La Chance,
+    Vincent Porta-Scarta
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package combigraph.lab.conditions;
+
+import java.util.List;
+
+/**
+ * Boolean condition on the values of the parameters of a combinatorial
+ * problem, as found in the extended QICT file syntax. A condition is
+ * evaluated on an array giving the value of each parameter, so that no
+ * string substitution is made when checking a valuation.
+ */
+public abstract class Condition
+{
+	/**
+	 * Marks a parameter that has no value in a partial valuation
+	 */
+	public static final transient int UNSET = Integer.MIN_VALUE;
+
+	/**
+	 * Result of {@link #evaluatePartial(int[])} for a condition that is
+	 * false
+	 */
+	public static final transient int FALSE = 0;
+
+	/**
+	 * Result of {@link #evaluatePartial(int[])} for a condition that is
+	 * true
+	 */
+	public static final transient int TRUE = 1;
+
+	/**
+	 * Result of {@link #evaluatePartial(int[])} for a condition whose value
+	 * depends on parameters that have no value
+	 */
+	public static final transient int UNKNOWN = 2;
+
+	/**
+	 * Evaluates the condition on a valuation of the parameters
+	 * @param values The value of each parameter
+	 * @return <tt>true</tt> if the valuation satisfies the condition,
+	 * <tt>false</tt> otherwise
+	 */
+	public abstract boolean evaluate(int[] values);
+
+	/**
+	 * Evaluates the condition on a partial valuation of the parameters
+	 * @param values The value of each parameter, or {@link #UNSET} for a
+	 * parameter that has no value
+	 * @return {@link #TRUE}, {@link #FALSE} or {@link #UNKNOWN}
+	 */
+	public abstract int evaluatePartial(int[] values);
+
+	/**
+	 * Gets the partial valuation described by this condition, if it is a
+	 * conjunction of equalities between a parameter and a value
+	 * @param assignment An array where the value of each parameter fixed by
+	 * the condition is written
+	 * @return <tt>true</tt> if the condition is such a conjunction,
+	 * <tt>false</tt> otherwise
+	 */
+	public boolean fillAssignment(int[] assignment)
+	{
+		return false;
+	}
+
+	/**
+	 * Lists the parameters fixed by this condition, in the order they appear
+	 * in its text, if it is a conjunction of equalities between a parameter
+	 * and a value. A parameter fixed twice is listed twice.
+	 * @param params The list the parameters are added to
+	 */
+	public void listParameters(List<Integer> params)
+	{
+		// Fixes no parameter
+	}
+
+	/**
+	 * Conjunction of conditions
+	 */
+	public static class And extends Condition
+	{
+		protected final Condition[] m_operands;
+
+		public And(List<Condition> operands)
+		{
+			super();
+			m_operands = operands.toArray(new Condition[operands.size()]);
+		}
+
+		@Override
+		public boolean evaluate(int[] values)
+		{
+			for (Condition c : m_operands)
+			{
+				if (!c.evaluate(values))
+				{
+					return false;
+				}
+			}
+			return true;
+		}
+
+		@Override
+		public int evaluatePartial(int[] values)
+		{
+			int result = TRUE;
+			for (Condition c : m_operands)
+			{
+				int r = c.evaluatePartial(values);
+				if (r == FALSE)
+				{
+					return FALSE;
+				}
+				if (r == UNKNOWN)
+				{
+					result = UNKNOWN;
+				}
+			}
+			return result;
+		}
+
+		@Override
+		public boolean fillAssignment(int[] assignment)
+		{
+			for (Condition c : m_operands)
+			{
+				if (!c.fillAssignment(assignment))
+				{
+					return false;
+				}
+			}
+			return true;
+		}
+
+		@Override
+		public void listParameters(List<Integer> params)
+		{
+			for (Condition c : m_operands)
+			{
+				c.listParameters(params);
+			}
+		}
+	}
+
+	/**
+	 * Disjunction of conditions
+	 */
+	public static class Or extends Condition
+	{
+		protected final Condition[] m_operands;
+
+		public Or(List<Condition> operands)
+		{
+			super();
+			m_operands = operands.toArray(new Condition[operands.size()]);
+		}
+
+		@Override
+		public boolean evaluate(int[] values)
+		{
+			for (Condition c : m_operands)
+			{
+				if (c.evaluate(values))
+				{
+					return true;
+				}
+			}
+			return false;
+		}
+
+		@Override
+		public int evaluatePartial(int[] values)
+		{
+			int result = FALSE;
+			for (Condition c : m_operands)
+			{
+				int r = c.evaluatePartial(values);
+				if (r == TRUE)
+				{
+					return TRUE;
+				}
+				if (r == UNKNOWN)
+				{
+					result = UNKNOWN;
+				}
+			}
+			return result;
+		}
+	}
+
+	/**
+	 * Negation of a condition
+	 */
+	public static class Not extends Condition
+	{
+		protected final Condition m_operand;
+
+		public Not(Condition operand)
+		{
+			super();
+			m_operand = operand;
+		}
+
+		@Override
+		public boolean evaluate(int[] values)
+		{
+			return !m_operand.evaluate(values);
+		}
+
+		@Override
+		public int evaluatePartial(int[] values)
+		{
+			int r = m_operand.evaluatePartial(values);
+			if (r == UNKNOWN)
+			{
+				return UNKNOWN;
+			}
+			return r == TRUE ? FALSE : TRUE;
+		}
+	}
+
+	/**
+	 * The constants <tt>true</tt> and <tt>false</tt>
+	 */
+	public static class Constant extends Condition
+	{
+		protected final boolean m_value;
+
+		public Constant(boolean value)
+		{
+			super();
+			m_value = value;
+		}
+
+		@Override
+		public boolean evaluate(int[] values)
+		{
+			return m_value;
+		}
+
+		@Override
+		public int evaluatePartial(int[] values)
+		{
+			return m_value ? TRUE : FALSE;
+		}
+
+		@Override
+		public boolean fillAssignment(int[] assignment)
+		{
+			// "true" fixes no parameter
+			return m_value;
+		}
+	}
+
+	/**
+	 * Comparison between two operands, each of which is either a parameter
+	 * or an integer constant
+	 */
+	public static class Comparison extends Condition
+	{
+		public static final transient int EQ = 0;
+		public static final transient int NEQ = 1;
+		public static final transient int LT = 2;
+		public static final transient int LEQ = 3;
+		public static final transient int GT = 4;
+		public static final transient int GEQ = 5;
+
+		/**
+		 * The index of the parameter on each side, or -1 if this side is a
+		 * constant
+		 */
+		protected final int m_leftParam;
+		protected final int m_rightParam;
+
+		/**
+		 * The value of the constant on each side
+		 */
+		protected final int m_leftValue;
+		protected final int m_rightValue;
+
+		/**
+		 * The comparison operator, one of the constants above
+		 */
+		protected final int m_operator;
+
+		public Comparison(int left_param, int left_value, int operator, int right_param, int right_value)
+		{
+			super();
+			m_leftParam = left_param;
+			m_leftValue = left_value;
+			m_operator = operator;
+			m_rightParam = right_param;
+			m_rightValue = right_value;
+		}
+
+		@Override
+		public boolean evaluate(int[] values)
+		{
+			int left = m_leftParam < 0 ? m_leftValue : values[m_leftParam];
+			int right = m_rightParam < 0 ? m_rightValue : values[m_rightParam];
+			switch (m_operator)
+			{
+			case EQ:
+				return left == right;
+			case NEQ:
+				return left != right;
+			case LT:
+				return left < right;
+			case LEQ:
+				return left <= right;
+			case GT:
+				return left > right;
+			default:
+				return left >= right;
+			}
+		}
+
+		@Override
+		public int evaluatePartial(int[] values)
+		{
+			if ((m_leftParam >= 0 && values[m_leftParam] == UNSET) || (m_rightParam >= 0 && values[m_rightParam] == UNSET))
+			{
+				return UNKNOWN;
+			}
+			return evaluate(values) ? TRUE : FALSE;
+		}
+
+		@Override
+		public boolean fillAssignment(int[] assignment)
+		{
+			if (m_operator != EQ)
+			{
+				return false;
+			}
+			if (m_leftParam >= 0 && m_rightParam < 0)
+			{
+				assignment[m_leftParam] = m_rightValue;
+				return true;
+			}
+			if (m_leftParam < 0 && m_rightParam >= 0)
+			{
+				assignment[m_rightParam] = m_leftValue;
+				return true;
+			}
+			return false;
+		}
+
+		@Override
+		public void listParameters(List<Integer> params)
+		{
+			if (m_operator != EQ)
+			{
+				return;
+			}
+			if (m_leftParam >= 0 && m_rightParam < 0)
+			{
+				params.add(m_leftParam);
+			}
+			else if (m_leftParam < 0 && m_rightParam >= 0)
+			{
+				params.add(m_rightParam);
+			}
+		}
+	}
+}
@@ -0,0 +1,366 @@
+/*
+    A lab for comparing combinatorial test suite generators
+    Copyright (C) 2017-2021 Sylvain Hallé, Edmond La Chance,
+    Vincent Porta-Scarta
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package combigraph.lab.conditions;
+
+import java.io.PrintStream;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import combigraph.lab.coverage.CoverageMatrix;
+import combigraph.lab.graphs.CsrGraph;
+import combigraph.lab.graphs.TupleNumbering;
+
+/**
+ * Generates the graph whose colouring creates a t-way test suite satisfying
+ * the "once" conditions of a {@link QictSpecification}, and writes it in
+ * the DOT format. This is a port of the script
+ * <tt>variables-to-graph.php</tt>, kept in the <tt>scripts</tt> folder as
+ * a reference, and produces the same output:
+ * <ul>
+ * <li>there is one vertex for each assignment of values to <i>t</i>
+ * parameters, followed by one vertex for each "once" condition;</li>
+ * <li>two vertices are linked by an edge when they assign different values
+ * to the same parameter.</li>
+ * </ul>
+ * Like the script, the label of the vertex of a "once" condition lists its
+ * parameters in the order they first appear in the condition. Like the
+ * script, the generator ignores the "always" conditions. The
+ * generator can also leave out the vertices of tuples that are already
+ * covered, such as those of the existing tests of a suite to complete.
+ * Vertices are stored as sparse arrays of (parameter, value) pairs, so
+ * that checking whether two vertices conflict only looks at the parameters
+ * fixed by one of them.
+ */
+public class ConditionGraphGenerator
+{
+	/**
+	 * Marks a parameter that is not fixed by a vertex
+	 */
+	protected static final transient int UNSET = Integer.MIN_VALUE;
+
+	/**
+	 * The specification the graph is generated from
+	 */
+	protected final QictSpecification m_spec;
+
+	/**
+	 * The position of the first pair of each vertex in {@link #m_params}
+	 * and {@link #m_values}; the last element is the total number of pairs
+	 */
+	protected int[] m_offsets;
+
+	/**
+	 * The parameters fixed by each vertex, in the order of its label
+	 */
+	protected int[] m_params;
+
+	/**
+	 * The values given to these parameters
+	 */
+	protected int[] m_values;
+
+	/**
+	 * The number of vertices
+	 */
+	protected int m_vertexCount;
+
+	/**
+	 * The total number of (parameter, value) pairs
+	 */
+	protected int m_pairCount;
+
+	/**
+	 * Creates a new generator
+	 * @param spec The specification the graph is generated from
+	 * @param t The interaction strength
+	 * @throws ParseException If a "once" condition is not a conjunction of
+	 * equalities between a parameter and a value
+	 */
+	public ConditionGraphGenerator(QictSpecification spec, int t) throws ParseException
+	{
+		this(spec, t, null);
+	}
+
+	/**
+	 * Creates a new generator that leaves out covered tuples
+	 * @param spec The specification the graph is generated from
+	 * @param t The interaction strength
+	 * @param covered The tuples that have no vertex, or null to give a
+	 * vertex to every tuple
+	 * @throws ParseException If a "once" condition is not a conjunction of
+	 * equalities between a parameter and a value
+	 */
+	public ConditionGraphGenerator(QictSpecification spec, int t, CoverageMatrix covered) throws ParseException
+	{
+		super();
+		m_spec = spec;
+		m_offsets = new int[1024];
+		m_params = new int[1024];
+		m_values = new int[1024];
+		addTWayVertices(t, covered);
+		int n = spec.getParameterCount();
+		int[] assignment = new int[n];
+		List<Integer> order = new ArrayList<Integer>();
+		for (Condition c : spec.getOnceConditions())
+		{
+			Arrays.fill(assignment, UNSET);
+			if (!c.fillAssignment(assignment))
+			{
+				throw new ParseException("A condition of the graph is not a conjunction of equalities", 0);
+			}
+			// A parameter fixed twice keeps its first place and its last value
+			order.clear();
+			c.listParameters(order);
+			for (int p : order)
+			{
+				if (assignment[p] != UNSET)
+				{
+					addPair(p, assignment[p]);
+					assignment[p] = UNSET;
+				}
+			}
+			endVertex();
+		}
+	}
+
+	/**
+	 * Gets the number of vertices of the graph
+	 * @return The number of vertices
+	 */
+	public int getVertexCount()
+	{
+		return m_vertexCount;
+	}
+
+	/**
+	 * Writes the graph
+	 * @param ps The print stream to write the graph to
+	 */
+	public void generate(PrintStream ps)
+	{
+		ps.print("graph G {\n");
+		StringBuilder out = new StringBuilder();
+		int[] dense = new int[m_spec.getParameterCount()];
+		Arrays.fill(dense, UNSET);
+		for (int i = 0; i < m_vertexCount; i++)
+		{
+			out.append(i).append(" [label=\"");
+			for (int k = m_offsets[i]; k < m_offsets[i + 1]; k++)
+			{
+				dense[m_params[k]] = m_values[k];
+				out.append(m_spec.getName(m_params[k])).append(" = ").append(m_values[k]).append(' ');
+			}
+			out.append("\"];\n");
+			for (int j = i + 1; j < m_vertexCount; j++)
+			{
+				if (conflicts(dense, j))
+				{
+					out.append(i).append(" -- ").append(j).append(";\n");
+				}
+				if (out.length() >= 65536)
+				{
+					ps.append(out);
+					out.setLength(0);
+				}
+			}
+			for (int k = m_offsets[i]; k < m_offsets[i + 1]; k++)
+			{
+				dense[m_params[k]] = UNSET;
+			}
+		}
+		out.append('}');
+		ps.append(out);
+	}
+
+	/**
+	 * Builds the graph in memory, without going through its DOT text
+	 * @return The graph, whose vertices are numbered as in the DOT output
+	 */
+	public CsrGraph buildGraph()
+	{
+		int[] dense = new int[m_spec.getParameterCount()];
+		Arrays.fill(dense, UNSET);
+		// First pass: count the degree of each vertex
+		int[] offsets = new int[m_vertexCount + 1];
+		for (int i = 0; i < m_vertexCount; i++)
+		{
+			setDense(dense, i, true);
+			for (int j = i + 1; j < m_vertexCount; j++)
+			{
+				if (conflicts(dense, j))
+				{
+					offsets[i + 1]++;
+					offsets[j + 1]++;
+				}
+			}
+			setDense(dense, i, false);
+		}
+		for (int i = 0; i < m_vertexCount; i++)
+		{
+			offsets[i + 1] += offsets[i];
+		}
+		// Second pass: fill the adjacency lists, which end up sorted
+		int[] neighbours = new int[offsets[m_vertexCount]];
+		int[] fill = Arrays.copyOf(offsets, m_vertexCount);
+		for (int i = 0; i < m_vertexCount; i++)
+		{
+			setDense(dense, i, true);
+			for (int j = i + 1; j < m_vertexCount; j++)
+			{
+				if (conflicts(dense, j))
+				{
+					neighbours[fill[i]++] = j;
+					neighbours[fill[j]++] = i;
+				}
+			}
+			setDense(dense, i, false);
+		}
+		return new CsrGraph(offsets, neighbours);
+	}
+
+	/**
+	 * Writes or erases the values fixed by a vertex in a dense array
+	 * @param dense The array, indexed by parameter
+	 * @param i The vertex
+	 * @param set Set to <tt>true</tt> to write the values, <tt>false</tt>
+	 * to erase them
+	 */
+	protected void setDense(int[] dense, int i, boolean set)
+	{
+		for (int k = m_offsets[i]; k < m_offsets[i + 1]; k++)
+		{
+			dense[m_params[k]] = set ? m_values[k] : UNSET;
+		}
+	}
+
+	/**
+	 * Determines if a vertex assigns a value to a parameter that differs
+	 * from the one in a dense array
+	 * @param dense The values of another vertex, indexed by parameter
+	 * @param j The vertex
+	 * @return <tt>true</tt> if the two vertices conflict
+	 */
+	protected boolean conflicts(int[] dense, int j)
+	{
+		for (int k = m_offsets[j]; k < m_offsets[j + 1]; k++)
+		{
+			int v = dense[m_params[k]];
+			if (v != UNSET && v != m_values[k])
+			{
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Adds one vertex for each assignment of values to <i>t</i> parameters.
+	 * Sets of parameters are enumerated in colexicographic order, and the
+	 * assignments of each set by incrementing the value of its first
+	 * parameter first, as in the original script.
+	 * @param t The interaction strength
+	 * @param covered The tuples that have no vertex, or null
+	 */
+	protected void addTWayVertices(int t, CoverageMatrix covered)
+	{
+		int n = m_spec.getParameterCount();
+		if (t <= 0 || t > n)
+		{
+			return;
+		}
+		int[] combination = new int[t];
+		for (int i = 0; i < t; i++)
+		{
+			combination[i] = i;
+		}
+		int[] indices = new int[t];
+		// The tuples are enumerated in the order of a TupleNumbering
+		int s = 0;
+		do
+		{
+			Arrays.fill(indices, 0);
+			int rank = 0;
+			do
+			{
+				if (covered == null || !covered.isCovered(s, rank))
+				{
+					for (int i = 0; i < t; i++)
+					{
+						addPair(combination[i], m_spec.getDomain(combination[i])[indices[i]]);
+					}
+					endVertex();
+				}
+				rank++;
+			} while (nextIndices(combination, indices));
+			s++;
+		} while (TupleNumbering.nextCombination(combination, n));
+	}
+
+	/**
+	 * Moves to the next assignment of values to a set of parameters
+	 * @param combination The parameters
+	 * @param indices The index of the value of each parameter in its domain
+	 * @return <tt>false</tt> if all assignments have been enumerated
+	 */
+	protected boolean nextIndices(int[] combination, int[] indices)
+	{
+		for (int i = 0; i < indices.length; i++)
+		{
+			indices[i]++;
+			if (indices[i] < m_spec.getDomain(combination[i]).length)
+			{
+				return true;
+			}
+			indices[i] = 0;
+		}
+		return false;
+	}
+
+	/**
+	 * Adds a (parameter, value) pair to the vertex being built
+	 * @param param The parameter
+	 * @param value The value
+	 */
+	protected void addPair(int param, int value)
+	{
+		if (m_pairCount == m_params.length)
+		{
+			m_params = Arrays.copyOf(m_params, m_pairCount * 2);
+			m_values = Arrays.copyOf(m_values, m_pairCount * 2);
+		}
+		m_params[m_pairCount] = param;
+		m_values[m_pairCount] = value;
+		m_pairCount++;
+	}
+
+	/**
+	 * Ends the vertex being built
+	 */
+	protected void endVertex()
+	{
+		if (m_vertexCount + 2 > m_offsets.length)
+		{
+			m_offsets = Arrays.copyOf(m_offsets, m_offsets.length * 2);
+		}
+		m_vertexCount++;
+		m_offsets[m_vertexCount] = m_pairCount;
+	}
+}
@@ -0,0 +1,739 @@
+/*
+    A lab for comparing combinatorial test suite generators
+    Copyright (C) 2017-2021 Sylvain Hallé, Edmond La Chance,
+    Vincent Porta-Scarta
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package combigraph.lab.conditions;
+
+import java.io.PrintStream;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import combigraph.lab.ProcessLauncher;
+import combigraph.lab.coverage.CoverageMatrix;
+import combigraph.lab.graphs.CsrHypergraph;
+import combigraph.lab.graphs.TupleNumbering;
+
+/**
+ * Generates the hypergraph whose vertex covers are test suites satisfying
+ * a {@link QictSpecification} with interaction strength <i>t</i>, and
+ * writes it in the EDN format read by the hitting-set tool. This is a port
+ * of the script <tt>variables-to-hypergraph.php</tt>, kept in the
+ * <tt>scripts</tt> folder as a reference, and produces the same output:
+ * <ul>
+ * <li>vertices are the valuations of all the parameters, numbered in
+ * mixed radix with the first parameter varying fastest; valuations that
+ * violate an "always" condition keep their number but belong to no
+ * edge;</li>
+ * <li>there is one edge for each distinct "once" condition, followed by
+ * one edge for each assignment of values to <i>t</i> parameters; an edge
+ * contains the valid vertices satisfying its condition;</li>
+ * <li>edges are written in the order in which the script first meets
+ * them, that is, by increasing first vertex, and then in the order of
+ * their conditions; edges without vertices are not written.</li>
+ * </ul>
+ * Rather than evaluating every condition on every valuation, the
+ * generator enumerates the vertices of an edge directly from the values
+ * the condition fixes. The first vertex of the edges of each set of
+ * <i>t</i> parameters is computed in parallel; edges are then written by
+ * chunks built in parallel and printed in order.
+ * <p>
+ * The generator can also leave out the edges of tuples that are already
+ * covered, such as those of the existing tests of a suite to complete.
+ */
+public class ConditionHypergraphGenerator
+{
+	/**
+	 * The number of edges in each chunk of output built by a thread
+	 */
+	protected static final transient int CHUNK_SIZE = 256;
+
+	/**
+	 * The specification the hypergraph is generated from
+	 */
+	protected final QictSpecification m_spec;
+
+	/**
+	 * The number of parameters
+	 */
+	protected final int m_n;
+
+	/**
+	 * The weight of each parameter in the number of a vertex
+	 */
+	protected final long[] m_weights;
+
+	/**
+	 * The total number of valuations
+	 */
+	protected final long m_vertexCount;
+
+	/**
+	 * The valuations that satisfy all the "always" conditions, or null if
+	 * there are no such conditions
+	 */
+	protected long[] m_valid;
+
+	/**
+	 * The distinct "once" conditions
+	 */
+	protected final List<Condition> m_once;
+
+	/**
+	 * The index of the value fixed by each "once" condition for each
+	 * parameter, or -1 for parameters it does not fix, or null if the
+	 * condition cannot be satisfied
+	 */
+	protected final List<int[]> m_onceFixed;
+
+	/**
+	 * The sets of <i>t</i> parameters
+	 */
+	protected final List<int[]> m_subsets;
+
+	/**
+	 * The number of the edge of the first assignment of each set of
+	 * parameters; the last element is the total number of edges
+	 */
+	protected final int[] m_subsetOffsets;
+
+	/**
+	 * The number of threads used to build the hypergraph
+	 */
+	protected int m_threads = Runtime.getRuntime().availableProcessors();
+
+	/**
+	 * The tuples whose edges are left out, or null to keep all the edges
+	 */
+	protected CoverageMatrix m_covered = null;
+
+	/**
+	 * Creates a new generator
+	 * @param spec The specification the hypergraph is generated from
+	 * @param t The interaction strength, or 0 to only consider the "once"
+	 * conditions of the specification
+	 */
+	public ConditionHypergraphGenerator(QictSpecification spec, int t)
+	{
+		super();
+		m_spec = spec;
+		m_n = spec.getParameterCount();
+		m_weights = new long[m_n];
+		long count = 1;
+		for (int i = 0; i < m_n; i++)
+		{
+			m_weights[i] = count;
+			count *= spec.getDomain(i).length;
+		}
+		m_vertexCount = count;
+		// Once conditions with the same text form a single edge
+		m_once = new ArrayList<Condition>();
+		m_onceFixed = new ArrayList<int[]>();
+		Set<String> texts = new HashSet<String>();
+		for (int i = 0; i < spec.getOnceConditions().size(); i++)
+		{
+			if (texts.add(spec.getOnceTexts().get(i)))
+			{
+				Condition c = spec.getOnceConditions().get(i);
+				m_once.add(c);
+				m_onceFixed.add(getFixedIndices(c));
+			}
+		}
+		m_subsets = new ArrayList<int[]>();
+		if (t > 0 && t <= m_n)
+		{
+			int[] combination = new int[t];
+			for (int i = 0; i < t; i++)
+			{
+				combination[i] = i;
+			}
+			do
+			{
+				m_subsets.add(combination.clone());
+			} while (TupleNumbering.nextCombination(combination, m_n));
+		}
+		m_subsetOffsets = new int[m_subsets.size() + 1];
+		long offset = m_once.size();
+		for (int s = 0; s < m_subsets.size(); s++)
+		{
+			m_subsetOffsets[s] = (int) offset;
+			long assignments = 1;
+			for (int p : m_subsets.get(s))
+			{
+				assignments *= spec.getDomain(p).length;
+			}
+			offset += assignments;
+		}
+		if (offset > Integer.MAX_VALUE)
+		{
+			throw new IllegalArgumentException("Too many edges in the hypergraph");
+		}
+		m_subsetOffsets[m_subsets.size()] = (int) offset;
+	}
+
+	/**
+	 * Sets the number of threads used to build the hypergraph
+	 * @param threads The number of threads
+	 */
+	public void setThreads(int threads)
+	{
+		m_threads = Math.max(1, threads);
+	}
+
+	/**
+	 * Leaves out the edges of covered tuples, as if they had no vertices
+	 * @param covered The covered tuples, or null to keep all the edges
+	 */
+	public void setCovered(CoverageMatrix covered)
+	{
+		m_covered = covered;
+	}
+
+	/**
+	 * Writes the hypergraph
+	 * @param ps The print stream to write the hypergraph to
+	 * @throws InterruptedException If the thread is interrupted while the
+	 * hypergraph is being built
+	 */
+	public void generate(PrintStream ps) throws InterruptedException
+	{
+		ExecutorService pool = Executors.newFixedThreadPool(m_threads, new ProcessLauncher.DaemonThreadFactory("hypergraph"));
+		try
+		{
+			computeValidVertices();
+			final int num_edges = m_subsetOffsets[m_subsets.size()];
+			final long[] first_vertices = new long[num_edges];
+			forEachEdge(pool, new EdgeVisitor()
+			{
+				@Override
+				public void visit(int edge)
+				{
+					first_vertices[edge] = getFirstVertex(edge);
+				}
+			});
+			// Sort the edges by first vertex, then by condition
+			int num_written = 0;
+			for (int e = 0; e < num_edges; e++)
+			{
+				if (first_vertices[e] >= 0)
+				{
+					num_written++;
+				}
+			}
+			final long[] order = new long[num_written];
+			int pos = 0;
+			for (int e = 0; e < num_edges; e++)
+			{
+				if (first_vertices[e] >= 0)
+				{
+					order[pos++] = first_vertices[e] * num_edges + e;
+				}
+			}
+			Arrays.sort(order);
+			ps.print("{\n");
+			Deque<Future<String>> chunks = new ArrayDeque<Future<String>>();
+			for (int start = 0; start < num_written; start += CHUNK_SIZE)
+			{
+				final int from = start;
+				final int to = Math.min(start + CHUNK_SIZE, num_written);
+				chunks.add(pool.submit(new Callable<String>()
+				{
+					@Override
+					public String call()
+					{
+						StringBuilder out = new StringBuilder();
+						for (int i = from; i < to; i++)
+						{
+							if (i > 0)
+							{
+								out.append(",\n");
+							}
+							out.append('"').append(i).append("\" #{");
+							appendVertices((int) (order[i] % num_edges), out);
+							out.append('}');
+						}
+						return out.toString();
+					}
+				}));
+				// Keep a bounded number of chunks in memory
+				while (chunks.size() > 2 * m_threads)
+				{
+					ps.print(waitFor(chunks.removeFirst()));
+				}
+			}
+			while (!chunks.isEmpty())
+			{
+				ps.print(waitFor(chunks.removeFirst()));
+			}
+			ps.print("\n}");
+		}
+		finally
+		{
+			pool.shutdownNow();
+		}
+	}
+
+	/**
+	 * Builds the hypergraph in memory. Edges are numbered in the order of
+	 * their conditions rather than in the order in which
+	 * {@link #generate(PrintStream)} writes them; edges without vertices
+	 * are left out, as in the written hypergraph.
+	 * @return The hypergraph
+	 * @throws InterruptedException If the thread is interrupted while the
+	 * hypergraph is being built
+	 */
+	public CsrHypergraph buildHypergraph() throws InterruptedException
+	{
+		if (m_vertexCount > Integer.MAX_VALUE)
+		{
+			throw new IllegalArgumentException("Too many vertices in the hypergraph");
+		}
+		ExecutorService pool = Executors.newFixedThreadPool(m_threads, new ProcessLauncher.DaemonThreadFactory("hypergraph"));
+		try
+		{
+			computeValidVertices();
+			int num_edges = m_subsetOffsets[m_subsets.size()];
+			// First pass: count the vertices of each edge
+			final int[] sizes = new int[num_edges];
+			forEachEdge(pool, new EdgeVisitor()
+			{
+				@Override
+				public void visit(int edge)
+				{
+					sizes[edge] = copyVertices(edge, null, 0);
+				}
+			});
+			int num_kept = 0;
+			for (int e = 0; e < num_edges; e++)
+			{
+				if (sizes[e] > 0)
+				{
+					num_kept++;
+				}
+			}
+			int[] offsets = new int[num_kept + 1];
+			final int[] positions = new int[num_edges];
+			long total = 0;
+			num_kept = 0;
+			for (int e = 0; e < num_edges; e++)
+			{
+				positions[e] = (int) total;
+				if (sizes[e] > 0)
+				{
+					offsets[num_kept++] = (int) total;
+					total += sizes[e];
+					if (total > Integer.MAX_VALUE)
+					{
+						throw new IllegalArgumentException("Too many vertices in the edges of the hypergraph");
+					}
+				}
+			}
+			offsets[num_kept] = (int) total;
+			// Second pass: fill the edges
+			final int[] vertices = new int[(int) total];
+			forEachEdge(pool, new EdgeVisitor()
+			{
+				@Override
+				public void visit(int edge)
+				{
+					if (sizes[edge] > 0)
+					{
+						copyVertices(edge, vertices, positions[edge]);
+					}
+				}
+			});
+			return new CsrHypergraph((int) m_vertexCount, offsets, vertices);
+		}
+		finally
+		{
+			pool.shutdownNow();
+		}
+	}
+
+	/**
+	 * Visits every edge, with one task for the "once" conditions and one
+	 * task for each set of <i>t</i> parameters
+	 * @param pool The pool running the tasks
+	 * @param visitor The visitor called on each edge
+	 * @throws InterruptedException If the thread is interrupted while
+	 * waiting for the tasks
+	 */
+	protected void forEachEdge(ExecutorService pool, final EdgeVisitor visitor) throws InterruptedException
+	{
+		List<Future<?>> tasks = new ArrayList<Future<?>>();
+		tasks.add(pool.submit(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				for (int e = 0; e < m_once.size(); e++)
+				{
+					visitor.visit(e);
+				}
+			}
+		}));
+		for (int s = 0; s < m_subsets.size(); s++)
+		{
+			final int subset = s;
+			tasks.add(pool.submit(new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					for (int e = m_subsetOffsets[subset]; e < m_subsetOffsets[subset + 1]; e++)
+					{
+						visitor.visit(e);
+					}
+				}
+			}));
+		}
+		for (Future<?> f : tasks)
+		{
+			waitFor(f);
+		}
+	}
+
+	/**
+	 * Evaluates the "always" conditions on every valuation
+	 */
+	protected void computeValidVertices()
+	{
+		List<Condition> always = m_spec.getAlwaysConditions();
+		if (always.isEmpty() || m_vertexCount == 0)
+		{
+			m_valid = null;
+			return;
+		}
+		m_valid = new long[(int) ((m_vertexCount + 63) / 64)];
+		int[] fixed = new int[m_n];
+		Arrays.fill(fixed, -1);
+		VertexIterator it = new VertexIterator(fixed);
+		do
+		{
+			boolean valid = true;
+			for (Condition c : always)
+			{
+				if (!c.evaluate(it.m_values))
+				{
+					valid = false;
+					break;
+				}
+			}
+			if (valid)
+			{
+				m_valid[(int) (it.m_id >>> 6)] |= 1L << (it.m_id & 63);
+			}
+		} while (it.next());
+	}
+
+	/**
+	 * Gets the first vertex of an edge
+	 * @param edge The number of the edge
+	 * @return The number of the vertex, or -1 if the edge is empty
+	 */
+	protected long getFirstVertex(int edge)
+	{
+		VertexIterator it = getVertices(edge);
+		if (it == null)
+		{
+			return -1;
+		}
+		Condition c = edge < m_once.size() ? m_once.get(edge) : null;
+		do
+		{
+			if (isValid(it.m_id) && (c == null || c.evaluate(it.m_values)))
+			{
+				return it.m_id;
+			}
+		} while (it.next());
+		return -1;
+	}
+
+	/**
+	 * Appends the vertices of an edge, separated by spaces
+	 * @param edge The number of the edge
+	 * @param out The builder to append the vertices to
+	 */
+	protected void appendVertices(int edge, StringBuilder out)
+	{
+		VertexIterator it = getVertices(edge);
+		Condition c = edge < m_once.size() ? m_once.get(edge) : null;
+		boolean first = true;
+		do
+		{
+			if (isValid(it.m_id) && (c == null || c.evaluate(it.m_values)))
+			{
+				if (!first)
+				{
+					out.append(' ');
+				}
+				first = false;
+				out.append(it.m_id);
+			}
+		} while (it.next());
+	}
+
+	/**
+	 * Copies the vertices of an edge into an array
+	 * @param edge The number of the edge
+	 * @param out The array to copy the vertices to, or null to only count
+	 * them
+	 * @param pos The position of the first vertex in the array
+	 * @return The number of vertices of the edge
+	 */
+	protected int copyVertices(int edge, int[] out, int pos)
+	{
+		VertexIterator it = getVertices(edge);
+		if (it == null)
+		{
+			return 0;
+		}
+		Condition c = edge < m_once.size() ? m_once.get(edge) : null;
+		int count = 0;
+		do
+		{
+			if (isValid(it.m_id) && (c == null || c.evaluate(it.m_values)))
+			{
+				if (out != null)
+				{
+					out[pos + count] = (int) it.m_id;
+				}
+				count++;
+			}
+		} while (it.next());
+		return count;
+	}
+
+	/**
+	 * Gets an iterator over the valuations that fix the same values as the
+	 * condition of an edge. For a "once" condition that is not a
+	 * conjunction of equalities, the iterator goes through all valuations.
+	 * @param edge The number of the edge
+	 * @return The iterator, or null if no valuation can satisfy the
+	 * condition
+	 */
+	protected VertexIterator getVertices(int edge)
+	{
+		if (m_vertexCount == 0)
+		{
+			return null;
+		}
+		if (edge < m_once.size())
+		{
+			int[] fixed = m_onceFixed.get(edge);
+			return fixed == null ? null : new VertexIterator(fixed);
+		}
+		int s = Arrays.binarySearch(m_subsetOffsets, edge);
+		if (s < 0)
+		{
+			s = -s - 2;
+		}
+		else
+		{
+			// Skip sets of parameters without assignments
+			while (m_subsetOffsets[s + 1] == edge)
+			{
+				s++;
+			}
+		}
+		int rank = edge - m_subsetOffsets[s];
+		if (m_covered != null && m_covered.isCovered(s, rank))
+		{
+			return null;
+		}
+		int[] fixed = new int[m_n];
+		Arrays.fill(fixed, -1);
+		for (int p : m_subsets.get(s))
+		{
+			int size = m_spec.getDomain(p).length;
+			fixed[p] = rank % size;
+			rank /= size;
+		}
+		return new VertexIterator(fixed);
+	}
+
+	/**
+	 * Gets the values fixed by a "once" condition
+	 * @param c The condition
+	 * @return The index of the value fixed for each parameter, or -1 for
+	 * parameters that are not fixed, or null if the condition fixes a value
+	 * outside of the domain of a parameter
+	 */
+	protected int[] getFixedIndices(Condition c)
+	{
+		int[] assignment = new int[m_n];
+		Arrays.fill(assignment, ConditionGraphGenerator.UNSET);
+		int[] fixed = new int[m_n];
+		Arrays.fill(fixed, -1);
+		if (!c.fillAssignment(assignment))
+		{
+			// Not a conjunction of equalities: all valuations must be checked
+			return fixed;
+		}
+		for (int p = 0; p < m_n; p++)
+		{
+			if (assignment[p] == ConditionGraphGenerator.UNSET)
+			{
+				continue;
+			}
+			int[] domain = m_spec.getDomain(p);
+			for (int i = 0; i < domain.length; i++)
+			{
+				if (domain[i] == assignment[p])
+				{
+					fixed[p] = i;
+					break;
+				}
+			}
+			if (fixed[p] < 0)
+			{
+				return null;
+			}
+		}
+		return fixed;
+	}
+
+	protected boolean isValid(long vertex)
+	{
+		return m_valid == null || (m_valid[(int) (vertex >>> 6)] & (1L << (vertex & 63))) != 0;
+	}
+
+	/**
+	 * Waits for the result of a task, and rethrows its exceptions
+	 */
+	protected static <T> T waitFor(Future<T> f) throws InterruptedException
+	{
+		try
+		{
+			return f.get();
+		}
+		catch (ExecutionException e)
+		{
+			if (e.getCause() instanceof RuntimeException)
+			{
+				throw (RuntimeException) e.getCause();
+			}
+			throw new IllegalStateException(e.getCause());
+		}
+	}
+
+	/**
+	 * Action performed on each edge of the hypergraph
+	 */
+	protected interface EdgeVisitor
+	{
+		/**
+		 * Visits an edge
+		 * @param edge The number of the edge
+		 */
+		public void visit(int edge);
+	}
+
+	/**
+	 * Enumerates, by increasing number, the valuations giving fixed values
+	 * to some parameters
+	 */
+	protected class VertexIterator
+	{
+		/**
+		 * The parameters whose value is not fixed
+		 */
+		protected final int[] m_free;
+
+		/**
+		 * The index of the value of each parameter in its domain
+		 */
+		protected final int[] m_indices;
+
+		/**
+		 * The value of each parameter
+		 */
+		protected final int[] m_values;
+
+		/**
+		 * The number of the current valuation
+		 */
+		protected long m_id;
+
+		/**
+		 * Creates an iterator positioned on the first valuation
+		 * @param fixed The index of the value of each parameter, or -1 for
+		 * parameters whose value is not fixed
+		 */
+		public VertexIterator(int[] fixed)
+		{
+			super();
+			int num_free = 0;
+			for (int p = 0; p < m_n; p++)
+			{
+				if (fixed[p] < 0)
+				{
+					num_free++;
+				}
+			}
+			m_free = new int[num_free];
+			m_indices = new int[m_n];
+			m_values = new int[m_n];
+			num_free = 0;
+			for (int p = 0; p < m_n; p++)
+			{
+				if (fixed[p] < 0)
+				{
+					m_free[num_free++] = p;
+				}
+				else
+				{
+					m_indices[p] = fixed[p];
+					m_id += fixed[p] * m_weights[p];
+				}
+				m_values[p] = m_spec.getDomain(p)[m_indices[p]];
+			}
+		}
+
+		/**
+		 * Moves to the next valuation
+		 * @return <tt>false</tt> if there are no more valuations
+		 */
+		public boolean next()
+		{
+			for (int p : m_free)
+			{
+				int[] domain = m_spec.getDomain(p);
+				m_indices[p]++;
+				if (m_indices[p] < domain.length)
+				{
+					m_id += m_weights[p];
+					m_values[p] = domain[m_indices[p]];
+					return true;
+				}
+				m_id -= (domain.length - 1) * m_weights[p];
+				m_indices[p] = 0;
+				m_values[p] = domain[0];
+			}
+			return false;
+		}
+	}
+}
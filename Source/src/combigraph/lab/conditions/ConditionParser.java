@@ -0,0 +1,253 @@
+/*
+    A lab for comparing combinatorial test suite generators
+    Copyright (C) 2017-2021 Sylvain Hallé, Edmond La Chance,
+    Vincent Porta-Scarta
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package combigraph.lab.conditions;
+
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Recursive-descent parser for the conditions of the extended QICT file
+ * syntax. The grammar follows the PHP expressions the conditions were
+ * originally evaluated as:
+ * <pre>
+ * or         := and ("||" and)*
+ * and        := not ("&amp;&amp;" not)*
+ * not        := "!" not | comparison
+ * comparison := "(" or ")" | "true" | "false" | operand op operand
+ * operand    := parameter | integer
+ * op         := "==" | "!=" | "&lt;" | "&lt;=" | "&gt;" | "&gt;="
+ * </pre>
+ */
+public class ConditionParser
+{
+	/**
+	 * The index of each parameter, given its name
+	 */
+	protected final Map<String,Integer> m_parameters;
+
+	/**
+	 * The string being parsed
+	 */
+	protected String m_input;
+
+	/**
+	 * The current position in the string
+	 */
+	protected int m_pos;
+
+	/**
+	 * Creates a new parser
+	 * @param parameters The index of each parameter, given its name
+	 */
+	public ConditionParser(Map<String,Integer> parameters)
+	{
+		super();
+		m_parameters = parameters;
+	}
+
+	/**
+	 * Parses a condition
+	 * @param s The string to parse
+	 * @return The condition
+	 * @throws ParseException If the string is not a valid condition
+	 */
+	public synchronized Condition parse(String s) throws ParseException
+	{
+		m_input = s;
+		m_pos = 0;
+		Condition c = parseOr();
+		skipSpaces();
+		if (m_pos < m_input.length())
+		{
+			throw error("Unexpected character");
+		}
+		return c;
+	}
+
+	protected Condition parseOr() throws ParseException
+	{
+		List<Condition> operands = new ArrayList<Condition>();
+		operands.add(parseAnd());
+		while (consume("||"))
+		{
+			operands.add(parseAnd());
+		}
+		return operands.size() == 1 ? operands.get(0) : new Condition.Or(operands);
+	}
+
+	protected Condition parseAnd() throws ParseException
+	{
+		List<Condition> operands = new ArrayList<Condition>();
+		operands.add(parseNot());
+		while (consume("&&"))
+		{
+			operands.add(parseNot());
+		}
+		return operands.size() == 1 ? operands.get(0) : new Condition.And(operands);
+	}
+
+	protected Condition parseNot() throws ParseException
+	{
+		skipSpaces();
+		if (m_pos < m_input.length() && m_input.charAt(m_pos) == '!' && !m_input.startsWith("!=", m_pos))
+		{
+			m_pos++;
+			return new Condition.Not(parseNot());
+		}
+		return parseComparison();
+	}
+
+	protected Condition parseComparison() throws ParseException
+	{
+		if (consume("("))
+		{
+			Condition c = parseOr();
+			if (!consume(")"))
+			{
+				throw error("Expected ')'");
+			}
+			return c;
+		}
+		skipSpaces();
+		int start = m_pos;
+		String word = readWord();
+		if (word.equals("true") || word.equals("false"))
+		{
+			return new Condition.Constant(word.equals("true"));
+		}
+		m_pos = start;
+		int[] left = parseOperand();
+		int operator;
+		if (consume("=="))
+		{
+			operator = Condition.Comparison.EQ;
+		}
+		else if (consume("!="))
+		{
+			operator = Condition.Comparison.NEQ;
+		}
+		else if (consume("<="))
+		{
+			operator = Condition.Comparison.LEQ;
+		}
+		else if (consume(">="))
+		{
+			operator = Condition.Comparison.GEQ;
+		}
+		else if (consume("<"))
+		{
+			operator = Condition.Comparison.LT;
+		}
+		else if (consume(">"))
+		{
+			operator = Condition.Comparison.GT;
+		}
+		else
+		{
+			throw error("Expected a comparison operator");
+		}
+		int[] right = parseOperand();
+		return new Condition.Comparison(left[0], left[1], operator, right[0], right[1]);
+	}
+
+	/**
+	 * Parses a parameter name or an integer
+	 * @return An array containing the index of the parameter (or -1) and
+	 * the value of the integer
+	 * @throws ParseException If no operand is found
+	 */
+	protected int[] parseOperand() throws ParseException
+	{
+		skipSpaces();
+		String word = readWord();
+		if (word.isEmpty())
+		{
+			throw error("Expected a parameter or a value");
+		}
+		Integer index = m_parameters.get(word);
+		if (index != null)
+		{
+			return new int[] {index, 0};
+		}
+		try
+		{
+			return new int[] {-1, Integer.parseInt(word)};
+		}
+		catch (NumberFormatException e)
+		{
+			throw error("Unknown parameter " + word);
+		}
+	}
+
+	/**
+	 * Reads a sequence of letters, digits, underscores and a leading minus
+	 * sign
+	 * @return The sequence, which may be empty
+	 */
+	protected String readWord()
+	{
+		int start = m_pos;
+		if (m_pos < m_input.length() && m_input.charAt(m_pos) == '-')
+		{
+			m_pos++;
+		}
+		while (m_pos < m_input.length())
+		{
+			char c = m_input.charAt(m_pos);
+			if (!Character.isLetterOrDigit(c) && c != '_')
+			{
+				break;
+			}
+			m_pos++;
+		}
+		return m_input.substring(start, m_pos);
+	}
+
+	/**
+	 * Consumes a token if it is the next one in the string
+	 * @param token The token
+	 * @return <tt>true</tt> if the token was consumed, <tt>false</tt>
+	 * otherwise
+	 */
+	protected boolean consume(String token)
+	{
+		skipSpaces();
+		if (m_input.startsWith(token, m_pos))
+		{
+			m_pos += token.length();
+			return true;
+		}
+		return false;
+	}
+
+	protected void skipSpaces()
+	{
+		while (m_pos < m_input.length() && Character.isWhitespace(m_input.charAt(m_pos)))
+		{
+			m_pos++;
+		}
+	}
+
+	protected ParseException error(String message)
+	{
+		return new ParseException(message + " at position " + m_pos + " in: " + m_input, m_pos);
+	}
+}
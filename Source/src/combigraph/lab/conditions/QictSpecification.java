@@ -0,0 +1,214 @@
+/*
+    A lab for comparing combinatorial test suite generators
+    Copyright (C) 2017-2021 Sylvain Hallé, Edmond La Chance,
+    Vincent Porta-Scarta
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package combigraph.lab.conditions;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.text.ParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Parameters, domains and conditions of a combinatorial problem, read from
+ * a file in the extended QICT syntax. Such a file contains:
+ * <ul>
+ * <li>one line per parameter, of the form <tt>p: 0, 1, 2</tt>;</li>
+ * <li>one line per condition, prefixed by <tt>Once</tt> (the condition
+ * must be satisfied by at least one test case), <tt>Always</tt> (by every
+ * test case) or <tt>Never</tt> (by no test case). A condition without
+ * prefix is a <tt>Once</tt> condition.</li>
+ * </ul>
+ * Lines that are empty or start with <tt>#</tt> are ignored. Values must
+ * be integers.
+ */
+public class QictSpecification
+{
+	/**
+	 * The name of each parameter
+	 */
+	protected final List<String> m_names;
+
+	/**
+	 * The domain of each parameter
+	 */
+	protected final List<int[]> m_domains;
+
+	/**
+	 * The "once" conditions
+	 */
+	protected final List<Condition> m_once;
+
+	/**
+	 * The text of each "once" condition, without its prefix
+	 */
+	protected final List<String> m_onceText;
+
+	/**
+	 * The "always" conditions, including the negation of each "never"
+	 * condition
+	 */
+	protected final List<Condition> m_always;
+
+	protected QictSpecification()
+	{
+		super();
+		m_names = new ArrayList<String>();
+		m_domains = new ArrayList<int[]>();
+		m_once = new ArrayList<Condition>();
+		m_onceText = new ArrayList<String>();
+		m_always = new ArrayList<Condition>();
+	}
+
+	/**
+	 * Reads a specification
+	 * @param r The reader to read the specification from
+	 * @return The specification
+	 * @throws IOException If reading fails
+	 * @throws ParseException If the contents are not a valid specification
+	 */
+	public static QictSpecification parse(Reader r) throws IOException, ParseException
+	{
+		QictSpecification spec = new QictSpecification();
+		List<String> once_lines = new ArrayList<String>();
+		List<String> always_lines = new ArrayList<String>();
+		BufferedReader br = new BufferedReader(r);
+		String line;
+		while ((line = br.readLine()) != null)
+		{
+			line = line.trim();
+			if (line.isEmpty() || line.charAt(0) == '#')
+			{
+				continue;
+			}
+			int colon = line.indexOf(':');
+			if (colon < 0)
+			{
+				if (line.contains("Once"))
+				{
+					once_lines.add(line.replace("Once", ""));
+				}
+				else if (line.contains("Always"))
+				{
+					always_lines.add(line.replace("Always", ""));
+				}
+				else if (line.contains("Never"))
+				{
+					always_lines.add("!(" + line.replace("Never", "") + ")");
+				}
+				else
+				{
+					once_lines.add(line);
+				}
+				continue;
+			}
+			spec.m_names.add(line.substring(0, colon).trim());
+			String[] values = line.substring(colon + 1).split(",");
+			int[] domain = new int[values.length];
+			for (int i = 0; i < values.length; i++)
+			{
+				try
+				{
+					domain[i] = Integer.parseInt(values[i].trim());
+				}
+				catch (NumberFormatException e)
+				{
+					throw new ParseException("Non-integer value in: " + line, 0);
+				}
+			}
+			spec.m_domains.add(domain);
+		}
+		Map<String,Integer> indices = new HashMap<String,Integer>();
+		for (int i = 0; i < spec.m_names.size(); i++)
+		{
+			indices.put(spec.m_names.get(i), i);
+		}
+		ConditionParser parser = new ConditionParser(indices);
+		for (String s : once_lines)
+		{
+			spec.m_once.add(parser.parse(s));
+			spec.m_onceText.add(s);
+		}
+		for (String s : always_lines)
+		{
+			spec.m_always.add(parser.parse(s));
+		}
+		return spec;
+	}
+
+	/**
+	 * Gets the number of parameters
+	 * @return The number of parameters
+	 */
+	public int getParameterCount()
+	{
+		return m_names.size();
+	}
+
+	/**
+	 * Gets the name of a parameter
+	 * @param i The index of the parameter
+	 * @return The name
+	 */
+	public String getName(int i)
+	{
+		return m_names.get(i);
+	}
+
+	/**
+	 * Gets the domain of a parameter
+	 * @param i The index of the parameter
+	 * @return The values of the domain, in the order they are declared
+	 */
+	public int[] getDomain(int i)
+	{
+		return m_domains.get(i);
+	}
+
+	/**
+	 * Gets the "once" conditions
+	 * @return The conditions, in the order they are declared
+	 */
+	public List<Condition> getOnceConditions()
+	{
+		return m_once;
+	}
+
+	/**
+	 * Gets the text of the "once" conditions
+	 * @return The text of each condition, with its <tt>Once</tt> prefix
+	 * removed, in the order they are declared
+	 */
+	public List<String> getOnceTexts()
+	{
+		return m_onceText;
+	}
+
+	/**
+	 * Gets the "always" conditions, which include the negation of each
+	 * "never" condition
+	 * @return The conditions, in the order they are declared
+	 */
+	public List<Condition> getAlwaysConditions()
+	{
+		return m_always;
+	}
+}
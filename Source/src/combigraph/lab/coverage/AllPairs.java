@@ -0,0 +1,292 @@
+/*
+    A lab for comparing combinatorial test suite generators
+    Copyright (C) 2017-2021 Sylvain Hallé, Edmond La Chance,
+    Vincent Porta-Scarta
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package combigraph.lab.coverage;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import combigraph.lab.graphs.TupleNumbering;
+
+/**
+ * Generates a pairwise test suite one test case at a time, in the manner
+ * of James Bach's AllPairs. Each test case starts from the first pair not
+ * covered yet; every other parameter is then given the value that covers
+ * the most new pairs with the parameters already set, ties going to the
+ * value used the least so far.
+ * <p>
+ * The covered pairs are kept in a bitmap numbered like a
+ * {@link TupleNumbering} of strength 2, and all the working arrays are
+ * allocated once, so that generating a test case allocates nothing but the
+ * test case itself.
+ */
+public class AllPairs
+{
+	/**
+	 * The size of the domain of each parameter
+	 */
+	protected final int[] m_domainSizes;
+
+	/**
+	 * The number of the first pair of each pair of parameters, indexed by
+	 * the rank of the pair of parameters
+	 */
+	protected final int[] m_offsets;
+
+	/**
+	 * One bit per pair, set when the pair is covered
+	 */
+	protected final long[] m_covered;
+
+	/**
+	 * The number of pairs
+	 */
+	protected final int m_pairCount;
+
+	/**
+	 * The number of times each value of each parameter has been used
+	 */
+	protected final int[][] m_uses;
+
+	/**
+	 * The test suite generated by the last call to {@link #generate(long)}
+	 */
+	protected int[][] m_rows = null;
+
+	/**
+	 * Creates a new generator
+	 * @param domain_sizes The size of the domain of each parameter
+	 */
+	public AllPairs(int[] domain_sizes)
+	{
+		super();
+		m_domainSizes = domain_sizes;
+		TupleNumbering pairs = new TupleNumbering(2, domain_sizes);
+		m_offsets = new int[pairs.getSubsetCount()];
+		for (int s = 0; s < m_offsets.length; s++)
+		{
+			m_offsets[s] = pairs.getFirstTuple(s);
+		}
+		m_pairCount = pairs.getTupleCount();
+		m_covered = new long[(m_pairCount + 63) >>> 6];
+		m_uses = new int[domain_sizes.length][];
+		for (int p = 0; p < domain_sizes.length; p++)
+		{
+			m_uses[p] = new int[domain_sizes[p]];
+		}
+	}
+
+	/**
+	 * Generates the test suite
+	 * @param timeout The maximum duration of the generation in milliseconds,
+	 * or a negative value for no timeout
+	 * @return The number of test cases, or -1 if the generation did not end
+	 * before the timeout
+	 */
+	public int generate(long timeout)
+	{
+		long deadline = Long.MAX_VALUE;
+		if (timeout >= 0)
+		{
+			deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+		}
+		int n = m_domainSizes.length;
+		Arrays.fill(m_covered, 0);
+		for (int[] uses : m_uses)
+		{
+			Arrays.fill(uses, 0);
+		}
+		m_rows = null;
+		List<int[]> rows = new ArrayList<int[]>();
+		if (n < 2)
+		{
+			// No pairs: each value of the single parameter gets a test case
+			for (int v = 0; n == 1 && v < m_domainSizes[0]; v++)
+			{
+				rows.add(new int[] {v});
+			}
+			m_rows = rows.toArray(new int[rows.size()][]);
+			return m_rows.length;
+		}
+		// The parameters set so far in the current test case, in order
+		int[] set = new int[n];
+		int uncovered = m_pairCount;
+		int cursor = 0;
+		while (uncovered > 0)
+		{
+			if (deadline != Long.MAX_VALUE && System.nanoTime() - deadline > 0)
+			{
+				return -1;
+			}
+			while (m_covered[cursor >>> 6] == -1L)
+			{
+				cursor = (cursor | 63) + 1;
+			}
+			while ((m_covered[cursor >>> 6] & (1L << cursor)) != 0)
+			{
+				cursor++;
+			}
+			int[] row = new int[n];
+			Arrays.fill(row, -1);
+			decode(cursor, row);
+			int set_count = 0;
+			for (int p = 0; p < n; p++)
+			{
+				if (row[p] >= 0)
+				{
+					set[set_count++] = p;
+				}
+			}
+			for (int p = 0; p < n; p++)
+			{
+				if (row[p] < 0)
+				{
+					row[p] = chooseValue(row, p, set, set_count);
+					set[set_count++] = p;
+				}
+			}
+			uncovered -= cover(row);
+			rows.add(row);
+		}
+		m_rows = rows.toArray(new int[rows.size()][]);
+		return m_rows.length;
+	}
+
+	/**
+	 * Gets the test suite generated by the last call to
+	 * {@link #generate(long)}
+	 * @return The index of the value of each parameter in each test case,
+	 * or null if the generation did not end
+	 */
+	public int[][] getRows()
+	{
+		return m_rows;
+	}
+
+	/**
+	 * Chooses the value of a parameter in a test case
+	 * @param row The test case
+	 * @param p The parameter
+	 * @param set The parameters already set in the test case
+	 * @param set_count The number of parameters already set
+	 * @return The value covering the most new pairs with the parameters
+	 * already set, ties going to the value used the least
+	 */
+	protected int chooseValue(int[] row, int p, int[] set, int set_count)
+	{
+		int best = 0;
+		int best_gain = -1;
+		int[] uses = m_uses[p];
+		for (int v = 0; v < m_domainSizes[p]; v++)
+		{
+			int gain = 0;
+			for (int i = 0; i < set_count; i++)
+			{
+				int x = set[i];
+				if (!isCovered(getPair(x, row[x], p, v)))
+				{
+					gain++;
+				}
+			}
+			if (gain > best_gain || (gain == best_gain && uses[v] < uses[best]))
+			{
+				best = v;
+				best_gain = gain;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Marks the pairs of a test case as covered
+	 * @param row The test case
+	 * @return The number of pairs that were not covered before
+	 */
+	protected int cover(int[] row)
+	{
+		int added = 0;
+		for (int q = 0; q < row.length; q++)
+		{
+			m_uses[q][row[q]]++;
+			for (int p = 0; p < q; p++)
+			{
+				int pair = getPair(p, row[p], q, row[q]);
+				long mask = 1L << pair;
+				if ((m_covered[pair >>> 6] & mask) == 0)
+				{
+					m_covered[pair >>> 6] |= mask;
+					added++;
+				}
+			}
+		}
+		return added;
+	}
+
+	/**
+	 * Sets the two values of a pair in a test case
+	 * @param pair The number of the pair
+	 * @param row The test case
+	 */
+	protected void decode(int pair, int[] row)
+	{
+		int s = Arrays.binarySearch(m_offsets, pair);
+		if (s < 0)
+		{
+			s = -s - 2;
+		}
+		// The pair of parameters of rank s is (p, q) with s = p + q(q-1)/2
+		int q = 1;
+		while ((q + 1) * q / 2 <= s)
+		{
+			q++;
+		}
+		int p = s - q * (q - 1) / 2;
+		int rank = pair - m_offsets[s];
+		row[p] = rank % m_domainSizes[p];
+		row[q] = rank / m_domainSizes[p];
+	}
+
+	/**
+	 * Gets the number of a pair
+	 * @param x A parameter
+	 * @param a The value of <i>x</i>
+	 * @param y Another parameter
+	 * @param b The value of <i>y</i>
+	 * @return The number of the pair
+	 */
+	protected int getPair(int x, int a, int y, int b)
+	{
+		if (x > y)
+		{
+			return m_offsets[x * (x - 1) / 2 + y] + b + a * m_domainSizes[y];
+		}
+		return m_offsets[y * (y - 1) / 2 + x] + a + b * m_domainSizes[x];
+	}
+
+	/**
+	 * Determines if a pair is covered
+	 * @param pair The number of the pair
+	 * @return <tt>true</tt> if the pair is covered
+	 */
+	protected boolean isCovered(int pair)
+	{
+		return (m_covered[pair >>> 6] & (1L << pair)) != 0;
+	}
+}
@@ -0,0 +1,511 @@
+/*
+    A lab for comparing combinatorial test suite generators
+    Copyright (C) 2017-2021 Sylvain Hallé, Edmond La Chance,
+    Vincent Porta-Scarta
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package combigraph.lab.coverage;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import combigraph.lab.graphs.TupleNumbering;
+
+/**
+ * Records which <i>t</i>-tuples are covered by a set of rows (test cases).
+ * The matrix holds one bitmap per set of <i>t</i> parameters, indexed by
+ * the rank of the set in the combinatorial number system; the bitmap of a
+ * set has one bit per assignment of values to its parameters, numbered as
+ * in {@link TupleNumbering}.
+ * <p>
+ * Adding a row sets one bit in the bitmap of each set of parameters. A row
+ * must have one element per parameter, and each value must be in the
+ * domain of its parameter; other rows are refused, as their values would
+ * be numbered as another tuple.
+ * Bitmaps are aligned on words, so that rows can be added in parallel by
+ * threads working on distinct sets of parameters, and matrices can be
+ * merged with a word-level OR.
+ */
+public class CoverageMatrix
+{
+	/**
+	 * The minimum number of (row, set of parameters) pairs processed by a
+	 * task when rows are added in parallel
+	 */
+	protected static final transient long MIN_TASK_SIZE = 1 << 16;
+
+	/**
+	 * The numbering of the tuples
+	 */
+	protected final TupleNumbering m_tuples;
+
+	/**
+	 * The interaction strength
+	 */
+	protected final int m_t;
+
+	/**
+	 * The parameters of all the sets, one set after the other
+	 */
+	protected final int[] m_params;
+
+	/**
+	 * The weight of the value of each parameter in the number of a tuple
+	 * within its set, in the same order as {@link #m_params}
+	 */
+	protected final int[] m_weights;
+
+	/**
+	 * The bitmap of each set of parameters
+	 */
+	protected final long[][] m_bitmaps;
+
+	/**
+	 * Creates an empty coverage matrix
+	 * @param t The interaction strength
+	 * @param domain_sizes The size of the domain of each parameter
+	 */
+	public CoverageMatrix(int t, int[] domain_sizes)
+	{
+		this(new TupleNumbering(t, domain_sizes));
+	}
+
+	/**
+	 * Creates an empty coverage matrix
+	 * @param tuples The numbering of the tuples
+	 */
+	public CoverageMatrix(TupleNumbering tuples)
+	{
+		super();
+		m_tuples = tuples;
+		int num_subsets = tuples.getSubsetCount();
+		m_t = num_subsets == 0 ? 0 : tuples.getSubset(0).length;
+		m_params = new int[num_subsets * m_t];
+		m_weights = new int[num_subsets * m_t];
+		m_bitmaps = new long[num_subsets][];
+		int[] domain_sizes = tuples.getDomainSizes();
+		for (int s = 0; s < num_subsets; s++)
+		{
+			int[] subset = tuples.getSubset(s);
+			int weight = 1;
+			for (int i = 0; i < m_t; i++)
+			{
+				m_params[s * m_t + i] = subset[i];
+				m_weights[s * m_t + i] = weight;
+				weight *= domain_sizes[subset[i]];
+			}
+			m_bitmaps[s] = new long[(tuples.getSubsetSize(s) + 63) >>> 6];
+		}
+	}
+
+	/**
+	 * Gets the numbering of the tuples of the matrix
+	 * @return The numbering
+	 */
+	public TupleNumbering getTuples()
+	{
+		return m_tuples;
+	}
+
+	/**
+	 * Adds a row to the matrix
+	 * @param row The index of the value of each parameter, or a negative
+	 * number for a parameter whose value does not matter. Tuples involving
+	 * such a parameter are not covered by the row.
+	 * @return The number of tuples covered by the row that were not covered
+	 * before
+	 * @throws IllegalArgumentException If the row is not
+	 * {@link #isValidRow(int[]) valid}
+	 */
+	public int addRow(int[] row)
+	{
+		return addRow(row, 0, m_bitmaps.length);
+	}
+
+	/**
+	 * Adds a row to the bitmaps of a range of sets of parameters
+	 * @param row The row, as described in {@link #addRow(int[])}
+	 * @param from The first set of the range
+	 * @param to The set after the last set of the range
+	 * @return The number of tuples covered by the row that were not covered
+	 * before
+	 * @throws IllegalArgumentException If the row is not
+	 * {@link #isValidRow(int[]) valid}
+	 */
+	public int addRow(int[] row, int from, int to)
+	{
+		checkRow(row);
+		int added = 0;
+		for (int s = from; s < to; s++)
+		{
+			int index = getIndex(row, s);
+			if (index < 0)
+			{
+				continue;
+			}
+			long[] bitmap = m_bitmaps[s];
+			long bit = 1L << index;
+			int w = index >>> 6;
+			if ((bitmap[w] & bit) == 0)
+			{
+				bitmap[w] |= bit;
+				added++;
+			}
+		}
+		return added;
+	}
+
+	/**
+	 * Adds rows to the matrix, in parallel
+	 * @param rows The rows, as described in {@link #addRow(int[])}
+	 * @param threads The number of threads adding the rows
+	 * @return The number of tuples covered by the rows that were not
+	 * covered before
+	 * @throws IllegalArgumentException If one of the rows is not
+	 * {@link #isValidRow(int[]) valid}
+	 */
+	public long addRows(int[][] rows, int threads)
+	{
+		checkRows(rows);
+		if (threads <= 1 || (long) rows.length * m_bitmaps.length < 2 * MIN_TASK_SIZE)
+		{
+			return addRows(rows, 0, m_bitmaps.length);
+		}
+		ForkJoinPool pool = new ForkJoinPool(threads);
+		try
+		{
+			return addRows(rows, pool);
+		}
+		finally
+		{
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Adds rows to the matrix, in parallel on an existing pool
+	 * @param rows The rows, as described in {@link #addRow(int[])}
+	 * @param pool The pool of threads adding the rows
+	 * @return The number of tuples covered by the rows that were not
+	 * covered before
+	 * @throws IllegalArgumentException If one of the rows is not
+	 * {@link #isValidRow(int[]) valid}
+	 */
+	public long addRows(int[][] rows, ForkJoinPool pool)
+	{
+		checkRows(rows);
+		return pool.invoke(new AddRows(rows, 0, m_bitmaps.length));
+	}
+
+	/**
+	 * Counts the tuples that a row would cover and that are not covered yet,
+	 * without adding the row to the matrix
+	 * @param row The row, as described in {@link #addRow(int[])}
+	 * @return The number of tuples
+	 * @throws IllegalArgumentException If the row is not
+	 * {@link #isValidRow(int[]) valid}
+	 */
+	public int countNewTuples(int[] row)
+	{
+		return countNewTuples(row, 0, m_bitmaps.length);
+	}
+
+	/**
+	 * Counts the tuples of a range of sets of parameters that a row would
+	 * cover and that are not covered yet, without adding the row to the
+	 * matrix
+	 * @param row The row, as described in {@link #addRow(int[])}
+	 * @param from The first set of the range
+	 * @param to The set after the last set of the range
+	 * @return The number of tuples
+	 * @throws IllegalArgumentException If the row is not
+	 * {@link #isValidRow(int[]) valid}
+	 */
+	public int countNewTuples(int[] row, int from, int to)
+	{
+		checkRow(row);
+		int count = 0;
+		for (int s = from; s < to; s++)
+		{
+			int index = getIndex(row, s);
+			if (index >= 0 && (m_bitmaps[s][index >>> 6] & (1L << index)) == 0)
+			{
+				count++;
+			}
+		}
+		return count;
+	}
+
+	/**
+	 * Adds to this matrix the tuples covered by another matrix of the same
+	 * size
+	 * @param other The other matrix
+	 */
+	public void or(CoverageMatrix other)
+	{
+		for (int s = 0; s < m_bitmaps.length; s++)
+		{
+			long[] bitmap = m_bitmaps[s];
+			long[] other_bitmap = other.m_bitmaps[s];
+			for (int w = 0; w < bitmap.length; w++)
+			{
+				bitmap[w] |= other_bitmap[w];
+			}
+		}
+	}
+
+	/**
+	 * Marks a single tuple as covered
+	 * @param s The number of the set of parameters of the tuple
+	 * @param index The number of the tuple within its set
+	 */
+	public void setCovered(int s, int index)
+	{
+		m_bitmaps[s][index >>> 6] |= 1L << index;
+	}
+
+	/**
+	 * Determines if a tuple is covered
+	 * @param s The number of the set of parameters of the tuple
+	 * @param index The number of the tuple within its set
+	 * @return <tt>true</tt> if the tuple is covered, <tt>false</tt> otherwise
+	 */
+	public boolean isCovered(int s, int index)
+	{
+		return (m_bitmaps[s][index >>> 6] & (1L << index)) != 0;
+	}
+
+	/**
+	 * Finds the next tuple of a set of parameters that is not covered
+	 * @param s The number of the set of parameters
+	 * @param from The number, within the set, of the first tuple to look at
+	 * @return The number of the tuple within its set, or -1 if all the
+	 * tuples from <tt>from</tt> onwards are covered
+	 */
+	public int nextUncovered(int s, int from)
+	{
+		int size = m_tuples.getSubsetSize(s);
+		if (from >= size)
+		{
+			return -1;
+		}
+		long[] bitmap = m_bitmaps[s];
+		int w = from >>> 6;
+		long word = ~bitmap[w] & (-1L << from);
+		while (true)
+		{
+			if (word != 0)
+			{
+				int index = (w << 6) + Long.numberOfTrailingZeros(word);
+				return index < size ? index : -1;
+			}
+			w++;
+			if (w == bitmap.length)
+			{
+				return -1;
+			}
+			word = ~bitmap[w];
+		}
+	}
+
+	/**
+	 * Gets the number of tuples of a set of parameters that are not covered
+	 * @param s The number of the set of parameters
+	 * @return The number of tuples
+	 */
+	public int getUncoveredCount(int s)
+	{
+		int covered = 0;
+		for (long word : m_bitmaps[s])
+		{
+			covered += Long.bitCount(word);
+		}
+		return m_tuples.getSubsetSize(s) - covered;
+	}
+
+	/**
+	 * Gets the number of tuples that are not covered
+	 * @return The number of tuples
+	 */
+	public long getUncoveredCount()
+	{
+		long uncovered = 0;
+		for (int s = 0; s < m_bitmaps.length; s++)
+		{
+			uncovered += getUncoveredCount(s);
+		}
+		return uncovered;
+	}
+
+	/**
+	 * Gets the number of tuples that are covered
+	 * @return The number of tuples
+	 */
+	public long getCoveredCount()
+	{
+		return m_tuples.getTupleCount() - getUncoveredCount();
+	}
+
+	/**
+	 * Determines if a row can be added to the matrix: it must have one
+	 * element per parameter, and each element must be a negative number or
+	 * a value in the domain of its parameter
+	 * @param row The row
+	 * @return <tt>true</tt> if the row is valid, <tt>false</tt> otherwise
+	 */
+	public boolean isValidRow(int[] row)
+	{
+		int[] domain_sizes = m_tuples.getDomainSizes();
+		if (row.length != domain_sizes.length)
+		{
+			return false;
+		}
+		for (int p = 0; p < row.length; p++)
+		{
+			if (row[p] >= domain_sizes[p])
+			{
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Checks that a row can be added to the matrix
+	 * @param row The row
+	 * @throws IllegalArgumentException If the row is not
+	 * {@link #isValidRow(int[]) valid}
+	 */
+	protected void checkRow(int[] row)
+	{
+		if (!isValidRow(row))
+		{
+			throw new IllegalArgumentException("Invalid row " + Arrays.toString(row));
+		}
+	}
+
+	/**
+	 * Checks that rows can be added to the matrix
+	 * @param rows The rows
+	 * @throws IllegalArgumentException If one of the rows is not
+	 * {@link #isValidRow(int[]) valid}
+	 */
+	protected void checkRows(int[][] rows)
+	{
+		for (int[] row : rows)
+		{
+			checkRow(row);
+		}
+	}
+
+	/**
+	 * Gets the number of a tuple of a row within its set of parameters
+	 * @param row The row
+	 * @param s The number of the set of parameters
+	 * @return The number of the tuple, or -1 if the row does not give a
+	 * value to one of the parameters
+	 */
+	protected int getIndex(int[] row, int s)
+	{
+		int base = s * m_t;
+		int index = 0;
+		for (int i = 0; i < m_t; i++)
+		{
+			int value = row[m_params[base + i]];
+			if (value < 0)
+			{
+				return -1;
+			}
+			index += value * m_weights[base + i];
+		}
+		return index;
+	}
+
+	/**
+	 * Adds rows to the bitmaps of a range of sets of parameters. The rows
+	 * are added to one bitmap after the other, and the remaining rows are
+	 * skipped as soon as a bitmap is full.
+	 * @param rows The rows
+	 * @param from The first set of the range
+	 * @param to The set after the last set of the range
+	 * @return The number of tuples covered by the rows that were not
+	 * covered before
+	 */
+	protected long addRows(int[][] rows, int from, int to)
+	{
+		long added = 0;
+		for (int s = from; s < to; s++)
+		{
+			long[] bitmap = m_bitmaps[s];
+			int uncovered = getUncoveredCount(s);
+			for (int r = 0; r < rows.length && uncovered > 0; r++)
+			{
+				int index = getIndex(rows[r], s);
+				if (index < 0)
+				{
+					continue;
+				}
+				long bit = 1L << index;
+				int w = index >>> 6;
+				if ((bitmap[w] & bit) == 0)
+				{
+					bitmap[w] |= bit;
+					uncovered--;
+					added++;
+				}
+			}
+		}
+		return added;
+	}
+
+	/**
+	 * Adds rows to a range of sets of parameters, by splitting the range in
+	 * halves until it is small enough. Tasks never share a bitmap, and thus
+	 * need no synchronization.
+	 */
+	protected class AddRows extends RecursiveTask<Long>
+	{
+		private static final long serialVersionUID = 1L;
+
+		protected final int[][] m_rows;
+
+		protected final int m_from;
+
+		protected final int m_to;
+
+		public AddRows(int[][] rows, int from, int to)
+		{
+			super();
+			m_rows = rows;
+			m_from = from;
+			m_to = to;
+		}
+
+		@Override
+		protected Long compute()
+		{
+			if (m_to - m_from <= 1 || (long) (m_to - m_from) * m_rows.length <= MIN_TASK_SIZE)
+			{
+				return addRows(m_rows, m_from, m_to);
+			}
+			int middle = (m_from + m_to) >>> 1;
+			AddRows left = new AddRows(m_rows, m_from, middle);
+			left.fork();
+			long added = new AddRows(m_rows, middle, m_to).compute();
+			return added + left.join();
+		}
+	}
+}
@@ -0,0 +1,457 @@
+/*
+    A lab for comparing combinatorial test suite generators
+    Copyright (C) 2017-2021 Sylvain Hallé, Edmond La Chance,
+    Vincent Porta-Scarta
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package combigraph.lab.coverage;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+import combigraph.lab.conditions.Condition;
+import combigraph.lab.graphs.TupleNumbering;
+
+/**
+ * Checks that a test suite is a solution to a combinatorial problem:
+ * <ul>
+ * <li>every <i>t</i>-tuple that can appear in a valid test case is covered
+ * by some test case;</li>
+ * <li>every "once" condition that can be satisfied by a valid test case is
+ * satisfied by some test case;</li>
+ * <li>every test case satisfies the "always" conditions.</li>
+ * </ul>
+ * Tuples and "once" conditions that are not met are counted as missing.
+ * The coverage matrix of the suite is built on a fork-join pool, whose
+ * tasks split the sets of <i>t</i> parameters; test cases are checked
+ * against the conditions by tasks splitting the suite.
+ * <p>
+ * Test cases give the value of each parameter; the domain of a parameter
+ * of size <i>d</i> is taken to be 0, &hellip;, <i>d</i>-1, so that values
+ * are also their index in the domain. A negative value marks a parameter
+ * that has no value. A test case that does not have one value per
+ * parameter, or that has a value outside the domain of its parameter, is
+ * counted as invalid and does not cover any tuple.
+ */
+public class CoverageVerifier
+{
+	/**
+	 * The minimum number of test cases checked by a task
+	 */
+	protected static final transient int MIN_ROWS_PER_TASK = 4096;
+
+	/**
+	 * The minimum number of sets of parameters whose missing tuples are
+	 * counted by a task
+	 */
+	protected static final transient int MIN_SUBSETS_PER_TASK = 64;
+
+	/**
+	 * The numbering of the tuples to cover
+	 */
+	protected final TupleNumbering m_tuples;
+
+	/**
+	 * The conditions that every test case must satisfy
+	 */
+	protected final Condition[] m_always;
+
+	/**
+	 * The conditions that some test case must satisfy
+	 */
+	protected final Condition[] m_once;
+
+	/**
+	 * The number of threads used by the verification
+	 */
+	protected int m_threads = Runtime.getRuntime().availableProcessors();
+
+	/**
+	 * The number of tuples and "once" conditions that the last suite
+	 * verified does not cover
+	 */
+	protected long m_missingCount = 0;
+
+	/**
+	 * The number of test cases of the last suite verified that are
+	 * malformed or violate an "always" condition
+	 */
+	protected int m_invalidCount = 0;
+
+	/**
+	 * Creates a verifier for a problem without conditions
+	 * @param tuples The numbering of the tuples to cover
+	 */
+	public CoverageVerifier(TupleNumbering tuples)
+	{
+		this(tuples, Arrays.<Condition>asList(), Arrays.<Condition>asList());
+	}
+
+	/**
+	 * Creates a verifier
+	 * @param tuples The numbering of the tuples to cover
+	 * @param always The conditions that every test case must satisfy
+	 * @param once The conditions that some test case must satisfy
+	 */
+	public CoverageVerifier(TupleNumbering tuples, List<Condition> always, List<Condition> once)
+	{
+		super();
+		m_tuples = tuples;
+		m_always = always.toArray(new Condition[always.size()]);
+		m_once = once.toArray(new Condition[once.size()]);
+	}
+
+	/**
+	 * Sets the number of threads used by the verification
+	 * @param threads The number of threads
+	 * @return This verifier
+	 */
+	public CoverageVerifier setThreads(int threads)
+	{
+		m_threads = Math.max(1, threads);
+		return this;
+	}
+
+	/**
+	 * Verifies a test suite
+	 * @param rows The test cases of the suite
+	 * @return <tt>true</tt> if the suite is a solution to the problem,
+	 * <tt>false</tt> otherwise
+	 */
+	public boolean verify(int[][] rows)
+	{
+		ForkJoinPool pool = new ForkJoinPool(m_threads);
+		try
+		{
+			CoverageMatrix matrix = new CoverageMatrix(m_tuples);
+			int[][] valid_rows = getValidRows(matrix, rows);
+			matrix.addRows(valid_rows, pool);
+			long missing = pool.invoke(new CountMissing(matrix, 0, m_tuples.getSubsetCount()));
+			m_invalidCount = rows.length - valid_rows.length;
+			if (m_always.length > 0 || m_once.length > 0)
+			{
+				CheckRows check = new CheckRows(valid_rows, 0, valid_rows.length);
+				pool.invoke(check);
+				m_invalidCount += check.m_invalid;
+				int[] values = new int[m_tuples.getDomainSizes().length];
+				for (int k = 0; k < m_once.length; k++)
+				{
+					if (!check.m_satisfied.get(k))
+					{
+						Arrays.fill(values, Condition.UNSET);
+						if (isSatisfiable(values, m_once[k]))
+						{
+							missing++;
+						}
+					}
+				}
+			}
+			m_missingCount = missing;
+		}
+		finally
+		{
+			pool.shutdown();
+		}
+		return isVerified();
+	}
+
+	/**
+	 * Determines if the last suite verified is a solution to the problem
+	 * @return <tt>true</tt> if it is, <tt>false</tt> otherwise
+	 */
+	public boolean isVerified()
+	{
+		return m_missingCount == 0 && m_invalidCount == 0;
+	}
+
+	/**
+	 * Gets the number of tuples and "once" conditions that the last suite
+	 * verified does not cover, among those that a valid test case can
+	 * cover
+	 * @return The number of missing tuples
+	 */
+	public long getMissingCount()
+	{
+		return m_missingCount;
+	}
+
+	/**
+	 * Gets the number of test cases of the last suite verified that are
+	 * malformed or violate an "always" condition
+	 * @return The number of test cases
+	 */
+	public int getInvalidCount()
+	{
+		return m_invalidCount;
+	}
+
+	/**
+	 * Keeps the test cases of a suite that have one value per parameter,
+	 * each in the domain of its parameter
+	 * @param matrix The coverage matrix the test cases are meant for
+	 * @param rows The test cases
+	 * @return The well-formed test cases, or <tt>rows</tt> itself if all of
+	 * them are
+	 */
+	protected static int[][] getValidRows(CoverageMatrix matrix, int[][] rows)
+	{
+		List<int[]> valid = new ArrayList<int[]>(rows.length);
+		for (int[] row : rows)
+		{
+			if (matrix.isValidRow(row))
+			{
+				valid.add(row);
+			}
+		}
+		if (valid.size() == rows.length)
+		{
+			return rows;
+		}
+		return valid.toArray(new int[valid.size()][]);
+	}
+
+	/**
+	 * Determines if a partial valuation can be completed into a valuation
+	 * that satisfies the "always" conditions and an additional condition.
+	 * Parameters are given values one after the other, and a branch of the
+	 * search is abandoned as soon as one of the conditions is false.
+	 * @param values The value of each parameter, or {@link Condition#UNSET}
+	 * for the parameters to complete. The array is restored before the
+	 * method returns.
+	 * @param extra The additional condition, or null for none
+	 * @return <tt>true</tt> if such a valuation exists, <tt>false</tt>
+	 * otherwise
+	 */
+	protected boolean isSatisfiable(int[] values, Condition extra)
+	{
+		return search(values, extra, 0);
+	}
+
+	/**
+	 * Searches for a completion of a partial valuation from a given
+	 * parameter on
+	 * @param values The partial valuation
+	 * @param extra The additional condition, or null for none
+	 * @param from The first parameter that may have no value
+	 * @return <tt>true</tt> if a completion exists, <tt>false</tt> otherwise
+	 */
+	protected boolean search(int[] values, Condition extra, int from)
+	{
+		int status = evaluatePartial(values, extra);
+		if (status != Condition.UNKNOWN)
+		{
+			return status == Condition.TRUE;
+		}
+		int p = from;
+		while (p < values.length && values[p] != Condition.UNSET)
+		{
+			p++;
+		}
+		if (p == values.length)
+		{
+			return false;
+		}
+		int size = m_tuples.getDomainSizes()[p];
+		for (int v = 0; v < size; v++)
+		{
+			values[p] = v;
+			if (search(values, extra, p + 1))
+			{
+				values[p] = Condition.UNSET;
+				return true;
+			}
+		}
+		values[p] = Condition.UNSET;
+		return false;
+	}
+
+	/**
+	 * Evaluates the "always" conditions and an additional condition on a
+	 * partial valuation
+	 * @param values The partial valuation
+	 * @param extra The additional condition, or null for none
+	 * @return {@link Condition#FALSE} if one of the conditions is false,
+	 * {@link Condition#TRUE} if all of them are true, and
+	 * {@link Condition#UNKNOWN} otherwise
+	 */
+	protected int evaluatePartial(int[] values, Condition extra)
+	{
+		int result = extra == null ? Condition.TRUE : extra.evaluatePartial(values);
+		if (result == Condition.FALSE)
+		{
+			return result;
+		}
+		for (Condition c : m_always)
+		{
+			int r = c.evaluatePartial(values);
+			if (r == Condition.FALSE)
+			{
+				return r;
+			}
+			if (r == Condition.UNKNOWN)
+			{
+				result = r;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Counts the tuples of a range of sets of parameters that are not
+	 * covered, and that some valid test case could cover
+	 */
+	protected class CountMissing extends RecursiveTask<Long>
+	{
+		private static final long serialVersionUID = 1L;
+
+		protected final CoverageMatrix m_matrix;
+
+		protected final int m_from;
+
+		protected final int m_to;
+
+		public CountMissing(CoverageMatrix matrix, int from, int to)
+		{
+			super();
+			m_matrix = matrix;
+			m_from = from;
+			m_to = to;
+		}
+
+		@Override
+		protected Long compute()
+		{
+			if (m_to - m_from > MIN_SUBSETS_PER_TASK)
+			{
+				int middle = (m_from + m_to) >>> 1;
+				CountMissing left = new CountMissing(m_matrix, m_from, middle);
+				left.fork();
+				long missing = new CountMissing(m_matrix, middle, m_to).compute();
+				return missing + left.join();
+			}
+			long missing = 0;
+			int[] values = new int[m_tuples.getDomainSizes().length];
+			Arrays.fill(values, Condition.UNSET);
+			int[] tuple_values = new int[values.length];
+			for (int s = m_from; s < m_to; s++)
+			{
+				if (m_always.length == 0)
+				{
+					// Every tuple can be covered
+					missing += m_matrix.getUncoveredCount(s);
+					continue;
+				}
+				int[] subset = m_tuples.getSubset(s);
+				int first = m_tuples.getFirstTuple(s);
+				for (int i = m_matrix.nextUncovered(s, 0); i >= 0; i = m_matrix.nextUncovered(s, i + 1))
+				{
+					m_tuples.decode(first + i, tuple_values);
+					for (int k = 0; k < subset.length; k++)
+					{
+						values[subset[k]] = tuple_values[k];
+					}
+					if (isSatisfiable(values, null))
+					{
+						missing++;
+					}
+					for (int k = 0; k < subset.length; k++)
+					{
+						values[subset[k]] = Condition.UNSET;
+					}
+				}
+			}
+			return missing;
+		}
+	}
+
+	/**
+	 * Checks a range of test cases against the "always" and "once"
+	 * conditions
+	 */
+	protected class CheckRows extends RecursiveAction
+	{
+		private static final long serialVersionUID = 1L;
+
+		protected final int[][] m_rows;
+
+		protected final int m_from;
+
+		protected final int m_to;
+
+		/**
+		 * The number of test cases of the range that violate an "always"
+		 * condition
+		 */
+		protected int m_invalid = 0;
+
+		/**
+		 * The "once" conditions satisfied by a test case of the range
+		 */
+		protected BitSet m_satisfied = new BitSet();
+
+		public CheckRows(int[][] rows, int from, int to)
+		{
+			super();
+			m_rows = rows;
+			m_from = from;
+			m_to = to;
+		}
+
+		@Override
+		protected void compute()
+		{
+			if (m_to - m_from > MIN_ROWS_PER_TASK)
+			{
+				int middle = (m_from + m_to) >>> 1;
+				CheckRows left = new CheckRows(m_rows, m_from, middle);
+				CheckRows right = new CheckRows(m_rows, middle, m_to);
+				invokeAll(left, right);
+				m_invalid = left.m_invalid + right.m_invalid;
+				m_satisfied = left.m_satisfied;
+				m_satisfied.or(right.m_satisfied);
+				return;
+			}
+			int[] values = new int[m_tuples.getDomainSizes().length];
+			for (int r = m_from; r < m_to; r++)
+			{
+				int[] row = m_rows[r];
+				for (int p = 0; p < values.length; p++)
+				{
+					values[p] = row[p] < 0 ? Condition.UNSET : row[p];
+				}
+				for (Condition c : m_always)
+				{
+					if (c.evaluatePartial(values) == Condition.FALSE)
+					{
+						m_invalid++;
+						break;
+					}
+				}
+				for (int k = 0; k < m_once.length; k++)
+				{
+					if (!m_satisfied.get(k) && m_once[k].evaluatePartial(values) == Condition.TRUE)
+					{
+						m_satisfied.set(k);
+					}
+				}
+			}
+		}
+	}
+}
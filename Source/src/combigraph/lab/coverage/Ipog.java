@@ -0,0 +1,404 @@
+/*
+    A lab for comparing combinatorial test suite generators
+    Copyright (C) 2017-2021 Sylvain Hallé, Edmond La Chance,
+    Vincent Porta-Scarta
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package combigraph.lab.coverage;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import combigraph.lab.graphs.TupleNumbering;
+
+/**
+ * Generates a <i>t</i>-way test suite with the in-parameter-order (IPOG)
+ * strategy. The suite starts with all the assignments of values to the
+ * first <i>t</i> parameters, and is then extended one parameter at a
+ * time:
+ * <ol>
+ * <li>horizontal growth gives each existing test case the value of the new
+ * parameter that covers the most tuples not covered yet, or leaves it
+ * unset if no value covers a new tuple;</li>
+ * <li>vertical growth covers each remaining tuple by setting the unset
+ * values of an existing test case, or by adding a new test case.</li>
+ * </ol>
+ * The tuples involving a new parameter <i>p</i> and parameters before it
+ * are those of the sets of parameters whose largest element is <i>p</i>,
+ * which form a contiguous range of the sets of a {@link CoverageMatrix}.
+ * During horizontal growth, the gain of each candidate value is computed by
+ * its own task on a fork-join pool, when the range is large enough for
+ * this to pay off.
+ * <p>
+ * Test cases that must be part of the suite (such as those of a suite to
+ * complete) can be given beforehand; they are never modified.
+ */
+public class Ipog
+{
+	/**
+	 * The minimum number of sets of parameters for which the gains of the
+	 * candidate values are computed in parallel
+	 */
+	protected static final transient int MIN_PARALLEL_SUBSETS = 2048;
+
+	/**
+	 * The interaction strength
+	 */
+	protected final int m_t;
+
+	/**
+	 * The size of the domain of each parameter
+	 */
+	protected final int[] m_domainSizes;
+
+	/**
+	 * The test cases that must be part of the suite
+	 */
+	protected final List<int[]> m_seeds;
+
+	/**
+	 * The number of threads computing the gains of the candidate values
+	 */
+	protected int m_threads = Runtime.getRuntime().availableProcessors();
+
+	/**
+	 * The test suite generated by the last call to {@link #generate(long)}
+	 */
+	protected int[][] m_rows = null;
+
+	/**
+	 * The time spent in horizontal growth by the last generation, in
+	 * milliseconds
+	 */
+	protected long m_horizontalTime = 0;
+
+	/**
+	 * The time spent in vertical growth by the last generation, in
+	 * milliseconds
+	 */
+	protected long m_verticalTime = 0;
+
+	/**
+	 * Creates a new generator
+	 * @param t The interaction strength
+	 * @param domain_sizes The size of the domain of each parameter
+	 */
+	public Ipog(int t, int[] domain_sizes)
+	{
+		super();
+		m_t = Math.min(t, domain_sizes.length);
+		m_domainSizes = domain_sizes;
+		m_seeds = new ArrayList<int[]>();
+	}
+
+	/**
+	 * Sets the number of threads computing the gains of the candidate values
+	 * @param threads The number of threads
+	 * @return This generator
+	 */
+	public Ipog setThreads(int threads)
+	{
+		m_threads = Math.max(1, threads);
+		return this;
+	}
+
+	/**
+	 * Adds a test case that must be part of the suite
+	 * @param test The index of the value of each parameter
+	 * @return This generator
+	 */
+	public Ipog addSeed(int[] test)
+	{
+		m_seeds.add(test.clone());
+		return this;
+	}
+
+	/**
+	 * Generates the test suite
+	 * @param timeout The maximum duration of the generation in milliseconds,
+	 * or a negative value for no timeout
+	 * @return The number of test cases, or -1 if the generation did not end
+	 * before the timeout
+	 */
+	public int generate(long timeout)
+	{
+		long deadline = timeout < 0 ? Long.MAX_VALUE : System.nanoTime() + timeout * 1000000;
+		m_horizontalTime = 0;
+		m_verticalTime = 0;
+		m_rows = null;
+		int n = m_domainSizes.length;
+		CoverageMatrix matrix = new CoverageMatrix(m_t, m_domainSizes);
+		TupleNumbering tuples = matrix.getTuples();
+		List<int[]> rows = new ArrayList<int[]>();
+		for (int[] seed : m_seeds)
+		{
+			rows.add(seed.clone());
+			matrix.addRow(seed);
+		}
+		int num_seeds = rows.size();
+		// The first t parameters form the first set of the matrix
+		int[] values = new int[m_t];
+		if (tuples.getSubsetCount() > 0)
+		{
+			for (int i = matrix.nextUncovered(0, 0); i >= 0; i = matrix.nextUncovered(0, i + 1))
+			{
+				tuples.decode(i, values);
+				int[] row = new int[n];
+				Arrays.fill(row, -1);
+				System.arraycopy(values, 0, row, 0, m_t);
+				rows.add(row);
+			}
+		}
+		ForkJoinPool pool = m_threads > 1 ? new ForkJoinPool(m_threads) : null;
+		try
+		{
+			for (int p = m_t; p < n; p++)
+			{
+				int from = (int) TupleNumbering.binomial(p, m_t);
+				int to = (int) TupleNumbering.binomial(p + 1, m_t);
+				long start = System.currentTimeMillis();
+				for (int r = num_seeds; r < rows.size(); r++)
+				{
+					if (System.nanoTime() - deadline > 0)
+					{
+						return -1;
+					}
+					int[] row = rows.get(r);
+					row[p] = chooseValue(matrix, row, p, from, to, pool);
+					if (row[p] >= 0)
+					{
+						matrix.addRow(row, from, to);
+					}
+				}
+				long middle = System.currentTimeMillis();
+				m_horizontalTime += middle - start;
+				if (!growVertically(matrix, rows, num_seeds, from, to, deadline))
+				{
+					return -1;
+				}
+				m_verticalTime += System.currentTimeMillis() - middle;
+			}
+		}
+		finally
+		{
+			if (pool != null)
+			{
+				pool.shutdown();
+			}
+		}
+		m_rows = rows.toArray(new int[rows.size()][]);
+		for (int[] row : m_rows)
+		{
+			for (int p = 0; p < n; p++)
+			{
+				if (row[p] < 0)
+				{
+					// Any value will do
+					row[p] = 0;
+				}
+			}
+		}
+		return m_rows.length;
+	}
+
+	/**
+	 * Gets the test suite generated by the last call to
+	 * {@link #generate(long)}
+	 * @return The index of the value of each parameter in each test case,
+	 * or null if the generation did not end
+	 */
+	public int[][] getRows()
+	{
+		return m_rows;
+	}
+
+	/**
+	 * Gets the time spent in horizontal growth by the last generation
+	 * @return The time, in milliseconds
+	 */
+	public long getHorizontalTime()
+	{
+		return m_horizontalTime;
+	}
+
+	/**
+	 * Gets the time spent in vertical growth by the last generation
+	 * @return The time, in milliseconds
+	 */
+	public long getVerticalTime()
+	{
+		return m_verticalTime;
+	}
+
+	/**
+	 * Chooses the value of a new parameter for a test case during
+	 * horizontal growth
+	 * @param matrix The tuples covered so far
+	 * @param row The test case
+	 * @param p The new parameter
+	 * @param from The first set of parameters whose largest element is
+	 * <i>p</i>
+	 * @param to The set after the last such set
+	 * @param pool The pool computing the gains of the values in parallel,
+	 * or null to compute them sequentially
+	 * @return The value covering the most new tuples, or -1 if no value
+	 * covers a new tuple
+	 */
+	protected int chooseValue(CoverageMatrix matrix, int[] row, int p, int from, int to, ForkJoinPool pool)
+	{
+		int size = m_domainSizes[p];
+		int[] gains = new int[size];
+		if (pool != null && to - from >= MIN_PARALLEL_SUBSETS)
+		{
+			pool.invoke(new Gains(matrix, row, p, from, to, gains, 0, size));
+		}
+		else
+		{
+			for (int v = 0; v < size; v++)
+			{
+				row[p] = v;
+				gains[v] = matrix.countNewTuples(row, from, to);
+			}
+		}
+		int best = -1;
+		int best_gain = 0;
+		for (int v = 0; v < size; v++)
+		{
+			if (gains[v] > best_gain)
+			{
+				best = v;
+				best_gain = gains[v];
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Covers the tuples of a range of sets of parameters that horizontal
+	 * growth has left uncovered
+	 * @param matrix The tuples covered so far
+	 * @param rows The test cases, which may be modified or extended
+	 * @param num_seeds The number of test cases at the start of the list
+	 * that must not be modified
+	 * @param from The first set of parameters of the range
+	 * @param to The set after the last set of the range
+	 * @param deadline The time, as given by {@link System#nanoTime()}, after
+	 * which the generation stops
+	 * @return <tt>false</tt> if the generation stopped before the deadline,
+	 * <tt>true</tt> otherwise
+	 */
+	protected boolean growVertically(CoverageMatrix matrix, List<int[]> rows, int num_seeds, int from, int to, long deadline)
+	{
+		TupleNumbering tuples = matrix.getTuples();
+		int n = m_domainSizes.length;
+		int[] values = new int[m_t];
+		for (int s = from; s < to; s++)
+		{
+			if (System.nanoTime() - deadline > 0)
+			{
+				return false;
+			}
+			int[] subset = tuples.getSubset(s);
+			int first = tuples.getFirstTuple(s);
+			for (int i = matrix.nextUncovered(s, 0); i >= 0; i = matrix.nextUncovered(s, i + 1))
+			{
+				tuples.decode(first + i, values);
+				int[] target = null;
+				for (int r = num_seeds; r < rows.size() && target == null; r++)
+				{
+					int[] row = rows.get(r);
+					boolean compatible = true;
+					for (int k = 0; k < m_t && compatible; k++)
+					{
+						int v = row[subset[k]];
+						compatible = v < 0 || v == values[k];
+					}
+					if (compatible)
+					{
+						target = row;
+					}
+				}
+				if (target == null)
+				{
+					target = new int[n];
+					Arrays.fill(target, -1);
+					rows.add(target);
+				}
+				for (int k = 0; k < m_t; k++)
+				{
+					target[subset[k]] = values[k];
+				}
+				matrix.setCovered(s, i);
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Computes the gains of a range of candidate values, by splitting the
+	 * range in halves. Each task works on its own copy of the test case.
+	 */
+	protected static class Gains extends RecursiveAction
+	{
+		private static final long serialVersionUID = 1L;
+
+		protected final CoverageMatrix m_matrix;
+
+		protected final int[] m_row;
+
+		protected final int m_param;
+
+		protected final int m_from;
+
+		protected final int m_to;
+
+		protected final int[] m_gains;
+
+		protected final int m_low;
+
+		protected final int m_high;
+
+		public Gains(CoverageMatrix matrix, int[] row, int param, int from, int to, int[] gains, int low, int high)
+		{
+			super();
+			m_matrix = matrix;
+			m_row = row;
+			m_param = param;
+			m_from = from;
+			m_to = to;
+			m_gains = gains;
+			m_low = low;
+			m_high = high;
+		}
+
+		@Override
+		protected void compute()
+		{
+			if (m_high - m_low > 1)
+			{
+				int middle = (m_low + m_high) >>> 1;
+				invokeAll(new Gains(m_matrix, m_row, m_param, m_from, m_to, m_gains, m_low, middle),
+						new Gains(m_matrix, m_row, m_param, m_from, m_to, m_gains, middle, m_high));
+				return;
+			}
+			int[] row = m_row.clone();
+			row[m_param] = m_low;
+			m_gains[m_low] = m_matrix.countNewTuples(row, m_from, m_to);
+		}
+	}
+}
@@ -0,0 +1,608 @@
+/*
+    A lab for comparing combinatorial test suite generators
+    Copyright (C) 2017-2021 Sylvain Hallé, Edmond La Chance,
+    Vincent Porta-Scarta
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package combigraph.lab.coverage;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+
+import combigraph.lab.graphs.TupleNumbering;
+
+/**
+ * Generates a <i>t</i>-way test suite by simulated annealing, in the
+ * manner of CASA: a search over the number of test cases, where each
+ * candidate size is tried by annealing a suite of that size until it
+ * covers all the tuples.
+ * <p>
+ * Each annealing is run by several replicas at different temperatures,
+ * in parallel, that periodically exchange their states with their
+ * neighbours on the temperature ladder (parallel tempering). A move
+ * changes a single value of a test case, chosen so that it covers a tuple
+ * not covered yet; its effect on the number of uncovered tuples is computed
+ * incrementally from the number of times each tuple is covered, by looking
+ * only at the sets of parameters containing the changed one.
+ * <p>
+ * The search starts from the suite generated by {@link Ipog}, which gives
+ * an upper bound on the size, and tries sizes between this bound and the
+ * number of tuples of the largest set of parameters by bisection. The
+ * suite of each size is initialized by removing random test cases from the
+ * best suite found so far.
+ */
+public class TemperedAnnealing
+{
+	/**
+	 * The number of moves each replica makes between two exchanges
+	 */
+	protected static final transient int ROUND_MOVES = 1000;
+
+	/**
+	 * The temperature of the coldest replica
+	 */
+	protected static final transient double MIN_TEMPERATURE = 0.1;
+
+	/**
+	 * The temperature of the hottest replica
+	 */
+	protected static final transient double MAX_TEMPERATURE = 0.6;
+
+	/**
+	 * The numbering of the tuples
+	 */
+	protected final TupleNumbering m_tuples;
+
+	/**
+	 * The number of parameters
+	 */
+	protected final int m_n;
+
+	/**
+	 * For each parameter, the sets of parameters that contain it
+	 */
+	protected final int[][] m_subsetsOf;
+
+	/**
+	 * For each parameter, the amount by which the number of a tuple of each
+	 * set in {@link #m_subsetsOf} changes when the value of the parameter
+	 * increases by one
+	 */
+	protected final int[][] m_strides;
+
+	/**
+	 * The number of replicas
+	 */
+	protected int m_replicas = Runtime.getRuntime().availableProcessors();
+
+	/**
+	 * The number of threads running the replicas
+	 */
+	protected int m_threads = Runtime.getRuntime().availableProcessors();
+
+	/**
+	 * The maximum number of moves made by each replica when trying a size
+	 */
+	protected long m_moves = 1000000;
+
+	/**
+	 * The seed from which the seed of each replica is derived
+	 */
+	protected long m_seed = 0;
+
+	/**
+	 * The best test suite found by the last search
+	 */
+	protected int[][] m_rows = null;
+
+	/**
+	 * The size of the suite generated by {@link Ipog} at the start of the
+	 * last search
+	 */
+	protected int m_initialSize = -1;
+
+	/**
+	 * The time elapsed between the start of the last search and the moment
+	 * the best suite was found, in milliseconds
+	 */
+	protected long m_timeToBest = -1;
+
+	/**
+	 * The number of exchanges attempted by the last search
+	 */
+	protected long m_exchanges = 0;
+
+	/**
+	 * The number of exchanges accepted by the last search
+	 */
+	protected long m_acceptedExchanges = 0;
+
+	/**
+	 * Creates a new generator
+	 * @param t The interaction strength
+	 * @param domain_sizes The size of the domain of each parameter
+	 */
+	public TemperedAnnealing(int t, int[] domain_sizes)
+	{
+		super();
+		m_n = domain_sizes.length;
+		m_tuples = new TupleNumbering(Math.min(t, m_n), domain_sizes);
+		int[] counts = new int[m_n];
+		for (int s = 0; s < m_tuples.getSubsetCount(); s++)
+		{
+			for (int p : m_tuples.getSubset(s))
+			{
+				counts[p]++;
+			}
+		}
+		m_subsetsOf = new int[m_n][];
+		m_strides = new int[m_n][];
+		for (int p = 0; p < m_n; p++)
+		{
+			m_subsetsOf[p] = new int[counts[p]];
+			m_strides[p] = new int[counts[p]];
+			counts[p] = 0;
+		}
+		for (int s = 0; s < m_tuples.getSubsetCount(); s++)
+		{
+			int stride = 1;
+			for (int p : m_tuples.getSubset(s))
+			{
+				m_subsetsOf[p][counts[p]] = s;
+				m_strides[p][counts[p]] = stride;
+				counts[p]++;
+				stride *= domain_sizes[p];
+			}
+		}
+	}
+
+	/**
+	 * Sets the number of replicas
+	 * @param replicas The number of replicas
+	 * @return This generator
+	 */
+	public TemperedAnnealing setReplicas(int replicas)
+	{
+		m_replicas = Math.max(1, replicas);
+		return this;
+	}
+
+	/**
+	 * Sets the number of threads running the replicas
+	 * @param threads The number of threads
+	 * @return This generator
+	 */
+	public TemperedAnnealing setThreads(int threads)
+	{
+		m_threads = Math.max(1, threads);
+		return this;
+	}
+
+	/**
+	 * Sets the maximum number of moves made by each replica when trying a
+	 * size, after which the size is considered too small
+	 * @param moves The number of moves
+	 * @return This generator
+	 */
+	public TemperedAnnealing setMoves(long moves)
+	{
+		m_moves = Math.max(1, moves);
+		return this;
+	}
+
+	/**
+	 * Sets the seed from which the replicas are derived. Two searches with
+	 * the same seed and enough time to finish find suites of the same size.
+	 * @param seed The seed
+	 * @return This generator
+	 */
+	public TemperedAnnealing setSeed(long seed)
+	{
+		m_seed = seed;
+		return this;
+	}
+
+	/**
+	 * Runs the search
+	 * @param timeout The maximum duration of the search in milliseconds, or
+	 * a negative value for no timeout
+	 * @return The number of test cases of the best suite found, or -1 if the
+	 * initial suite could not be generated before the timeout
+	 */
+	public int generate(long timeout)
+	{
+		long start = System.nanoTime();
+		long deadline = Long.MAX_VALUE;
+		if (timeout >= 0)
+		{
+			deadline = start + TimeUnit.MILLISECONDS.toNanos(timeout);
+		}
+		m_rows = null;
+		m_initialSize = -1;
+		m_timeToBest = -1;
+		m_exchanges = 0;
+		m_acceptedExchanges = 0;
+		Ipog ipog = new Ipog(m_tuples.getSubset(0).length, m_tuples.getDomainSizes()).setThreads(1);
+		if (ipog.generate(timeout) < 0)
+		{
+			return -1;
+		}
+		m_rows = ipog.getRows();
+		m_initialSize = m_rows.length;
+		m_timeToBest = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+		int low = 0;
+		for (int s = 0; s < m_tuples.getSubsetCount(); s++)
+		{
+			low = Math.max(low, m_tuples.getSubsetSize(s));
+		}
+		int high = m_rows.length;
+		Random random = new Random(m_seed);
+		ForkJoinPool pool = new ForkJoinPool(Math.min(m_threads, m_replicas));
+		try
+		{
+			while (low < high && System.nanoTime() - deadline < 0)
+			{
+				int size = (low + high) >>> 1;
+				int[][] rows = anneal(size, random, pool, deadline);
+				if (rows != null)
+				{
+					m_rows = rows;
+					m_timeToBest = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+					high = size;
+				}
+				else
+				{
+					low = size + 1;
+				}
+			}
+		}
+		finally
+		{
+			pool.shutdown();
+		}
+		return m_rows.length;
+	}
+
+	/**
+	 * Gets the best test suite found by the last search
+	 * @return The index of the value of each parameter in each test case,
+	 * or null if the search did not generate any suite
+	 */
+	public int[][] getRows()
+	{
+		return m_rows;
+	}
+
+	/**
+	 * Gets the size of the suite the last search started from
+	 * @return The number of test cases, or -1 if the search did not generate
+	 * any suite
+	 */
+	public int getInitialSize()
+	{
+		return m_initialSize;
+	}
+
+	/**
+	 * Gets the time it took to find the best suite
+	 * @return The time elapsed between the start of the search and the
+	 * moment the best suite was found, in milliseconds, or -1 if the search
+	 * did not generate any suite
+	 */
+	public long getTimeToBest()
+	{
+		return m_timeToBest;
+	}
+
+	/**
+	 * Gets the fraction of the exchanges between replicas that were
+	 * accepted by the last search
+	 * @return The fraction, or 0 if no exchange was attempted
+	 */
+	public double getExchangeRate()
+	{
+		return m_exchanges == 0 ? 0 : (double) m_acceptedExchanges / m_exchanges;
+	}
+
+	/**
+	 * Tries to find a suite of a given size covering all the tuples
+	 * @param size The number of test cases
+	 * @param random The source of the seeds of the replicas and of the
+	 * exchanges
+	 * @param pool The pool running the replicas
+	 * @param deadline The time, as given by {@link System#nanoTime()}, after
+	 * which the annealing stops
+	 * @return The suite, or null if none was found
+	 */
+	protected int[][] anneal(int size, Random random, ForkJoinPool pool, long deadline)
+	{
+		// The replica at position k of the ladder has the k-th temperature
+		Replica[] ladder = new Replica[m_replicas];
+		double[] temperatures = new double[m_replicas];
+		for (int k = 0; k < m_replicas; k++)
+		{
+			temperatures[k] = m_replicas == 1 ? MIN_TEMPERATURE : MIN_TEMPERATURE * Math.pow(MAX_TEMPERATURE / MIN_TEMPERATURE, (double) k / (m_replicas - 1));
+			ladder[k] = new Replica(truncate(m_rows, size, random), new Random(random.nextLong()));
+		}
+		for (long moves = 0; moves < m_moves; moves += ROUND_MOVES)
+		{
+			if (System.nanoTime() - deadline > 0)
+			{
+				return null;
+			}
+			pool.invoke(new Round(ladder, temperatures, 0, m_replicas));
+			for (Replica replica : ladder)
+			{
+				if (replica.m_uncoveredCount == 0)
+				{
+					return replica.m_rows;
+				}
+			}
+			// Exchange the states of even or odd pairs of neighbours in turn
+			for (int k = (int) (moves / ROUND_MOVES) % 2; k + 1 < m_replicas; k += 2)
+			{
+				double exponent = (1 / temperatures[k] - 1 / temperatures[k + 1]) * (ladder[k].m_uncoveredCount - ladder[k + 1].m_uncoveredCount);
+				m_exchanges++;
+				if (exponent >= 0 || random.nextDouble() < Math.exp(exponent))
+				{
+					Replica r = ladder[k];
+					ladder[k] = ladder[k + 1];
+					ladder[k + 1] = r;
+					m_acceptedExchanges++;
+				}
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Copies a random selection of test cases from a suite
+	 * @param rows The suite
+	 * @param size The number of test cases to keep
+	 * @param random The source of the selection
+	 * @return The test cases
+	 */
+	protected static int[][] truncate(int[][] rows, int size, Random random)
+	{
+		int[][] copy = new int[rows.length][];
+		for (int i = 0; i < rows.length; i++)
+		{
+			copy[i] = rows[i].clone();
+		}
+		// Partial Fisher-Yates shuffle
+		for (int i = 0; i < size; i++)
+		{
+			int j = i + random.nextInt(copy.length - i);
+			int[] row = copy[i];
+			copy[i] = copy[j];
+			copy[j] = row;
+		}
+		int[][] out = new int[size][];
+		System.arraycopy(copy, 0, out, 0, size);
+		return out;
+	}
+
+	/**
+	 * A suite being annealed, with the number of times it covers each tuple
+	 * and the list of the tuples it does not cover
+	 */
+	protected class Replica
+	{
+		/**
+		 * The test cases
+		 */
+		protected final int[][] m_rows;
+
+		/**
+		 * The number of test cases covering each tuple
+		 */
+		protected final int[] m_counts;
+
+		/**
+		 * The tuples not covered, in no particular order
+		 */
+		protected final int[] m_uncovered;
+
+		/**
+		 * The position of each tuple in {@link #m_uncovered}, or -1 if it is
+		 * covered
+		 */
+		protected final int[] m_positions;
+
+		/**
+		 * The number of tuples not covered
+		 */
+		protected int m_uncoveredCount;
+
+		/**
+		 * The source of the moves of this replica
+		 */
+		protected final Random m_random;
+
+		/**
+		 * The tuples changed by the move being evaluated: the tuple left for
+		 * each set of parameters containing the changed one, then the tuple
+		 * entered
+		 */
+		protected final int[] m_changed;
+
+		public Replica(int[][] rows, Random random)
+		{
+			super();
+			m_rows = rows;
+			m_random = random;
+			int tuple_count = m_tuples.getTupleCount();
+			m_counts = new int[tuple_count];
+			m_uncovered = new int[tuple_count];
+			m_positions = new int[tuple_count];
+			int max_subsets = 0;
+			for (int[] subsets : m_subsetsOf)
+			{
+				max_subsets = Math.max(max_subsets, subsets.length);
+			}
+			m_changed = new int[2 * max_subsets];
+			for (int[] row : rows)
+			{
+				for (int s = 0; s < m_tuples.getSubsetCount(); s++)
+				{
+					m_counts[m_tuples.getTuple(s, row)]++;
+				}
+			}
+			m_uncoveredCount = 0;
+			for (int i = 0; i < tuple_count; i++)
+			{
+				m_positions[i] = -1;
+				if (m_counts[i] == 0)
+				{
+					m_positions[i] = m_uncoveredCount;
+					m_uncovered[m_uncoveredCount++] = i;
+				}
+			}
+		}
+
+		/**
+		 * Makes a number of moves, or fewer if all the tuples become covered
+		 * @param moves The number of moves
+		 * @param temperature The temperature of the replica
+		 */
+		protected void run(int moves, double temperature)
+		{
+			int[] values = new int[m_tuples.getSubset(0).length];
+			for (int i = 0; i < moves && m_uncoveredCount > 0; i++)
+			{
+				// Give a test case one of the values of an uncovered tuple
+				int tuple = m_uncovered[m_random.nextInt(m_uncoveredCount)];
+				int[] subset = m_tuples.getSubset(m_tuples.decode(tuple, values));
+				int k = m_random.nextInt(subset.length);
+				int[] row = m_rows[m_random.nextInt(m_rows.length)];
+				int p = subset[k];
+				if (row[p] == values[k])
+				{
+					continue;
+				}
+				int delta = evaluate(row, p, values[k]);
+				if (delta <= 0 || m_random.nextDouble() < Math.exp(-delta / temperature))
+				{
+					apply(p);
+					row[p] = values[k];
+				}
+			}
+		}
+
+		/**
+		 * Computes the change in the number of uncovered tuples caused by
+		 * changing a value of a test case, and records the tuples it changes
+		 * @param row The test case
+		 * @param p The parameter whose value changes
+		 * @param value The new value
+		 * @return The change
+		 */
+		protected int evaluate(int[] row, int p, int value)
+		{
+			int[] subsets = m_subsetsOf[p];
+			int[] strides = m_strides[p];
+			int shift = value - row[p];
+			int delta = 0;
+			for (int j = 0; j < subsets.length; j++)
+			{
+				int left = m_tuples.getTuple(subsets[j], row);
+				int entered = left + shift * strides[j];
+				m_changed[j] = left;
+				m_changed[subsets.length + j] = entered;
+				if (m_counts[left] == 1)
+				{
+					delta++;
+				}
+				if (m_counts[entered] == 0)
+				{
+					delta--;
+				}
+			}
+			return delta;
+		}
+
+		/**
+		 * Updates the coverage with the tuples recorded by the last call to
+		 * {@link #evaluate(int[], int, int)}
+		 * @param p The parameter whose value changes
+		 */
+		protected void apply(int p)
+		{
+			int count = m_subsetsOf[p].length;
+			for (int j = 0; j < count; j++)
+			{
+				int left = m_changed[j];
+				if (--m_counts[left] == 0)
+				{
+					m_positions[left] = m_uncoveredCount;
+					m_uncovered[m_uncoveredCount++] = left;
+				}
+				int entered = m_changed[count + j];
+				if (m_counts[entered]++ == 0)
+				{
+					// Move the last uncovered tuple to the place of this one
+					int position = m_positions[entered];
+					int last = m_uncovered[--m_uncoveredCount];
+					m_uncovered[position] = last;
+					m_positions[last] = position;
+					m_positions[entered] = -1;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Runs a round of moves on a range of replicas, by splitting it in
+	 * halves until a single replica is left
+	 */
+	protected static class Round extends RecursiveAction
+	{
+		private static final long serialVersionUID = 1L;
+
+		protected final Replica[] m_ladder;
+
+		protected final double[] m_temperatures;
+
+		protected final int m_from;
+
+		protected final int m_to;
+
+		public Round(Replica[] ladder, double[] temperatures, int from, int to)
+		{
+			super();
+			m_ladder = ladder;
+			m_temperatures = temperatures;
+			m_from = from;
+			m_to = to;
+		}
+
+		@Override
+		protected void compute()
+		{
+			if (m_to - m_from <= 1)
+			{
+				if (m_to > m_from)
+				{
+					m_ladder[m_from].run(ROUND_MOVES, m_temperatures[m_from]);
+				}
+				return;
+			}
+			int middle = (m_from + m_to) >>> 1;
+			invokeAll(new Round(m_ladder, m_temperatures, m_from, middle), new Round(m_ladder, m_temperatures, middle, m_to));
+		}
+	}
+}
@@ -20,11 +20,13 @@ package combigraph.lab.experiments;
 
 import java.io.File;
 import java.io.IOException;
-import java.util.regex.Matcher;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.regex.Pattern;
 
 import combigraph.lab.GraphLab;
-import combigraph.lab.TimeoutCommandRunner;
+import combigraph.lab.OutputConsumer;
+import combigraph.lab.PatternFinder;
 import combigraph.lab.problems.CombinatorialTestingProblem;
 import combigraph.lab.problems.TWayProblem;
 
@@ -51,29 +53,34 @@ public class ActsTestGenerationExperiment extends TestGenerationExperiment
 	}
 	
 	@Override
-	protected String runTool() throws IOException
+	protected String runTool() throws IOException, InterruptedException
 	{
 		if (GraphLab.s_dryRun)
 		{
 			return "";
 		}
-		File temp = File.createTempFile("temp-input-FOO", ".ncond");
+		File output = new File(getScratchFolder(), "output.ncond");
 		int t = ((TWayProblem) m_problem).getT();
-		String[] command = {"java", "-Dmode=extend", "-Doutput=numeric", "-Ddoi=" + t, "-jar", s_actsJarName, m_problem.getFilenameFor(NAME), temp.getAbsolutePath()};
-		TimeoutCommandRunner runner = new TimeoutCommandRunner(command);
-		runner.setTimeout(getMaxDuration());
-		runner.run();
-		temp.delete();
-		return runner.getString();
+		Map<String,String> properties = new LinkedHashMap<String,String>();
+		properties.put("mode", "extend");
+		properties.put("output", "numeric");
+		properties.put("doi", Integer.toString(t));
+		return runJar(s_actsJarName, properties, getInputFilename(), output.getAbsolutePath()).getString();
 	}
 	
 	@Override
-	protected int getSize(String tool_output)
+	protected OutputConsumer newOutputConsumer()
 	{
-		Matcher mat = s_pattern.matcher(tool_output);
-		if (mat.find())
+		return new PatternFinder(s_pattern);
+	}
+	
+	@Override
+	protected int getSize(OutputConsumer consumer)
+	{
+		PatternFinder finder = (PatternFinder) consumer;
+		if (finder.found())
 		{
-			return Integer.parseInt(mat.group(1).trim());
+			return Integer.parseInt(finder.group(1).trim());
 		}
 		return 0;
 	}
@@ -18,15 +18,28 @@
  */
 package combigraph.lab.experiments;
 
+import ca.uqac.lif.labpal.ExperimentException;
 import combigraph.lab.GraphLab;
+import combigraph.lab.coverage.AllPairs;
 import combigraph.lab.problems.CombinatorialTestingProblem;
+import combigraph.lab.problems.TWayProblem;
 
+/**
+ * Test generation experiment that generates pairwise test suites with the
+ * strategy of AllPairs, run inside the lab by the {@link AllPairs}
+ * generator.
+ */
 public class AllPairsTestGenerationExperiment extends TestGenerationExperiment
 {
 	/**
 	 * Name of this particular tool
 	 */
 	public static final transient String NAME = "AllPairs";
+
+	/**
+	 * The generator used by the last run of the tool
+	 */
+	protected transient AllPairs m_allPairs = null;
 	
 	public AllPairsTestGenerationExperiment(CombinatorialTestingProblem problem)
 	{
@@ -40,14 +53,45 @@ public class AllPairsTestGenerationExperiment extends TestGenerationExperiment
 		{
 			return "";
 		}
-		return null;
+		m_allPairs = new AllPairs(((TWayProblem) m_problem).getDomainSizes());
+		int size = m_allPairs.generate(getMaxDuration());
+		if (size < 0)
+		{
+			// The generation did not end in time
+			return "";
+		}
+		// The output of the tool is the number of test cases
+		return Integer.toString(size);
 	}
 	
 	@Override
 	protected int getSize(String tool_output)
 	{
-		// TODO Auto-generated method stub
-		return 0;
+		return Integer.parseInt(tool_output);
+	}
+
+	@Override
+	protected int[][] getTestSuite(String tool_output) throws ExperimentException
+	{
+		return m_allPairs.getRows();
 	}
 
+	@Override
+	public boolean prerequisitesFulfilled()
+	{
+		// The generator works on the parameters of the problem directly
+		return true;
+	}
+
+	@Override
+	public void fulfillPrerequisites() throws ExperimentException
+	{
+		// Nothing to do
+	}
+
+	@Override
+	public void cleanPrerequisites()
+	{
+		// Nothing to do
+	}
 }
@@ -0,0 +1,124 @@
+/*
+    A lab for comparing combinatorial test suite generators
+    Copyright (C) 2017-2021 Sylvain Hallé, Edmond La Chance,
+    Vincent Porta-Scarta
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package combigraph.lab.experiments;
+
+import java.io.IOException;
+
+import ca.uqac.lif.labpal.ExperimentException;
+import combigraph.lab.GraphLab;
+import combigraph.lab.coverage.TemperedAnnealing;
+import combigraph.lab.problems.CombinatorialTestingProblem;
+import combigraph.lab.problems.TWayProblem;
+
+/**
+ * Test generation experiment that searches for a test suite by simulated
+ * annealing, in the manner of {@link CasaTestGenerationExperiment CASA},
+ * with the {@link TemperedAnnealing} generator run inside the lab. The
+ * replicas of each annealing run in parallel, which makes it possible to
+ * compare how this kind of search scales with the number of cores. The
+ * search keeps the best suite found within the maximum duration of the
+ * experiment.
+ */
+public class AnnealingTestGenerationExperiment extends TestGenerationExperiment
+{
+	/**
+	 * Name of this particular tool
+	 */
+	public static final transient String NAME = "Tempered annealing";
+
+	/**
+	 * Name of parameter "initial size"
+	 */
+	public static final transient String INITIAL_SIZE = "Initial size";
+
+	/**
+	 * Name of parameter "exchange rate"
+	 */
+	public static final transient String EXCHANGE_RATE = "Exchange rate";
+
+	/**
+	 * The generator used by the last run of the tool
+	 */
+	protected transient TemperedAnnealing m_annealing = null;
+
+	public AnnealingTestGenerationExperiment(CombinatorialTestingProblem problem)
+	{
+		super(problem, NAME);
+		describe(MultiStartColouringExperiment.TIME_TO_BEST, "The time at which the final size of the test suite was first reached, in milliseconds");
+		describe(INITIAL_SIZE, "The number of test cases of the suite the search starts from");
+		describe(EXCHANGE_RATE, "The fraction of the exchanges between replicas that were accepted");
+	}
+
+	@Override
+	protected String runTool() throws IOException, InterruptedException
+	{
+		if (GraphLab.s_dryRun)
+		{
+			return "";
+		}
+		TWayProblem twp = (TWayProblem) m_problem;
+		TemperedAnnealing annealing = new TemperedAnnealing(twp.getT(), twp.getDomainSizes());
+		annealing.setReplicas(GraphLab.s_annealingReplicas);
+		annealing.setThreads(GraphLab.s_annealingThreads);
+		annealing.setMoves(GraphLab.s_annealingMoves);
+		m_annealing = annealing;
+		int size = annealing.generate(getMaxDuration());
+		if (size < 0)
+		{
+			// Not even the initial suite was generated in time
+			return "";
+		}
+		write(MultiStartColouringExperiment.TIME_TO_BEST, annealing.getTimeToBest());
+		write(INITIAL_SIZE, annealing.getInitialSize());
+		write(EXCHANGE_RATE, annealing.getExchangeRate());
+		// The output of the tool is the number of test cases
+		return Integer.toString(size);
+	}
+
+	@Override
+	protected int getSize(String tool_output) throws ExperimentException
+	{
+		return Integer.parseInt(tool_output);
+	}
+
+	@Override
+	protected int[][] getTestSuite(String tool_output) throws ExperimentException
+	{
+		return m_annealing.getRows();
+	}
+
+	@Override
+	public boolean prerequisitesFulfilled()
+	{
+		// The generator works on the parameters of the problem directly
+		return true;
+	}
+
+	@Override
+	public void fulfillPrerequisites() throws ExperimentException
+	{
+		// Nothing to do
+	}
+
+	@Override
+	public void cleanPrerequisites()
+	{
+		// Nothing to do
+	}
+}
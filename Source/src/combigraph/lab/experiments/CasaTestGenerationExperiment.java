@@ -22,11 +22,13 @@ import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Scanner;
 
 import combigraph.lab.GraphLab;
-import combigraph.lab.TimeoutCommandRunner;
 import combigraph.lab.problems.CombinatorialTestingProblem;
+import combigraph.lab.problems.TWayProblem;
 
 /**
  * Test generation experiment that uses
@@ -45,30 +47,81 @@ public class CasaTestGenerationExperiment extends TestGenerationExperiment
 	 */
 	public static final transient String CASA = "casa-1.1b";
 
+	/**
+	 * The test suite read from the output file of the last run of the tool
+	 */
+	protected transient int[][] m_suite = null;
+
 	public CasaTestGenerationExperiment(CombinatorialTestingProblem problem)
 	{
 		super(problem, NAME);
 	}
 
 	@Override
-	protected String runTool() throws IOException
+	protected String runTool() throws IOException, InterruptedException
 	{
 		if (GraphLab.s_dryRun)
 		{
 			return "";
 		}
-		File temp_out = File.createTempFile("temp-CASA-", ".out");
-		String[] command = {CASA, "--output", temp_out.getAbsolutePath(), m_problem.getFilenameFor(NAME)};
-		TimeoutCommandRunner runner = new TimeoutCommandRunner(command);
-		runner.setTimeout(getMaxDuration());
-		runner.run();
-		Scanner scanner = new Scanner(temp_out);
+		File output = new File(getScratchFolder(), "output.txt");
+		String[] command = {CASA, "--output", output.getAbsolutePath(), getInputFilename()};
+		runCommand(command);
+		Scanner scanner = new Scanner(output);
 		String line = scanner.nextLine();
+		m_suite = readRows(scanner);
 		scanner.close();
-		temp_out.delete();
 		return line;
 	}
 
+	@Override
+	protected int[][] getTestSuite(String tool_output)
+	{
+		return m_suite;
+	}
+
+	/**
+	 * Reads the test cases that follow the size in an output file of CASA.
+	 * CASA numbers the values of all the parameters in sequence, so that
+	 * the <i>j</i>-th value of parameter <i>i</i> is written as
+	 * <i>i</i>&times;<i>v</i>+<i>j</i>. Values numbered within each
+	 * parameter are also accepted. Any other value is kept as it is, so that
+	 * the verification counts its test case as invalid instead of reading
+	 * it as the value of another parameter.
+	 * @param scanner The scanner reading the file, placed after its first
+	 * line
+	 * @return The value of each parameter in each test case, or null if the
+	 * file does not contain the test cases
+	 */
+	protected int[][] readRows(Scanner scanner)
+	{
+		TWayProblem twp = (TWayProblem) m_problem;
+		int n = twp.getN();
+		int v = twp.getV();
+		List<int[]> rows = new ArrayList<int[]>();
+		while (scanner.hasNextLine())
+		{
+			String line = scanner.nextLine().trim();
+			if (line.isEmpty())
+			{
+				continue;
+			}
+			String[] parts = line.split("\\s+");
+			if (parts.length != n)
+			{
+				return null;
+			}
+			int[] row = new int[n];
+			for (int i = 0; i < n; i++)
+			{
+				int value = Integer.parseInt(parts[i]);
+				row[i] = value >= i * v && value < (i + 1) * v ? value - i * v : value;
+			}
+			rows.add(row);
+		}
+		return rows.toArray(new int[rows.size()][]);
+	}
+
 	@Override
 	protected int getSize(String tool_output)
 	{
@@ -18,12 +18,14 @@
  */
 package combigraph.lab.experiments;
 
-import java.util.regex.Matcher;
+import java.io.File;
+import java.io.IOException;
 import java.util.regex.Pattern;
 
-import ca.uqac.lif.labpal.CommandRunner;
 import ca.uqac.lif.labpal.ExperimentException;
 import combigraph.lab.GraphLab;
+import combigraph.lab.OutputConsumer;
+import combigraph.lab.PatternFinder;
 import combigraph.lab.problems.CombinatorialTestingProblem;
 
 public class ColoringTestGenerationExperiment extends TestGenerationExperiment
@@ -34,9 +36,11 @@ public class ColoringTestGenerationExperiment extends TestGenerationExperiment
 	public static final transient String NAME = "Coloring";
 
 	/**
-	 * The command used to launch the coloring program (DSATUR)
+	 * The command used to launch the coloring program (DSATUR), found in
+	 * the working directory of the lab since the command runs in the
+	 * scratch folder of the experiment
 	 */
-	protected static final transient String DSATUR_COMMAND = "./dsatur";
+	protected static final transient String DSATUR_COMMAND = new File("dsatur").getAbsolutePath();
 
 	/**
 	 * The pattern to look for in the tool's output
@@ -49,25 +53,34 @@ public class ColoringTestGenerationExperiment extends TestGenerationExperiment
 	}
 
 	@Override
-	protected String runTool() 
+	protected String runTool() throws IOException, InterruptedException
 	{
 		if (GraphLab.s_dryRun)
 		{
 			return "";
 		}
-		String[] command = new String[] {"./dsatur", m_problem.getFilenameFor(NAME)};
-		CommandRunner runner = new CommandRunner(command);
-		runner.run();
-		return runner.getString();
+		return runCommand(DSATUR_COMMAND, getToolInput()).getString();
 	}
 
 	@Override
-	protected int getSize(String tool_output) throws ExperimentException
+	protected boolean acceptsStdin()
 	{
-		Matcher mat = s_sizePattern.matcher(tool_output);
-		if (mat.find())
+		return true;
+	}
+
+	@Override
+	protected OutputConsumer newOutputConsumer()
+	{
+		return new PatternFinder(s_sizePattern);
+	}
+
+	@Override
+	protected int getSize(OutputConsumer consumer) throws ExperimentException
+	{
+		PatternFinder finder = (PatternFinder) consumer;
+		if (finder.found())
 		{
-			return Integer.parseInt(mat.group(1));
+			return Integer.parseInt(finder.group(1));
 		}
 		throw new ExperimentException("No solution from the tool");
 	}
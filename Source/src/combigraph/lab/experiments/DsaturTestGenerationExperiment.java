@@ -0,0 +1,77 @@
+/*
+    A lab for comparing combinatorial test suite generators
+    Copyright (C) 2017-2021 Sylvain Hallé, Edmond La Chance,
+    Vincent Porta-Scarta
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package combigraph.lab.experiments;
+
+import java.io.IOException;
+
+import ca.uqac.lif.labpal.ExperimentException;
+import combigraph.lab.GraphLab;
+import combigraph.lab.graphs.DSatur;
+import combigraph.lab.problems.CombinatorialTestingProblem;
+import combigraph.lab.problems.TWayProblem;
+
+/**
+ * Experiment that colours the graph of a problem with the {@link DSatur}
+ * heuristic, run inside the lab instead of by the external program used
+ * by {@link ColoringTestGenerationExperiment}. The graph is obtained from
+ * the problem without going through its DOT text, and is computed on
+ * demand for problems without constraints.
+ */
+public class DsaturTestGenerationExperiment extends GraphSolverExperiment
+{
+	/**
+	 * Name of this particular tool
+	 */
+	public static final transient String NAME = "DSatur";
+
+	/**
+	 * The colouring computed by the last run of the tool
+	 */
+	protected transient DSatur m_colouring = null;
+
+	public DsaturTestGenerationExperiment(CombinatorialTestingProblem problem)
+	{
+		super(problem, NAME);
+	}
+
+	@Override
+	protected String runTool() throws IOException, InterruptedException
+	{
+		if (GraphLab.s_dryRun)
+		{
+			return "";
+		}
+		long deadline = getDeadline();
+		m_colouring = new DSatur(getGraph());
+		int size = m_colouring.colour(null, deadline);
+		if (size < 0)
+		{
+			// The colouring did not end in time
+			return "";
+		}
+		// The output of the tool is the number of colours
+		return Integer.toString(size);
+	}
+
+	@Override
+	protected int[][] getTestSuite(String tool_output) throws ExperimentException
+	{
+		return ((TWayProblem) m_problem).getColouringRows(m_colouring.getColours(), m_colouring.getColourCount());
+	}
+}
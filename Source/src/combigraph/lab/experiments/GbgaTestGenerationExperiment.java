@@ -23,6 +23,7 @@ import java.util.Map;
 import java.util.Scanner;
 
 import ca.uqac.lif.labpal.ExperimentException;
+import combigraph.lab.CostModel;
 import combigraph.lab.GraphLab;
 import combigraph.lab.problems.CombinatorialTestingProblem;
 import combigraph.lab.problems.TWayProblem;
@@ -98,6 +99,12 @@ public class GbgaTestGenerationExperiment extends TestGenerationExperiment
 		// Do nothing
 	}
 	
+	@Override
+	public void addTo(CostModel model)
+	{
+		// The published timings are read by the cost model as reference data
+	}
+
 	@Override
 	public boolean prerequisitesFulfilled()
 	{
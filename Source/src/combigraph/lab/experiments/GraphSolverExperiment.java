@@ -0,0 +1,139 @@
+/*
+    A lab for comparing combinatorial test suite generators
+    Copyright (C) 2017-2021 Sylvain Hallé, Edmond La Chance,
+    Vincent Porta-Scarta
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package combigraph.lab.experiments;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import ca.uqac.lif.labpal.ExperimentException;
+import combigraph.lab.GraphLab;
+import combigraph.lab.graphs.CsrFormat;
+import combigraph.lab.graphs.Graph;
+import combigraph.lab.graphs.Hypergraph;
+import combigraph.lab.problems.CombinatorialTestingProblem;
+import combigraph.lab.problems.TWayProblem;
+
+/**
+ * Experiment running a tool that solves the graph or the hypergraph of a
+ * problem inside the lab, and whose output is the size of the test suite.
+ * By default, the graph is built in memory when the tool runs, and the
+ * duration of the experiment includes building it. If
+ * {@link GraphLab#s_binaryInputs} is set, the graph is instead written
+ * beforehand to an input file in the binary {@link CsrFormat}, kept in the
+ * input cache, and mapped in memory when the tool runs.
+ */
+public abstract class GraphSolverExperiment extends TestGenerationExperiment
+{
+	public GraphSolverExperiment(CombinatorialTestingProblem problem, String tool_name)
+	{
+		super(problem, tool_name);
+	}
+
+	/**
+	 * Gets the graph of the problem
+	 * @return The graph
+	 * @throws IOException If the graph cannot be built or read
+	 */
+	protected Graph getGraph() throws IOException
+	{
+		if (GraphLab.s_binaryInputs)
+		{
+			return CsrFormat.mapGraph(new File(getInputFilename()));
+		}
+		try
+		{
+			return ((TWayProblem) m_problem).buildGraph();
+		}
+		catch (ExperimentException e)
+		{
+			throw new IOException(e);
+		}
+	}
+
+	/**
+	 * Gets the hypergraph of the problem
+	 * @return The hypergraph
+	 * @throws IOException If the hypergraph cannot be built or read
+	 * @throws InterruptedException If the thread is interrupted while the
+	 * hypergraph is being built
+	 */
+	protected Hypergraph getHypergraph() throws IOException, InterruptedException
+	{
+		if (GraphLab.s_binaryInputs)
+		{
+			return CsrFormat.mapHypergraph(new File(getInputFilename()));
+		}
+		try
+		{
+			return ((TWayProblem) m_problem).buildHypergraph();
+		}
+		catch (ExperimentException e)
+		{
+			throw new IOException(e);
+		}
+	}
+
+	/**
+	 * Computes the time at which a run of the tool that starts now must
+	 * stop, so that building the graph counts against the maximum duration
+	 * of the experiment
+	 * @return The deadline, as given by {@link System#nanoTime()}, or
+	 * {@link Long#MAX_VALUE} if the experiment has no maximum duration
+	 */
+	protected long getDeadline()
+	{
+		long timeout = getMaxDuration();
+		return timeout < 0 ? Long.MAX_VALUE : System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeout);
+	}
+
+	@Override
+	protected int getSize(String tool_output) throws ExperimentException
+	{
+		return Integer.parseInt(tool_output);
+	}
+
+	@Override
+	public boolean prerequisitesFulfilled()
+	{
+		if (GraphLab.s_binaryInputs)
+		{
+			return super.prerequisitesFulfilled();
+		}
+		return true;
+	}
+
+	@Override
+	public void fulfillPrerequisites() throws ExperimentException
+	{
+		if (GraphLab.s_binaryInputs)
+		{
+			super.fulfillPrerequisites();
+		}
+	}
+
+	@Override
+	public void cleanPrerequisites()
+	{
+		if (GraphLab.s_binaryInputs)
+		{
+			super.cleanPrerequisites();
+		}
+	}
+}
@@ -0,0 +1,77 @@
+/*
+    A lab for comparing combinatorial test suite generators
+    Copyright (C) 2017-2021 Sylvain Hallé, Edmond La Chance,
+    Vincent Porta-Scarta
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package combigraph.lab.experiments;
+
+import java.io.IOException;
+
+import ca.uqac.lif.labpal.ExperimentException;
+import combigraph.lab.GraphLab;
+import combigraph.lab.graphs.GreedyHittingSet;
+import combigraph.lab.problems.CombinatorialTestingProblem;
+import combigraph.lab.problems.TWayProblem;
+
+/**
+ * Experiment that finds a hitting set of the hypergraph of a problem with
+ * the {@link GreedyHittingSet} heuristic, run inside the lab instead of by
+ * the external program used by {@link HypergraphTestGenerationExperiment}.
+ * The hypergraph is obtained from the problem without going through its
+ * EDN text, and is computed on demand for problems without constraints.
+ */
+public class GreedyHittingSetExperiment extends GraphSolverExperiment
+{
+	/**
+	 * Name of this particular tool
+	 */
+	public static final transient String NAME = "Greedy hitting set";
+
+	/**
+	 * The hitting set computed by the last run of the tool
+	 */
+	protected transient GreedyHittingSet m_hittingSet = null;
+
+	public GreedyHittingSetExperiment(CombinatorialTestingProblem problem)
+	{
+		super(problem, NAME);
+	}
+
+	@Override
+	protected String runTool() throws IOException, InterruptedException
+	{
+		if (GraphLab.s_dryRun)
+		{
+			return "";
+		}
+		long deadline = getDeadline();
+		m_hittingSet = new GreedyHittingSet(getHypergraph());
+		int size = m_hittingSet.solve(deadline);
+		if (size < 0)
+		{
+			// The search did not end in time
+			return "";
+		}
+		// The output of the tool is the number of vertices in the set
+		return Integer.toString(size);
+	}
+
+	@Override
+	protected int[][] getTestSuite(String tool_output) throws ExperimentException
+	{
+		return ((TWayProblem) m_problem).getHittingSetRows(m_hittingSet.getSolution());
+	}
+}
@@ -18,9 +18,16 @@
  */
 package combigraph.lab.experiments;
 
+import java.io.IOException;
+
 import combigraph.lab.GraphLab;
-import combigraph.lab.TimeoutCommandRunner;
+import combigraph.lab.IntegerCollector;
+import combigraph.lab.LineCounter;
+import combigraph.lab.MultiConsumer;
+import combigraph.lab.OutputConsumer;
+import combigraph.lab.TokenCounter;
 import combigraph.lab.problems.CombinatorialTestingProblem;
+import combigraph.lab.problems.TWayProblem;
 
 public class HypergraphTestGenerationExperiment extends TestGenerationExperiment
 {
@@ -35,27 +42,51 @@ public class HypergraphTestGenerationExperiment extends TestGenerationExperiment
 	}
 	
 	@Override
-	protected String runTool() 
+	protected String runTool() throws IOException, InterruptedException
 	{
 		if (GraphLab.s_dryRun)
 		{
 			return "";
 		}
-		TimeoutCommandRunner runner = new TimeoutCommandRunner(new String[] {"java", "-jar", "hitting-set-0.9.0-standalone.jar", m_problem.getFilenameFor(NAME)});
-		runner.setTimeout(getMaxDuration());
-		runner.run();
-		return runner.getString();
+		return runJar("hitting-set-0.9.0-standalone.jar", null, getToolInput()).getString();
+	}
+	
+	@Override
+	protected boolean acceptsStdin()
+	{
+		// A tool run in a JVM shared with other runs has no stdin of its own
+		return !GraphLab.s_inProcess && !GraphLab.s_useWorkers;
 	}
 	
 	@Override
-	protected int getSize(String tool_output)
+	protected OutputConsumer newOutputConsumer()
 	{
-		if (tool_output.startsWith("#"))
+		return new MultiConsumer(new TokenCounter(' '), new LineCounter(), new IntegerCollector());
+	}
+	
+	@Override
+	protected int getSize(OutputConsumer consumer)
+	{
+		MultiConsumer mc = (MultiConsumer) consumer;
+		TokenCounter spaces = (TokenCounter) mc.get(0);
+		if (spaces.getFirstByte() == '#')
 		{
 			// Hitting set output
-			return tool_output.length() - tool_output.replaceAll(" ", "").length() + 1;
+			return (int) spaces.getCount() + 1;
+		}
+		return ((LineCounter) mc.get(1)).getLineCount();
+	}
+
+	@Override
+	protected int[][] getTestSuite(String tool_output)
+	{
+		MultiConsumer mc = (MultiConsumer) m_consumer;
+		if (((TokenCounter) mc.get(0)).getFirstByte() != '#')
+		{
+			// Not a hitting set: the suite cannot be read
+			return null;
 		}
-		String[] lines = tool_output.split("\r\n|\r|\n");
-		return  lines.length;
+		int[] vertices = ((IntegerCollector) mc.get(2)).getValues();
+		return ((TWayProblem) m_problem).getHittingSetRows(vertices);
 	}
 }
@@ -0,0 +1,123 @@
+/*
+    A lab for comparing combinatorial test suite generators
+    Copyright (C) 2017-2021 Sylvain Hallé, Edmond La Chance,
+    Vincent Porta-Scarta
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package combigraph.lab.experiments;
+
+import java.io.IOException;
+
+import ca.uqac.lif.labpal.ExperimentException;
+import combigraph.lab.GraphLab;
+import combigraph.lab.coverage.Ipog;
+import combigraph.lab.problems.CombinatorialTestingProblem;
+import combigraph.lab.problems.TWayProblem;
+
+/**
+ * Test generation experiment that runs the IPOG strategy of ACTS with the
+ * {@link Ipog} generator inside the lab, so that it does not require the
+ * ACTS jar. The generator does not handle constraints; for test suite
+ * completion, the existing tests are given to it as seeds. Besides the
+ * size of the suite, the experiment records the time spent in each phase
+ * of the strategy.
+ */
+public class IpogTestGenerationExperiment extends TestGenerationExperiment
+{
+	/**
+	 * Name of this particular tool
+	 */
+	public static final transient String NAME = "IPOG (JVM)";
+
+	/**
+	 * Name of parameter "horizontal growth time"
+	 */
+	public static final transient String HORIZONTAL_TIME = "Horizontal growth time";
+
+	/**
+	 * Name of parameter "vertical growth time"
+	 */
+	public static final transient String VERTICAL_TIME = "Vertical growth time";
+
+	/**
+	 * The generator used by the last run of the tool
+	 */
+	protected transient Ipog m_ipog = null;
+
+	public IpogTestGenerationExperiment(CombinatorialTestingProblem problem)
+	{
+		super(problem, NAME);
+		describe(HORIZONTAL_TIME, "The time spent extending existing test cases with new parameters, in milliseconds");
+		describe(VERTICAL_TIME, "The time spent adding test cases for the tuples left uncovered, in milliseconds");
+	}
+
+	@Override
+	protected String runTool() throws IOException, InterruptedException
+	{
+		if (GraphLab.s_dryRun)
+		{
+			return "";
+		}
+		TWayProblem twp = (TWayProblem) m_problem;
+		Ipog ipog = new Ipog(twp.getT(), twp.getDomainSizes());
+		ipog.setThreads(GraphLab.s_ipogThreads);
+		for (int[] test : twp.getExistingTests())
+		{
+			ipog.addSeed(test);
+		}
+		m_ipog = ipog;
+		int size = ipog.generate(getMaxDuration());
+		if (size < 0)
+		{
+			// The generation did not end in time
+			return "";
+		}
+		write(HORIZONTAL_TIME, ipog.getHorizontalTime());
+		write(VERTICAL_TIME, ipog.getVerticalTime());
+		// The output of the tool is the number of test cases
+		return Integer.toString(size);
+	}
+
+	@Override
+	protected int getSize(String tool_output) throws ExperimentException
+	{
+		return Integer.parseInt(tool_output);
+	}
+
+	@Override
+	protected int[][] getTestSuite(String tool_output) throws ExperimentException
+	{
+		return m_ipog.getRows();
+	}
+
+	@Override
+	public boolean prerequisitesFulfilled()
+	{
+		// The generator works on the parameters of the problem directly
+		return true;
+	}
+
+	@Override
+	public void fulfillPrerequisites() throws ExperimentException
+	{
+		// Nothing to do
+	}
+
+	@Override
+	public void cleanPrerequisites()
+	{
+		// Nothing to do
+	}
+}
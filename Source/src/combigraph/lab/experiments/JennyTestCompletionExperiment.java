@@ -26,8 +26,6 @@ import java.io.PrintStream;
 import java.util.ArrayList;
 import java.util.List;
 
-import ca.uqac.lif.labpal.ExperimentException;
-import ca.uqac.lif.mtnp.util.FileHelper;
 import combigraph.lab.problems.ExistentialProblem;
 import combigraph.lab.problems.TestSuiteCompletion;
 
@@ -44,38 +42,16 @@ public class JennyTestCompletionExperiment extends JennyTestGenerationExperiment
 	}
 	
 	@Override
-	protected List<String> getAdditionalParameters()
+	protected List<String> getAdditionalParameters() throws IOException
 	{
+		// The seed depends on the random tests of the problem: it is written
+		// for each run, in the scratch folder of the experiment
+		File f = new File(getScratchFolder(), "seed.txt");
+		PrintStream ps = new PrintStream(new BufferedOutputStream(new FileOutputStream(f)));
+		((ExistentialProblem) m_problem).writeJennySeedFile(ps);
+		ps.close();
 		List<String> out = new ArrayList<String>(1);
-		out.add("-o" + ((TestSuiteCompletion) m_problem).getJennySeedFilename());
+		out.add("-o" + f.getAbsolutePath());
 		return out;
 	}
-	
-	@Override
-	public boolean prerequisitesFulfilled()
-	{
-		if (!super.prerequisitesFulfilled())
-		{
-			return false;
-		}
-		String seed_filename = ((TestSuiteCompletion) m_problem).getJennySeedFilename();
-		return FileHelper.fileExists(seed_filename);
-	}
-	
-	@Override
-	public void fulfillPrerequisites() throws ExperimentException
-	{
-		String seed_filename = ((TestSuiteCompletion) m_problem).getJennySeedFilename();
-		File f = new File(seed_filename);
-		try
-		{
-			PrintStream ps = new PrintStream(new BufferedOutputStream(new FileOutputStream(f)));
-			((ExistentialProblem) m_problem).writeJennySeedFile(ps);
-			ps.close();
-		}
-		catch (IOException e)
-		{
-			throw new ExperimentException(e);
-		}
-	}
 }
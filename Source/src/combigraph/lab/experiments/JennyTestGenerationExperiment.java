@@ -19,12 +19,16 @@
 package combigraph.lab.experiments;
 
 import java.io.File;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 
 import ca.uqac.lif.mtnp.util.FileHelper;
 import combigraph.lab.GraphLab;
-import combigraph.lab.TimeoutCommandRunner;
+import combigraph.lab.JennyRowCollector;
+import combigraph.lab.LineCounter;
+import combigraph.lab.MultiConsumer;
+import combigraph.lab.OutputConsumer;
 import combigraph.lab.problems.CombinatorialTestingProblem;
 import combigraph.lab.problems.TWayProblem;
 
@@ -61,7 +65,7 @@ public class JennyTestGenerationExperiment extends TestGenerationExperiment
 	}
 
 	@Override
-	protected String runTool() 
+	protected String runTool() throws IOException, InterruptedException
 	{
 		List<String> syntax = new ArrayList<String>();
 		syntax.add(JENNY);
@@ -73,30 +77,40 @@ public class JennyTestGenerationExperiment extends TestGenerationExperiment
 			syntax.add(v);
 		}
 		syntax.addAll(getAdditionalParameters());
-		String syntax_filename = TestingProblemExperiment.s_folder + m_problem.getFilenameFor(JENNY) + ".sh";
+		String syntax_filename = new File(getScratchFolder(), JENNY + ".sh").getPath();
 		FileHelper.writeFromString(new File(syntax_filename), "#! /bin/bash\n" + syntax);
 		if (!GraphLab.s_dryRun)
 		{
-			TimeoutCommandRunner runner = new TimeoutCommandRunner(toStringArray(syntax));
-			runner.setTimeout(getMaxDuration());
-			runner.run();
-			return runner.getString();
+			return runCommand(toStringArray(syntax)).getString();
 		}
 		return "";
 	}
 
 	@Override
-	protected int getSize(String tool_output)
+	protected OutputConsumer newOutputConsumer()
 	{
-		String[] lines = tool_output.split("\r\n|\r|\n");
-		return  lines.length;
+		return new MultiConsumer(new LineCounter(), new JennyRowCollector(((TWayProblem) m_problem).getN()));
+	}
+
+	@Override
+	protected int getSize(OutputConsumer consumer)
+	{
+		return ((LineCounter) ((MultiConsumer) consumer).get(0)).getLineCount();
+	}
+
+	@Override
+	protected int[][] getTestSuite(String tool_output)
+	{
+		return ((JennyRowCollector) ((MultiConsumer) m_consumer).get(1)).getRows();
 	}
 
 	/**
 	 * Returns a list of additional command line parameters for Jenny
 	 * @return The list of parameters
+	 * @throws IOException If the files referred to by the parameters cannot
+	 * be written
 	 */
-	protected List<String> getAdditionalParameters()
+	protected List<String> getAdditionalParameters() throws IOException
 	{
 		// No additional parameter by default
 		return new ArrayList<String>(0);
@@ -0,0 +1,94 @@
+/*
+    A lab for comparing combinatorial test suite generators
+    Copyright (C) 2017-2021 Sylvain Hallé, Edmond La Chance,
+    Vincent Porta-Scarta
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package combigraph.lab.experiments;
+
+import java.io.IOException;
+
+import ca.uqac.lif.labpal.ExperimentException;
+import combigraph.lab.GraphLab;
+import combigraph.lab.graphs.Graph;
+import combigraph.lab.graphs.MultiStartColouring;
+import combigraph.lab.problems.CombinatorialTestingProblem;
+import combigraph.lab.problems.TWayProblem;
+
+/**
+ * Experiment that colours the graph of a problem with many randomized
+ * DSatur colourings run in parallel, keeping the best one found within the
+ * maximum duration of the experiment. Besides the size of the best
+ * colouring, the experiment records the time at which this size was first
+ * reached.
+ */
+public class MultiStartColouringExperiment extends GraphSolverExperiment
+{
+	/**
+	 * Name of this particular tool
+	 */
+	public static final transient String NAME = "Multi-start DSatur";
+
+	/**
+	 * Name of parameter "time to best"
+	 */
+	public static final transient String TIME_TO_BEST = "Time to best";
+
+	/**
+	 * The colourings run by the last run of the tool
+	 */
+	protected transient MultiStartColouring m_colouring = null;
+
+	public MultiStartColouringExperiment(CombinatorialTestingProblem problem)
+	{
+		super(problem, NAME);
+		describe(TIME_TO_BEST, "The time at which the final size of the test suite was first reached, in milliseconds");
+	}
+
+	@Override
+	protected String runTool() throws IOException, InterruptedException
+	{
+		if (GraphLab.s_dryRun)
+		{
+			return "";
+		}
+		long time_start = System.currentTimeMillis();
+		Graph g = getGraph();
+		long build_duration = System.currentTimeMillis() - time_start;
+		long timeout = getMaxDuration();
+		if (timeout >= 0)
+		{
+			timeout = Math.max(0, timeout - build_duration);
+		}
+		MultiStartColouring colouring = new MultiStartColouring(g, GraphLab.s_colouringStarts);
+		colouring.setThreads(GraphLab.s_colouringThreads);
+		m_colouring = colouring;
+		int size = colouring.colour(timeout);
+		if (size < 0)
+		{
+			// No colouring finished in time
+			return "";
+		}
+		write(TIME_TO_BEST, build_duration + colouring.getTimeToBest());
+		// The output of the tool is the number of colours
+		return Integer.toString(size);
+	}
+
+	@Override
+	protected int[][] getTestSuite(String tool_output) throws ExperimentException
+	{
+		return ((TWayProblem) m_problem).getColouringRows(m_colouring.getColours(), m_colouring.getColourCount());
+	}
+}
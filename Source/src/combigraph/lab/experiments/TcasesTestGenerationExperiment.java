@@ -18,11 +18,14 @@
  */
 package combigraph.lab.experiments;
 
-import java.util.regex.Matcher;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
 import java.util.regex.Pattern;
 
 import combigraph.lab.GraphLab;
-import combigraph.lab.TimeoutCommandRunner;
+import combigraph.lab.OutputConsumer;
+import combigraph.lab.PatternFinder;
 import combigraph.lab.problems.CombinatorialTestingProblem;
 import combigraph.lab.problems.TWayProblem;
 
@@ -44,30 +47,48 @@ public class TcasesTestGenerationExperiment extends TestGenerationExperiment
 	}
 	
 	@Override
-	protected String runTool() 
+	protected String runTool() throws IOException, InterruptedException
 	{
 		if (GraphLab.s_dryRun)
 		{
 			return "";
 		}
 		int t = ((TWayProblem) m_problem).getT();
-		// No need to prefix folder for t_filename; Tcases assumes same folder
-		// as input file
-		String t_filename = "Tcases-t-" + t + ".xml";
-		String[] command = {"java", "-jar", "tcases.jar", "-g", t_filename, m_problem.getFilenameFor(NAME)};
-		TimeoutCommandRunner runner = new TimeoutCommandRunner(command);
-		runner.setTimeout(getMaxDuration());
-		runner.run();
-		return runner.getString();
+		// The generator file is given by its absolute path, since Tcases
+		// otherwise looks for it in the folder of the input file
+		File t_file = new File(getScratchFolder(), "Tcases-t-" + t + ".xml");
+		PrintStream ps = new PrintStream(t_file);
+		writeGeneratorFile(ps, t);
+		ps.close();
+		return runJar("tcases.jar", null, "-g", t_file.getAbsolutePath(), getInputFilename()).getString();
+	}
+
+	/**
+	 * Writes the generator file telling Tcases the interaction strength of
+	 * the test suite
+	 * @param ps The print stream to write to
+	 * @param t The value of t
+	 */
+	public static void writeGeneratorFile(PrintStream ps, int t)
+	{
+		ps.println("<Generators>");
+		ps.println(" <TupleGenerator tuples=\"" + t + "\" />");
+		ps.println("</Generators>");
+	}
+	
+	@Override
+	protected OutputConsumer newOutputConsumer()
+	{
+		return new PatternFinder(s_pattern);
 	}
 	
 	@Override
-	protected int getSize(String tool_output)
+	protected int getSize(OutputConsumer consumer)
 	{
-		Matcher mat = s_pattern.matcher(tool_output);
-		if (mat.find())
+		PatternFinder finder = (PatternFinder) consumer;
+		if (finder.found())
 		{
-			return Integer.parseInt(mat.group(1).trim());
+			return Integer.parseInt(finder.group(1).trim());
 		}
 		return 0;
 	}
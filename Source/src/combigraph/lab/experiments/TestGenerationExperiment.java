@@ -18,13 +18,35 @@
  */
 package combigraph.lab.experiments;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.PrintStream;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 
 import ca.uqac.lif.labpal.ExperimentException;
-import ca.uqac.lif.testing.tway.FileHelper;
+import combigraph.lab.CostModel;
+import combigraph.lab.ExperimentScheduler;
+import combigraph.lab.GraphLab;
+import combigraph.lab.InputCache;
+import combigraph.lab.InputProducer;
+import combigraph.lab.JarToolRunner;
+import combigraph.lab.OutputConsumer;
+import combigraph.lab.ProcessLauncher;
+import combigraph.lab.ProcessResult;
+import combigraph.lab.ResourceUsage;
+import combigraph.lab.ToolWorkerClient;
+import combigraph.lab.coverage.CoverageVerifier;
 import combigraph.lab.problems.CombinatorialTestingProblem;
+import combigraph.lab.problems.TWayProblem;
 
 public abstract class TestGenerationExperiment extends TestingProblemExperiment
 {
@@ -43,17 +65,153 @@ public abstract class TestGenerationExperiment extends TestingProblemExperiment
 	 */
 	public static final transient String SIZE = "Size";
 
+	/**
+	 * Name of parameter "cold duration"
+	 */
+	public static final transient String COLD_DURATION = "Cold duration";
+
+	/**
+	 * Name of parameter "user CPU time"
+	 */
+	public static final transient String USER_TIME = "User time";
+
+	/**
+	 * Name of parameter "system CPU time"
+	 */
+	public static final transient String SYSTEM_TIME = "System time";
+
+	/**
+	 * Name of parameter "peak memory"
+	 */
+	public static final transient String PEAK_MEMORY = "Peak memory";
+
+	/**
+	 * Name of parameter "voluntary context switches"
+	 */
+	public static final transient String VOLUNTARY_SWITCHES = "Voluntary switches";
+
+	/**
+	 * Name of parameter "involuntary context switches"
+	 */
+	public static final transient String INVOLUNTARY_SWITCHES = "Involuntary switches";
+
+	/**
+	 * Name of parameter "verified"
+	 */
+	public static final transient String VERIFIED = "Verified";
+
+	/**
+	 * Name of parameter "missing tuples"
+	 */
+	public static final transient String MISSING_TUPLES = "Missing tuples";
+
+	/**
+	 * Name of parameter "predicted duration"
+	 */
+	public static final transient String PREDICTED_DURATION = "Predicted duration";
+
+	/**
+	 * The launcher used to run the external tools. Its pool is sized so
+	 * that one command can run on each core of the machine, and on each
+	 * core given to the {@link ExperimentScheduler}, so that a scheduled
+	 * run never waits for a free thread.
+	 */
+	protected static final transient ProcessLauncher s_launcher = new ProcessLauncher(Math.max(Runtime.getRuntime().availableProcessors(), GraphLab.s_parallelCores));
+
+	static
+	{
+		s_launcher.setResourceAccounting(GraphLab.s_resourceAccounting);
+	}
+
+	/**
+	 * A folder backed by memory, where scratch folders are created when it
+	 * exists
+	 */
+	protected static final transient String SHM_FOLDER = "/dev/shm";
+
+	/**
+	 * The name of the folder grouping the scratch folders of all the
+	 * experiments
+	 */
+	protected static final transient String SCRATCH_PREFIX = "graphlab-scratch";
+
+	/**
+	 * The store of the input files generated for the tools, which is kept
+	 * across runs of the lab
+	 */
+	protected static final transient InputCache s_inputCache = new InputCache(s_folder + "cache/", GraphLab.s_inputCacheSize);
+
+	/**
+	 * The consumer receiving the output of the tool while it runs, or null
+	 * if the output is kept in memory
+	 */
+	protected transient OutputConsumer m_consumer = null;
+
+	/**
+	 * The resources used by the last command run by the experiment, or null
+	 * if they have not been measured
+	 */
+	protected transient ResourceUsage m_usage = null;
+
+	/**
+	 * The duration of the run of the tool that is measured, if the tool
+	 * performs other work (such as warm-up runs) that must not be counted,
+	 * or -1 to measure the whole call to {@link #runTool()}. For a command,
+	 * this is the duration of its process, which excludes the time it
+	 * waited in the queue of the launcher.
+	 */
+	protected transient long m_toolDuration = -1;
+
+	/**
+	 * Whether a command or JAR run by the tool was killed at its timeout,
+	 * in which case whatever output it produced is not a result
+	 */
+	protected transient boolean m_timedOut = false;
+
+	/**
+	 * The scratch folder of the current run of the tool, or null if the
+	 * tool is not running
+	 */
+	protected transient File m_scratchFolder = null;
+
 	public TestGenerationExperiment(CombinatorialTestingProblem problem, String tool_name)
 	{
 		super(problem);
 		describe(TOOL_NAME, "The name of the tool used to generate the test suite");
 		describe(DURATION, "The duration of the test generation, in milliseconds");
 		describe(SIZE, "The number of test cases in the generated test suite");
+		describe(COLD_DURATION, "The duration of the test generation in a fresh class loader, in milliseconds, for tools run in-process");
+		describe(USER_TIME, "The CPU time spent by the tool in user mode, in milliseconds");
+		describe(SYSTEM_TIME, "The CPU time spent by the tool in kernel mode, in milliseconds");
+		describe(PEAK_MEMORY, "The peak resident memory of the tool, in kilobytes");
+		describe(VOLUNTARY_SWITCHES, "The number of voluntary context switches of the tool");
+		describe(INVOLUNTARY_SWITCHES, "The number of involuntary context switches of the tool");
+		describe(VERIFIED, "Whether the test suite covers all the tuples and satisfies the constraints of the problem");
+		describe(MISSING_TUPLES, "The number of tuples and existential constraints the test suite does not cover");
+		describe(PREDICTED_DURATION, "The duration predicted for an experiment that was not run because it would time out, in milliseconds");
 		setInput(TOOL_NAME, tool_name);
 	}
 
 	@Override
 	public void execute() throws ExperimentException, InterruptedException
+	{
+		if (GraphLab.s_scheduler != null)
+		{
+			// The scheduler runs the experiment, possibly ahead of this call
+			GraphLab.s_scheduler.execute(this);
+			return;
+		}
+		executeDirectly();
+	}
+
+	/**
+	 * Runs the tool of the experiment in the calling thread and writes its
+	 * results, regardless of the {@link ExperimentScheduler}
+	 * @throws ExperimentException If the tool fails or produces no output
+	 * @throws InterruptedException If the thread is interrupted while the
+	 * tool is running
+	 */
+	public void executeDirectly() throws ExperimentException, InterruptedException
 	{
 		// The condition below is a workaround for this LabPal bug:
 		// https://github.com/liflab/labpal/issues/86
@@ -63,68 +221,442 @@ public abstract class TestGenerationExperiment extends TestingProblemExperiment
 			// No point in running anything
 			throw new ExperimentException(getErrorMessage());
 		}
-		long time_start = System.currentTimeMillis();
+		checkPredictedTimeout();
+		m_consumer = newOutputConsumer();
+		m_usage = null;
+		m_toolDuration = -1;
+		m_timedOut = false;
+		String input = streamsInput() ? null : getInputFilename();
+		if (input != null)
+		{
+			s_inputCache.pin(input);
+		}
 		try
 		{
+			if (!prerequisitesFulfilled())
+			{
+				// The input was evicted after the lab checked for it
+				fulfillPrerequisites();
+			}
+			m_scratchFolder = createScratchFolder();
+			long time_start = System.currentTimeMillis();
 			String tool_output = runTool();
 			long time_end = System.currentTimeMillis();
+			if (m_toolDuration >= 0)
+			{
+				time_end = time_start + m_toolDuration;
+			}
+			writeResourceUsage();
+			if (m_timedOut)
+			{
+				// Partial output of a killed tool is not a test suite
+				addTimeout(time_end - time_start);
+				throw new ExperimentException("The tool timed out");
+			}
+			if (m_consumer != null)
+			{
+				// The output has been sized while being produced
+				if (m_consumer.getByteCount() == 0)
+				{
+					addTimeout(time_end - time_start);
+					throw new ExperimentException("The tool did not produce any output");
+				}
+				write(DURATION, time_end - time_start);
+				addDuration(time_end - time_start);
+				write(SIZE, getSize(m_consumer));
+				verify(tool_output);
+				return;
+			}
 			if (tool_output == null || tool_output.isEmpty())
 			{
+				addTimeout(time_end - time_start);
 				throw new ExperimentException("The tool did not produce any output");
 			}
 			write(DURATION, time_end - time_start);
+			addDuration(time_end - time_start);
 			write(SIZE, getSize(tool_output));
+			verify(tool_output);
 		}
 		catch (IOException e)
 		{
 			throw new ExperimentException(e);
 		}
+		finally
+		{
+			m_consumer = null;
+			if (input != null)
+			{
+				s_inputCache.unpin(input);
+			}
+			if (m_scratchFolder != null)
+			{
+				deleteRecursively(m_scratchFolder);
+				m_scratchFolder = null;
+			}
+		}
+	}
+
+	/**
+	 * Predicts the duration of the run of the tool from the
+	 * {@link GraphLab#s_costModel cost model} of the lab
+	 * @param same_tool Set to <tt>true</tt> to predict only from the
+	 * durations of the same tool
+	 * @return The duration, in milliseconds, or -1 if it cannot be
+	 * predicted
+	 */
+	public double predictDuration(boolean same_tool)
+	{
+		if (GraphLab.s_costModel == null || !(m_problem instanceof TWayProblem))
+		{
+			return -1;
+		}
+		TWayProblem problem = (TWayProblem) m_problem;
+		return GraphLab.s_costModel.predict(readString(TOOL_NAME), problem.getName(), problem.getT(), problem.getV(), problem.getN(), same_tool);
+	}
+
+	/**
+	 * Adds the duration of the last run of the tool to a cost model, if the
+	 * run has completed
+	 * @param model The model
+	 */
+	public void addTo(CostModel model)
+	{
+		Object duration = read(DURATION);
+		if (!(duration instanceof Number) || !(m_problem instanceof TWayProblem))
+		{
+			return;
+		}
+		TWayProblem problem = (TWayProblem) m_problem;
+		model.add(readString(TOOL_NAME), problem.getName(), problem.getT(), problem.getV(), problem.getN(), ((Number) duration).doubleValue());
+	}
+
+	/**
+	 * Fails if {@link GraphLab#s_skipPredictedTimeouts} is set and the tool
+	 * is predicted, from its own durations on other instances, to run for
+	 * more than {@link GraphLab#s_timeoutMargin} times the maximum duration
+	 * of the experiment. This is checked before the input of the tool is
+	 * generated, and again before the tool runs.
+	 * @throws ExperimentException If the experiment is not run
+	 */
+	protected void checkPredictedTimeout() throws ExperimentException
+	{
+		if (!GraphLab.s_skipPredictedTimeouts || getMaxDuration() <= 0)
+		{
+			return;
+		}
+		double predicted = predictDuration(true);
+		if (predicted > getMaxDuration() * GraphLab.s_timeoutMargin)
+		{
+			write(PREDICTED_DURATION, (long) predicted);
+			throw new ExperimentException("Predicted timeout: the tool is expected to run for " + (long) predicted + " ms");
+		}
+	}
+
+	/**
+	 * Adds the duration of a run of the tool to the cost model of the lab
+	 * @param duration The duration, in milliseconds
+	 */
+	protected void addDuration(long duration)
+	{
+		if (GraphLab.s_costModel == null || !(m_problem instanceof TWayProblem))
+		{
+			return;
+		}
+		TWayProblem problem = (TWayProblem) m_problem;
+		GraphLab.s_costModel.add(readString(TOOL_NAME), problem.getName(), problem.getT(), problem.getV(), problem.getN(), duration);
+	}
+
+	/**
+	 * Adds the duration of a run of the tool that produced no output to the
+	 * cost model of the lab, if the run lasted until the maximum duration of
+	 * the experiment. The duration is then a lower bound of the time the
+	 * tool needs, which lets larger instances be predicted to time out.
+	 * @param duration The duration, in milliseconds
+	 */
+	protected void addTimeout(long duration)
+	{
+		if (getMaxDuration() > 0 && duration >= getMaxDuration())
+		{
+			addDuration(duration);
+		}
+	}
+
+	/**
+	 * Gets the scratch folder of the current run of the tool. The folder is
+	 * created before the tool runs and deleted with its contents once the
+	 * experiment has written its results, so that concurrent runs never
+	 * share the files they write. External commands run with this folder as
+	 * their working directory.
+	 * @return The folder, or null if the tool is not running
+	 */
+	protected File getScratchFolder()
+	{
+		return m_scratchFolder;
+	}
+
+	/**
+	 * Creates a new scratch folder for a run of the tool, in
+	 * {@link GraphLab#s_scratchFolder} if it is set, or otherwise in
+	 * <tt>/dev/shm</tt> when it exists, so that tool files stay in memory,
+	 * and in the temporary folder of the system elsewhere
+	 * @return The folder
+	 * @throws IOException If the folder cannot be created
+	 */
+	protected File createScratchFolder() throws IOException
+	{
+		String root = GraphLab.s_scratchFolder;
+		if (root == null)
+		{
+			File shm = new File(SHM_FOLDER);
+			root = shm.isDirectory() && shm.canWrite() ? SHM_FOLDER : System.getProperty("java.io.tmpdir");
+		}
+		File parent = new File(root, SCRATCH_PREFIX);
+		parent.mkdirs();
+		return Files.createTempDirectory(parent.toPath(), "experiment-" + getId() + "-").toFile();
+	}
+
+	/**
+	 * Deletes a file, or a folder and all its contents
+	 * @param f The file or folder
+	 */
+	protected static void deleteRecursively(File f)
+	{
+		File[] children = f.listFiles();
+		if (children != null)
+		{
+			for (File child : children)
+			{
+				deleteRecursively(child);
+			}
+		}
+		f.delete();
 	}
 
 	@Override
 	public boolean prerequisitesFulfilled()
 	{
-		return FileHelper.fileExists(m_problem.getFilenameFor(readString(TOOL_NAME)));
+		if (streamsInput())
+		{
+			// The input is generated while the tool runs
+			return true;
+		}
+		return s_inputCache.contains(getInputFilename());
 	}
 
 	@Override
 	public void fulfillPrerequisites() throws ExperimentException
 	{
+		// No point in generating the input of a tool that will not run
+		checkPredictedTimeout();
+		if (streamsInput())
+		{
+			return;
+		}
 		String tool_name = readString(TOOL_NAME);
-		String input_filename = m_problem.getFilenameFor(tool_name);
+		File temp = null;
 		try
 		{
-			PrintStream ps = new PrintStream(new File(input_filename));
-			m_problem.generateFor(tool_name, ps);
-			ps.flush();
-			ps.close();
+			temp = s_inputCache.createTempFile();
+			PrintStream ps = new PrintStream(new BufferedOutputStream(new FileOutputStream(temp)));
+			try
+			{
+				m_problem.generateFor(tool_name, ps);
+			}
+			finally
+			{
+				ps.close();
+			}
+			s_inputCache.commit(temp, getInputFilename());
 		} 
 		catch (IOException e) 
 		{
 			throw new ExperimentException(e);
 		}
+		finally
+		{
+			if (temp != null)
+			{
+				// Only left behind if generation failed
+				temp.delete();
+			}
+		}
 	}
 	
 	@Override
 	public void cleanPrerequisites()
 	{
 		String tool_name = readString(TOOL_NAME);
-		File f = new File(m_problem.getFilenameFor(tool_name));
-		f.delete();
+		if (!s_inputCache.isEnabled())
+		{
+			File f = new File(getInputFilename());
+			f.delete();
+		}
 		m_problem.cleanFor(tool_name);
 	}
 
+	/**
+	 * Determines if the tool can read its input from its stdin, through the
+	 * path <tt>/dev/stdin</tt>. This requires the tool to read its input
+	 * file once, from start to end, and not to depend on its extension.
+	 * @return <tt>true</tt> if the tool accepts its input on stdin,
+	 * <tt>false</tt> otherwise
+	 */
+	protected boolean acceptsStdin()
+	{
+		return false;
+	}
+
+	/**
+	 * Determines if the input of the tool is written to the tool's stdin as
+	 * it is generated, instead of being generated in a file beforehand. This
+	 * is the case when {@link GraphLab#s_streamInputs} is set and the tool
+	 * {@link #acceptsStdin() accepts} it. The duration of the experiment then
+	 * includes the generation of the input.
+	 * @return <tt>true</tt> if the input is streamed, <tt>false</tt>
+	 * otherwise
+	 */
+	protected boolean streamsInput()
+	{
+		return GraphLab.s_streamInputs && acceptsStdin();
+	}
+
+	/**
+	 * Gets the path from which the tool reads its input
+	 * @return <tt>/dev/stdin</tt> if the input is
+	 * {@link #streamsInput() streamed}, or the name of the input file
+	 * otherwise
+	 */
+	protected String getToolInput()
+	{
+		if (streamsInput())
+		{
+			return "/dev/stdin";
+		}
+		return getInputFilename();
+	}
+
+	/**
+	 * Gets the name of the input file of the tool for this experiment's
+	 * problem. The file is stored in the input cache, under a key made of
+	 * the problem instance, the tool (which determines the format of the
+	 * file) and the version of the generators.
+	 * @return The name of the file
+	 */
+	protected String getInputFilename()
+	{
+		String tool_name = readString(TOOL_NAME);
+		String key = m_problem.getInstanceKey() + "|" + tool_name + "|" + CombinatorialTestingProblem.GENERATOR_VERSION;
+		String filename = m_problem.getFilenameFor(tool_name);
+		String extension = "";
+		int dot = filename.lastIndexOf('.');
+		if (dot > filename.lastIndexOf('/'))
+		{
+			extension = filename.substring(dot);
+		}
+		return s_inputCache.getFilename(key, extension);
+	}
+
 	/**
 	 * Runs the tool on the associated problem
 	 * @return The output of the tool at the standard output
 	 * @throws IOException If something "goes bad" when running the tool
+	 * @throws InterruptedException If the experiment is interrupted while
+	 * the tool is running
 	 */
-	protected String runTool() throws IOException
+	protected String runTool() throws IOException, InterruptedException
 	{
 		// By default, do nothing
 		return null;
 	}
 
+	/**
+	 * Writes the resources used by the tool, if they have been measured,
+	 * into the experiment's parameters
+	 */
+	protected void writeResourceUsage()
+	{
+		if (m_usage == null)
+		{
+			return;
+		}
+		write(USER_TIME, m_usage.getUserTime());
+		write(SYSTEM_TIME, m_usage.getSystemTime());
+		write(PEAK_MEMORY, m_usage.getPeakMemory());
+		write(VOLUNTARY_SWITCHES, m_usage.getVoluntarySwitches());
+		write(INVOLUNTARY_SWITCHES, m_usage.getInvoluntarySwitches());
+	}
+
+	/**
+	 * Runs an external command through the lab's {@link ProcessLauncher},
+	 * with the maximum duration of the experiment as its timeout, and waits
+	 * for its completion. The command is pinned to the cores that the
+	 * {@link ExperimentScheduler} reserved for the experiment, if any. If
+	 * the experiment has an {@link OutputConsumer}, the command's stdout is
+	 * streamed to it instead of being returned. The duration of the
+	 * command's process is counted as the duration of the tool.
+	 * @param command The command to run
+	 * @return The result of the command
+	 * @throws IOException If the command cannot be run
+	 * @throws InterruptedException If the experiment is interrupted while
+	 * the command is running; the command is then killed
+	 */
+	protected ProcessResult runCommand(String ... command) throws IOException, InterruptedException
+	{
+		command = ExperimentScheduler.pin(command);
+		Future<ProcessResult> future;
+		if (streamsInput())
+		{
+			final String tool_name = readString(TOOL_NAME);
+			future = s_launcher.submit(command, new InputProducer()
+			{
+				@Override
+				public void produce(OutputStream os) throws IOException
+				{
+					PrintStream ps = new PrintStream(new BufferedOutputStream(os));
+					try
+					{
+						m_problem.generateFor(tool_name, ps);
+					}
+					catch (ExperimentException e)
+					{
+						throw new IOException(e);
+					}
+					ps.flush();
+					if (ps.checkError())
+					{
+						throw new IOException("The input could not be written to the tool");
+					}
+				}
+			}, getMaxDuration(), m_consumer, m_scratchFolder);
+		}
+		else
+		{
+			future = s_launcher.submit(command, (String) null, getMaxDuration(), m_consumer, m_scratchFolder);
+		}
+		try
+		{
+			ProcessResult result = future.get();
+			m_toolDuration = Math.max(m_toolDuration, 0) + result.getDuration();
+			m_usage = result.getResourceUsage();
+			m_timedOut |= result.hasTimedOut();
+			return result;
+		}
+		catch (InterruptedException e)
+		{
+			future.cancel(true);
+			throw e;
+		}
+		catch (ExecutionException e)
+		{
+			Throwable cause = e.getCause();
+			if (cause instanceof IOException)
+			{
+				throw (IOException) cause;
+			}
+			throw new IOException(cause);
+		}
+	}
+
 	/**
 	 * Gets the number of test cases from the tool's output
 	 * @param tool_output The output of the tool at the standard output
@@ -135,4 +667,142 @@ public abstract class TestGenerationExperiment extends TestingProblemExperiment
 	{
 		return 0;
 	}
+
+	/**
+	 * Checks that the test suite produced by the tool is a solution to the
+	 * problem, and writes the outcome as the {@link #VERIFIED} and
+	 * {@link #MISSING_TUPLES} parameters of the experiment. Nothing is
+	 * written if {@link GraphLab#s_verifyOutputs} is not set, or if the
+	 * test suite cannot be read from the tool's output.
+	 * @param tool_output The output of the tool at the standard output, or
+	 * null if it was sent to the experiment's {@link OutputConsumer}
+	 * @throws ExperimentException If the problem cannot be read
+	 */
+	protected void verify(String tool_output) throws ExperimentException
+	{
+		if (!GraphLab.s_verifyOutputs || !(m_problem instanceof TWayProblem))
+		{
+			return;
+		}
+		int[][] suite = getTestSuite(tool_output);
+		if (suite == null)
+		{
+			return;
+		}
+		CoverageVerifier verifier = ((TWayProblem) m_problem).getCoverageVerifier();
+		verifier.setThreads(GraphLab.s_verifyThreads);
+		write(VERIFIED, verifier.verify(suite));
+		write(MISSING_TUPLES, verifier.getMissingCount());
+	}
+
+	/**
+	 * Gets the test suite produced by the tool. This is called once the
+	 * tool has ended, while the experiment's {@link OutputConsumer} is
+	 * still available.
+	 * @param tool_output The output of the tool at the standard output, or
+	 * null if it was sent to the experiment's {@link OutputConsumer}
+	 * @return The value of each parameter in each test case, or null if the
+	 * test suite cannot be read from the tool's output
+	 * @throws ExperimentException If the test suite cannot be decoded
+	 */
+	protected int[][] getTestSuite(String tool_output) throws ExperimentException
+	{
+		return null;
+	}
+
+	/**
+	 * Runs a Java-based tool packaged as a runnable JAR file. The tool is
+	 * launched in a new JVM, unless {@link GraphLab#s_useWorkers} is set,
+	 * in which case it is sent to the tool's persistent
+	 * {@link ToolWorkerClient worker} and its duration is the one measured
+	 * by the worker, or {@link GraphLab#s_inProcess} is set, in which case
+	 * it is run in the lab's JVM by a {@link JarToolRunner}:
+	 * <ol>
+	 * <li>a first run is made in a fresh class loader, and its duration is
+	 * written as the {@link #COLD_DURATION} of the experiment;</li>
+	 * <li>{@link GraphLab#s_warmupRuns} runs are then made in the tool's
+	 * cached class loader;</li>
+	 * <li>a last run is made in the cached class loader; this is the run
+	 * whose duration and output are those of the experiment.</li>
+	 * </ol>
+	 * @param jar_filename The name of the JAR file
+	 * @param properties System properties to pass to the tool, or null
+	 * @param args The command line arguments of the tool
+	 * @return The result of the tool's last run
+	 * @throws IOException If the tool cannot be run
+	 * @throws InterruptedException If the experiment is interrupted while
+	 * the tool is running
+	 */
+	protected ProcessResult runJar(String jar_filename, Map<String,String> properties, String ... args) throws IOException, InterruptedException
+	{
+		if (GraphLab.s_useWorkers)
+		{
+			ToolWorkerClient worker = ToolWorkerClient.get(jar_filename);
+			ProcessResult result = worker.run(properties, args, m_consumer, getMaxDuration());
+			m_toolDuration = worker.getLastDuration();
+			m_timedOut |= result.hasTimedOut();
+			return result;
+		}
+		if (!GraphLab.s_inProcess)
+		{
+			List<String> command = new ArrayList<String>();
+			command.add("java");
+			if (properties != null)
+			{
+				for (Map.Entry<String,String> e : properties.entrySet())
+				{
+					command.add("-D" + e.getKey() + "=" + e.getValue());
+				}
+			}
+			command.add("-jar");
+			// The command runs in the scratch folder of the experiment
+			command.add(new File(jar_filename).getAbsolutePath());
+			command.addAll(Arrays.asList(args));
+			return runCommand(command.toArray(new String[command.size()]));
+		}
+		long timeout = getMaxDuration();
+		long start = System.currentTimeMillis();
+		ProcessResult result = JarToolRunner.run(jar_filename, properties, args, newOutputConsumer(), timeout, true);
+		long cold_duration = System.currentTimeMillis() - start;
+		write(COLD_DURATION, cold_duration);
+		if (result.hasTimedOut())
+		{
+			m_toolDuration = cold_duration;
+			m_timedOut = true;
+			return result;
+		}
+		for (int i = 0; i < GraphLab.s_warmupRuns; i++)
+		{
+			JarToolRunner.run(jar_filename, properties, args, newOutputConsumer(), timeout, false);
+		}
+		start = System.currentTimeMillis();
+		result = JarToolRunner.run(jar_filename, properties, args, m_consumer, timeout, false);
+		m_toolDuration = System.currentTimeMillis() - start;
+		m_timedOut |= result.hasTimedOut();
+		return result;
+	}
+
+	/**
+	 * Creates a consumer that sizes the tool's output as it is produced.
+	 * Tools that provide such a consumer never have their output held in
+	 * memory; their size is obtained from {@link #getSize(OutputConsumer)}
+	 * instead of {@link #getSize(String)}.
+	 * @return The consumer, or null to keep the output in memory
+	 */
+	protected OutputConsumer newOutputConsumer()
+	{
+		return null;
+	}
+
+	/**
+	 * Gets the number of test cases from the consumer that received the
+	 * tool's output
+	 * @param consumer The consumer returned by {@link #newOutputConsumer()}
+	 * @throws ExperimentException If no size can be extracted from the tool's
+	 * output (typically when it fails to find a solution)
+	 */
+	protected int getSize(OutputConsumer consumer) throws ExperimentException
+	{
+		return 0;
+	}
 }
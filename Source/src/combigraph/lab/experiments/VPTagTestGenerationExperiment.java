@@ -18,15 +18,42 @@
  */
 package combigraph.lab.experiments;
 
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Scanner;
+
+import ca.uqac.lif.labpal.ExperimentException;
 import combigraph.lab.GraphLab;
+import combigraph.lab.coverage.Ipog;
 import combigraph.lab.problems.CombinatorialTestingProblem;
+import combigraph.lab.problems.TWayProblem;
 
+/**
+ * Test generation experiment on the model of VPTag. The factors and values
+ * of the problem are read from VPTag's FAM configuration file, but the
+ * test suite is generated inside the lab with the {@link Ipog} generator,
+ * as the name of the tool says. Reading the file is part of the duration
+ * of the experiment, as for the tools run as external programs.
+ */
 public class VPTagTestGenerationExperiment extends TestGenerationExperiment
 {
 	/**
 	 * Name of this particular tool
 	 */
-	public static final transient String NAME = "VPTag";
+	public static final transient String NAME = "IPOG (VPTag model)";
+
+	/**
+	 * Prefix of the name of the FAM file, as the name of the tool contains
+	 * spaces and parentheses
+	 */
+	public static final transient String FILE_PREFIX = "VPTag";
+
+	/**
+	 * The generator used by the last run of the tool
+	 */
+	protected transient Ipog m_ipog = null;
 	
 	public VPTagTestGenerationExperiment(CombinatorialTestingProblem problem)
 	{
@@ -34,20 +61,77 @@ public class VPTagTestGenerationExperiment extends TestGenerationExperiment
 	}
 	
 	@Override
-	protected String runTool() 
+	protected String runTool() throws IOException
 	{
 		if (GraphLab.s_dryRun)
 		{
 			return "";
 		}
-		return null;
+		Scanner scanner = new Scanner(new File(getInputFilename()));
+		int[] domain_sizes = readDomainSizes(scanner);
+		scanner.close();
+		m_ipog = new Ipog(((TWayProblem) m_problem).getT(), domain_sizes);
+		m_ipog.setThreads(GraphLab.s_ipogThreads);
+		int size = m_ipog.generate(getMaxDuration());
+		if (size < 0)
+		{
+			// The generation did not end in time
+			return "";
+		}
+		// The output of the tool is the number of test cases
+		return Integer.toString(size);
 	}
 	
 	@Override
 	protected int getSize(String tool_output)
 	{
-		// TODO Auto-generated method stub
-		return 0;
+		return Integer.parseInt(tool_output);
 	}
 
+	@Override
+	protected int[][] getTestSuite(String tool_output) throws ExperimentException
+	{
+		return m_ipog.getRows();
+	}
+
+	/**
+	 * Reads the size of the domain of each factor from a FAM configuration
+	 * file. Each factor is opened by a <tt>&lt;FACTOR&gt;</tt> tag, and each
+	 * of its values by a <tt>&lt;VALUE&gt;</tt> tag.
+	 * @param scanner The scanner reading the file
+	 * @return The number of values of each factor, in the order of the file
+	 * @throws IOException If the file has a value outside of a factor
+	 */
+	protected static int[] readDomainSizes(Scanner scanner) throws IOException
+	{
+		List<Integer> sizes = new ArrayList<Integer>();
+		int current = -1;
+		while (scanner.hasNextLine())
+		{
+			String line = scanner.nextLine().trim();
+			if (line.startsWith("<FACTOR>"))
+			{
+				current = 0;
+			}
+			else if (line.startsWith("<VALUE>"))
+			{
+				if (current < 0)
+				{
+					throw new IOException("Value outside of a factor in FAM file");
+				}
+				current++;
+			}
+			else if (line.startsWith("</FACTOR>") && current >= 0)
+			{
+				sizes.add(current);
+				current = -1;
+			}
+		}
+		int[] out = new int[sizes.size()];
+		for (int i = 0; i < out.length; i++)
+		{
+			out[i] = sizes.get(i);
+		}
+		return out;
+	}
 }
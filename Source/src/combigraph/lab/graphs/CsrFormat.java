@@ -0,0 +1,467 @@
+/*
+    A lab for comparing combinatorial test suite generators
+    Copyright (C) 2017-2021 Sylvain Hallé, Edmond La Chance,
+    Vincent Porta-Scarta
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package combigraph.lab.graphs;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+
+/**
+ * Reads and writes graphs and hypergraphs in a binary compressed sparse
+ * row (CSR) format, which is much smaller than their DOT or EDN text and
+ * needs no parsing. All numbers are big-endian and of fixed width, so that
+ * a file can be mapped in memory and read at any position:
+ * <ul>
+ * <li>a header made of the magic number <tt>CSR1</tt>, the kind of the
+ * file ({@link #GRAPH} or {@link #HYPERGRAPH}), the number of vertices,
+ * the number of rows of the first section, and the number of entries of
+ * each section (a long);</li>
+ * <li>for a graph, one section, whose rows are the neighbours of each
+ * vertex;</li>
+ * <li>for a hypergraph, two sections, whose rows are the vertices of each
+ * edge and then the edges of each vertex.</li>
+ * </ul>
+ * A section is the offset of the first entry of each row, followed by the
+ * total number of entries (all as longs), and then the entries (as ints).
+ */
+public class CsrFormat
+{
+	/**
+	 * The extension of the files in this format
+	 */
+	public static final transient String EXTENSION = ".csr";
+
+	/**
+	 * The kind of a file storing a graph
+	 */
+	public static final transient int GRAPH = 0;
+
+	/**
+	 * The kind of a file storing a hypergraph
+	 */
+	public static final transient int HYPERGRAPH = 1;
+
+	/**
+	 * The magic number at the start of each file
+	 */
+	protected static final transient int MAGIC = 0x43535231;
+
+	/**
+	 * The size of the header, in bytes
+	 */
+	protected static final transient int HEADER_SIZE = 24;
+
+	/**
+	 * Writes a graph
+	 * @param g The graph
+	 * @param os The stream to write the graph to
+	 * @throws IOException If the graph cannot be written
+	 */
+	public static void writeGraph(Graph g, OutputStream os) throws IOException
+	{
+		int n = g.getVertexCount();
+		long entries = 0;
+		for (int v = 0; v < n; v++)
+		{
+			entries += g.getDegree(v);
+		}
+		Output out = new Output(os);
+		writeHeader(out, GRAPH, n, n, entries);
+		long offset = 0;
+		for (int v = 0; v < n; v++)
+		{
+			out.putLong(offset);
+			offset += g.getDegree(v);
+		}
+		out.putLong(offset);
+		int[] neighbours = new int[g.getMaxDegree()];
+		for (int v = 0; v < n; v++)
+		{
+			out.putInts(neighbours, g.getNeighbours(v, neighbours));
+		}
+		out.flush();
+	}
+
+	/**
+	 * Writes a hypergraph
+	 * @param h The hypergraph
+	 * @param os The stream to write the hypergraph to
+	 * @throws IOException If the hypergraph cannot be written
+	 */
+	public static void writeHypergraph(Hypergraph h, OutputStream os) throws IOException
+	{
+		int n = h.getVertexCount();
+		int m = h.getEdgeCount();
+		long entries = 0;
+		for (int e = 0; e < m; e++)
+		{
+			entries += h.getEdgeSize(e);
+		}
+		Output out = new Output(os);
+		writeHeader(out, HYPERGRAPH, n, m, entries);
+		long offset = 0;
+		for (int e = 0; e < m; e++)
+		{
+			out.putLong(offset);
+			offset += h.getEdgeSize(e);
+		}
+		out.putLong(offset);
+		int[] vertices = new int[h.getMaxEdgeSize()];
+		for (int e = 0; e < m; e++)
+		{
+			out.putInts(vertices, h.getEdgeVertices(e, vertices));
+		}
+		offset = 0;
+		for (int v = 0; v < n; v++)
+		{
+			out.putLong(offset);
+			offset += h.getVertexDegree(v);
+		}
+		out.putLong(offset);
+		int[] edges = new int[h.getMaxVertexDegree()];
+		for (int v = 0; v < n; v++)
+		{
+			out.putInts(edges, h.getVertexEdges(v, edges));
+		}
+		out.flush();
+	}
+
+	/**
+	 * Maps a graph from a file
+	 * @param f The file
+	 * @return The graph
+	 * @throws IOException If the file cannot be read, or does not store a
+	 * graph
+	 */
+	public static MappedCsrGraph mapGraph(File f) throws IOException
+	{
+		RandomAccessFile raf = new RandomAccessFile(f, "r");
+		try
+		{
+			FileChannel channel = raf.getChannel();
+			ByteBuffer header = readHeader(channel, GRAPH);
+			int rows = header.getInt(12);
+			long entries = header.getLong(16);
+			LongBuffer offsets = mapOffsets(channel, HEADER_SIZE, rows);
+			MappedIntArray neighbours = new MappedIntArray(channel, HEADER_SIZE + (rows + 1L) * 8, entries);
+			// Mappings remain valid once the file is closed
+			return new MappedCsrGraph(offsets, neighbours);
+		}
+		finally
+		{
+			raf.close();
+		}
+	}
+
+	/**
+	 * Maps a hypergraph from a file
+	 * @param f The file
+	 * @return The hypergraph
+	 * @throws IOException If the file cannot be read, or does not store a
+	 * hypergraph
+	 */
+	public static MappedCsrHypergraph mapHypergraph(File f) throws IOException
+	{
+		RandomAccessFile raf = new RandomAccessFile(f, "r");
+		try
+		{
+			FileChannel channel = raf.getChannel();
+			ByteBuffer header = readHeader(channel, HYPERGRAPH);
+			int n = header.getInt(8);
+			int m = header.getInt(12);
+			long entries = header.getLong(16);
+			long position = HEADER_SIZE;
+			LongBuffer edge_offsets = mapOffsets(channel, position, m);
+			position += (m + 1L) * 8;
+			MappedIntArray vertices = new MappedIntArray(channel, position, entries);
+			position += entries * 4;
+			LongBuffer vertex_offsets = mapOffsets(channel, position, n);
+			position += (n + 1L) * 8;
+			MappedIntArray edges = new MappedIntArray(channel, position, entries);
+			return new MappedCsrHypergraph(edge_offsets, vertices, vertex_offsets, edges);
+		}
+		finally
+		{
+			raf.close();
+		}
+	}
+
+	/**
+	 * Writes a graph in the DOT format read by the coloring tool
+	 * @param g The graph
+	 * @param ps The print stream to write the graph to
+	 */
+	public static void writeDot(Graph g, PrintStream ps)
+	{
+		ps.print("graph G {\n");
+		StringBuilder out = new StringBuilder();
+		int[] neighbours = new int[g.getMaxDegree()];
+		for (int v = 0; v < g.getVertexCount(); v++)
+		{
+			out.append(v).append(";\n");
+			int degree = g.getNeighbours(v, neighbours);
+			for (int k = 0; k < degree; k++)
+			{
+				if (neighbours[k] > v)
+				{
+					out.append(v).append(" -- ").append(neighbours[k]).append(";\n");
+				}
+			}
+			if (out.length() >= 65536)
+			{
+				ps.append(out);
+				out.setLength(0);
+			}
+		}
+		out.append('}');
+		ps.append(out);
+	}
+
+	/**
+	 * Writes a hypergraph in the EDN format read by the hitting-set tool
+	 * @param h The hypergraph
+	 * @param ps The print stream to write the hypergraph to
+	 */
+	public static void writeEdn(Hypergraph h, PrintStream ps)
+	{
+		ps.print("{\n");
+		StringBuilder out = new StringBuilder();
+		int[] vertices = new int[h.getMaxEdgeSize()];
+		for (int e = 0; e < h.getEdgeCount(); e++)
+		{
+			if (e > 0)
+			{
+				out.append(",\n");
+			}
+			out.append('"').append(e).append("\" #{");
+			int size = h.getEdgeVertices(e, vertices);
+			for (int k = 0; k < size; k++)
+			{
+				if (k > 0)
+				{
+					out.append(' ');
+				}
+				out.append(vertices[k]);
+			}
+			out.append('}');
+			if (out.length() >= 65536)
+			{
+				ps.append(out);
+				out.setLength(0);
+			}
+		}
+		out.append("\n}");
+		ps.append(out);
+	}
+
+	/**
+	 * Converts a file in this format to DOT (for a graph) or EDN (for a
+	 * hypergraph), for the external tools that read text
+	 * @param args The name of the file to convert, and the name of the text
+	 * file to write
+	 * @throws IOException If a file cannot be read or written
+	 */
+	public static void main(String[] args) throws IOException
+	{
+		if (args.length != 2)
+		{
+			System.err.println("Usage: CsrFormat input" + EXTENSION + " output");
+			System.exit(1);
+		}
+		File in = new File(args[0]);
+		PrintStream ps = new PrintStream(new BufferedOutputStream(new FileOutputStream(args[1])));
+		try
+		{
+			if (getKind(in) == GRAPH)
+			{
+				writeDot(mapGraph(in), ps);
+			}
+			else
+			{
+				writeEdn(mapHypergraph(in), ps);
+			}
+		}
+		finally
+		{
+			ps.close();
+		}
+	}
+
+	/**
+	 * Gets the kind of a file in this format
+	 * @param f The file
+	 * @return {@link #GRAPH} or {@link #HYPERGRAPH}
+	 * @throws IOException If the file cannot be read or is not in this
+	 * format
+	 */
+	public static int getKind(File f) throws IOException
+	{
+		RandomAccessFile raf = new RandomAccessFile(f, "r");
+		try
+		{
+			return readHeader(raf.getChannel(), -1).getInt(4);
+		}
+		finally
+		{
+			raf.close();
+		}
+	}
+
+	/**
+	 * Gets the largest number of entries of a row of a section
+	 * @param offsets The offsets of the rows of the section
+	 * @return The number of entries
+	 */
+	protected static int getMaxRowSize(LongBuffer offsets)
+	{
+		long max_size = 0;
+		for (int r = 0; r < offsets.limit() - 1; r++)
+		{
+			max_size = Math.max(max_size, offsets.get(r + 1) - offsets.get(r));
+		}
+		return (int) max_size;
+	}
+
+	/**
+	 * Writes the header of a file
+	 * @param out The output to write the header to
+	 * @param kind The kind of the file
+	 * @param vertex_count The number of vertices
+	 * @param row_count The number of rows of the first section
+	 * @param entries The number of entries of each section
+	 * @throws IOException If the header cannot be written
+	 */
+	protected static void writeHeader(Output out, int kind, int vertex_count, int row_count, long entries) throws IOException
+	{
+		out.putInt(MAGIC);
+		out.putInt(kind);
+		out.putInt(vertex_count);
+		out.putInt(row_count);
+		out.putLong(entries);
+	}
+
+	/**
+	 * Reads and checks the header of a file
+	 * @param channel The channel of the file
+	 * @param kind The expected kind of file, or -1 to accept any kind
+	 * @return The header
+	 * @throws IOException If the file cannot be read or has an unexpected
+	 * header
+	 */
+	protected static ByteBuffer readHeader(FileChannel channel, int kind) throws IOException
+	{
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+		while (header.hasRemaining())
+		{
+			if (channel.read(header, header.position()) < 0)
+			{
+				throw new IOException("Truncated graph file");
+			}
+		}
+		if (header.getInt(0) != MAGIC)
+		{
+			throw new IOException("Not a graph file in CSR format");
+		}
+		if (kind >= 0 && header.getInt(4) != kind)
+		{
+			throw new IOException(kind == GRAPH ? "The file does not store a graph" : "The file does not store a hypergraph");
+		}
+		return header;
+	}
+
+	/**
+	 * Maps the offsets of the rows of a section
+	 * @param channel The channel of the file
+	 * @param position The position of the section in the file
+	 * @param rows The number of rows of the section
+	 * @return The offsets, followed by the number of entries of the section
+	 * @throws IOException If the offsets cannot be mapped
+	 */
+	protected static LongBuffer mapOffsets(FileChannel channel, long position, int rows) throws IOException
+	{
+		long size = (rows + 1L) * 8;
+		if (size > Integer.MAX_VALUE)
+		{
+			throw new IOException("Too many rows to map");
+		}
+		return channel.map(MapMode.READ_ONLY, position, size).asLongBuffer();
+	}
+
+	/**
+	 * Buffered output of big-endian numbers
+	 */
+	protected static class Output
+	{
+		protected final OutputStream m_out;
+
+		protected final ByteBuffer m_buffer = ByteBuffer.allocate(65536);
+
+		public Output(OutputStream out)
+		{
+			super();
+			m_out = out;
+		}
+
+		public void putInt(int x) throws IOException
+		{
+			if (m_buffer.remaining() < 4)
+			{
+				drain();
+			}
+			m_buffer.putInt(x);
+		}
+
+		public void putLong(long x) throws IOException
+		{
+			if (m_buffer.remaining() < 8)
+			{
+				drain();
+			}
+			m_buffer.putLong(x);
+		}
+
+		public void putInts(int[] values, int length) throws IOException
+		{
+			for (int i = 0; i < length; i++)
+			{
+				putInt(values[i]);
+			}
+		}
+
+		public void flush() throws IOException
+		{
+			drain();
+			m_out.flush();
+		}
+
+		protected void drain() throws IOException
+		{
+			m_out.write(m_buffer.array(), 0, m_buffer.position());
+			m_buffer.clear();
+		}
+	}
+}
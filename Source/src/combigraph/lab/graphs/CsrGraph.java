@@ -0,0 +1,122 @@
+/*
+    A lab for comparing combinatorial test suite generators
+    Copyright (C) 2017-2021 Sylvain Hallé, Edmond La Chance,
+    Vincent Porta-Scarta
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package combigraph.lab.graphs;
+
+/**
+ * Undirected graph stored in compressed sparse row (CSR) form: the
+ * neighbours of all the vertices are laid out in a single array, and the
+ * neighbours of vertex <i>v</i> occupy positions <tt>offsets[v]</tt> to
+ * <tt>offsets[v+1]</tt> (excluded) of this array. Each edge appears once
+ * in the list of each of its endpoints.
+ */
+public class CsrGraph implements Graph
+{
+	/**
+	 * The position of the first neighbour of each vertex; the last element
+	 * is the length of {@link #m_neighbours}
+	 */
+	protected final int[] m_offsets;
+
+	/**
+	 * The neighbours of all the vertices
+	 */
+	protected final int[] m_neighbours;
+
+	/**
+	 * The largest degree of a vertex, or -1 if it has not been computed yet
+	 */
+	protected int m_maxDegree = -1;
+
+	/**
+	 * Creates a new graph
+	 * @param offsets The position of the first neighbour of each vertex,
+	 * followed by the total number of neighbours
+	 * @param neighbours The neighbours of all the vertices
+	 */
+	public CsrGraph(int[] offsets, int[] neighbours)
+	{
+		super();
+		m_offsets = offsets;
+		m_neighbours = neighbours;
+	}
+
+	@Override
+	public int getVertexCount()
+	{
+		return m_offsets.length - 1;
+	}
+
+	/**
+	 * Gets the number of edges
+	 * @return The number of edges
+	 */
+	public long getEdgeCount()
+	{
+		return m_neighbours.length / 2;
+	}
+
+	@Override
+	public int getDegree(int v)
+	{
+		return m_offsets[v + 1] - m_offsets[v];
+	}
+
+	@Override
+	public synchronized int getMaxDegree()
+	{
+		if (m_maxDegree < 0)
+		{
+			int max_degree = 0;
+			for (int v = 0; v < getVertexCount(); v++)
+			{
+				max_degree = Math.max(max_degree, getDegree(v));
+			}
+			m_maxDegree = max_degree;
+		}
+		return m_maxDegree;
+	}
+
+	@Override
+	public int getNeighbours(int v, int[] out)
+	{
+		int degree = getDegree(v);
+		System.arraycopy(m_neighbours, m_offsets[v], out, 0, degree);
+		return degree;
+	}
+
+	/**
+	 * Gets the array of offsets. The array is not copied and must not be
+	 * modified.
+	 * @return The offsets
+	 */
+	public int[] getOffsets()
+	{
+		return m_offsets;
+	}
+
+	/**
+	 * Gets the array of neighbours. The array is not copied and must not be
+	 * modified.
+	 * @return The neighbours
+	 */
+	public int[] getNeighbours()
+	{
+		return m_neighbours;
+	}
+}
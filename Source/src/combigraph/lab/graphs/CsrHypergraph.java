@@ -0,0 +1,206 @@
+/*
+    A lab for comparing combinatorial test suite generators
+    Copyright (C) 2017-2021 Sylvain Hallé, Edmond La Chance,
+    Vincent Porta-Scarta
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package combigraph.lab.graphs;
+
+import java.util.Arrays;
+
+/**
+ * Hypergraph stored in compressed sparse row (CSR) form: the vertices of
+ * all the edges are packed in a single array, and the vertices of edge
+ * <i>e</i> occupy positions <tt>offsets[e]</tt> to <tt>offsets[e+1]</tt>
+ * (excluded) of this array. The edges of each vertex are stored in the
+ * same form, once they are first asked for.
+ */
+public class CsrHypergraph implements Hypergraph
+{
+	/**
+	 * The number of vertices
+	 */
+	protected final int m_vertexCount;
+
+	/**
+	 * The position of the first vertex of each edge; the last element is the
+	 * length of {@link #m_vertices}
+	 */
+	protected final int[] m_offsets;
+
+	/**
+	 * The vertices of all the edges
+	 */
+	protected final int[] m_vertices;
+
+	/**
+	 * The position of the first edge of each vertex in {@link #m_edges},
+	 * or null if the edges of the vertices have not been computed yet
+	 */
+	protected int[] m_edgeOffsets;
+
+	/**
+	 * The edges of all the vertices
+	 */
+	protected int[] m_edges;
+
+	/**
+	 * The largest number of vertices of an edge, or -1 if it has not been
+	 * computed yet
+	 */
+	protected int m_maxEdgeSize = -1;
+
+	/**
+	 * The largest number of edges of a vertex
+	 */
+	protected int m_maxVertexDegree;
+
+	/**
+	 * Creates a new hypergraph
+	 * @param vertex_count The number of vertices
+	 * @param offsets The position of the first vertex of each edge, followed
+	 * by the total number of vertices in the edges
+	 * @param vertices The vertices of all the edges
+	 */
+	public CsrHypergraph(int vertex_count, int[] offsets, int[] vertices)
+	{
+		super();
+		m_vertexCount = vertex_count;
+		m_offsets = offsets;
+		m_vertices = vertices;
+	}
+
+	@Override
+	public int getVertexCount()
+	{
+		return m_vertexCount;
+	}
+
+	@Override
+	public int getEdgeCount()
+	{
+		return m_offsets.length - 1;
+	}
+
+	@Override
+	public int getEdgeSize(int e)
+	{
+		return m_offsets[e + 1] - m_offsets[e];
+	}
+
+	@Override
+	public synchronized int getMaxEdgeSize()
+	{
+		if (m_maxEdgeSize < 0)
+		{
+			int max_size = 0;
+			for (int e = 0; e < getEdgeCount(); e++)
+			{
+				max_size = Math.max(max_size, getEdgeSize(e));
+			}
+			m_maxEdgeSize = max_size;
+		}
+		return m_maxEdgeSize;
+	}
+
+	@Override
+	public int getEdgeVertices(int e, int[] out)
+	{
+		int size = getEdgeSize(e);
+		System.arraycopy(m_vertices, m_offsets[e], out, 0, size);
+		return size;
+	}
+
+	@Override
+	public int getVertexDegree(int v)
+	{
+		int[] edge_offsets = getEdgeOffsets();
+		return edge_offsets[v + 1] - edge_offsets[v];
+	}
+
+	@Override
+	public int getMaxVertexDegree()
+	{
+		getEdgeOffsets();
+		return m_maxVertexDegree;
+	}
+
+	@Override
+	public int getVertexEdges(int v, int[] out)
+	{
+		int[] edge_offsets = getEdgeOffsets();
+		int degree = edge_offsets[v + 1] - edge_offsets[v];
+		System.arraycopy(m_edges, edge_offsets[v], out, 0, degree);
+		return degree;
+	}
+
+	/**
+	 * Gets the array of offsets. The array is not copied and must not be
+	 * modified.
+	 * @return The offsets
+	 */
+	public int[] getOffsets()
+	{
+		return m_offsets;
+	}
+
+	/**
+	 * Gets the array of vertices. The array is not copied and must not be
+	 * modified.
+	 * @return The vertices
+	 */
+	public int[] getVertices()
+	{
+		return m_vertices;
+	}
+
+	/**
+	 * Gets the position of the first edge of each vertex, computing the
+	 * edges of all the vertices on the first call
+	 * @return The positions
+	 */
+	protected synchronized int[] getEdgeOffsets()
+	{
+		if (m_edgeOffsets != null)
+		{
+			return m_edgeOffsets;
+		}
+		int[] edge_offsets = new int[m_vertexCount + 1];
+		for (int v : m_vertices)
+		{
+			edge_offsets[v + 1]++;
+		}
+		int max_degree = 0;
+		for (int v = 0; v < m_vertexCount; v++)
+		{
+			max_degree = Math.max(max_degree, edge_offsets[v + 1]);
+			edge_offsets[v + 1] += edge_offsets[v];
+		}
+		// Edges are visited in increasing order, and so end up sorted
+		int[] edges = new int[m_vertices.length];
+		int[] fill = Arrays.copyOf(edge_offsets, m_vertexCount);
+		for (int e = 0; e < getEdgeCount(); e++)
+		{
+			for (int k = m_offsets[e]; k < m_offsets[e + 1]; k++)
+			{
+				edges[fill[m_vertices[k]]++] = e;
+			}
+		}
+		m_edges = edges;
+		m_maxVertexDegree = max_degree;
+		m_edgeOffsets = edge_offsets;
+		return edge_offsets;
+	}
+}
@@ -0,0 +1,251 @@
+/*
+    A lab for comparing combinatorial test suite generators
+    Copyright (C) 2017-2021 Sylvain Hallé, Edmond La Chance,
+    Vincent Porta-Scarta
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package combigraph.lab.graphs;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Comparator;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Colours a graph with the DSatur heuristic: the next vertex to colour is
+ * the one with the largest number of distinct colours among its
+ * neighbours (its saturation), ties being broken by largest degree, and
+ * it receives the smallest colour none of its neighbours has.
+ * <p>
+ * Uncoloured vertices are kept in a bucket queue indexed by saturation.
+ * Each bucket is a bitset over the ranks of the vertices in decreasing
+ * order of degree, so that the first bit of the highest non-empty bucket
+ * is the next vertex to colour, and moving a vertex to the next bucket
+ * takes constant time. The colours seen by each vertex are also kept in a
+ * bitset, which grows with the number of colours used.
+ */
+public class DSatur
+{
+	/**
+	 * The graph to colour
+	 */
+	protected final Graph m_graph;
+
+	/**
+	 * The colour of each vertex, or -1 if it is not coloured
+	 */
+	protected int[] m_colours;
+
+	/**
+	 * The number of colours used
+	 */
+	protected int m_colourCount;
+
+	/**
+	 * The generator used to break ties between vertices of equal degree, or
+	 * null to break them by vertex number
+	 */
+	protected final Random m_random;
+
+	/**
+	 * Creates a new colouring of a graph
+	 * @param g The graph to colour
+	 */
+	public DSatur(Graph g)
+	{
+		this(g, null);
+	}
+
+	/**
+	 * Creates a new colouring of a graph, where ties between vertices of
+	 * equal saturation and degree are broken at random
+	 * @param g The graph to colour
+	 * @param random The generator used to break ties, or null to break them
+	 * by vertex number
+	 */
+	public DSatur(Graph g, Random random)
+	{
+		super();
+		m_graph = g;
+		m_random = random;
+	}
+
+	/**
+	 * Colours the graph
+	 * @return The number of colours used
+	 */
+	public int colour()
+	{
+		return colour(null, Long.MAX_VALUE);
+	}
+
+	/**
+	 * Colours the graph, unless the colouring cannot beat a bound or runs
+	 * past a deadline
+	 * @param bound If not null, the colouring stops as soon as it uses as
+	 * many colours as the value of this bound, which may be lowered by other
+	 * threads while the colouring runs
+	 * @param deadline The time, as given by {@link System#nanoTime()}, after
+	 * which the colouring stops, or {@link Long#MAX_VALUE} for no deadline
+	 * @return The number of colours used, or -1 if the colouring stopped
+	 * before all vertices were coloured
+	 */
+	public int colour(AtomicInteger bound, long deadline)
+	{
+		int n = m_graph.getVertexCount();
+		int[] neighbours = new int[m_graph.getMaxDegree()];
+		// Rank the vertices by decreasing degree
+		Integer[] by_degree = new Integer[n];
+		for (int v = 0; v < n; v++)
+		{
+			by_degree[v] = v;
+		}
+		if (m_random != null)
+		{
+			// The sort is stable: shuffling first randomizes the ties
+			Collections.shuffle(Arrays.asList(by_degree), m_random);
+		}
+		Arrays.sort(by_degree, new Comparator<Integer>()
+		{
+			@Override
+			public int compare(Integer v1, Integer v2)
+			{
+				return Integer.compare(m_graph.getDegree(v2), m_graph.getDegree(v1));
+			}
+		});
+		int[] vertex_at = new int[n];
+		int[] rank = new int[n];
+		for (int r = 0; r < n; r++)
+		{
+			vertex_at[r] = by_degree[r];
+			rank[by_degree[r]] = r;
+		}
+		m_colours = new int[n];
+		Arrays.fill(m_colours, -1);
+		m_colourCount = 0;
+		int[] saturation = new int[n];
+		long[][] seen = new long[n][];
+		List<BitSet> buckets = new ArrayList<BitSet>();
+		BitSet first = new BitSet(n);
+		first.set(0, n);
+		buckets.add(first);
+		int top = 0;
+		boolean timed = deadline != Long.MAX_VALUE;
+		for (int step = 0; step < n; step++)
+		{
+			if (bound != null && m_colourCount >= bound.get())
+			{
+				// This colouring can no longer beat the bound
+				return -1;
+			}
+			if (timed && System.nanoTime() - deadline > 0)
+			{
+				return -1;
+			}
+			while (buckets.get(top).isEmpty())
+			{
+				top--;
+			}
+			BitSet bucket = buckets.get(top);
+			int r = bucket.nextSetBit(0);
+			bucket.clear(r);
+			int v = vertex_at[r];
+			int c = firstFreeColour(seen[v]);
+			m_colours[v] = c;
+			if (c == m_colourCount)
+			{
+				m_colourCount++;
+			}
+			int degree = m_graph.getNeighbours(v, neighbours);
+			for (int k = 0; k < degree; k++)
+			{
+				int u = neighbours[k];
+				if (m_colours[u] >= 0)
+				{
+					continue;
+				}
+				long[] u_seen = seen[u];
+				int word = c >>> 6;
+				if (u_seen == null || word >= u_seen.length)
+				{
+					u_seen = u_seen == null ? new long[word + 1] : Arrays.copyOf(u_seen, Math.max(word + 1, u_seen.length * 2));
+					seen[u] = u_seen;
+				}
+				long bit = 1L << (c & 63);
+				if ((u_seen[word] & bit) != 0)
+				{
+					continue;
+				}
+				u_seen[word] |= bit;
+				// Move u to the next bucket
+				buckets.get(saturation[u]).clear(rank[u]);
+				saturation[u]++;
+				if (saturation[u] == buckets.size())
+				{
+					buckets.add(new BitSet(n));
+				}
+				buckets.get(saturation[u]).set(rank[u]);
+				if (saturation[u] > top)
+				{
+					top = saturation[u];
+				}
+			}
+		}
+		return m_colourCount;
+	}
+
+	/**
+	 * Gets the colour of each vertex
+	 * @return The colours, numbered from 0
+	 */
+	public int[] getColours()
+	{
+		return m_colours;
+	}
+
+	/**
+	 * Gets the number of colours used by the last colouring
+	 * @return The number of colours
+	 */
+	public int getColourCount()
+	{
+		return m_colourCount;
+	}
+
+	/**
+	 * Finds the smallest colour that is not in a set
+	 * @param seen The set of colours, or null for the empty set
+	 * @return The colour
+	 */
+	protected static int firstFreeColour(long[] seen)
+	{
+		if (seen == null)
+		{
+			return 0;
+		}
+		for (int w = 0; w < seen.length; w++)
+		{
+			if (seen[w] != -1L)
+			{
+				return (w << 6) + Long.numberOfTrailingZeros(~seen[w]);
+			}
+		}
+		return seen.length << 6;
+	}
+}
@@ -0,0 +1,55 @@
+/*
+    A lab for comparing combinatorial test suite generators
+    Copyright (C) 2017-2021 Sylvain Hallé, Edmond La Chance,
+    Vincent Porta-Scarta
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package combigraph.lab.graphs;
+
+/**
+ * Undirected graph read by the in-JVM solvers. The graph may be stored
+ * explicitly, like {@link CsrGraph}, or computed on demand, like
+ * {@link ImplicitTWayGraph}.
+ */
+public interface Graph
+{
+	/**
+	 * Gets the number of vertices
+	 * @return The number of vertices
+	 */
+	public int getVertexCount();
+
+	/**
+	 * Gets the degree of a vertex
+	 * @param v The vertex
+	 * @return The degree
+	 */
+	public int getDegree(int v);
+
+	/**
+	 * Gets the largest degree of a vertex
+	 * @return The degree
+	 */
+	public int getMaxDegree();
+
+	/**
+	 * Gets the neighbours of a vertex, in increasing order
+	 * @param v The vertex
+	 * @param out The array to write the neighbours to, which must have room
+	 * for {@link #getMaxDegree()} vertices
+	 * @return The number of neighbours
+	 */
+	public int getNeighbours(int v, int[] out);
+}
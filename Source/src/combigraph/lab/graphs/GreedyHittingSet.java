@@ -0,0 +1,184 @@
+/*
+    A lab for comparing combinatorial test suite generators
+    Copyright (C) 2017-2021 Sylvain Hallé, Edmond La Chance,
+    Vincent Porta-Scarta
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package combigraph.lab.graphs;
+
+import java.util.Arrays;
+
+/**
+ * Finds a hitting set of a hypergraph with the greedy heuristic: the next
+ * vertex added to the set is the one that belongs to the most edges not
+ * hit yet. The degree of each vertex, counted on the edges not hit yet, is
+ * kept in a bucket queue (one doubly-linked list of vertices per degree),
+ * so that picking a vertex and updating the degrees of the vertices whose
+ * edges it hits take constant time per vertex of these edges. The whole
+ * search thus runs in time linear in the size of the hypergraph, which
+ * may be computed on demand rather than stored.
+ */
+public class GreedyHittingSet
+{
+	/**
+	 * The hypergraph
+	 */
+	protected final Hypergraph m_hypergraph;
+
+	/**
+	 * The vertices of the hitting set, in the order they were picked
+	 */
+	protected int[] m_solution;
+
+	/**
+	 * Creates a new search for a hitting set
+	 * @param h The hypergraph
+	 */
+	public GreedyHittingSet(Hypergraph h)
+	{
+		super();
+		m_hypergraph = h;
+	}
+
+	/**
+	 * Finds the hitting set
+	 * @return The number of vertices in the hitting set
+	 */
+	public int solve()
+	{
+		return solve(Long.MAX_VALUE);
+	}
+
+	/**
+	 * Finds the hitting set, unless the search runs past a deadline
+	 * @param deadline The time, as given by {@link System#nanoTime()}, after
+	 * which the search stops, or {@link Long#MAX_VALUE} for no deadline
+	 * @return The number of vertices in the hitting set, or -1 if the search
+	 * stopped before all edges were hit
+	 */
+	public int solve(long deadline)
+	{
+		boolean timed = deadline != Long.MAX_VALUE;
+		int n = m_hypergraph.getVertexCount();
+		int m = m_hypergraph.getEdgeCount();
+		int[] degree = new int[n];
+		int max_degree = 0;
+		for (int v = 0; v < n; v++)
+		{
+			degree[v] = m_hypergraph.getVertexDegree(v);
+			max_degree = Math.max(max_degree, degree[v]);
+		}
+		int[] edges = new int[m_hypergraph.getMaxVertexDegree()];
+		int[] vertices = new int[m_hypergraph.getMaxEdgeSize()];
+		// The bucket queue; vertices of degree 0 are never in a bucket
+		int[] heads = new int[max_degree + 1];
+		Arrays.fill(heads, -1);
+		int[] next = new int[n];
+		int[] previous = new int[n];
+		for (int v = n - 1; v >= 0; v--)
+		{
+			if (degree[v] > 0)
+			{
+				push(heads, next, previous, degree[v], v);
+			}
+		}
+		boolean[] hit = new boolean[m];
+		int[] solution = new int[Math.min(n, m)];
+		int size = 0;
+		int top = max_degree;
+		while (top > 0)
+		{
+			if (heads[top] < 0)
+			{
+				top--;
+				continue;
+			}
+			if (timed && System.nanoTime() - deadline > 0)
+			{
+				m_solution = null;
+				return -1;
+			}
+			int v = heads[top];
+			solution[size++] = v;
+			int num_edges = m_hypergraph.getVertexEdges(v, edges);
+			for (int j = 0; j < num_edges; j++)
+			{
+				int e = edges[j];
+				if (hit[e])
+				{
+					continue;
+				}
+				hit[e] = true;
+				// Every vertex of the edge now belongs to one less edge to hit
+				int num_vertices = m_hypergraph.getEdgeVertices(e, vertices);
+				for (int k = 0; k < num_vertices; k++)
+				{
+					int u = vertices[k];
+					remove(heads, next, previous, degree[u], u);
+					degree[u]--;
+					if (degree[u] > 0)
+					{
+						push(heads, next, previous, degree[u], u);
+					}
+				}
+			}
+		}
+		m_solution = Arrays.copyOf(solution, size);
+		return size;
+	}
+
+	/**
+	 * Gets the vertices of the hitting set
+	 * @return The vertices, in the order they were picked
+	 */
+	public int[] getSolution()
+	{
+		return m_solution;
+	}
+
+	/**
+	 * Adds a vertex at the head of a bucket
+	 */
+	protected static void push(int[] heads, int[] next, int[] previous, int bucket, int v)
+	{
+		int head = heads[bucket];
+		next[v] = head;
+		previous[v] = -1;
+		if (head >= 0)
+		{
+			previous[head] = v;
+		}
+		heads[bucket] = v;
+	}
+
+	/**
+	 * Removes a vertex from its bucket
+	 */
+	protected static void remove(int[] heads, int[] next, int[] previous, int bucket, int v)
+	{
+		if (previous[v] >= 0)
+		{
+			next[previous[v]] = next[v];
+		}
+		else
+		{
+			heads[bucket] = next[v];
+		}
+		if (next[v] >= 0)
+		{
+			previous[next[v]] = previous[v];
+		}
+	}
+}
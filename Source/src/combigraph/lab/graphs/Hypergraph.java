@@ -0,0 +1,83 @@
+/*
+    A lab for comparing combinatorial test suite generators
+    Copyright (C) 2017-2021 Sylvain Hallé, Edmond La Chance,
+    Vincent Porta-Scarta
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package combigraph.lab.graphs;
+
+/**
+ * Hypergraph read by the in-JVM solvers. The hypergraph may be stored
+ * explicitly, like {@link CsrHypergraph}, or computed on demand, like
+ * {@link ImplicitTWayHypergraph}.
+ */
+public interface Hypergraph
+{
+	/**
+	 * Gets the number of vertices
+	 * @return The number of vertices
+	 */
+	public int getVertexCount();
+
+	/**
+	 * Gets the number of edges
+	 * @return The number of edges
+	 */
+	public int getEdgeCount();
+
+	/**
+	 * Gets the number of vertices of an edge
+	 * @param e The edge
+	 * @return The number of vertices
+	 */
+	public int getEdgeSize(int e);
+
+	/**
+	 * Gets the largest number of vertices of an edge
+	 * @return The number of vertices
+	 */
+	public int getMaxEdgeSize();
+
+	/**
+	 * Gets the vertices of an edge, in increasing order
+	 * @param e The edge
+	 * @param out The array to write the vertices to, which must have room
+	 * for {@link #getMaxEdgeSize()} vertices
+	 * @return The number of vertices
+	 */
+	public int getEdgeVertices(int e, int[] out);
+
+	/**
+	 * Gets the number of edges a vertex belongs to
+	 * @param v The vertex
+	 * @return The number of edges
+	 */
+	public int getVertexDegree(int v);
+
+	/**
+	 * Gets the largest number of edges a vertex belongs to
+	 * @return The number of edges
+	 */
+	public int getMaxVertexDegree();
+
+	/**
+	 * Gets the edges a vertex belongs to, in increasing order
+	 * @param v The vertex
+	 * @param out The array to write the edges to, which must have room for
+	 * {@link #getMaxVertexDegree()} edges
+	 * @return The number of edges
+	 */
+	public int getVertexEdges(int v, int[] out);
+}
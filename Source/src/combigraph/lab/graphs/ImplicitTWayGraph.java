@@ -0,0 +1,179 @@
+/*
+    A lab for comparing combinatorial test suite generators
+    Copyright (C) 2017-2021 Sylvain Hallé, Edmond La Chance,
+    Vincent Porta-Scarta
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package combigraph.lab.graphs;
+
+import java.util.Arrays;
+
+/**
+ * Graph whose colourings create t-way test suites, with edges computed on
+ * demand instead of being stored. Vertices are the tuples of a
+ * {@link TupleNumbering}, numbered like the vertices written by the graph
+ * generators; two vertices are linked by an edge when they assign
+ * different values to the same parameter.
+ * <p>
+ * The memory used by the graph only depends on the number of sets of
+ * <i>t</i> parameters, and not on its number of edges, which quickly
+ * exceeds what can be stored as <i>t</i> and <i>n</i> grow.
+ */
+public class ImplicitTWayGraph implements Graph
+{
+	/**
+	 * The numbering of the vertices
+	 */
+	protected final TupleNumbering m_tuples;
+
+	/**
+	 * The degree of the vertices of each set of parameters, which does not
+	 * depend on the values of the vertex
+	 */
+	protected final int[] m_degrees;
+
+	/**
+	 * The largest degree of a vertex
+	 */
+	protected final int m_maxDegree;
+
+	/**
+	 * Creates a new graph
+	 * @param t The interaction strength
+	 * @param domain_sizes The size of the domain of each parameter
+	 */
+	public ImplicitTWayGraph(int t, int[] domain_sizes)
+	{
+		super();
+		m_tuples = new TupleNumbering(t, domain_sizes);
+		int num_subsets = m_tuples.getSubsetCount();
+		m_degrees = new int[num_subsets];
+		boolean[] in_subset = new boolean[domain_sizes.length];
+		int max_degree = 0;
+		for (int s = 0; s < num_subsets; s++)
+		{
+			for (int p : m_tuples.getSubset(s))
+			{
+				in_subset[p] = true;
+			}
+			// All the tuples of another set are neighbours, except those
+			// agreeing on the shared parameters
+			long degree = 0;
+			for (int s2 = 0; s2 < num_subsets; s2++)
+			{
+				long compatible = 1;
+				for (int p : m_tuples.getSubset(s2))
+				{
+					if (!in_subset[p])
+					{
+						compatible *= domain_sizes[p];
+					}
+				}
+				degree += m_tuples.getSubsetSize(s2) - compatible;
+			}
+			if (degree > Integer.MAX_VALUE)
+			{
+				throw new IllegalArgumentException("Too many neighbours in the graph");
+			}
+			m_degrees[s] = (int) degree;
+			max_degree = Math.max(max_degree, m_degrees[s]);
+			Arrays.fill(in_subset, false);
+		}
+		m_maxDegree = max_degree;
+	}
+
+	/**
+	 * Gets the numbering of the vertices of the graph
+	 * @return The numbering
+	 */
+	public TupleNumbering getTuples()
+	{
+		return m_tuples;
+	}
+
+	@Override
+	public int getVertexCount()
+	{
+		return m_tuples.getTupleCount();
+	}
+
+	@Override
+	public int getDegree(int v)
+	{
+		return m_degrees[m_tuples.getSubsetOf(v)];
+	}
+
+	@Override
+	public int getMaxDegree()
+	{
+		return m_maxDegree;
+	}
+
+	@Override
+	public int getNeighbours(int v, int[] out)
+	{
+		int[] subset_values = new int[m_tuples.getSubset(0).length];
+		int s = m_tuples.decode(v, subset_values);
+		int[] fixed = new int[m_tuples.getDomainSizes().length];
+		Arrays.fill(fixed, -1);
+		int[] subset = m_tuples.getSubset(s);
+		for (int i = 0; i < subset.length; i++)
+		{
+			fixed[subset[i]] = subset_values[i];
+		}
+		int[] values = new int[subset.length];
+		int count = 0;
+		for (int s2 = 0; s2 < m_tuples.getSubsetCount(); s2++)
+		{
+			int[] subset2 = m_tuples.getSubset(s2);
+			boolean shared = false;
+			for (int p : subset2)
+			{
+				shared |= fixed[p] >= 0;
+			}
+			if (!shared)
+			{
+				// All the tuples of this set are compatible with v
+				continue;
+			}
+			Arrays.fill(values, 0);
+			int first = m_tuples.getFirstTuple(s2);
+			int size = m_tuples.getSubsetSize(s2);
+			for (int r = 0; r < size; r++)
+			{
+				for (int i = 0; i < subset2.length; i++)
+				{
+					int f = fixed[subset2[i]];
+					if (f >= 0 && f != values[i])
+					{
+						out[count++] = first + r;
+						break;
+					}
+				}
+				// Move to the next tuple of the set
+				for (int i = 0; i < subset2.length; i++)
+				{
+					values[i]++;
+					if (values[i] < m_tuples.getDomainSizes()[subset2[i]])
+					{
+						break;
+					}
+					values[i] = 0;
+				}
+			}
+		}
+		return count;
+	}
+}
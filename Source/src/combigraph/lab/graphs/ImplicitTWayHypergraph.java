@@ -0,0 +1,194 @@
+/*
+    A lab for comparing combinatorial test suite generators
+    Copyright (C) 2017-2021 Sylvain Hallé, Edmond La Chance,
+    Vincent Porta-Scarta
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package combigraph.lab.graphs;
+
+/**
+ * Hypergraph whose hitting sets are t-way test suites, with edges computed
+ * on demand instead of being stored. Vertices are the valuations of all
+ * the parameters, numbered in mixed radix with the first parameter
+ * varying fastest; edges are the tuples of a {@link TupleNumbering}, and
+ * an edge contains the valuations that give its values to its parameters.
+ * Vertices and edges are numbered like those built by the hypergraph
+ * generator for a specification without conditions.
+ * <p>
+ * Each vertex belongs to exactly one edge per set of <i>t</i> parameters,
+ * so that both the vertices of an edge and the edges of a vertex are
+ * computed from their numbers alone.
+ */
+public class ImplicitTWayHypergraph implements Hypergraph
+{
+	/**
+	 * The numbering of the edges
+	 */
+	protected final TupleNumbering m_tuples;
+
+	/**
+	 * The weight of each parameter in the number of a vertex
+	 */
+	protected final int[] m_weights;
+
+	/**
+	 * The number of vertices
+	 */
+	protected final int m_vertexCount;
+
+	/**
+	 * The largest number of vertices of an edge
+	 */
+	protected final int m_maxEdgeSize;
+
+	/**
+	 * Creates a new hypergraph
+	 * @param t The interaction strength
+	 * @param domain_sizes The size of the domain of each parameter
+	 */
+	public ImplicitTWayHypergraph(int t, int[] domain_sizes)
+	{
+		super();
+		m_tuples = new TupleNumbering(t, domain_sizes);
+		m_weights = new int[domain_sizes.length];
+		long count = 1;
+		for (int p = 0; p < domain_sizes.length; p++)
+		{
+			m_weights[p] = (int) count;
+			count *= domain_sizes[p];
+			if (count > Integer.MAX_VALUE)
+			{
+				throw new IllegalArgumentException("Too many vertices in the hypergraph");
+			}
+		}
+		m_vertexCount = (int) count;
+		int max_size = 0;
+		for (int s = 0; s < m_tuples.getSubsetCount(); s++)
+		{
+			max_size = Math.max(max_size, m_vertexCount / m_tuples.getSubsetSize(s));
+		}
+		m_maxEdgeSize = max_size;
+	}
+
+	/**
+	 * Gets the numbering of the edges of the hypergraph
+	 * @return The numbering
+	 */
+	public TupleNumbering getTuples()
+	{
+		return m_tuples;
+	}
+
+	@Override
+	public int getVertexCount()
+	{
+		return m_vertexCount;
+	}
+
+	@Override
+	public int getEdgeCount()
+	{
+		return m_tuples.getTupleCount();
+	}
+
+	@Override
+	public int getEdgeSize(int e)
+	{
+		return m_vertexCount / m_tuples.getSubsetSize(m_tuples.getSubsetOf(e));
+	}
+
+	@Override
+	public int getMaxEdgeSize()
+	{
+		return m_maxEdgeSize;
+	}
+
+	@Override
+	public int getEdgeVertices(int e, int[] out)
+	{
+		int[] domain_sizes = m_tuples.getDomainSizes();
+		int[] subset_values = new int[m_tuples.getSubset(0).length];
+		int[] subset = m_tuples.getSubset(m_tuples.decode(e, subset_values));
+		boolean[] fixed = new boolean[domain_sizes.length];
+		int id = 0;
+		for (int i = 0; i < subset.length; i++)
+		{
+			fixed[subset[i]] = true;
+			id += subset_values[i] * m_weights[subset[i]];
+		}
+		int[] free = new int[domain_sizes.length - subset.length];
+		int num_free = 0;
+		for (int p = 0; p < domain_sizes.length; p++)
+		{
+			if (!fixed[p])
+			{
+				free[num_free++] = p;
+			}
+		}
+		// Enumerate the values of the free parameters, by increasing number
+		int[] values = new int[free.length];
+		int count = 0;
+		while (true)
+		{
+			out[count++] = id;
+			int i = 0;
+			for (; i < free.length; i++)
+			{
+				int p = free[i];
+				values[i]++;
+				if (values[i] < domain_sizes[p])
+				{
+					id += m_weights[p];
+					break;
+				}
+				id -= (domain_sizes[p] - 1) * m_weights[p];
+				values[i] = 0;
+			}
+			if (i == free.length)
+			{
+				return count;
+			}
+		}
+	}
+
+	@Override
+	public int getVertexDegree(int v)
+	{
+		return m_tuples.getSubsetCount();
+	}
+
+	@Override
+	public int getMaxVertexDegree()
+	{
+		return m_tuples.getSubsetCount();
+	}
+
+	@Override
+	public int getVertexEdges(int v, int[] out)
+	{
+		int[] domain_sizes = m_tuples.getDomainSizes();
+		int[] valuation = new int[domain_sizes.length];
+		for (int p = 0; p < domain_sizes.length; p++)
+		{
+			valuation[p] = (v / m_weights[p]) % domain_sizes[p];
+		}
+		int num_subsets = m_tuples.getSubsetCount();
+		for (int s = 0; s < num_subsets; s++)
+		{
+			out[s] = m_tuples.getTuple(s, valuation);
+		}
+		return num_subsets;
+	}
+}
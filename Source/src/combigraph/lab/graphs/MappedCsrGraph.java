@@ -0,0 +1,85 @@
+/*
+    A lab for comparing combinatorial test suite generators
+    Copyright (C) 2017-2021 Sylvain Hallé, Edmond La Chance,
+    Vincent Porta-Scarta
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package combigraph.lab.graphs;
+
+import java.nio.LongBuffer;
+
+/**
+ * Graph read from a file in the binary format of {@link CsrFormat}, which
+ * is mapped in memory rather than loaded. Only the pages of the file that
+ * are read are brought in memory, and they are shared with the other
+ * processes reading the same file.
+ */
+public class MappedCsrGraph implements Graph
+{
+	/**
+	 * The position of the first neighbour of each vertex; the last element
+	 * is the length of {@link #m_neighbours}
+	 */
+	protected final LongBuffer m_offsets;
+
+	/**
+	 * The neighbours of all the vertices
+	 */
+	protected final MappedIntArray m_neighbours;
+
+	/**
+	 * The largest degree of a vertex
+	 */
+	protected final int m_maxDegree;
+
+	/**
+	 * Creates a new graph
+	 * @param offsets The mapped offsets of the vertices
+	 * @param neighbours The mapped neighbours of the vertices
+	 */
+	public MappedCsrGraph(LongBuffer offsets, MappedIntArray neighbours)
+	{
+		super();
+		m_offsets = offsets;
+		m_neighbours = neighbours;
+		m_maxDegree = CsrFormat.getMaxRowSize(offsets);
+	}
+
+	@Override
+	public int getVertexCount()
+	{
+		return m_offsets.limit() - 1;
+	}
+
+	@Override
+	public int getDegree(int v)
+	{
+		return (int) (m_offsets.get(v + 1) - m_offsets.get(v));
+	}
+
+	@Override
+	public int getMaxDegree()
+	{
+		return m_maxDegree;
+	}
+
+	@Override
+	public int getNeighbours(int v, int[] out)
+	{
+		int degree = getDegree(v);
+		m_neighbours.get(m_offsets.get(v), out, degree);
+		return degree;
+	}
+}
@@ -0,0 +1,129 @@
+/*
+    A lab for comparing combinatorial test suite generators
+    Copyright (C) 2017-2021 Sylvain Hallé, Edmond La Chance,
+    Vincent Porta-Scarta
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package combigraph.lab.graphs;
+
+import java.nio.LongBuffer;
+
+/**
+ * Hypergraph read from a file in the binary format of {@link CsrFormat},
+ * which is mapped in memory rather than loaded. The file stores both the
+ * vertices of each edge and the edges of each vertex.
+ */
+public class MappedCsrHypergraph implements Hypergraph
+{
+	/**
+	 * The position of the first vertex of each edge
+	 */
+	protected final LongBuffer m_edgeOffsets;
+
+	/**
+	 * The vertices of all the edges
+	 */
+	protected final MappedIntArray m_vertices;
+
+	/**
+	 * The position of the first edge of each vertex
+	 */
+	protected final LongBuffer m_vertexOffsets;
+
+	/**
+	 * The edges of all the vertices
+	 */
+	protected final MappedIntArray m_edges;
+
+	/**
+	 * The largest number of vertices of an edge
+	 */
+	protected final int m_maxEdgeSize;
+
+	/**
+	 * The largest number of edges of a vertex
+	 */
+	protected final int m_maxVertexDegree;
+
+	/**
+	 * Creates a new hypergraph
+	 * @param edge_offsets The mapped offsets of the edges
+	 * @param vertices The mapped vertices of the edges
+	 * @param vertex_offsets The mapped offsets of the vertices
+	 * @param edges The mapped edges of the vertices
+	 */
+	public MappedCsrHypergraph(LongBuffer edge_offsets, MappedIntArray vertices, LongBuffer vertex_offsets, MappedIntArray edges)
+	{
+		super();
+		m_edgeOffsets = edge_offsets;
+		m_vertices = vertices;
+		m_vertexOffsets = vertex_offsets;
+		m_edges = edges;
+		m_maxEdgeSize = CsrFormat.getMaxRowSize(edge_offsets);
+		m_maxVertexDegree = CsrFormat.getMaxRowSize(vertex_offsets);
+	}
+
+	@Override
+	public int getVertexCount()
+	{
+		return m_vertexOffsets.limit() - 1;
+	}
+
+	@Override
+	public int getEdgeCount()
+	{
+		return m_edgeOffsets.limit() - 1;
+	}
+
+	@Override
+	public int getEdgeSize(int e)
+	{
+		return (int) (m_edgeOffsets.get(e + 1) - m_edgeOffsets.get(e));
+	}
+
+	@Override
+	public int getMaxEdgeSize()
+	{
+		return m_maxEdgeSize;
+	}
+
+	@Override
+	public int getEdgeVertices(int e, int[] out)
+	{
+		int size = getEdgeSize(e);
+		m_vertices.get(m_edgeOffsets.get(e), out, size);
+		return size;
+	}
+
+	@Override
+	public int getVertexDegree(int v)
+	{
+		return (int) (m_vertexOffsets.get(v + 1) - m_vertexOffsets.get(v));
+	}
+
+	@Override
+	public int getMaxVertexDegree()
+	{
+		return m_maxVertexDegree;
+	}
+
+	@Override
+	public int getVertexEdges(int v, int[] out)
+	{
+		int degree = getVertexDegree(v);
+		m_edges.get(m_vertexOffsets.get(v), out, degree);
+		return degree;
+	}
+}
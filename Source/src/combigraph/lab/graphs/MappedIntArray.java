@@ -0,0 +1,108 @@
+/*
+    A lab for comparing combinatorial test suite generators
+    Copyright (C) 2017-2021 Sylvain Hallé, Edmond La Chance,
+    Vincent Porta-Scarta
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package combigraph.lab.graphs;
+
+import java.io.IOException;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+
+/**
+ * Read-only array of integers mapped from a file. A single mapping is
+ * limited to 2 GB, so that the array is split into segments mapped
+ * separately. Reads do not modify the state of the array, which can
+ * therefore be shared by many threads.
+ */
+public class MappedIntArray
+{
+	/**
+	 * The number of integers in each segment is 2 to this power
+	 */
+	protected static final transient int SEGMENT_BITS = 28;
+
+	/**
+	 * The segments of the array
+	 */
+	protected final IntBuffer[] m_segments;
+
+	/**
+	 * The number of integers in the array
+	 */
+	protected final long m_length;
+
+	/**
+	 * Maps an array of big-endian integers from a file
+	 * @param channel The channel of the file
+	 * @param position The position of the first integer in the file
+	 * @param length The number of integers
+	 * @throws IOException If the file cannot be mapped
+	 */
+	public MappedIntArray(FileChannel channel, long position, long length) throws IOException
+	{
+		super();
+		m_length = length;
+		int num_segments = (int) ((length + (1L << SEGMENT_BITS) - 1) >>> SEGMENT_BITS);
+		m_segments = new IntBuffer[num_segments];
+		for (int s = 0; s < num_segments; s++)
+		{
+			long first = (long) s << SEGMENT_BITS;
+			long size = Math.min(1L << SEGMENT_BITS, length - first);
+			m_segments[s] = channel.map(MapMode.READ_ONLY, position + first * 4, size * 4).asIntBuffer();
+		}
+	}
+
+	/**
+	 * Gets the number of integers in the array
+	 * @return The number of integers
+	 */
+	public long length()
+	{
+		return m_length;
+	}
+
+	/**
+	 * Gets an integer of the array
+	 * @param index The position of the integer
+	 * @return The integer
+	 */
+	public int get(long index)
+	{
+		return m_segments[(int) (index >>> SEGMENT_BITS)].get((int) (index & ((1L << SEGMENT_BITS) - 1)));
+	}
+
+	/**
+	 * Copies consecutive integers of the array
+	 * @param index The position of the first integer to copy
+	 * @param out The array to copy the integers to
+	 * @param length The number of integers to copy
+	 */
+	public void get(long index, int[] out, int length)
+	{
+		int copied = 0;
+		while (copied < length)
+		{
+			long i = index + copied;
+			IntBuffer segment = m_segments[(int) (i >>> SEGMENT_BITS)].duplicate();
+			segment.position((int) (i & ((1L << SEGMENT_BITS) - 1)));
+			int n = Math.min(length - copied, segment.remaining());
+			segment.get(out, copied, n);
+			copied += n;
+		}
+	}
+}
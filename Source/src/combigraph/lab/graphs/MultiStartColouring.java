@@ -0,0 +1,253 @@
+/*
+    A lab for comparing combinatorial test suite generators
+    Copyright (C) 2017-2021 Sylvain Hallé, Edmond La Chance,
+    Vincent Porta-Scarta
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package combigraph.lab.graphs;
+
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Colours a graph by running many randomized {@link DSatur} colourings, in
+ * parallel, and keeping the one that uses the fewest colours. All the
+ * colourings share the same read-only graph. Each colouring is abandoned as
+ * soon as it uses as many colours as the best one found so far, or when
+ * the time given to the whole search has elapsed.
+ * <p>
+ * The first start breaks ties by vertex number, so that the result is never
+ * worse than that of a single {@link DSatur} colouring that has time to
+ * finish.
+ */
+public class MultiStartColouring
+{
+	/**
+	 * The graph to colour
+	 */
+	protected final Graph m_graph;
+
+	/**
+	 * The number of colourings to run
+	 */
+	protected final int m_starts;
+
+	/**
+	 * The number of threads running the colourings
+	 */
+	protected int m_threads = Runtime.getRuntime().availableProcessors();
+
+	/**
+	 * The seed from which the seed of each randomized start is derived
+	 */
+	protected long m_seed = 0;
+
+	/**
+	 * The number of colours of the best colouring found so far, read by all
+	 * the starts to abandon the colourings that cannot beat it
+	 */
+	protected final AtomicInteger m_best = new AtomicInteger(Integer.MAX_VALUE);
+
+	/**
+	 * The best colouring found so far
+	 */
+	protected int[] m_bestColours;
+
+	/**
+	 * The time at which the search started, as given by
+	 * {@link System#nanoTime()}
+	 */
+	protected long m_startTime;
+
+	/**
+	 * The time elapsed between the start of the search and the moment the
+	 * best colouring was found, in milliseconds
+	 */
+	protected long m_timeToBest;
+
+	/**
+	 * Creates a new multi-start colouring of a graph
+	 * @param g The graph to colour
+	 * @param starts The number of colourings to run
+	 */
+	public MultiStartColouring(Graph g, int starts)
+	{
+		super();
+		m_graph = g;
+		m_starts = starts;
+	}
+
+	/**
+	 * Sets the number of threads running the colourings
+	 * @param threads The number of threads
+	 * @return This colouring
+	 */
+	public MultiStartColouring setThreads(int threads)
+	{
+		m_threads = Math.max(1, threads);
+		return this;
+	}
+
+	/**
+	 * Sets the seed from which the randomized starts are derived. Two
+	 * searches with the same seed and enough time to finish find colourings
+	 * with the same number of colours.
+	 * @param seed The seed
+	 * @return This colouring
+	 */
+	public MultiStartColouring setSeed(long seed)
+	{
+		m_seed = seed;
+		return this;
+	}
+
+	/**
+	 * Runs the colourings
+	 * @param timeout The maximum duration of the search in milliseconds, or
+	 * a negative value for no timeout
+	 * @return The number of colours of the best colouring, or -1 if no
+	 * colouring could finish before the timeout
+	 */
+	public int colour(long timeout)
+	{
+		m_best.set(Integer.MAX_VALUE);
+		m_bestColours = null;
+		m_timeToBest = -1;
+		m_startTime = System.nanoTime();
+		long deadline = Long.MAX_VALUE;
+		if (timeout >= 0)
+		{
+			deadline = m_startTime + TimeUnit.MILLISECONDS.toNanos(timeout);
+		}
+		ForkJoinPool pool = new ForkJoinPool(m_threads);
+		try
+		{
+			pool.invoke(new Starts(0, m_starts, deadline));
+		}
+		finally
+		{
+			pool.shutdown();
+		}
+		return getColourCount();
+	}
+
+	/**
+	 * Gets the colour of each vertex in the best colouring
+	 * @return The colours, numbered from 0, or null if no colouring has
+	 * finished
+	 */
+	public synchronized int[] getColours()
+	{
+		return m_bestColours;
+	}
+
+	/**
+	 * Gets the number of colours of the best colouring
+	 * @return The number of colours, or -1 if no colouring has finished
+	 */
+	public synchronized int getColourCount()
+	{
+		return m_bestColours == null ? -1 : m_best.get();
+	}
+
+	/**
+	 * Gets the time it took to find the best colouring
+	 * @return The time elapsed between the start of the search and the
+	 * moment its final number of colours was first reached, in milliseconds,
+	 * or -1 if no colouring has finished
+	 */
+	public synchronized long getTimeToBest()
+	{
+		return m_timeToBest;
+	}
+
+	/**
+	 * Runs a single colouring
+	 * @param start The index of the start
+	 * @param deadline The time, as given by {@link System#nanoTime()}, after
+	 * which the colouring stops, or {@link Long#MAX_VALUE} for no deadline
+	 */
+	protected void runStart(int start, long deadline)
+	{
+		if (deadline != Long.MAX_VALUE && System.nanoTime() - deadline > 0)
+		{
+			return;
+		}
+		Random random = start == 0 ? null : new Random(m_seed + start);
+		DSatur colouring = new DSatur(m_graph, random);
+		int count = colouring.colour(m_best, deadline);
+		if (count >= 0)
+		{
+			offer(count, colouring.getColours());
+		}
+	}
+
+	/**
+	 * Keeps a colouring if it uses fewer colours than the best one found so
+	 * far
+	 * @param count The number of colours of the colouring
+	 * @param colours The colour of each vertex
+	 */
+	protected synchronized void offer(int count, int[] colours)
+	{
+		if (count < m_best.get())
+		{
+			m_best.set(count);
+			m_bestColours = colours;
+			m_timeToBest = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - m_startTime);
+		}
+	}
+
+	/**
+	 * Runs a range of starts, by splitting it in halves until a single start
+	 * is left
+	 */
+	protected class Starts extends RecursiveAction
+	{
+		private static final long serialVersionUID = 1L;
+
+		protected final int m_from;
+
+		protected final int m_to;
+
+		protected final long m_deadline;
+
+		public Starts(int from, int to, long deadline)
+		{
+			super();
+			m_from = from;
+			m_to = to;
+			m_deadline = deadline;
+		}
+
+		@Override
+		protected void compute()
+		{
+			if (m_to - m_from <= 1)
+			{
+				if (m_to > m_from)
+				{
+					runStart(m_from, m_deadline);
+				}
+				return;
+			}
+			int middle = (m_from + m_to) >>> 1;
+			invokeAll(new Starts(m_from, middle, m_deadline), new Starts(middle, m_to, m_deadline));
+		}
+	}
+}
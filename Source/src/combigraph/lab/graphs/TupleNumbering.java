@@ -0,0 +1,276 @@
+/*
+    A lab for comparing combinatorial test suite generators
+    Copyright (C) 2017-2021 Sylvain Hallé, Edmond La Chance,
+    Vincent Porta-Scarta
+
+    This program is free software: you can redistribute it and/or modify
+    it under the terms of the GNU General Public License as published by
+    the Free Software Foundation, either version 3 of the License, or
+    (at your option) any later version.
+
+    This program is distributed in the hope that it will be useful,
+    but WITHOUT ANY WARRANTY; without even the implied warranty of
+    MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+    GNU General Public License for more details.
+
+    You should have received a copy of the GNU General Public License
+    along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package combigraph.lab.graphs;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Numbers the assignments of values to <i>t</i> parameters, called
+ * <i>tuples</i>, in the order used by the graph and hypergraph generators:
+ * <ul>
+ * <li>sets of <i>t</i> parameters come in colexicographic order, so that
+ * the number of a set is its rank in the combinatorial number
+ * system;</li>
+ * <li>within a set, tuples are numbered in mixed radix over the domains
+ * of its parameters, with the first parameter varying fastest.</li>
+ * </ul>
+ * A tuple is thus identified by a single integer, from which its
+ * parameters and values are computed on demand.
+ */
+public class TupleNumbering
+{
+	/**
+	 * The size of the domain of each parameter
+	 */
+	protected final int[] m_domainSizes;
+
+	/**
+	 * The sets of <i>t</i> parameters
+	 */
+	protected final int[][] m_subsets;
+
+	/**
+	 * The number of the first tuple of each set of parameters; the last
+	 * element is the total number of tuples
+	 */
+	protected final int[] m_offsets;
+
+	/**
+	 * Creates a new numbering
+	 * @param t The number of parameters in each tuple
+	 * @param domain_sizes The size of the domain of each parameter
+	 */
+	public TupleNumbering(int t, int[] domain_sizes)
+	{
+		super();
+		int n = domain_sizes.length;
+		for (int d : domain_sizes)
+		{
+			if (d <= 0)
+			{
+				throw new IllegalArgumentException("Parameters must have at least one value");
+			}
+		}
+		m_domainSizes = domain_sizes;
+		List<int[]> subsets = new ArrayList<int[]>();
+		if (t > 0 && t <= n)
+		{
+			int[] combination = new int[t];
+			for (int i = 0; i < t; i++)
+			{
+				combination[i] = i;
+			}
+			do
+			{
+				subsets.add(combination.clone());
+			} while (nextCombination(combination, n));
+		}
+		m_subsets = subsets.toArray(new int[subsets.size()][]);
+		m_offsets = new int[m_subsets.length + 1];
+		long offset = 0;
+		for (int s = 0; s < m_subsets.length; s++)
+		{
+			m_offsets[s] = (int) offset;
+			long size = 1;
+			for (int p : m_subsets[s])
+			{
+				size *= domain_sizes[p];
+			}
+			offset += size;
+			if (offset > Integer.MAX_VALUE)
+			{
+				throw new IllegalArgumentException("Too many tuples");
+			}
+		}
+		m_offsets[m_subsets.length] = (int) offset;
+	}
+
+	/**
+	 * Gets the size of the domain of each parameter
+	 * @return The sizes. The array is not copied and must not be modified.
+	 */
+	public int[] getDomainSizes()
+	{
+		return m_domainSizes;
+	}
+
+	/**
+	 * Gets the number of tuples
+	 * @return The number of tuples
+	 */
+	public int getTupleCount()
+	{
+		return m_offsets[m_subsets.length];
+	}
+
+	/**
+	 * Gets the number of sets of <i>t</i> parameters
+	 * @return The number of sets
+	 */
+	public int getSubsetCount()
+	{
+		return m_subsets.length;
+	}
+
+	/**
+	 * Gets a set of <i>t</i> parameters
+	 * @param s The number of the set
+	 * @return The parameters, in increasing order. The array is not copied
+	 * and must not be modified.
+	 */
+	public int[] getSubset(int s)
+	{
+		return m_subsets[s];
+	}
+
+	/**
+	 * Gets the number of the first tuple of a set of parameters
+	 * @param s The number of the set
+	 * @return The number of the tuple
+	 */
+	public int getFirstTuple(int s)
+	{
+		return m_offsets[s];
+	}
+
+	/**
+	 * Gets the number of tuples of a set of parameters
+	 * @param s The number of the set
+	 * @return The number of tuples
+	 */
+	public int getSubsetSize(int s)
+	{
+		return m_offsets[s + 1] - m_offsets[s];
+	}
+
+	/**
+	 * Gets the set of parameters of a tuple
+	 * @param tuple The number of the tuple
+	 * @return The number of the set
+	 */
+	public int getSubsetOf(int tuple)
+	{
+		// Sets have at least one tuple: offsets are strictly increasing
+		int s = Arrays.binarySearch(m_offsets, tuple);
+		return s < 0 ? -s - 2 : s;
+	}
+
+	/**
+	 * Gets the values of a tuple
+	 * @param tuple The number of the tuple
+	 * @param values An array of <i>t</i> elements receiving the index of the
+	 * value of each parameter of the set, in the order of the set
+	 * @return The number of the set of parameters of the tuple
+	 */
+	public int decode(int tuple, int[] values)
+	{
+		int s = getSubsetOf(tuple);
+		int rank = tuple - m_offsets[s];
+		int[] subset = m_subsets[s];
+		for (int i = 0; i < subset.length; i++)
+		{
+			int size = m_domainSizes[subset[i]];
+			values[i] = rank % size;
+			rank /= size;
+		}
+		return s;
+	}
+
+	/**
+	 * Gets the tuple that a valuation of all the parameters gives to a set
+	 * of parameters
+	 * @param s The number of the set
+	 * @param valuation The index of the value of each parameter
+	 * @return The number of the tuple
+	 */
+	public int getTuple(int s, int[] valuation)
+	{
+		int[] subset = m_subsets[s];
+		int rank = 0;
+		for (int i = subset.length - 1; i >= 0; i--)
+		{
+			rank = rank * m_domainSizes[subset[i]] + valuation[subset[i]];
+		}
+		return m_offsets[s] + rank;
+	}
+
+	/**
+	 * Gets the number of a set of <i>t</i> parameters, which is its rank in
+	 * the combinatorial number system
+	 * @param combination The parameters of the set, in increasing order
+	 * @return The number of the set
+	 */
+	public static int getSubsetIndex(int[] combination)
+	{
+		long rank = 0;
+		for (int i = 0; i < combination.length; i++)
+		{
+			rank += binomial(combination[i], i + 1);
+		}
+		return (int) rank;
+	}
+
+	/**
+	 * Computes a binomial coefficient
+	 * @param n The size of the set
+	 * @param k The size of the subsets
+	 * @return The number of subsets of size <i>k</i> of a set of size
+	 * <i>n</i>
+	 */
+	public static long binomial(int n, int k)
+	{
+		if (k < 0 || k > n)
+		{
+			return 0;
+		}
+		long c = 1;
+		for (int i = 1; i <= Math.min(k, n - k); i++)
+		{
+			c = c * (n - i + 1) / i;
+		}
+		return c;
+	}
+
+	/**
+	 * Moves to the next set of <i>t</i> parameters in colexicographic order
+	 * @param combination The parameters of the set, in increasing order
+	 * @param n The number of parameters
+	 * @return <tt>false</tt> if all sets have been enumerated
+	 */
+	public static boolean nextCombination(int[] combination, int n)
+	{
+		int t = combination.length;
+		for (int j = 0; j < t; j++)
+		{
+			int limit = j == t - 1 ? n : combination[j + 1];
+			if (combination[j] + 1 < limit)
+			{
+				combination[j]++;
+				for (int i = 0; i < j; i++)
+				{
+					combination[i] = i;
+				}
+				return true;
+			}
+		}
+		return false;
+	}
+}
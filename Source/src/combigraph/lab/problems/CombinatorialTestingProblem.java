@@ -31,6 +31,14 @@ public abstract class CombinatorialTestingProblem
 	 * The name of the paramater "testing problem"
 	 */
 	public static final transient String TESTING_PROBLEM_NAME = "Testing problem";
+
+	/**
+	 * The version of the input files generated by the problems. This number
+	 * is part of the key of each file in the input cache, and must be
+	 * incremented whenever the contents produced by
+	 * {@link #generateFor(String, PrintStream)} change.
+	 */
+	public static final transient int GENERATOR_VERSION = 2;
 	
 	/**
 	 * A random number generator
@@ -77,6 +85,17 @@ public abstract class CombinatorialTestingProblem
 	 * @return The filename
 	 */
 	public abstract String getFilenameFor(String tool_name);
+
+	/**
+	 * Produces a string identifying this instance of the testing problem.
+	 * Two instances with the same key must generate the same input files
+	 * for every tool.
+	 * @return The key
+	 */
+	public String getInstanceKey()
+	{
+		return getClass().getName();
+	}
 	
 	/**
 	 * Generates the command line to run a given tool
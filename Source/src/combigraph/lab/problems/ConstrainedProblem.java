@@ -18,17 +18,29 @@
  */
 package combigraph.lab.problems;
 
-import java.io.File;
 import java.io.IOException;
 import java.io.PrintStream;
+import java.text.ParseException;
+import java.util.Arrays;
+import java.util.List;
 
-import ca.uqac.lif.labpal.CommandRunner;
 import ca.uqac.lif.labpal.ExperimentException;
 import ca.uqac.lif.labpal.Random;
+import combigraph.lab.conditions.Condition;
+import combigraph.lab.conditions.ConditionGraphGenerator;
+import combigraph.lab.conditions.ConditionHypergraphGenerator;
+import combigraph.lab.conditions.QictSpecification;
+import combigraph.lab.coverage.CoverageVerifier;
 import combigraph.lab.experiments.ActsTestGenerationExperiment;
 import combigraph.lab.experiments.ColoringTestGenerationExperiment;
+import combigraph.lab.experiments.DsaturTestGenerationExperiment;
+import combigraph.lab.experiments.GreedyHittingSetExperiment;
 import combigraph.lab.experiments.HypergraphTestGenerationExperiment;
 import combigraph.lab.experiments.JennyTestGenerationExperiment;
+import combigraph.lab.experiments.MultiStartColouringExperiment;
+import combigraph.lab.graphs.Graph;
+import combigraph.lab.graphs.Hypergraph;
+import combigraph.lab.graphs.TupleNumbering;
 
 /**
  * Classical "t-way" problem, to which extra constraints are added
@@ -62,6 +74,17 @@ public abstract class ConstrainedProblem extends TWayProblem
 			generateGraph(ps, true);
 			break;
 		}
+		case DsaturTestGenerationExperiment.NAME:
+		case MultiStartColouringExperiment.NAME:
+		{
+			writeBinaryGraph(ps, false);
+			break;
+		}
+		case GreedyHittingSetExperiment.NAME:
+		{
+			writeBinaryGraph(ps, true);
+			break;
+		}
 		case ActsTestGenerationExperiment.NAME:
 		{
 			super.generateFor(ActsTestGenerationExperiment.NAME, ps);
@@ -74,50 +97,102 @@ public abstract class ConstrainedProblem extends TWayProblem
 		}
 	}
 
-	protected void generateGraph(PrintStream ps, boolean hypergraph) throws ExperimentException, IOException
-	{
-		File temp = File.createTempFile("temp-input-FOO", ".ncond");
-		PrintStream in_ps = new PrintStream(temp);
-		printQictDomains(in_ps);
-		generateQictConstraintString(in_ps);
-		in_ps.close();
-		String[] command = {"php", "variables-to-graph.php", 
-				Integer.toString(m_t), temp.getAbsolutePath()};
-		if (hypergraph)
-		{
-			command =  new String[] {"php", "variables-to-hypergraph.php", "-t", 
-					Integer.toString(m_t), "--edn", temp.getAbsolutePath()};
-		}
-		CommandRunner runner = new CommandRunner(command);
-		runner.run();
-		String s_graph_contents = runner.getString();
-		if (s_graph_contents == null || s_graph_contents.trim().isEmpty())
-		{
-			throw new ExperimentException("Error when generating the graph");
-		}
-		ps.print(s_graph_contents);
-		temp.delete();
-	}
-
 	/**
-	 * Prints the domains for each parameter using the QICT file syntax
-	 * @param ps The print stream where to print these domains
+	 * Generates the graph (for the coloring tool) or the hypergraph (for
+	 * the hitting-set tool) of this problem
+	 * @param ps The print stream where the graph is written
+	 * @param hypergraph Set to <tt>true</tt> to generate the hypergraph
+	 * @throws ExperimentException If the graph cannot be generated
 	 */
-	protected void printQictDomains(PrintStream ps)
+	protected void generateGraph(PrintStream ps, boolean hypergraph) throws ExperimentException
 	{
-		for (int n_i = 0; n_i < m_n; n_i++)
+		try
 		{
-			ps.print("p" + n_i + ": ");
-			for (int v_i = 0; v_i < m_v; v_i++)
+			QictSpecification spec = getQictSpecification();
+			if (hypergraph)
+			{
+				ConditionHypergraphGenerator generator = new ConditionHypergraphGenerator(spec, m_t);
+				generator.setCovered(getCoveredTuples());
+				generator.generate(ps);
+			}
+			else
 			{
-				if (v_i > 0)
-				{
-					ps.print(", ");
-				}
-				ps.print(v_i);
+				new ConditionGraphGenerator(spec, m_t, getCoveredTuples()).generate(ps);
 			}
-			ps.println();
 		}
+		catch (ParseException e)
+		{
+			throw new ExperimentException(e);
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new ExperimentException(e);
+		}
+	}
+
+	@Override
+	public Graph buildGraph() throws ExperimentException
+	{
+		try
+		{
+			return new ConditionGraphGenerator(getQictSpecification(), m_t, getCoveredTuples()).buildGraph();
+		}
+		catch (ParseException e)
+		{
+			throw new ExperimentException(e);
+		}
+	}
+
+	@Override
+	public Hypergraph buildHypergraph() throws ExperimentException, InterruptedException
+	{
+		try
+		{
+			ConditionHypergraphGenerator generator = new ConditionHypergraphGenerator(getQictSpecification(), m_t);
+			generator.setCovered(getCoveredTuples());
+			return generator.buildHypergraph();
+		}
+		catch (ParseException e)
+		{
+			throw new ExperimentException(e);
+		}
+	}
+
+	@Override
+	public CoverageVerifier getCoverageVerifier() throws ExperimentException
+	{
+		try
+		{
+			// The domains of the specification are 0, ..., v-1
+			QictSpecification spec = getQictSpecification();
+			return new CoverageVerifier(new TupleNumbering(m_t, getDomainSizes()), spec.getAlwaysConditions(), spec.getOnceConditions());
+		}
+		catch (ParseException e)
+		{
+			throw new ExperimentException(e);
+		}
+	}
+
+	@Override
+	protected int[][] getOnceAssignments() throws ExperimentException
+	{
+		List<Condition> once;
+		try
+		{
+			once = getQictSpecification().getOnceConditions();
+		}
+		catch (ParseException e)
+		{
+			throw new ExperimentException(e);
+		}
+		int[][] assignments = new int[once.size()][m_n];
+		for (int k = 0; k < assignments.length; k++)
+		{
+			Arrays.fill(assignments[k], Condition.UNSET);
+			once.get(k).fillAssignment(assignments[k]);
+		}
+		return assignments;
 	}
 
 	/**
@@ -18,7 +18,6 @@
  */
 package combigraph.lab.problems;
 
-import java.io.File;
 import java.io.IOException;
 import java.io.PrintStream;
 import java.util.ArrayList;
@@ -33,6 +32,7 @@ import combigraph.lab.experiments.HypergraphTestGenerationExperiment;
 import combigraph.lab.experiments.JennyTestGenerationExperiment;
 import combigraph.lab.experiments.TcasesTestGenerationExperiment;
 import combigraph.lab.experiments.TestingProblemExperiment;
+import combigraph.lab.graphs.CsrFormat;
 
 public class ForbiddenTuples extends UniversalProblem
 {
@@ -115,6 +115,10 @@ public class ForbiddenTuples extends UniversalProblem
 		{
 			extension = ".edn";
 		}
+		if (readsBinaryGraph(tool_name))
+		{
+			extension = CsrFormat.EXTENSION;
+		}
 		if (tool_name.compareTo(TcasesTestGenerationExperiment.NAME) == 0)
 		{
 			extension = ".tcases";
@@ -122,6 +126,12 @@ public class ForbiddenTuples extends UniversalProblem
 		return TestingProblemExperiment.s_folder + tool_name + "-forbidden-" + m_t + "-" + m_v + "-" + m_n + "-" + m_fractionVars + "-" + m_fractionValues + extension;
 	}
 
+	@Override
+	public String getInstanceKey()
+	{
+		return super.getInstanceKey() + "," + FRACTION_VARS + "=" + m_fractionVars + "," + FRACTION_VALUES + "=" + m_fractionValues;
+	}
+
 	@Override
 	protected void generateQictConstraintString(PrintStream ps)
 	{
@@ -206,11 +216,6 @@ public class ForbiddenTuples extends UniversalProblem
 		ps.println("  </Input>");
 		ps.println(" </Function>");
 		ps.println("</System>");
-		PrintStream ps_gen = new PrintStream(new File(TestingProblemExperiment.s_folder + "Tcases-t-" + m_t + ".xml"));
-		ps_gen.println("<Generators>");
-		ps_gen.println(" <TupleGenerator tuples=\"" + m_t + "\" />");
-		ps_gen.println("</Generators>");
-		ps_gen.close();
 	}
 
 	@Override
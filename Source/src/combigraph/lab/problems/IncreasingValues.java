@@ -30,6 +30,7 @@ import combigraph.lab.experiments.HypergraphTestGenerationExperiment;
 import combigraph.lab.experiments.JennyTestGenerationExperiment;
 import combigraph.lab.experiments.TcasesTestGenerationExperiment;
 import combigraph.lab.experiments.TestingProblemExperiment;
+import combigraph.lab.graphs.CsrFormat;
 
 public class IncreasingValues extends UniversalProblem
 {
@@ -88,6 +89,10 @@ public class IncreasingValues extends UniversalProblem
 		{
 			extension = ".edn";
 		}
+		if (readsBinaryGraph(tool_name))
+		{
+			extension = CsrFormat.EXTENSION;
+		}
 		if (tool_name.compareTo(TcasesTestGenerationExperiment.NAME) == 0)
 		{
 			extension = ".tcases";
@@ -18,10 +18,14 @@
  */
 package combigraph.lab.problems;
 
-import java.io.File;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.PrintStream;
+import java.io.StringReader;
+import java.text.ParseException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
 import ca.uqac.lif.labpal.Experiment;
@@ -29,14 +33,27 @@ import ca.uqac.lif.labpal.ExperimentException;
 import ca.uqac.lif.labpal.Random;
 import ca.uqac.lif.testing.tway.DotGraphGenerator;
 import ca.uqac.lif.testing.tway.EdnGenerator;
+import combigraph.lab.conditions.Condition;
+import combigraph.lab.conditions.QictSpecification;
+import combigraph.lab.coverage.CoverageMatrix;
+import combigraph.lab.coverage.CoverageVerifier;
 import combigraph.lab.experiments.ActsTestGenerationExperiment;
 import combigraph.lab.experiments.AllPairsTestGenerationExperiment;
 import combigraph.lab.experiments.CasaTestGenerationExperiment;
 import combigraph.lab.experiments.ColoringTestGenerationExperiment;
+import combigraph.lab.experiments.DsaturTestGenerationExperiment;
+import combigraph.lab.experiments.GreedyHittingSetExperiment;
 import combigraph.lab.experiments.HypergraphTestGenerationExperiment;
+import combigraph.lab.experiments.MultiStartColouringExperiment;
 import combigraph.lab.experiments.TcasesTestGenerationExperiment;
 import combigraph.lab.experiments.TestingProblemExperiment;
 import combigraph.lab.experiments.VPTagTestGenerationExperiment;
+import combigraph.lab.graphs.CsrFormat;
+import combigraph.lab.graphs.Graph;
+import combigraph.lab.graphs.Hypergraph;
+import combigraph.lab.graphs.ImplicitTWayGraph;
+import combigraph.lab.graphs.ImplicitTWayHypergraph;
+import combigraph.lab.graphs.TupleNumbering;
 
 /**
  * Classical combinatorial test generation problem.
@@ -151,6 +168,17 @@ public class TWayProblem extends CombinatorialTestingProblem
 			h_gen.generateTWayEdges();
 			break;
 		}
+		case DsaturTestGenerationExperiment.NAME:
+		case MultiStartColouringExperiment.NAME:
+		{
+			writeBinaryGraph(ps, false);
+			break;
+		}
+		case GreedyHittingSetExperiment.NAME:
+		{
+			writeBinaryGraph(ps, true);
+			break;
+		}
 		case TcasesTestGenerationExperiment.NAME:
 		{
 			ps.println("<System name=\"foo\">");
@@ -168,11 +196,6 @@ public class TWayProblem extends CombinatorialTestingProblem
 			ps.println("  </Input>");
 			ps.println(" </Function>");
 			ps.println("</System>");
-			PrintStream ps_gen = new PrintStream(new File(TestingProblemExperiment.s_folder + "Tcases-t-" + m_t + ".xml"));
-			ps_gen.println("<Generators>");
-			ps_gen.println(" <TupleGenerator tuples=\"" + m_t + "\" />");
-			ps_gen.println("</Generators>");
-			ps_gen.close();
 			break;
 		}
 		case VPTagTestGenerationExperiment.NAME:
@@ -245,6 +268,7 @@ public class TWayProblem extends CombinatorialTestingProblem
 	@Override
 	public String getFilenameFor(String tool_name)
 	{
+		String prefix = tool_name;
 		String extension = ".txt";
 		switch (tool_name)
 		{
@@ -254,7 +278,13 @@ public class TWayProblem extends CombinatorialTestingProblem
 		case HypergraphTestGenerationExperiment.NAME:
 			extension = ".edn";
 			break;
+		case DsaturTestGenerationExperiment.NAME:
+		case MultiStartColouringExperiment.NAME:
+		case GreedyHittingSetExperiment.NAME:
+			extension = CsrFormat.EXTENSION;
+			break;
 		case VPTagTestGenerationExperiment.NAME:
+			prefix = VPTagTestGenerationExperiment.FILE_PREFIX;
 			extension = ".fam";
 			break;
 		case TcasesTestGenerationExperiment.NAME:
@@ -264,7 +294,289 @@ public class TWayProblem extends CombinatorialTestingProblem
 			extension = ".citmodel";
 			break;
 		}
-		return TestingProblemExperiment.s_folder + tool_name + "-comb-" + m_t + "-" + m_v + "-" + m_n + extension;
+		return TestingProblemExperiment.s_folder + prefix + "-comb-" + m_t + "-" + m_v + "-" + m_n + extension;
+	}
+
+	/**
+	 * Gets the parameters, domains and constraints of this problem, as they
+	 * are described by {@link #printQictDomains(PrintStream)} and
+	 * {@link #generateQictConstraintString(PrintStream)}
+	 * @return The specification
+	 * @throws ParseException If the constraints cannot be parsed
+	 */
+	public QictSpecification getQictSpecification() throws ParseException
+	{
+		ByteArrayOutputStream baos = new ByteArrayOutputStream();
+		PrintStream in_ps = new PrintStream(baos);
+		printQictDomains(in_ps);
+		generateQictConstraintString(in_ps);
+		in_ps.close();
+		try
+		{
+			return QictSpecification.parse(new StringReader(baos.toString()));
+		}
+		catch (IOException e)
+		{
+			// Cannot happen when reading from a string
+			throw new ParseException(e.getMessage(), 0);
+		}
+	}
+
+	/**
+	 * Builds the graph of this problem for the in-JVM colouring tools. A
+	 * problem without constraints has an implicit graph, whose edges are
+	 * computed on demand; its vertices are numbered like those written for
+	 * the coloring tool.
+	 * @return The graph
+	 * @throws ExperimentException If the graph cannot be built
+	 */
+	public Graph buildGraph() throws ExperimentException
+	{
+		return new ImplicitTWayGraph(m_t, getDomainSizes());
+	}
+
+	/**
+	 * Builds the hypergraph of this problem for the in-JVM hitting-set
+	 * tools. A problem without constraints has an implicit hypergraph,
+	 * whose edges are computed on demand.
+	 * @return The hypergraph
+	 * @throws ExperimentException If the hypergraph cannot be built
+	 * @throws InterruptedException If the thread is interrupted while the
+	 * hypergraph is being built
+	 */
+	public Hypergraph buildHypergraph() throws ExperimentException, InterruptedException
+	{
+		return new ImplicitTWayHypergraph(m_t, getDomainSizes());
+	}
+
+	/**
+	 * Writes the graph or the hypergraph of this problem in the binary CSR
+	 * format read by the in-JVM tools
+	 * @param os The stream where the graph is written
+	 * @param hypergraph Set to <tt>true</tt> to write the hypergraph
+	 * @throws ExperimentException If the graph cannot be built
+	 * @throws IOException If the graph cannot be written
+	 */
+	public void writeBinaryGraph(OutputStream os, boolean hypergraph) throws ExperimentException, IOException
+	{
+		if (!hypergraph)
+		{
+			CsrFormat.writeGraph(buildGraph(), os);
+			return;
+		}
+		try
+		{
+			CsrFormat.writeHypergraph(buildHypergraph(), os);
+		}
+		catch (InterruptedException e)
+		{
+			Thread.currentThread().interrupt();
+			throw new ExperimentException(e);
+		}
+	}
+
+	/**
+	 * Determines if a tool reads the graph or the hypergraph of a problem
+	 * from a file in the binary CSR format
+	 * @param tool_name The name of the tool
+	 * @return <tt>true</tt> if the tool reads a binary graph, <tt>false</tt>
+	 * otherwise
+	 */
+	public static boolean readsBinaryGraph(String tool_name)
+	{
+		return tool_name.compareTo(DsaturTestGenerationExperiment.NAME) == 0 ||
+				tool_name.compareTo(MultiStartColouringExperiment.NAME) == 0 ||
+				tool_name.compareTo(GreedyHittingSetExperiment.NAME) == 0;
+	}
+
+	/**
+	 * Creates a verifier checking that a test suite is a solution to this
+	 * problem
+	 * @return The verifier
+	 * @throws ExperimentException If the verifier cannot be created
+	 */
+	public CoverageVerifier getCoverageVerifier() throws ExperimentException
+	{
+		return new CoverageVerifier(new TupleNumbering(m_t, getDomainSizes()));
+	}
+
+	/**
+	 * Converts a colouring of the graph of this problem into a test suite.
+	 * Each colour becomes a test case giving their values to the parameters
+	 * fixed by the vertices of this colour; the other parameters are given
+	 * their first value. The graph has one vertex for each tuple that is not
+	 * {@link #getCoveredTuples() covered}, followed by one vertex for each
+	 * "once" condition.
+	 * @param colours The colour of each vertex of the graph
+	 * @param colour_count The number of colours
+	 * @return The test cases
+	 * @throws ExperimentException If the vertices cannot be decoded
+	 */
+	public int[][] getColouringRows(int[] colours, int colour_count) throws ExperimentException
+	{
+		TupleNumbering tuples = new TupleNumbering(m_t, getDomainSizes());
+		int[] vertex_tuples = getVertexTuples(tuples);
+		int[][] once = getOnceAssignments();
+		int[][] rows = new int[colour_count][m_n];
+		int[] values = new int[m_t];
+		for (int vertex = 0; vertex < colours.length; vertex++)
+		{
+			int[] row = rows[colours[vertex]];
+			if (vertex < vertex_tuples.length)
+			{
+				int[] subset = tuples.getSubset(tuples.decode(vertex_tuples[vertex], values));
+				for (int i = 0; i < subset.length; i++)
+				{
+					row[subset[i]] = values[i];
+				}
+				continue;
+			}
+			int[] assignment = once[vertex - vertex_tuples.length];
+			for (int p = 0; p < m_n; p++)
+			{
+				if (assignment[p] != Condition.UNSET)
+				{
+					row[p] = assignment[p];
+				}
+			}
+		}
+		return rows;
+	}
+
+	/**
+	 * Converts a hitting set of the hypergraph of this problem into a test
+	 * suite. Vertices are valuations of all the parameters, numbered in
+	 * mixed radix with the first parameter varying fastest.
+	 * @param vertices The vertices of the hitting set
+	 * @return The test cases
+	 */
+	public int[][] getHittingSetRows(int[] vertices)
+	{
+		int[] sizes = getDomainSizes();
+		int[][] rows = new int[vertices.length][m_n];
+		for (int i = 0; i < vertices.length; i++)
+		{
+			long vertex = vertices[i];
+			for (int p = 0; p < m_n; p++)
+			{
+				rows[i][p] = (int) (vertex % sizes[p]);
+				vertex /= sizes[p];
+			}
+		}
+		return rows;
+	}
+
+	/**
+	 * Gets the tuple of each vertex of the graph of this problem that
+	 * stands for a tuple
+	 * @param tuples The numbering of the tuples
+	 * @return The number of the tuple of each vertex
+	 * @throws ExperimentException If the covered tuples cannot be computed
+	 */
+	protected int[] getVertexTuples(TupleNumbering tuples) throws ExperimentException
+	{
+		CoverageMatrix covered = getCoveredTuples();
+		if (covered == null)
+		{
+			int[] vertex_tuples = new int[tuples.getTupleCount()];
+			for (int i = 0; i < vertex_tuples.length; i++)
+			{
+				vertex_tuples[i] = i;
+			}
+			return vertex_tuples;
+		}
+		int[] vertex_tuples = new int[(int) covered.getUncoveredCount()];
+		int vertex = 0;
+		for (int s = 0; s < tuples.getSubsetCount(); s++)
+		{
+			for (int i = covered.nextUncovered(s, 0); i >= 0; i = covered.nextUncovered(s, i + 1))
+			{
+				vertex_tuples[vertex++] = tuples.getFirstTuple(s) + i;
+			}
+		}
+		return vertex_tuples;
+	}
+
+	/**
+	 * Gets the tuples that the graph and the hypergraph of this problem
+	 * leave out, because every solution to the problem covers them
+	 * @return The tuples, or null if no tuple is left out
+	 * @throws ExperimentException If the covered tuples cannot be computed
+	 */
+	protected CoverageMatrix getCoveredTuples() throws ExperimentException
+	{
+		return null;
+	}
+
+	/**
+	 * Gets the values fixed by each "once" condition of this problem, in
+	 * the order of the vertices that these conditions add to the graph
+	 * @return The value of each parameter for each condition, or
+	 * {@link Condition#UNSET} for the parameters a condition does not fix.
+	 * A problem without conditions has none.
+	 * @throws ExperimentException If the conditions cannot be read
+	 */
+	protected int[][] getOnceAssignments() throws ExperimentException
+	{
+		return new int[0][];
+	}
+
+	/**
+	 * Gets the test cases that a test suite for this problem must include.
+	 * A problem without pre-existing tests has none.
+	 * @return The test cases
+	 */
+	public List<int[]> getExistingTests()
+	{
+		return new ArrayList<int[]>(0);
+	}
+
+	/**
+	 * Gets the size of the domain of each parameter
+	 * @return The sizes
+	 */
+	public int[] getDomainSizes()
+	{
+		int[] sizes = new int[m_n];
+		Arrays.fill(sizes, m_v);
+		return sizes;
+	}
+
+	/**
+	 * Prints the domains for each parameter using the QICT file syntax
+	 * @param ps The print stream where to print these domains
+	 */
+	protected void printQictDomains(PrintStream ps)
+	{
+		for (int n_i = 0; n_i < m_n; n_i++)
+		{
+			ps.print("p" + n_i + ": ");
+			for (int v_i = 0; v_i < m_v; v_i++)
+			{
+				if (v_i > 0)
+				{
+					ps.print(", ");
+				}
+				ps.print(v_i);
+			}
+			ps.println();
+		}
+	}
+
+	/**
+	 * Prints the set of constraints for this problem using the extended
+	 * QICT file syntax format. A t-way problem has no constraints.
+	 * @param ps The print stream where to print these constraints
+	 */
+	protected void generateQictConstraintString(PrintStream ps)
+	{
+		// No constraint
+	}
+
+	@Override
+	public String getInstanceKey()
+	{
+		return super.getInstanceKey() + ",t=" + m_t + ",v=" + m_v + ",n=" + m_n;
 	}
 
 	@Override
@@ -26,12 +26,18 @@ import java.util.List;
 import ca.uqac.lif.labpal.Experiment;
 import ca.uqac.lif.labpal.ExperimentException;
 import ca.uqac.lif.labpal.Random;
+import combigraph.lab.coverage.CoverageMatrix;
 import combigraph.lab.experiments.ActsTestGenerationExperiment;
 import combigraph.lab.experiments.ColoringTestGenerationExperiment;
+import combigraph.lab.experiments.DsaturTestGenerationExperiment;
+import combigraph.lab.experiments.GreedyHittingSetExperiment;
 import combigraph.lab.experiments.HypergraphTestGenerationExperiment;
+import combigraph.lab.experiments.IpogTestGenerationExperiment;
 import combigraph.lab.experiments.JennyTestCompletionExperiment;
 import combigraph.lab.experiments.JennyTestGenerationExperiment;
+import combigraph.lab.experiments.MultiStartColouringExperiment;
 import combigraph.lab.experiments.TestingProblemExperiment;
+import combigraph.lab.graphs.CsrFormat;
 
 public class TestSuiteCompletion extends ExistentialProblem
 {
@@ -51,9 +57,16 @@ public class TestSuiteCompletion extends ExistentialProblem
 	protected int m_numTests;
 	
 	/**
-	 * The set of pre-existing tests generated for this problem
+	 * The set of pre-existing tests generated for this problem. It is
+	 * generated on first use by {@link #getExistingTests()}.
 	 */
 	protected transient List<int[]> m_tests;
+
+	/**
+	 * The tuples covered by the pre-existing tests, which the graph and the
+	 * hypergraph of this problem leave out
+	 */
+	protected transient CoverageMatrix m_covered;
 	
 	/**
 	 * Creates a new instance of the t-way test case generation with 
@@ -69,6 +82,7 @@ public class TestSuiteCompletion extends ExistentialProblem
 		super(random, t, v, n);
 		m_numTests = num_tests;
 		m_tests = null;
+		m_covered = null;
 	}
 	
 	@Override
@@ -76,21 +90,21 @@ public class TestSuiteCompletion extends ExistentialProblem
 	{
 		if (tool_name.compareTo(HypergraphTestGenerationExperiment.NAME) == 0 ||
 				tool_name.compareTo(ColoringTestGenerationExperiment.NAME) == 0 ||
+				tool_name.compareTo(DsaturTestGenerationExperiment.NAME) == 0 ||
+				tool_name.compareTo(MultiStartColouringExperiment.NAME) == 0 ||
+				tool_name.compareTo(GreedyHittingSetExperiment.NAME) == 0 ||
+				tool_name.compareTo(IpogTestGenerationExperiment.NAME) == 0 ||
 				tool_name.compareTo(JennyTestCompletionExperiment.NAME) == 0 ||
 				tool_name.compareTo(ActsTestGenerationExperiment.NAME) == 0
 				)
 		{
-			// Only ACTS, hypergraph, coloring and Jenny support test suite completion
+			// Only ACTS, IPOG, hypergraph, coloring (external or in-JVM) and
+			// Jenny support test suite completion
 			return true;
 		}
 		return false;
 	}
 	
-	public String getJennySeedFilename()
-	{
-		return TestingProblemExperiment.s_folder + "Jenny-completion-" + m_t + "-" + m_v + "-" + m_n + "-" + m_numTests + "-seed.txt";
-	}
-	
 	@Override
 	public String getFilenameFor(String tool_name)
 	{
@@ -103,9 +117,20 @@ public class TestSuiteCompletion extends ExistentialProblem
 		{
 			extension = ".edn";
 		}
+		if (readsBinaryGraph(tool_name))
+		{
+			extension = CsrFormat.EXTENSION;
+		}
 		return TestingProblemExperiment.s_folder + tool_name + "-completion-" + m_t + "-" + m_v + "-" + m_n + "-" + m_numTests + "-" + extension;
 	}
 
+	@Override
+	public String getInstanceKey()
+	{
+		// The existing tests depend on the seed of the random generator
+		return super.getInstanceKey() + ",tests=" + m_numTests + ",seed=" + m_random.getSeed();
+	}
+
 	@Override
 	public String getName()
 	{
@@ -127,10 +152,7 @@ public class TestSuiteCompletion extends ExistentialProblem
 	@Override
 	public void generateFor(String tool_name, PrintStream ps) throws IOException, ExperimentException
 	{
-		if (m_tests == null)
-		{
-			m_tests = generateExistingTests();
-		}
+		getExistingTests();
 		switch (tool_name)
 		{
 		default:
@@ -140,34 +162,54 @@ public class TestSuiteCompletion extends ExistentialProblem
 	}
 	
 	/**
-	 * Creates a list of a predefined number of randomly-generated test cases
-	 * @param random The random number generator used to generate the tests.
-	 * Method {@link Random#reseed() reseed()} of the RNG is called before
-	 * generating the tests, so that every call to this method generates the
-	 * same list. 
+	 * Creates a list of a predefined number of randomly-generated test
+	 * cases, and records the tuples they cover in {@link #m_covered}. The
+	 * tests are drawn from a generator of their own, seeded with the seed of
+	 * the lab's generator, so that every call to this method generates the
+	 * same list, even while other problems generate theirs.
 	 * @return The list of test cases
 	 */
 	protected List<int[]> generateExistingTests()
 	{
-		m_random.reseed();
+		java.util.Random random = new java.util.Random(m_random.getSeed());
+		CoverageMatrix covered = new CoverageMatrix(m_t, getDomainSizes());
 		List<int[]> out_list = new ArrayList<int[]>(m_numTests);
 		for (int n_t = 0; n_t < m_numTests; n_t++)
 		{
 			int[] test = new int[m_n];
 			for (int n_i = 0; n_i < m_n; n_i++)
 			{
-				test[n_i] = m_random.nextInt(m_v);
+				test[n_i] = random.nextInt(m_v);
 			}
 			out_list.add(test);
+			covered.addRow(test);
 		}
+		m_covered = covered;
 		return out_list;
 	}
 
+	@Override
+	public synchronized List<int[]> getExistingTests()
+	{
+		if (m_tests == null)
+		{
+			m_tests = generateExistingTests();
+		}
+		return m_tests;
+	}
+
+	@Override
+	protected synchronized CoverageMatrix getCoveredTuples()
+	{
+		getExistingTests();
+		return m_covered;
+	}
+
 	@Override
 	protected void generateQictConstraintString(PrintStream ps)
 	{
 		ps.println();
-		for (int[] test : m_tests)
+		for (int[] test : getExistingTests())
 		{
 			ps.print("Once ");
 			for (int i = 0; i < test.length; i++)
@@ -196,7 +238,7 @@ public class TestSuiteCompletion extends ExistentialProblem
 			ps.print("p" + (i + 1));
 		}
 		ps.println();
-		for (int[] test : m_tests)
+		for (int[] test : getExistingTests())
 		{
 			for (int i = 0; i < test.length; i++)
 			{
@@ -213,11 +255,7 @@ public class TestSuiteCompletion extends ExistentialProblem
 	@Override
 	public void writeJennySeedFile(PrintStream ps)
 	{
-		if (m_tests == null)
-		{
-			m_tests = generateExistingTests();
-		}
-		for (int[] test : m_tests)
+		for (int[] test : getExistingTests())
 		{
 			ps.print(" ");
 			for (int i = 0; i < test.length; i++)